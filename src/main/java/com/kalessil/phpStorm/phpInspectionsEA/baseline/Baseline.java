@@ -0,0 +1,151 @@
+package com.kalessil.phpStorm.phpInspectionsEA.baseline;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiEquivalenceUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Known problems to be suppressed: one `<inspection>\t<file>\t<fingerprint>` line per problem, sorted (see
+    BaselineWriter). Fingerprints are built from the enclosing function/class FQN and the element structure, so they
+    are surviving line shifts and formatting changes; repeated fingerprints in a file are numbered in document order.
+ */
+final public class Baseline {
+    private static final Logger LOG = Logger.getInstance(Baseline.class);
+
+    public static final String FILE_NAME = ".php-inspections-ea.baseline";
+    public static final Baseline EMPTY   = new Baseline(Collections.emptySet());
+
+    private static final Key<CachedValue<Baseline>> baselineKey = Key.create("kalessil.phpStorm.phpInspectionsEA.baseline");
+
+    @NotNull
+    private final Set<String> entries;
+
+    private Baseline(@NotNull Set<String> entries) {
+        this.entries = entries;
+    }
+
+    @NotNull
+    public static Baseline load(@NotNull Reader source) throws IOException {
+        final Set<String> entries = new HashSet<>();
+        try (final BufferedReader reader = new BufferedReader(source)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && line.charAt(0) != '#') {
+                    entries.add(line);
+                }
+            }
+        }
+        return entries.isEmpty() ? EMPTY : new Baseline(entries);
+    }
+
+    /* the baseline file in the project base directory, re-loaded when changed */
+    @NotNull
+    public static Baseline forProject(@NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(
+                project,
+                baselineKey,
+                () -> {
+                    final VirtualFile baseDir = project.getBaseDir();
+                    final VirtualFile file    = baseDir == null ? null : baseDir.findChild(FILE_NAME);
+                    Baseline baseline         = EMPTY;
+                    if (file != null && file.isValid()) {
+                        try {
+                            baseline = load(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+                        } catch (final IOException failure) {
+                            LOG.warn("Could not load the baseline: " + file.getPath(), failure);
+                        }
+                    }
+                    return file == null
+                            ? CachedValueProvider.Result.create(baseline, VirtualFileManager.getInstance())
+                            : CachedValueProvider.Result.create(baseline, VirtualFileManager.getInstance(), file);
+                },
+                false
+        );
+    }
+
+    public boolean isEmpty() {
+        return this.entries.isEmpty();
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public boolean contains(@NotNull String inspection, @NotNull String file, @NotNull String fingerprint) {
+        return this.entries.contains(toEntry(inspection, file, fingerprint));
+    }
+
+    @NotNull
+    static String toEntry(@NotNull String inspection, @NotNull String file, @NotNull String fingerprint) {
+        return inspection + '\t' + file + '\t' + fingerprint;
+    }
+
+    /* relative to the project base directory, '/'-separated */
+    @NotNull
+    public static String getPath(@NotNull Project project, @NotNull VirtualFile file) {
+        final VirtualFile baseDir = project.getBaseDir();
+        final String relative     = baseDir == null ? null : VfsUtilCore.getRelativePath(file, baseDir, '/');
+        return relative == null ? file.getPath() : relative;
+    }
+
+    @NotNull
+    public static String getFingerprint(@NotNull PsiElement element) {
+        final PsiElement context = PsiTreeUtil.getParentOfType(element, Function.class, PhpClass.class);
+        final String scope;
+        if (context instanceof Function) {
+            scope = ((Function) context).getFQN();
+        } else if (context instanceof PhpClass) {
+            scope = ((PhpClass) context).getFQN();
+        } else {
+            scope = "";
+        }
+        final int structure = element instanceof PsiFile ? 0 : OpenapiEquivalenceUtil.getFingerprint(element);
+        return String.format("%08x%08x", scope.hashCode(), structure);
+    }
+
+    /* numbers repeated fingerprints of an inspection in a file, in the problems registration order */
+    final public static class Occurrences {
+        private final Map<String, Integer> counters = new HashMap<>();
+
+        @NotNull
+        public String next(@NotNull String fingerprint) {
+            final int index = this.counters.merge(fingerprint, 1, Integer::sum) - 1;
+            return index == 0 ? fingerprint : fingerprint + ':' + index;
+        }
+
+        @NotNull
+        public String next(@Nullable PsiElement element) {
+            return this.next(element == null ? "" : getFingerprint(element));
+        }
+    }
+}
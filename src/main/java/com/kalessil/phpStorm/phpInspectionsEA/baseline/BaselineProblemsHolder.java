@@ -0,0 +1,47 @@
+package com.kalessil.phpStorm.phpInspectionsEA.baseline;
+
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* forwards problems to the platform holder unless they are known by the baseline */
+final public class BaselineProblemsHolder extends ProblemsHolder {
+    @NotNull
+    private final ProblemsHolder delegate;
+    @NotNull
+    private final Baseline baseline;
+    @NotNull
+    private final String inspection;
+    @NotNull
+    private final String path;
+    @NotNull
+    private final Baseline.Occurrences occurrences = new Baseline.Occurrences();
+
+    public BaselineProblemsHolder(@NotNull ProblemsHolder delegate, @NotNull Baseline baseline, @NotNull String inspection) {
+        super(delegate.getManager(), delegate.getFile(), delegate.isOnTheFly());
+        this.delegate   = delegate;
+        this.baseline   = baseline;
+        this.inspection = inspection;
+
+        final VirtualFile file = delegate.getFile().getVirtualFile();
+        this.path              = file == null ? delegate.getFile().getName() : Baseline.getPath(delegate.getProject(), file);
+    }
+
+    @Override
+    public void registerProblem(@NotNull ProblemDescriptor problem) {
+        final String fingerprint = this.occurrences.next(problem.getPsiElement());
+        if (!this.baseline.contains(this.inspection, this.path, fingerprint)) {
+            this.delegate.registerProblem(problem);
+        }
+    }
+}
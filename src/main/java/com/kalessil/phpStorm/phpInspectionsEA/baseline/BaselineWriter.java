@@ -0,0 +1,148 @@
+package com.kalessil.phpStorm.phpInspectionsEA.baseline;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Entries are written sorted (stable diffs between CI runs) with bounded memory: up to chunkSize entries are
+    buffered, full chunks are spilled into sorted temporary files, which are merged into the writer on close.
+ */
+final public class BaselineWriter implements AutoCloseable {
+    private static final String header        = "# Php Inspections (EA Extended) baseline: <inspection>\\t<file>\\t<fingerprint>, regenerate instead of editing";
+    private static final int defaultChunkSize = 50000;
+
+    @NotNull
+    private final Writer out;
+    private final int chunkSize;
+    @NotNull
+    private final Set<String> buffer = new TreeSet<>();
+    @NotNull
+    private final List<Path> chunks  = new ArrayList<>();
+    private int added                = 0;
+
+    public BaselineWriter(@NotNull Writer out) {
+        this(out, defaultChunkSize);
+    }
+
+    public BaselineWriter(@NotNull Writer out, int chunkSize) {
+        this.out       = out;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public synchronized void add(@NotNull String inspection, @NotNull String file, @NotNull String fingerprint) throws IOException {
+        if (this.buffer.add(Baseline.toEntry(inspection, file, fingerprint))) {
+            ++this.added;
+        }
+        if (this.buffer.size() >= this.chunkSize) {
+            this.spill();
+        }
+    }
+
+    /* added entries, duplicates within a chunk are not counted */
+    public synchronized int size() {
+        return this.added;
+    }
+
+    private void spill() throws IOException {
+        final Path chunk = Files.createTempFile("ea-baseline", ".chunk");
+        chunk.toFile().deleteOnExit();
+        Files.write(chunk, this.buffer, StandardCharsets.UTF_8);
+        this.chunks.add(chunk);
+        this.buffer.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.out.write(header);
+        this.out.write('\n');
+        if (this.chunks.isEmpty()) {
+            for (final String entry : this.buffer) {
+                this.out.write(entry);
+                this.out.write('\n');
+            }
+        } else {
+            if (!this.buffer.isEmpty()) {
+                this.spill();
+            }
+            this.merge();
+        }
+        this.buffer.clear();
+        this.out.flush();
+    }
+
+    /* k-way merge of the sorted chunks, dropping duplicates */
+    private void merge() throws IOException {
+        final List<BufferedReader> readers = new ArrayList<>();
+        try {
+            final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing((Head head) -> head.entry));
+            for (final Path chunk : this.chunks) {
+                final BufferedReader reader = Files.newBufferedReader(chunk, StandardCharsets.UTF_8);
+                readers.add(reader);
+                final Head head = Head.next(reader);
+                if (head != null) {
+                    heads.add(head);
+                }
+            }
+
+            final BufferedWriter target = new BufferedWriter(this.out);
+            String previous             = null;
+            while (!heads.isEmpty()) {
+                final Head head = heads.poll();
+                if (!head.entry.equals(previous)) {
+                    target.write(head.entry);
+                    target.write('\n');
+                    previous = head.entry;
+                }
+                final Head next = Head.next(head.reader);
+                if (next != null) {
+                    heads.add(next);
+                }
+            }
+            target.flush();
+        } finally {
+            for (final BufferedReader reader : readers) {
+                reader.close();
+            }
+            for (final Path chunk : this.chunks) {
+                Files.deleteIfExists(chunk);
+            }
+            this.chunks.clear();
+        }
+    }
+
+    private static final class Head {
+        @NotNull
+        private final String entry;
+        @NotNull
+        private final BufferedReader reader;
+
+        private Head(@NotNull String entry, @NotNull BufferedReader reader) {
+            this.entry  = entry;
+            this.reader = reader;
+        }
+
+        @Nullable
+        private static Head next(@NotNull BufferedReader reader) throws IOException {
+            final String line = reader.readLine();
+            return line == null ? null : new Head(line, reader);
+        }
+    }
+}
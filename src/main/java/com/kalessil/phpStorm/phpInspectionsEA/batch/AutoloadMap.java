@@ -0,0 +1,216 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.baseline.Baseline;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.semanticalAnalysis.classes.AutoloadingIssuesInspector;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.NamedElementUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    The classmap the project actually has (class FQN to file), diffed against the composer.json autoload rules.
+    Files are scanned one by one, each in its own read action, and only declarations are kept: the classmap is
+    what `composer dump-autoload --optimize` would generate, so it can be used as an authoritative one.
+ */
+final public class AutoloadMap {
+    private static final String messageMisplaced = "Class autoloading might be broken: '%s' is expected in '%s' as per composer.json autoload rules.";
+    private static final String messageNoPrefix  = "Class autoloading might be broken: '%s' is located in a PSR-4/PSR-0 directory, but does not match its namespace prefix.";
+    private static final String messageDuplicate = "'%s' is declared in several files (%s), the autoloading is ambiguous.";
+    private static final String messageClassmap  = "'%s' is not PSR-4/PSR-0 compliant and can only be loaded via the classmap.";
+    private static final String messageUncovered = "'%s' is not covered by composer.json autoload rules: it needs a classmap entry.";
+
+    /* FQN (without the leading slash) to the composer.json directory relative path, sorted */
+    @NotNull
+    private final Map<String, String> classmap;
+    @NotNull
+    private final List<BatchProblem> problems;
+
+    private AutoloadMap(@NotNull Map<String, String> classmap, @NotNull List<BatchProblem> problems) {
+        this.classmap = classmap;
+        this.problems = problems;
+    }
+
+    @NotNull
+    public static AutoloadMap build(
+            @NotNull Project project,
+            @NotNull ComposerAutoloadRules rules,
+            @NotNull List<VirtualFile> files,
+            @NotNull BatchStatistics.Worker worker
+    ) {
+        final Map<String, List<Declaration>> declarations = new TreeMap<>();
+        for (final VirtualFile file : files) {
+            final long start                = System.nanoTime();
+            final List<Declaration> scanned = ApplicationManager.getApplication()
+                    .runReadAction((Computable<List<Declaration>>) () -> scan(project, rules, file));
+            scanned.forEach(declaration -> declarations.computeIfAbsent(declaration.fqn, fqn -> new ArrayList<>()).add(declaration));
+            worker.register(0, System.nanoTime() - start);
+        }
+
+        final String inspection        = new AutoloadingIssuesInspector().getShortName();
+        final Map<String, String> map  = new TreeMap<>();
+        final List<BatchProblem> found = new ArrayList<>();
+        for (final List<Declaration> candidates : declarations.values()) {
+            for (final Declaration declaration : candidates) {
+                final String message;
+                final BatchProblem.Severity severity;
+                final List<String> expected = rules.getExpectedPaths(declaration.fqn);
+                final boolean loadable;
+                if (expected.contains(declaration.path)) {
+                    message  = null;
+                    severity = null;
+                    loadable = true;
+                } else if (rules.isClassmap(declaration.path)) {
+                    message  = String.format(messageClassmap, declaration.fqn);
+                    severity = BatchProblem.Severity.NOTE;
+                    loadable = true;
+                } else if (rules.isPsrManaged(declaration.fqn, declaration.path)) {
+                    message  = expected.isEmpty()
+                            ? String.format(messageNoPrefix, declaration.fqn)
+                            : String.format(messageMisplaced, declaration.fqn, expected.get(0));
+                    severity = BatchProblem.Severity.WARNING;
+                    loadable = false;
+                } else {
+                    message  = String.format(messageUncovered, declaration.fqn);
+                    severity = BatchProblem.Severity.NOTE;
+                    loadable = false;
+                }
+
+                /* Composer keeps the first found file for ambiguous classes, misplaced and uncovered ones are skipped */
+                if (loadable) {
+                    map.putIfAbsent(declaration.fqn, declaration.path);
+                }
+                if (message != null) {
+                    found.add(declaration.toProblem(inspection, MessagesPresentationUtil.prefixWithEa(message), severity));
+                }
+                if (candidates.size() > 1) {
+                    final StringJoiner others = new StringJoiner(", ");
+                    candidates.stream().filter(other -> other != declaration).forEach(other -> others.add(other.path));
+                    found.add(declaration.toProblem(
+                            inspection,
+                            MessagesPresentationUtil.prefixWithEa(String.format(messageDuplicate, declaration.fqn, others.toString())),
+                            BatchProblem.Severity.WARNING
+                    ));
+                }
+            }
+        }
+        found.sort(Comparator.comparing(BatchProblem::getFile).thenComparingInt(BatchProblem::getOffset));
+        return new AutoloadMap(map, found);
+    }
+
+    @NotNull
+    private static List<Declaration> scan(@NotNull Project project, @NotNull ComposerAutoloadRules rules, @NotNull VirtualFile file) {
+        final PsiFile psiFile = file.isValid() ? PsiManager.getInstance(project).findFile(file) : null;
+        final String path     = rules.getRelativePath(file);
+        if (!(psiFile instanceof PhpFile) || path == null || rules.isExcluded(path)) {
+            return Collections.emptyList();
+        }
+
+        final List<Declaration> result = new ArrayList<>();
+        final CharSequence content     = psiFile.getViewProvider().getContents();
+        final String reportedPath      = Baseline.getPath(project, file);
+        ((PhpFile) psiFile).getTopLevelDefs().values().stream()
+                .filter(definition -> definition instanceof PhpClass)
+                .map(definition -> (PhpClass) definition)
+                .forEach(clazz -> {
+                    final PsiElement nameNode = NamedElementUtil.getNameIdentifier(clazz);
+                    if (nameNode != null) {
+                        final int offset = nameNode.getTextOffset();
+                        final int line   = StringUtil.offsetToLineNumber(content, offset) + 1;
+                        final int column = offset - (StringUtil.lastIndexOf(content, '\n', 0, offset) + 1) + 1;
+                        final String fqn = clazz.getFQN();
+                        result.add(new Declaration(fqn.startsWith("\\") ? fqn.substring(1) : fqn, path, reportedPath, offset, line, column, nameNode.getTextLength()));
+                    }
+                });
+        return result;
+    }
+
+    @NotNull
+    public Map<String, String> getClassmap() {
+        return Collections.unmodifiableMap(this.classmap);
+    }
+
+    /* sorted by file and offset */
+    @NotNull
+    public List<BatchProblem> getProblems() {
+        return Collections.unmodifiableList(this.problems);
+    }
+
+    /* the directory as seen from a generated PHP file, e.g. `__DIR__ . '/..'` (the classmap and preload files are relocatable) */
+    @NotNull
+    public static String getBaseDir(@NotNull Path generated, @NotNull VirtualFile root) {
+        final Path directory = generated.toAbsolutePath().normalize().getParent();
+        final String path    = directory == null ? root.getPath() : directory.relativize(directory.getFileSystem().getPath(root.getPath())).toString().replace('\\', '/');
+        return path.isEmpty() ? "__DIR__" : "__DIR__ . '/" + escape(path) + '\'';
+    }
+
+    /* the same format as `vendor/composer/autoload_classmap.php` */
+    public void write(@NotNull Writer writer, @NotNull String baseDir) throws IOException {
+        writer.write("<?php\n\n");
+        writer.write("// autoload_classmap.php @generated by Php Inspections (EA Extended)\n\n");
+        writer.write("$baseDir = " + baseDir + ";\n\n");
+        writer.write("return array(\n");
+        for (final Map.Entry<String, String> entry : this.classmap.entrySet()) {
+            writer.write("    '" + escape(entry.getKey()) + "' => $baseDir . '/" + escape(entry.getValue()) + "',\n");
+        }
+        writer.write(");\n");
+        writer.flush();
+    }
+
+    @NotNull
+    static String escape(@NotNull String value) {
+        return value.replace("\\", "\\\\").replace("'", "\\'");
+    }
+
+    private static final class Declaration {
+        @NotNull
+        private final String fqn;
+        /* relative to the composer.json directory */
+        @NotNull
+        private final String path;
+        /* relative to the project base directory */
+        @NotNull
+        private final String reportedPath;
+        private final int offset;
+        private final int line;
+        private final int column;
+        private final int length;
+
+        private Declaration(@NotNull String fqn, @NotNull String path, @NotNull String reportedPath, int offset, int line, int column, int length) {
+            this.fqn          = fqn;
+            this.path         = path;
+            this.reportedPath = reportedPath;
+            this.offset       = offset;
+            this.line         = line;
+            this.column       = column;
+            this.length       = length;
+        }
+
+        @NotNull
+        private BatchProblem toProblem(@NotNull String inspection, @NotNull String message, @NotNull BatchProblem.Severity severity) {
+            return new BatchProblem(inspection, this.reportedPath, this.line, this.column, this.offset, this.length, message, severity, "");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.kalessil.phpStorm.phpInspectionsEA.baseline.BaselineWriter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* the baseline of all found problems, to be used with --baseline in following runs (or by the editor) */
+final public class BaselineReportWriter extends BatchReportWriter {
+    @NotNull
+    private final BaselineWriter baseline;
+
+    BaselineReportWriter(@NotNull Writer out) {
+        super(out);
+        this.baseline = new BaselineWriter(out);
+    }
+
+    @Override
+    public void begin(@NotNull Map<String, String> rules) {
+    }
+
+    @Override
+    protected void write(@NotNull BatchProblem problem) throws IOException {
+        this.baseline.add(problem.getInspection(), problem.getFile(), problem.getFingerprint());
+    }
+
+    @Override
+    public synchronized void end(@NotNull BatchStatistics statistics) throws IOException {
+        this.baseline.close();
+    }
+}
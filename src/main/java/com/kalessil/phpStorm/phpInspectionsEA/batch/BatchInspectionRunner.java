@@ -0,0 +1,453 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.codeHighlighting.HighlightDisplayLevel;
+import com.intellij.codeInsight.daemon.HighlightDisplayKey;
+import com.intellij.codeInspection.*;
+import com.intellij.codeInspection.ex.InspectionToolWrapper;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.profile.codeInspection.InspectionProjectProfileManager;
+import com.intellij.psi.*;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.jetbrains.php.lang.PhpFileType;
+import com.kalessil.phpStorm.phpInspectionsEA.baseline.Baseline;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.PhpUnitAnnotations;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.PreloadingUsageCorrectnessInspector;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.phpUnit.PhpUnitTestsInspector;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.phpUnit.utils.PhpUnitTargetsValidator;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.semanticalAnalysis.classes.AutoloadingIssuesInspector;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* runs the plugin inspections over project files: workers take files from a shared queue, each file in its own read action */
+final public class BatchInspectionRunner {
+    private static final Logger LOG = Logger.getInstance(BatchInspectionRunner.class);
+
+    private static final String PACKAGE = "com.kalessil.phpStorm.phpInspectionsEA.";
+
+    @NotNull
+    private final Project project;
+    @NotNull
+    private final BatchOptions options;
+    @NotNull
+    private final List<Inspection> inspections;
+    @NotNull
+    private final Baseline baseline;
+    @Nullable
+    private final BulkFixesApplier fixes;
+
+    public BatchInspectionRunner(@NotNull Project project, @NotNull BatchOptions options) throws IOException {
+        this.project     = project;
+        this.options     = options;
+        this.inspections = collectInspections(project, options);
+        this.baseline    = options.getBaseline() == null
+                ? Baseline.EMPTY
+                : Baseline.load(Files.newBufferedReader(Paths.get(options.getBaseline()), StandardCharsets.UTF_8));
+        this.fixes       = options.isApplyFixes() ? new BulkFixesApplier(project, options.getInspections().isEmpty()) : null;
+    }
+
+    /* the project PHP files, sorted for stable sharding between CI jobs */
+    @NotNull
+    public static List<VirtualFile> collectFiles(@NotNull Project project, @NotNull BatchOptions options) {
+        final List<VirtualFile> files = ApplicationManager.getApplication().runReadAction((Computable<List<VirtualFile>>) () ->
+                new ArrayList<>(FileTypeIndex.getFiles(PhpFileType.INSTANCE, GlobalSearchScope.projectScope(project)))
+        );
+        files.sort(Comparator.comparing(VirtualFile::getPath));
+        return shard(files, options);
+    }
+
+    /* the changed files and their dependents, sharded the same way */
+    @NotNull
+    public static List<VirtualFile> collectFiles(@NotNull IncrementalScope scope, @NotNull BatchOptions options) {
+        return shard(scope.getFiles(), options);
+    }
+
+    @NotNull
+    private static List<VirtualFile> shard(@NotNull List<VirtualFile> files, @NotNull BatchOptions options) {
+        final List<VirtualFile> result = new ArrayList<>();
+        for (int index = 0; index < files.size(); ++index) {
+            if (index % options.getShardCount() == options.getShardIndex()) {
+                result.add(files.get(index));
+            }
+        }
+        return result;
+    }
+
+    /* inspection short name to its display name */
+    @NotNull
+    public Map<String, String> getRules() {
+        final Map<String, String> rules = new HashMap<>();
+        this.inspections.forEach(inspection -> rules.put(inspection.shortName, inspection.displayName));
+        return rules;
+    }
+
+    @NotNull
+    public BatchStatistics run(@NotNull Collection<VirtualFile> files, @NotNull BatchReportWriter writer) throws IOException, InterruptedException {
+        return this.run(files, writer, Collections.emptyList());
+    }
+
+    /* carried: problems from a previous report, written as they are after the analyzed files ones */
+    @NotNull
+    public BatchStatistics run(
+            @NotNull Collection<VirtualFile> files,
+            @NotNull BatchReportWriter writer,
+            @NotNull List<BatchProblem> carried
+    ) throws IOException, InterruptedException {
+        final BatchStatistics statistics = new BatchStatistics();
+        final Queue<VirtualFile> queue   = new ConcurrentLinkedQueue<>(files);
+        final int workersCount           = Math.min(this.options.getWorkers(), Math.max(1, files.size()));
+        final ExecutorService pool       = Executors.newFixedThreadPool(workersCount);
+        final List<Future<?>> futures    = new ArrayList<>();
+
+        writer.begin(this.getRules());
+        final long start = System.nanoTime();
+        for (int index = 0; index < workersCount; ++index) {
+            final BatchStatistics.Worker worker = statistics.addWorker();
+            futures.add(pool.submit(() -> {
+                VirtualFile file;
+                while ((file = queue.poll()) != null) {
+                    final VirtualFile current         = file;
+                    final long fileStart              = System.nanoTime();
+                    final List<BatchProblem> problems = ApplicationManager.getApplication()
+                            .runReadAction((Computable<List<BatchProblem>>) () -> this.inspect(current, statistics));
+                    worker.register(problems.size(), System.nanoTime() - fileStart);
+                    writer.report(problems);
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+        boolean completed = false;
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            completed = true;
+        } catch (final ExecutionException failure) {
+            final Throwable cause = failure.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            /* failed or interrupted: the remaining workers are stopped */
+            if (!completed) {
+                pool.shutdownNow();
+            }
+        }
+        /* PSI is modified after the analysis only, so workers are never waiting for write actions */
+        if (this.fixes != null) {
+            this.fixes.applyAll(statistics);
+        }
+        statistics.setElapsedNanos(System.nanoTime() - start);
+
+        writer.report(carried);
+        statistics.setCarried(carried.size());
+        writer.end(statistics);
+        return statistics;
+    }
+
+    /* unresolved @dataProvider/@depends/@covers targets of the project: validated from the index, test files are not parsed */
+    @NotNull
+    public BatchStatistics runPhpUnitTargets(@NotNull BatchReportWriter writer) throws IOException {
+        final BatchStatistics statistics    = new BatchStatistics();
+        final BatchStatistics.Worker worker = statistics.addWorker();
+        final PhpUnitTestsInspector tool    = new PhpUnitTestsInspector();
+
+        writer.begin(Collections.singletonMap(tool.getShortName(), tool.getDisplayName()));
+        final long start                                    = System.nanoTime();
+        final List<PhpUnitTargetsValidator.Unresolved> list = ApplicationManager.getApplication().runReadAction(
+                (Computable<List<PhpUnitTargetsValidator.Unresolved>>) () ->
+                        PhpUnitTargetsValidator.validate(this.project, GlobalSearchScope.projectScope(this.project))
+        );
+        final Map<VirtualFile, List<BatchProblem>> problems = new LinkedHashMap<>();
+        for (final PhpUnitTargetsValidator.Unresolved unresolved : list) {
+            final PhpUnitAnnotations.Annotation annotation = unresolved.getAnnotation();
+            problems.computeIfAbsent(unresolved.getFile(), file -> new ArrayList<>()).add(new BatchProblem(
+                    tool.getShortName(),
+                    Baseline.getPath(this.project, unresolved.getFile()),
+                    annotation.getLine(),
+                    annotation.getColumn(),
+                    annotation.getOffset(),
+                    annotation.getMethod().length(),
+                    MessagesPresentationUtil.prefixWithEa(unresolved.getMessage()),
+                    BatchProblem.Severity.ERROR,
+                    ""
+            ));
+        }
+        for (final List<BatchProblem> fileProblems : problems.values()) {
+            worker.register(fileProblems.size(), 0);
+            writer.report(fileProblems);
+        }
+        statistics.setElapsedNanos(System.nanoTime() - start);
+
+        writer.end(statistics);
+        return statistics;
+    }
+
+    /* misplaced, duplicate and classmap-only classes of the whole project, the classmap is saved with the given writer */
+    @NotNull
+    public BatchStatistics runAutoloadMap(
+            @NotNull ComposerAutoloadRules rules,
+            @NotNull BatchReportWriter writer,
+            @NotNull Writer classmap,
+            @NotNull String baseDir
+    ) throws IOException {
+        final BatchStatistics statistics      = new BatchStatistics();
+        final BatchStatistics.Worker worker   = statistics.addWorker();
+        final AutoloadingIssuesInspector tool = new AutoloadingIssuesInspector();
+
+        writer.begin(Collections.singletonMap(tool.getShortName(), tool.getDisplayName()));
+        final long start      = System.nanoTime();
+        final AutoloadMap map = AutoloadMap.build(this.project, rules, collectFiles(this.project, this.options), worker);
+        map.write(classmap, baseDir);
+
+        /* the problems are known only when all files were scanned, hence reported at once */
+        worker.registerProblems(map.getProblems().size());
+        writer.report(map.getProblems());
+        statistics.setElapsedNanos(System.nanoTime() - start);
+
+        writer.end(statistics);
+        return statistics;
+    }
+
+    /* the entry points dependencies closure, the preload script is saved with the given writer */
+    @NotNull
+    public BatchStatistics runPreload(
+            @NotNull VirtualFile root,
+            @NotNull List<String> entries,
+            @NotNull String entriesPath,
+            @NotNull BatchReportWriter writer,
+            @NotNull Writer preload,
+            @NotNull String baseDir
+    ) throws IOException {
+        final BatchStatistics statistics               = new BatchStatistics();
+        final BatchStatistics.Worker worker            = statistics.addWorker();
+        final PreloadingUsageCorrectnessInspector tool = new PreloadingUsageCorrectnessInspector();
+
+        writer.begin(Collections.singletonMap(tool.getShortName(), tool.getDisplayName()));
+        final long start       = System.nanoTime();
+        final PreloadList list = ApplicationManager.getApplication().runReadAction(
+                (Computable<PreloadList>) () -> PreloadList.build(this.project, root, entries, entriesPath)
+        );
+        list.write(preload, root, baseDir);
+
+        worker.registerFiles(list.getFiles().size());
+        worker.registerProblems(list.getProblems().size());
+        writer.report(list.getProblems());
+        statistics.setElapsedNanos(System.nanoTime() - start);
+
+        writer.end(statistics);
+        return statistics;
+    }
+
+    @NotNull
+    private List<BatchProblem> inspect(@NotNull VirtualFile file, @NotNull BatchStatistics statistics) {
+        final PsiFile psiFile = file.isValid() ? PsiManager.getInstance(this.project).findFile(file) : null;
+        if (psiFile == null) {
+            return Collections.emptyList();
+        }
+
+        final List<BatchProblem> result                    = new ArrayList<>();
+        final InspectionManager manager                    = InspectionManager.getInstance(this.project);
+        final Document document                            = PsiDocumentManager.getInstance(this.project).getDocument(psiFile);
+        final String path                                  = Baseline.getPath(this.project, file);
+        final LocalInspectionToolSession session           = new LocalInspectionToolSession(psiFile, 0, psiFile.getTextLength());
+        final Map<Inspection, ProblemsHolder> holders      = new LinkedHashMap<>();
+        final InspectionsDispatcher<Inspection> dispatcher = new InspectionsDispatcher<>();
+        for (final Inspection inspection : this.inspections) {
+            try {
+                final ProblemsHolder holder     = new ProblemsHolder(manager, psiFile, false);
+                final PsiElementVisitor visitor = inspection.tool.buildVisitor(holder, false, session);
+                if (visitor == PsiElementVisitor.EMPTY_VISITOR) {
+                    /* not applicable to the project language level */
+                    continue;
+                }
+                inspection.tool.inspectionStarted(session, false);
+                dispatcher.register(inspection, visitor, inspection.tool.getFunctionCallsFilter());
+                holders.put(inspection, holder);
+            } catch (final ProcessCanceledException cancellation) {
+                throw cancellation;
+            } catch (final RuntimeException failure) {
+                /* a broken inspection should not stop the whole run */
+                LOG.warn(inspection.shortName + " failed on " + path, failure);
+            }
+        }
+
+        /* the tree is walked once, function calls are routed only to inspections interested in them */
+        dispatcher.walk(psiFile);
+        dispatcher.getFailures().forEach((inspection, failure) -> {
+            LOG.warn(inspection.shortName + " failed on " + path, failure);
+            holders.remove(inspection);
+        });
+
+        holders.forEach((inspection, holder) -> {
+            try {
+                inspection.tool.inspectionFinished(session, holder);
+
+                /* fingerprints are numbered the same way as in the editor: per inspection and file, in the registration order */
+                final Baseline.Occurrences occurrences = new Baseline.Occurrences();
+                int suppressed                         = 0;
+                for (final ProblemDescriptor descriptor : holder.getResults()) {
+                    final String fingerprint = occurrences.next(descriptor.getPsiElement());
+                    if (this.baseline.contains(inspection.shortName, path, fingerprint)) {
+                        ++suppressed;
+                        continue;
+                    }
+                    final BatchProblem problem = toProblem(inspection, descriptor, path, document, fingerprint);
+                    if (problem != null) {
+                        result.add(problem);
+                        if (this.fixes != null) {
+                            this.fixes.register(file, descriptor, inspection.groupName);
+                        }
+                    }
+                }
+                statistics.addSuppressed(suppressed);
+            } catch (final ProcessCanceledException cancellation) {
+                throw cancellation;
+            } catch (final RuntimeException failure) {
+                LOG.warn(inspection.shortName + " failed on " + path, failure);
+            }
+        });
+        return result;
+    }
+
+    @Nullable
+    private static BatchProblem toProblem(
+            @NotNull Inspection inspection,
+            @NotNull ProblemDescriptor descriptor,
+            @NotNull String path,
+            @Nullable Document document,
+            @NotNull String fingerprint
+    ) {
+        final PsiElement element = descriptor.getPsiElement();
+        if (element == null || !element.isValid()) {
+            return null;
+        }
+
+        final TextRange range = element.getTextRange();
+        final TextRange inner = descriptor.getTextRangeInElement();
+        final int offset      = range.getStartOffset() + (inner == null ? 0 : inner.getStartOffset());
+        final int length      = inner == null ? range.getLength() : inner.getLength();
+        int line              = 1;
+        int column            = 1;
+        if (document != null && offset <= document.getTextLength()) {
+            final int lineIndex = document.getLineNumber(offset);
+            line                = lineIndex + 1;
+            column              = offset - document.getLineStartOffset(lineIndex) + 1;
+        }
+
+        final ProblemHighlightType type = descriptor.getHighlightType();
+        final BatchProblem.Severity severity;
+        if (type == ProblemHighlightType.GENERIC_ERROR || type == ProblemHighlightType.ERROR) {
+            severity = BatchProblem.Severity.ERROR;
+        } else if (type == ProblemHighlightType.WEAK_WARNING) {
+            severity = BatchProblem.Severity.NOTE;
+        } else {
+            severity = inspection.severity;
+        }
+
+        return new BatchProblem(
+                inspection.shortName,
+                path,
+                line,
+                column,
+                offset,
+                length,
+                ProblemDescriptorUtil.renderDescriptionMessage(descriptor, element),
+                severity,
+                fingerprint
+        );
+    }
+
+    /* the plugin inspections enabled in the project profile (or the requested ones), with the profile settings applied */
+    @NotNull
+    private static List<Inspection> collectInspections(@NotNull Project project, @NotNull BatchOptions options) {
+        final List<Inspection> result   = new ArrayList<>();
+        final InspectionProfile profile = InspectionProjectProfileManager.getInstance(project).getInspectionProfile();
+        for (final LocalInspectionEP extension : LocalInspectionEP.LOCAL_INSPECTION.getExtensions()) {
+            final String implementation = extension.implementationClass;
+            if (implementation == null || !implementation.startsWith(PACKAGE)) {
+                continue;
+            }
+
+            final String shortName        = extension.getShortName();
+            final HighlightDisplayKey key = HighlightDisplayKey.find(shortName);
+            final boolean enabled         = options.getInspections().isEmpty()
+                    ? (key == null ? extension.enabledByDefault : profile.isToolEnabled(key))
+                    : options.getInspections().contains(shortName);
+            if (!enabled) {
+                continue;
+            }
+            final InspectionToolWrapper wrapper = profile.getInspectionTool(shortName, project);
+            final Object tool                   = wrapper == null ? extension.instantiateTool() : wrapper.getTool();
+            if (tool instanceof BasePhpInspection) {
+                final HighlightDisplayLevel level = key == null ? HighlightDisplayLevel.WARNING : profile.getErrorLevel(key, (PsiElement) null);
+                final BatchProblem.Severity severity;
+                if (level == HighlightDisplayLevel.ERROR) {
+                    severity = BatchProblem.Severity.ERROR;
+                } else if (level == HighlightDisplayLevel.WARNING) {
+                    severity = BatchProblem.Severity.WARNING;
+                } else {
+                    severity = BatchProblem.Severity.NOTE;
+                }
+                result.add(new Inspection(shortName, extension.getDisplayName(), extension.groupName, (BasePhpInspection) tool, severity));
+            }
+        }
+        result.sort(Comparator.comparing(inspection -> inspection.shortName));
+        return result;
+    }
+
+    private static final class Inspection {
+        @NotNull
+        private final String shortName;
+        @NotNull
+        private final String displayName;
+        @Nullable
+        private final String groupName;
+        @NotNull
+        private final BasePhpInspection tool;
+        @NotNull
+        private final BatchProblem.Severity severity;
+
+        private Inspection(
+                @NotNull String shortName,
+                @Nullable String displayName,
+                @Nullable String groupName,
+                @NotNull BasePhpInspection tool,
+                @NotNull BatchProblem.Severity severity
+        ) {
+            this.shortName   = shortName;
+            this.displayName = displayName == null ? shortName : displayName;
+            this.groupName   = groupName;
+            this.tool        = tool;
+            this.severity    = severity;
+        }
+    }
+}
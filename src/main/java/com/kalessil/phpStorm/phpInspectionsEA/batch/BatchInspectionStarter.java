@@ -0,0 +1,145 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ApplicationStarterEx;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.kalessil.phpStorm.phpInspectionsEA.profiling.InspectionsProfiler;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* headless entry point: `phpstorm.sh ea-inspect <project directory> [options]`, see BatchOptions */
+public class BatchInspectionStarter extends ApplicationStarterEx {
+    private BatchOptions options;
+
+    @Override
+    public String getCommandName() {
+        return "ea-inspect";
+    }
+
+    @Override
+    public boolean isHeadless() {
+        return true;
+    }
+
+    @Override
+    public void premain(String[] args) {
+        try {
+            this.options = BatchOptions.parse(args);
+        } catch (final IllegalArgumentException failure) {
+            System.err.println(failure.getMessage());
+            System.err.println(BatchOptions.getUsage());
+            System.exit(1);
+        }
+    }
+
+    @Override
+    public void main(String[] args) {
+        final Project project = ProjectUtil.openOrImport(this.options.getProjectPath(), null, false);
+        if (project == null) {
+            System.err.println("Could not open the project: " + this.options.getProjectPath());
+            System.exit(1);
+            return;
+        }
+
+        /* inspections are relying on indexes, hence waiting for the indexing to finish */
+        DumbService.getInstance(project).runWhenSmart(() ->
+                ApplicationManager.getApplication().executeOnPooledThread(() -> {
+                    final int status = this.analyze(project);
+                    ApplicationManager.getApplication().invokeLater(() -> System.exit(status));
+                })
+        );
+    }
+
+    private int analyze(@NotNull Project project) {
+        final String output = this.options.getOutput();
+        try (final Writer writer = output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)
+        ) {
+            final String profile = this.options.getProfile();
+            InspectionsProfiler.setEnabled(profile != null);
+
+            final BatchInspectionRunner runner = new BatchInspectionRunner(project, this.options);
+            if (this.options.isPhpUnitTargets()) {
+                System.err.print(runner.runPhpUnitTargets(BatchReportWriter.create(this.options.getFormat(), writer)).getSummary());
+                return 0;
+            }
+            final String autoloadMap = this.options.getAutoloadMap();
+            if (autoloadMap != null) {
+                final ComposerAutoloadRules rules = ApplicationManager.getApplication()
+                        .runReadAction((Computable<ComposerAutoloadRules>) () -> ComposerAutoloadRules.find(project));
+                if (rules == null) {
+                    System.err.println("composer.json was not found in the project directory");
+                    return 1;
+                }
+                try (final Writer classmap = Files.newBufferedWriter(Paths.get(autoloadMap), StandardCharsets.UTF_8)) {
+                    final String baseDir = AutoloadMap.getBaseDir(Paths.get(autoloadMap), rules.getRoot());
+                    System.err.print(runner.runAutoloadMap(rules, BatchReportWriter.create(this.options.getFormat(), writer), classmap, baseDir).getSummary());
+                }
+                return 0;
+            }
+            final String preload = this.options.getPreload();
+            final String entries = this.options.getPreloadEntries();
+            if (preload != null && entries != null) {
+                final VirtualFile root = project.getBaseDir();
+                try (final Writer script = Files.newBufferedWriter(Paths.get(preload), StandardCharsets.UTF_8)) {
+                    final List<String> list = PreloadList.readEntries(Files.newBufferedReader(Paths.get(entries), StandardCharsets.UTF_8));
+                    final String baseDir    = AutoloadMap.getBaseDir(Paths.get(preload), root);
+                    System.err.print(runner.runPreload(root, list, entries, BatchReportWriter.create(this.options.getFormat(), writer), script, baseDir).getSummary());
+                }
+                return 0;
+            }
+
+            final List<VirtualFile> files;
+            final List<BatchProblem> carried;
+            if (this.options.getChanged() == null) {
+                files   = BatchInspectionRunner.collectFiles(project, this.options);
+                carried = Collections.emptyList();
+            } else {
+                final Set<String> changed         = IncrementalScope.readChanged(Files.newBufferedReader(Paths.get(this.options.getChanged()), StandardCharsets.UTF_8));
+                final String previous             = this.options.getPrevious();
+                final List<BatchProblem> reported = previous == null
+                        ? Collections.<BatchProblem>emptyList()
+                        : JsonReportReader.read(Files.newBufferedReader(Paths.get(previous), StandardCharsets.UTF_8));
+                final IncrementalScope scope      = IncrementalScope.collect(project, changed, reported);
+                files                             = BatchInspectionRunner.collectFiles(scope, this.options);
+                /* shards are analyzing disjoint files, the carried over problems are reported by the first one only */
+                carried                           = this.options.getShardIndex() != 0
+                        ? Collections.<BatchProblem>emptyList()
+                        : scope.carryOver(project, reported);
+            }
+            final BatchStatistics statistics = runner.run(files, BatchReportWriter.create(this.options.getFormat(), writer), carried);
+            System.err.print(statistics.getSummary());
+
+            if (profile != null) {
+                try (final Writer profileWriter = Files.newBufferedWriter(Paths.get(profile), StandardCharsets.UTF_8)) {
+                    InspectionsProfiler.dump(profileWriter);
+                }
+            }
+            return 0;
+        } catch (final IOException | InterruptedException | RuntimeException failure) {
+            failure.printStackTrace();
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* command line: ea-inspect <project> [--workers=N] [--format=json|sarif|baseline] [--output=<file>] [--shard=K/M] [--inspections=A,B] [--profile=<file>] [--baseline=<file>] [--changed=<file> [--previous=<file>]] [--phpunit-targets] [--autoload-map=<file>] [--preload=<file> --preload-entries=<file>] [--apply-fixes] */
+final public class BatchOptions {
+    public static final String FORMAT_JSON     = "json";
+    public static final String FORMAT_SARIF    = "sarif";
+    public static final String FORMAT_BASELINE = "baseline";
+
+    @NotNull
+    private String projectPath     = "";
+    private int workers            = Math.max(1, Runtime.getRuntime().availableProcessors());
+    @NotNull
+    private String format          = FORMAT_JSON;
+    @Nullable
+    private String output          = null;
+    private int shardIndex         = 0;
+    private int shardCount         = 1;
+    @Nullable
+    private String profile         = null;
+    @Nullable
+    private String baseline        = null;
+    @Nullable
+    private String changed         = null;
+    @Nullable
+    private String previous        = null;
+    private boolean phpUnitTargets = false;
+    @Nullable
+    private String autoloadMap     = null;
+    @Nullable
+    private String preload         = null;
+    @Nullable
+    private String preloadEntries  = null;
+    private boolean applyFixes     = false;
+    @NotNull
+    private final Set<String> inspections = new HashSet<>();
+
+    /* args[0] is the command name itself */
+    @NotNull
+    public static BatchOptions parse(@NotNull String[] args) {
+        final BatchOptions options = new BatchOptions();
+        for (int index = 1; index < args.length; ++index) {
+            final String argument = args[index];
+            if (argument.startsWith("--workers=")) {
+                options.workers = Math.max(1, Integer.parseInt(argument.substring("--workers=".length())));
+            } else if (argument.startsWith("--format=")) {
+                options.format = argument.substring("--format=".length());
+                if (!options.format.equals(FORMAT_JSON) && !options.format.equals(FORMAT_SARIF) && !options.format.equals(FORMAT_BASELINE)) {
+                    throw new IllegalArgumentException("Unsupported format: " + options.format);
+                }
+            } else if (argument.startsWith("--output=")) {
+                options.output = argument.substring("--output=".length());
+            } else if (argument.startsWith("--shard=")) {
+                final String[] shard = argument.substring("--shard=".length()).split("/");
+                if (shard.length != 2) {
+                    throw new IllegalArgumentException("Shard must be specified as <index>/<count>: " + argument);
+                }
+                options.shardIndex = Integer.parseInt(shard[0]);
+                options.shardCount = Integer.parseInt(shard[1]);
+                if (options.shardCount < 1 || options.shardIndex < 0 || options.shardIndex >= options.shardCount) {
+                    throw new IllegalArgumentException("Invalid shard: " + argument);
+                }
+            } else if (argument.startsWith("--inspections=")) {
+                for (final String name : argument.substring("--inspections=".length()).split(",")) {
+                    if (!name.trim().isEmpty()) {
+                        options.inspections.add(name.trim());
+                    }
+                }
+            } else if (argument.startsWith("--profile=")) {
+                options.profile = argument.substring("--profile=".length());
+            } else if (argument.startsWith("--baseline=")) {
+                options.baseline = argument.substring("--baseline=".length());
+            } else if (argument.startsWith("--changed=")) {
+                options.changed = argument.substring("--changed=".length());
+            } else if (argument.startsWith("--previous=")) {
+                options.previous = argument.substring("--previous=".length());
+            } else if (argument.equals("--phpunit-targets")) {
+                options.phpUnitTargets = true;
+            } else if (argument.startsWith("--autoload-map=")) {
+                options.autoloadMap = argument.substring("--autoload-map=".length());
+            } else if (argument.equals("--apply-fixes")) {
+                options.applyFixes = true;
+            } else if (argument.startsWith("--preload=")) {
+                options.preload = argument.substring("--preload=".length());
+            } else if (argument.startsWith("--preload-entries=")) {
+                options.preloadEntries = argument.substring("--preload-entries=".length());
+            } else if (argument.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option: " + argument);
+            } else {
+                options.projectPath = argument;
+            }
+        }
+        if (options.projectPath.isEmpty()) {
+            throw new IllegalArgumentException("Project path is not specified");
+        }
+        if (options.previous != null && options.changed == null) {
+            throw new IllegalArgumentException("Previous report can be merged only with --changed specified");
+        }
+        if (options.autoloadMap != null && options.shardCount > 1) {
+            throw new IllegalArgumentException("Autoload map is built for the whole project and can not be sharded");
+        }
+        if ((options.preload == null) != (options.preloadEntries == null)) {
+            throw new IllegalArgumentException("Preload script and its entry points must be specified together");
+        }
+        return options;
+    }
+
+    @NotNull
+    public String getProjectPath() {
+        return this.projectPath;
+    }
+
+    public int getWorkers() {
+        return this.workers;
+    }
+
+    @NotNull
+    public BatchOptions withWorkers(int workers) {
+        this.workers = Math.max(1, workers);
+        return this;
+    }
+
+    @NotNull
+    public String getFormat() {
+        return this.format;
+    }
+
+    /* null stands for stdout */
+    @Nullable
+    public String getOutput() {
+        return this.output;
+    }
+
+    public int getShardIndex() {
+        return this.shardIndex;
+    }
+
+    public int getShardCount() {
+        return this.shardCount;
+    }
+
+    /* when specified, inspections are profiled and the profile is saved into the file */
+    @Nullable
+    public String getProfile() {
+        return this.profile;
+    }
+
+    /* when specified, problems known by the baseline file are not reported */
+    @Nullable
+    public String getBaseline() {
+        return this.baseline;
+    }
+
+    /* when specified, only the listed files (one project-relative path per line) and their dependents are analyzed */
+    @Nullable
+    public String getChanged() {
+        return this.changed;
+    }
+
+    /* a JSON report of the previous run: problems of files not analyzed this time are carried over from it */
+    @Nullable
+    public String getPrevious() {
+        return this.previous;
+    }
+
+    /* when specified, only unresolved PHPUnit annotation targets are reported, straight from the index */
+    public boolean isPhpUnitTargets() {
+        return this.phpUnitTargets;
+    }
+
+    /* when specified, the optimized classmap is saved into the file and only autoloading problems are reported */
+    @Nullable
+    public String getAutoloadMap() {
+        return this.autoloadMap;
+    }
+
+    /* when specified, the preload script for the entry points is saved into the file and only preloading problems are reported */
+    @Nullable
+    public String getPreload() {
+        return this.preload;
+    }
+
+    /* class FQNs, files and directories to preload (with their dependencies), one per line */
+    @Nullable
+    public String getPreloadEntries() {
+        return this.preloadEntries;
+    }
+
+    /* when specified, expression replacing fixes are applied to the project files; only Performance inspections unless listed */
+    public boolean isApplyFixes() {
+        return this.applyFixes;
+    }
+
+    /* empty set stands for all inspections enabled in the project profile */
+    @NotNull
+    public Set<String> getInspections() {
+        return this.inspections;
+    }
+
+    @NotNull
+    public static String getUsage() {
+        return "Usage: ea-inspect <project directory> [--workers=N] [--format=json|sarif|baseline] [--output=<file>] [--shard=K/M] [--inspections=ShortName,...] [--profile=<file>] [--baseline=<file>] [--changed=<file> [--previous=<json report>]] [--phpunit-targets] [--autoload-map=<classmap file>] [--preload=<preload.php> --preload-entries=<file>] [--apply-fixes]";
+    }
+}
@@ -0,0 +1,99 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import org.jetbrains.annotations.NotNull;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* a reported problem detached from PSI, so it can outlive the read action it was collected in */
+final public class BatchProblem {
+    public enum Severity { ERROR, WARNING, NOTE }
+
+    @NotNull
+    private final String inspection;
+    @NotNull
+    private final String file;
+    private final int line;
+    private final int column;
+    private final int offset;
+    private final int length;
+    @NotNull
+    private final String message;
+    @NotNull
+    private final Severity severity;
+    @NotNull
+    private final String fingerprint;
+
+    public BatchProblem(
+            @NotNull String inspection,
+            @NotNull String file,
+            int line,
+            int column,
+            int offset,
+            int length,
+            @NotNull String message,
+            @NotNull Severity severity,
+            @NotNull String fingerprint
+    ) {
+        this.inspection  = inspection;
+        this.file        = file;
+        this.line        = line;
+        this.column      = column;
+        this.offset      = offset;
+        this.length      = length;
+        this.message     = message;
+        this.severity    = severity;
+        this.fingerprint = fingerprint;
+    }
+
+    @NotNull
+    public String getInspection() {
+        return this.inspection;
+    }
+
+    /* relative to the project base directory, '/'-separated */
+    @NotNull
+    public String getFile() {
+        return this.file;
+    }
+
+    /* 1-based */
+    public int getLine() {
+        return this.line;
+    }
+
+    /* 1-based */
+    public int getColumn() {
+        return this.column;
+    }
+
+    public int getOffset() {
+        return this.offset;
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    @NotNull
+    public String getMessage() {
+        return this.message;
+    }
+
+    @NotNull
+    public Severity getSeverity() {
+        return this.severity;
+    }
+
+    /* line-independent identity of the problem in the file, see Baseline */
+    @NotNull
+    public String getFingerprint() {
+        return this.fingerprint;
+    }
+}
@@ -0,0 +1,87 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* problems are written and flushed per file, as soon as a worker is done with it */
+public abstract class BatchReportWriter {
+    @NotNull
+    protected final Writer out;
+
+    protected BatchReportWriter(@NotNull Writer out) {
+        this.out = out;
+    }
+
+    @NotNull
+    public static BatchReportWriter create(@NotNull String format, @NotNull Writer out) {
+        switch (format) {
+            case BatchOptions.FORMAT_SARIF:    return new SarifReportWriter(out);
+            case BatchOptions.FORMAT_BASELINE: return new BaselineReportWriter(out);
+            default:                           return new JsonReportWriter(out);
+        }
+    }
+
+    /* rules: inspection short name to its display name */
+    public abstract void begin(@NotNull Map<String, String> rules) throws IOException;
+
+    protected abstract void write(@NotNull BatchProblem problem) throws IOException;
+
+    public abstract void end(@NotNull BatchStatistics statistics) throws IOException;
+
+    public synchronized void report(@NotNull List<BatchProblem> problems) throws IOException {
+        if (!problems.isEmpty()) {
+            for (final BatchProblem problem : problems) {
+                this.write(problem);
+            }
+            this.out.flush();
+        }
+    }
+
+    @NotNull
+    static String toJson(@NotNull List<BatchStatistics.Worker> workers) {
+        return workers.stream()
+                .map(worker -> String.format(
+                        Locale.ROOT,
+                        "{\"id\":%d,\"files\":%d,\"problems\":%d,\"filesPerSecond\":%.2f}",
+                        worker.getId(), worker.getFiles(), worker.getProblems(), worker.getThroughput()
+                ))
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    @NotNull
+    static String quote(@NotNull String value) {
+        final StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+        for (final char character : value.toCharArray()) {
+            switch (character) {
+                case '"':  result.append("\\\""); break;
+                case '\\': result.append("\\\\"); break;
+                case '\n': result.append("\\n");  break;
+                case '\r': result.append("\\r");  break;
+                case '\t': result.append("\\t");  break;
+                default:
+                    if (character < 0x20) {
+                        result.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        result.append(character);
+                    }
+                    break;
+            }
+        }
+        return result.append('"').toString();
+    }
+}
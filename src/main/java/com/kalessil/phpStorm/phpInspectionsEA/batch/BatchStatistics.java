@@ -0,0 +1,174 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+final public class BatchStatistics {
+    @NotNull
+    private final List<Worker> workers    = new ArrayList<>();
+    @NotNull
+    private final AtomicInteger suppressed = new AtomicInteger();
+    @NotNull
+    private final AtomicInteger fixed      = new AtomicInteger();
+    @NotNull
+    private final AtomicInteger deferred   = new AtomicInteger();
+    private int carried;
+    private long elapsedNanos;
+
+    @NotNull
+    Worker addWorker() {
+        final Worker worker = new Worker(this.workers.size() + 1);
+        this.workers.add(worker);
+        return worker;
+    }
+
+    void addSuppressed(int count) {
+        this.suppressed.addAndGet(count);
+    }
+
+    void addFixed(int count) {
+        this.fixed.addAndGet(count);
+    }
+
+    void addDeferred(int count) {
+        this.deferred.addAndGet(count);
+    }
+
+    void setCarried(int carried) {
+        this.carried = carried;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    @NotNull
+    public List<Worker> getWorkers() {
+        return Collections.unmodifiableList(this.workers);
+    }
+
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    public int getFiles() {
+        return this.workers.stream().mapToInt(Worker::getFiles).sum();
+    }
+
+    public int getProblems() {
+        return this.workers.stream().mapToInt(Worker::getProblems).sum();
+    }
+
+    /* problems known by the baseline, not reported */
+    public int getSuppressed() {
+        return this.suppressed.get();
+    }
+
+    /* problems of not re-analyzed files, taken from the previous report */
+    public int getCarried() {
+        return this.carried;
+    }
+
+    /* problems fixed with --apply-fixes */
+    public int getFixed() {
+        return this.fixed.get();
+    }
+
+    /* problems with bulk-applicable fixes, which were not fixed in this run (nested into fixed ones, changed files) */
+    public int getDeferred() {
+        return this.deferred.get();
+    }
+
+    @NotNull
+    public String getSummary() {
+        final StringBuilder summary = new StringBuilder();
+        for (final Worker worker : this.workers) {
+            summary.append(String.format(
+                    Locale.ROOT,
+                    "worker #%d: %d files, %d problems, %.1f files/s%n",
+                    worker.id, worker.files, worker.problems, getThroughput(worker.files, worker.nanos)
+            ));
+        }
+        summary.append(String.format(
+                Locale.ROOT,
+                "total: %d files, %d problems in %.1fs, %.1f files/s%n",
+                this.getFiles(), this.getProblems(), this.elapsedNanos / 1e9, getThroughput(this.getFiles(), this.elapsedNanos)
+        ));
+        if (this.getSuppressed() > 0) {
+            summary.append(String.format(Locale.ROOT, "baseline: %d known problems suppressed%n", this.getSuppressed()));
+        }
+        if (this.carried > 0) {
+            summary.append(String.format(Locale.ROOT, "incremental: %d problems carried over from the previous report%n", this.carried));
+        }
+        if (this.getFixed() > 0 || this.getDeferred() > 0) {
+            summary.append(String.format(Locale.ROOT, "fixes: %d applied, %d deferred (run again to apply them)%n", this.getFixed(), this.getDeferred()));
+        }
+        return summary.toString();
+    }
+
+    static double getThroughput(int files, long nanos) {
+        return nanos == 0 ? 0.0 : files / (nanos / 1e9);
+    }
+
+    /* updated by its own worker thread only, read after the pool is shut down */
+    final public static class Worker {
+        private final int id;
+        private int files;
+        private int problems;
+        private long nanos;
+
+        private Worker(int id) {
+            this.id = id;
+        }
+
+        void register(int problems, long nanos) {
+            this.files    += 1;
+            this.problems += problems;
+            this.nanos    += nanos;
+        }
+
+        /* files of a whole project check, which are not inspected one by one */
+        void registerFiles(int files) {
+            this.files += files;
+        }
+
+        /* problems of a whole project check, found after the files were registered */
+        void registerProblems(int problems) {
+            this.problems += problems;
+        }
+
+        public int getId() {
+            return this.id;
+        }
+
+        public int getFiles() {
+            return this.files;
+        }
+
+        public int getProblems() {
+            return this.problems;
+        }
+
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        public double getThroughput() {
+            return BatchStatistics.getThroughput(this.files, this.nanos);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.QuickFix;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.ParenthesizedExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.fixers.BulkApplicableFix;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Applies BulkApplicableFix fixes after the analysis: one write command per file, followed by a single document
+    commit and save. Replacement PSI is built once per distinct expression text and shared (replacing copies it).
+    Edits are applied innermost first; a pre-computed fix whose element was changed by a nested fix is deferred
+    to the next run, as its replacement was built from the original text.
+ */
+final public class BulkFixesApplier {
+    @NotNull
+    private final Project project;
+    private final boolean performanceOnly;
+    private final Map<VirtualFile, List<Edit>> edits = new ConcurrentHashMap<>();
+    /* expression text to the replacement PSI, accessed in write actions only */
+    private final Map<String, PsiElement> donors     = new HashMap<>();
+
+    /* performanceOnly: when inspections were not listed explicitly, only performance fixes are safe without a review */
+    BulkFixesApplier(@NotNull Project project, boolean performanceOnly) {
+        this.project         = project;
+        this.performanceOnly = performanceOnly;
+    }
+
+    /* read action is required; returns false when the problem has no bulk-applicable fix or its fix is not applied */
+    boolean register(@NotNull VirtualFile file, @NotNull ProblemDescriptor descriptor, @Nullable String groupName) {
+        if (this.performanceOnly && !"Performance".equals(groupName)) {
+            return false;
+        }
+        final PsiElement target = descriptor.getPsiElement();
+        final QuickFix[] fixes  = descriptor.getFixes();
+        if (target != null && fixes != null) {
+            for (final QuickFix fix : fixes) {
+                if (fix instanceof BulkApplicableFix) {
+                    final SmartPsiElementPointer<PsiElement> pointer = SmartPointerManager.getInstance(this.project).createSmartPsiElementPointer(target);
+                    this.edits.computeIfAbsent(file, key -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(new Edit(pointer, (BulkApplicableFix) fix, target.getText(), target.getTextRange().getStartOffset(), target.getTextRange().getEndOffset()));
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /* files are processed one by one, in the path order */
+    void applyAll(@NotNull BatchStatistics statistics) {
+        final List<VirtualFile> files = new ArrayList<>(this.edits.keySet());
+        files.sort(Comparator.comparing(VirtualFile::getPath));
+        for (final VirtualFile file : files) {
+            final List<Edit> fileEdits = this.edits.remove(file);
+            final Runnable write       = () -> WriteCommandAction.runWriteCommandAction(this.project, () -> this.apply(file, fileEdits, statistics));
+            if (ApplicationManager.getApplication().isDispatchThread()) {
+                write.run();
+            } else {
+                ApplicationManager.getApplication().invokeAndWait(write, ModalityState.defaultModalityState());
+            }
+        }
+    }
+
+    private void apply(@NotNull VirtualFile file, @NotNull List<Edit> fileEdits, @NotNull BatchStatistics statistics) {
+        final PsiDocumentManager manager = PsiDocumentManager.getInstance(this.project);
+        final PsiFile psiFile            = file.isValid() ? PsiManager.getInstance(this.project).findFile(file) : null;
+        final Document document          = psiFile == null ? null : manager.getDocument(psiFile);
+        if (document == null) {
+            statistics.addDeferred(fileEdits.size());
+            return;
+        }
+
+        /* innermost first: nested elements are starting later, or at the same offset but ending earlier */
+        fileEdits.sort(Comparator.comparingInt((Edit edit) -> edit.start).reversed().thenComparingInt(edit -> edit.end));
+        int applied  = 0;
+        int deferred = 0;
+        for (final Edit edit : fileEdits) {
+            final PsiElement target = edit.target.getElement();
+            if (target == null || !target.isValid() || (!edit.fix.isRecomputed() && !target.getText().equals(edit.text))) {
+                ++deferred;
+                continue;
+            }
+            final String text      = edit.fix.getReplacementText(target);
+            final PsiElement donor = text == null ? null : this.getDonor(text);
+            if (donor == null) {
+                ++deferred;
+                continue;
+            }
+            target.replace(donor);
+            ++applied;
+        }
+        manager.doPostponedOperationsAndUnblockDocument(document);
+        manager.commitDocument(document);
+        FileDocumentManager.getInstance().saveDocument(document);
+
+        statistics.addFixed(applied);
+        statistics.addDeferred(deferred);
+    }
+
+    @Nullable
+    private PsiElement getDonor(@NotNull String text) {
+        PsiElement donor = this.donors.get(text);
+        if (donor == null || !donor.isValid()) {
+            donor = PhpPsiElementFactory.createPhpPsiFromText(this.project, ParenthesizedExpression.class, '(' + text + ')').getArgument();
+            if (donor != null) {
+                this.donors.put(text, donor);
+            }
+        }
+        return donor;
+    }
+
+    private static final class Edit {
+        @NotNull
+        private final SmartPsiElementPointer<PsiElement> target;
+        @NotNull
+        private final BulkApplicableFix fix;
+        /* the element text at inspection time */
+        @NotNull
+        private final String text;
+        private final int start;
+        private final int end;
+
+        private Edit(@NotNull SmartPsiElementPointer<PsiElement> target, @NotNull BulkApplicableFix fix, @NotNull String text, int start, int end) {
+            this.target = target;
+            this.fix    = fix;
+            this.text   = text;
+            this.start  = start;
+            this.end    = end;
+        }
+    }
+}
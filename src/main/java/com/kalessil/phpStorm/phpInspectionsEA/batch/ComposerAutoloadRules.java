@@ -0,0 +1,213 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.json.psi.*;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    The root composer.json `autoload` and `autoload-dev` rules: psr-4, psr-0, classmap and exclude-from-classmap.
+    Paths are '/'-separated and relative to the composer.json directory, the same way Composer is resolving them.
+ */
+final public class ComposerAutoloadRules {
+    @NotNull
+    private final VirtualFile root;
+    @NotNull
+    private final String vendorDir;
+    /* namespace prefix to directories, longest prefixes first (as the Composer class loader checks them) */
+    private final Map<String, List<String>> psr4 = new TreeMap<>(Comparator.comparingInt(String::length).reversed().thenComparing(String::compareTo));
+    private final Map<String, List<String>> psr0 = new TreeMap<>(Comparator.comparingInt(String::length).reversed().thenComparing(String::compareTo));
+    private final List<String> classmap          = new ArrayList<>();
+    private final List<Pattern> excluded         = new ArrayList<>();
+
+    private ComposerAutoloadRules(@NotNull VirtualFile root, @NotNull String vendorDir) {
+        this.root      = root;
+        this.vendorDir = vendorDir;
+    }
+
+    /* the project base directory composer.json (content roots are covering non-standard layouts), read action is required */
+    @Nullable
+    public static ComposerAutoloadRules find(@NotNull Project project) {
+        final List<VirtualFile> roots = new ArrayList<>();
+        if (project.getBaseDir() != null) {
+            roots.add(project.getBaseDir());
+        }
+        roots.addAll(Arrays.asList(ProjectRootManager.getInstance(project).getContentRoots()));
+        for (final VirtualFile root : roots) {
+            final VirtualFile manifest = root.findChild("composer.json");
+            final PsiFile file         = manifest == null ? null : PsiManager.getInstance(project).findFile(manifest);
+            if (file instanceof JsonFile && file.getFirstChild() instanceof JsonObject) {
+                return parse(root, (JsonObject) file.getFirstChild());
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    private static ComposerAutoloadRules parse(@NotNull VirtualFile root, @NotNull JsonObject manifest) {
+        final JsonObject config           = getObject(manifest, "config");
+        final List<String> vendor         = config == null ? Collections.emptyList() : getStrings(config.findProperty("vendor-dir"));
+        final ComposerAutoloadRules rules = new ComposerAutoloadRules(root, vendor.isEmpty() ? "vendor" : normalize(vendor.get(0)));
+        for (final String section : Arrays.asList("autoload", "autoload-dev")) {
+            final JsonObject autoload = getObject(manifest, section);
+            if (autoload != null) {
+                collectPrefixes(getObject(autoload, "psr-4"), rules.psr4);
+                collectPrefixes(getObject(autoload, "psr-0"), rules.psr0);
+                getStrings(autoload.findProperty("classmap")).forEach(path -> rules.classmap.add(normalize(path)));
+                getStrings(autoload.findProperty("exclude-from-classmap")).forEach(path -> rules.excluded.add(toPattern(path)));
+            }
+        }
+        return rules;
+    }
+
+    private static void collectPrefixes(@Nullable JsonObject rules, @NotNull Map<String, List<String>> storage) {
+        if (rules != null) {
+            for (final JsonProperty rule : rules.getPropertyList()) {
+                final List<String> directories = storage.computeIfAbsent(unescape(rule.getNameElement().getText()), prefix -> new ArrayList<>());
+                getStrings(rule).forEach(path -> directories.add(normalize(path)));
+            }
+        }
+    }
+
+    @Nullable
+    private static JsonObject getObject(@NotNull JsonObject parent, @NotNull String name) {
+        final JsonProperty property = parent.findProperty(name);
+        final JsonValue value       = property == null ? null : property.getValue();
+        return value instanceof JsonObject ? (JsonObject) value : null;
+    }
+
+    /* a string or an array of strings */
+    @NotNull
+    private static List<String> getStrings(@Nullable JsonProperty property) {
+        final List<String> result = new ArrayList<>();
+        final JsonValue value     = property == null ? null : property.getValue();
+        if (value instanceof JsonStringLiteral) {
+            result.add(unescape(value.getText()));
+        } else if (value instanceof JsonArray) {
+            for (final JsonValue item : ((JsonArray) value).getValueList()) {
+                if (item instanceof JsonStringLiteral) {
+                    result.add(unescape(item.getText()));
+                }
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private static String unescape(@NotNull String literal) {
+        return StringUtil.unescapeStringCharacters(StringUtil.unquoteString(literal));
+    }
+
+    /* `./src/` becomes `src`, the package root becomes an empty string */
+    @NotNull
+    private static String normalize(@NotNull String path) {
+        String result = path.replace('\\', '/').replaceAll("/{2,}", "/");
+        while (result.startsWith("./")) {
+            result = result.substring(2);
+        }
+        result = StringUtil.trimEnd(StringUtil.trimStart(result, "/"), "/");
+        return result.equals(".") ? "" : result;
+    }
+
+    /* Composer semantics: `**` matches any path, `*` a single path segment part, the pattern matches a path prefix */
+    @NotNull
+    private static Pattern toPattern(@NotNull String path) {
+        final StringBuilder regex = new StringBuilder("^");
+        final String normalized   = normalize(path);
+        for (int index = 0; index < normalized.length(); ++index) {
+            final char current = normalized.charAt(index);
+            if (current == '*' && index + 1 < normalized.length() && normalized.charAt(index + 1) == '*') {
+                regex.append(".+?");
+                ++index;
+            } else if (current == '*') {
+                regex.append("[^/]+?");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(current)));
+            }
+        }
+        return Pattern.compile(regex.append("($|/)").toString());
+    }
+
+    @NotNull
+    private static String join(@NotNull String directory, @NotNull String path) {
+        return directory.isEmpty() ? path : directory + '/' + path;
+    }
+
+    private static boolean isInside(@NotNull String path, @NotNull String directory) {
+        return directory.isEmpty() || path.startsWith(directory + '/');
+    }
+
+    /* the composer.json directory */
+    @NotNull
+    public VirtualFile getRoot() {
+        return this.root;
+    }
+
+    /* null when the file is outside of the composer.json directory */
+    @Nullable
+    public String getRelativePath(@NotNull VirtualFile file) {
+        return VfsUtilCore.getRelativePath(file, this.root, '/');
+    }
+
+    /* locations the class can be loaded from by the PSR-4 and PSR-0 rules, FQN is without the leading slash */
+    @NotNull
+    public List<String> getExpectedPaths(@NotNull String fqn) {
+        final List<String> result = new ArrayList<>();
+        this.psr4.forEach((prefix, directories) -> {
+            if (fqn.startsWith(prefix)) {
+                final String path = fqn.substring(prefix.length()).replace('\\', '/') + ".php";
+                directories.forEach(directory -> result.add(join(directory, path)));
+            }
+        });
+        this.psr0.forEach((prefix, directories) -> {
+            if (fqn.startsWith(prefix)) {
+                final int separator = fqn.lastIndexOf('\\');
+                final String path   = fqn.substring(0, separator + 1).replace('\\', '/') + fqn.substring(separator + 1).replace('_', '/') + ".php";
+                directories.forEach(directory -> result.add(join(directory, path)));
+            }
+        });
+        return result;
+    }
+
+    /* the FQN matches a non-fallback prefix, or the file is located in a PSR-4/PSR-0 directory */
+    public boolean isPsrManaged(@NotNull String fqn, @NotNull String path) {
+        for (final Map<String, List<String>> rules : Arrays.asList(this.psr4, this.psr0)) {
+            for (final Map.Entry<String, List<String>> rule : rules.entrySet()) {
+                if (!rule.getKey().isEmpty() && fqn.startsWith(rule.getKey())) {
+                    return true;
+                }
+                if (rule.getValue().stream().anyMatch(directory -> isInside(path, directory))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean isClassmap(@NotNull String path) {
+        return this.classmap.stream().anyMatch(entry -> path.equals(entry) || isInside(path, entry));
+    }
+
+    /* excluded from the classmap and dependencies installed by Composer */
+    public boolean isExcluded(@NotNull String path) {
+        return isInside(path, this.vendorDir) || this.excluded.stream().anyMatch(pattern -> pattern.matcher(path).find());
+    }
+}
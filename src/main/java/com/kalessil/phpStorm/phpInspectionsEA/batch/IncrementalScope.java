@@ -0,0 +1,218 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.ResolveResult;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.baseline.Baseline;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiResolveUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Changed files and their dependents: files referencing classes, their members and functions declared in the changed
+    files (the platform references index), files with child classes (inheritance-sensitive inspections are checking
+    them against the parent) and files of the previous report referencing the changed files or symbols which can not
+    be resolved anymore (removed declarations, deleted files).
+
+    Limitation: dependents of dependents are not collected, e.g. a file relying on a return type inferred through an
+    unchanged intermediate function. Run a full analysis periodically if inspections are depending on such types.
+ */
+final public class IncrementalScope {
+    @NotNull
+    private final Set<String> changed;
+    @NotNull
+    private final List<VirtualFile> files;
+
+    private IncrementalScope(@NotNull Set<String> changed, @NotNull List<VirtualFile> files) {
+        this.changed = changed;
+        this.files   = files;
+    }
+
+    /* one project-relative path per line, e.g. `git diff --name-only` output */
+    @NotNull
+    public static Set<String> readChanged(@NotNull Reader source) throws IOException {
+        final Set<String> result = new LinkedHashSet<>();
+        try (final BufferedReader reader = new BufferedReader(source)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim().replace('\\', '/');
+                if (!line.isEmpty()) {
+                    result.add(line.startsWith("./") ? line.substring(2) : line);
+                }
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    public static IncrementalScope collect(@NotNull Project project, @NotNull Set<String> changed) {
+        return collect(project, changed, Collections.emptyList());
+    }
+
+    /* the previous report problems are used for finding its files affected by the changes */
+    @NotNull
+    public static IncrementalScope collect(@NotNull Project project, @NotNull Set<String> changed, @NotNull List<BatchProblem> previous) {
+        final List<VirtualFile> files = ApplicationManager.getApplication().runReadAction((Computable<List<VirtualFile>>) () -> {
+            final List<VirtualFile> roots = getRoots(project);
+            final GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+            final PsiManager manager      = PsiManager.getInstance(project);
+            final PhpIndex index          = PhpIndex.getInstance(project);
+            final Set<VirtualFile> result = new HashSet<>();
+            for (final String path : changed) {
+                final VirtualFile file = findPhpFile(roots, path);
+                if (file == null) {
+                    continue;
+                }
+                result.add(file);
+
+                final PsiFile psiFile = manager.findFile(file);
+                if (psiFile == null) {
+                    continue;
+                }
+                for (final PhpClass clazz : PsiTreeUtil.findChildrenOfType(psiFile, PhpClass.class)) {
+                    collectReferencingFiles(clazz, scope, result);
+                    /* `$object->method()`, `Clazz::CONSTANT` and alike are not referencing the class itself */
+                    for (final Method method : clazz.getOwnMethods()) {
+                        collectReferencingFiles(method, scope, result);
+                    }
+                    for (final Field field : clazz.getOwnFields()) {
+                        collectReferencingFiles(field, scope, result);
+                    }
+                    OpenapiResolveUtil.resolveChildClasses(clazz.getFQN(), index).stream()
+                            .map(PsiElement::getContainingFile)
+                            .filter(Objects::nonNull)
+                            .map(PsiFile::getVirtualFile)
+                            .filter(child -> child != null && scope.contains(child))
+                            .forEach(result::add);
+                }
+                for (final Function function : PsiTreeUtil.findChildrenOfType(psiFile, Function.class)) {
+                    if (!(function instanceof Method) && !function.isClosure()) {
+                        collectReferencingFiles(function, scope, result);
+                    }
+                }
+            }
+
+            /* removed declarations are not searchable anymore: checking what the previous report files are referencing */
+            final Set<String> reported = previous.stream().map(BatchProblem::getFile).collect(Collectors.toCollection(TreeSet::new));
+            for (final String path : reported) {
+                final VirtualFile file = changed.contains(path) ? null : findPhpFile(roots, path);
+                if (file != null && !result.contains(file)) {
+                    final PsiFile psiFile = manager.findFile(file);
+                    if (psiFile != null && isAffected(project, psiFile, changed)) {
+                        result.add(file);
+                    }
+                }
+            }
+            return new ArrayList<>(result);
+        });
+        files.sort(Comparator.comparing(VirtualFile::getPath));
+        return new IncrementalScope(changed, files);
+    }
+
+    /* paths are relative to the project base directory, content roots are covering non-standard layouts */
+    @NotNull
+    private static List<VirtualFile> getRoots(@NotNull Project project) {
+        final List<VirtualFile> roots = new ArrayList<>();
+        if (project.getBaseDir() != null) {
+            roots.add(project.getBaseDir());
+        }
+        roots.addAll(Arrays.asList(ProjectRootManager.getInstance(project).getContentRoots()));
+        return roots;
+    }
+
+    @Nullable
+    private static VirtualFile findPhpFile(@NotNull List<VirtualFile> roots, @NotNull String path) {
+        final VirtualFile file = roots.stream()
+                .map(root -> root.findFileByRelativePath(path))
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+        return file == null || !file.isValid() || file.isDirectory() || file.getFileType() != PhpFileType.INSTANCE ? null : file;
+    }
+
+    /* unresolved references are over-approximating removed declarations (e.g. untyped `$object->method()`) */
+    private static boolean isAffected(@NotNull Project project, @NotNull PsiFile file, @NotNull Set<String> changed) {
+        for (final PhpReference reference : PsiTreeUtil.findChildrenOfAnyType(file, ClassReference.class, FunctionReference.class, FieldReference.class, ClassConstantReference.class)) {
+            if (reference.getName() == null) {
+                continue;
+            }
+            final ResolveResult[] resolved = reference.multiResolve(false);
+            if (resolved.length == 0) {
+                return true;
+            }
+            for (final ResolveResult result : resolved) {
+                final PsiElement element = result.getElement();
+                final PsiFile container  = element == null ? null : element.getContainingFile();
+                final VirtualFile target = container == null ? null : container.getVirtualFile();
+                if (target != null && changed.contains(Baseline.getPath(project, target))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void collectReferencingFiles(@NotNull PsiElement target, @NotNull GlobalSearchScope scope, @NotNull Set<VirtualFile> result) {
+        for (final PsiReference reference : ReferencesSearch.search(target, scope).findAll()) {
+            final PsiFile file = reference.getElement().getContainingFile();
+            if (file != null && file.getVirtualFile() != null) {
+                result.add(file.getVirtualFile());
+            }
+        }
+    }
+
+    /* previous problems of files which are neither changed, nor re-analyzed, nor deleted */
+    @NotNull
+    public List<BatchProblem> carryOver(@NotNull Project project, @NotNull List<BatchProblem> previous) {
+        return ApplicationManager.getApplication().runReadAction((Computable<List<BatchProblem>>) () -> {
+            final Set<String> analyzed = new HashSet<>(this.changed);
+            this.files.forEach(file -> analyzed.add(Baseline.getPath(project, file)));
+            final List<VirtualFile> roots       = getRoots(project);
+            final Map<String, Boolean> existing = new HashMap<>();
+            return previous.stream()
+                    .filter(problem -> !analyzed.contains(problem.getFile()))
+                    .filter(problem -> existing.computeIfAbsent(problem.getFile(), path -> findPhpFile(roots, path) != null))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    /* as listed, including deleted and non-PHP files */
+    @NotNull
+    public Set<String> getChanged() {
+        return Collections.unmodifiableSet(this.changed);
+    }
+
+    /* existing changed PHP files and their dependents, sorted */
+    @NotNull
+    public List<VirtualFile> getFiles() {
+        return Collections.unmodifiableList(this.files);
+    }
+}
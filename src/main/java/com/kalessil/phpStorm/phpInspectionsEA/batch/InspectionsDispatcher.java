@@ -0,0 +1,103 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.jetbrains.php.lang.psi.elements.FunctionReference;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Walks a file once and routes every element to the registered visitors. Function calls are delivered only to
+    visitors interested in the function name (see BasePhpInspection.getFunctionCallsFilter()), visitors without
+    a filter are receiving all of them. A visitor failing with an exception is excluded from further dispatching.
+ */
+final public class InspectionsDispatcher<T> {
+    @NotNull
+    private final List<Subscriber<T>> subscribers                  = new ArrayList<>();
+    @NotNull
+    private final List<Subscriber<T>> allCallsSubscribers          = new ArrayList<>();
+    @NotNull
+    private final Map<String, List<Subscriber<T>>> callSubscribers = new HashMap<>();
+    @NotNull
+    private final Map<T, RuntimeException> failures                = new LinkedHashMap<>();
+
+    /* null filter stands for all function calls */
+    public void register(@NotNull T owner, @NotNull PsiElementVisitor visitor, @Nullable Collection<String> filter) {
+        final Subscriber<T> subscriber = new Subscriber<>(owner, visitor);
+        this.subscribers.add(subscriber);
+        if (filter == null) {
+            this.allCallsSubscribers.add(subscriber);
+        } else {
+            filter.forEach(name -> this.callSubscribers.computeIfAbsent(name, key -> new ArrayList<>()).add(subscriber));
+        }
+    }
+
+    public void walk(@NotNull PsiFile file) {
+        file.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                dispatch(element);
+                super.visitElement(element);
+            }
+        });
+    }
+
+    public void dispatch(@NotNull PsiElement element) {
+        if (OpenapiTypesUtil.isFunctionReference(element)) {
+            this.allCallsSubscribers.forEach(subscriber -> this.deliver(subscriber, element));
+            final List<Subscriber<T>> interested = this.callSubscribers.get(((FunctionReference) element).getName());
+            if (interested != null) {
+                interested.forEach(subscriber -> this.deliver(subscriber, element));
+            }
+        } else {
+            this.subscribers.forEach(subscriber -> this.deliver(subscriber, element));
+        }
+    }
+
+    /* owners whose visitors failed, with the first failure */
+    @NotNull
+    public Map<T, RuntimeException> getFailures() {
+        return Collections.unmodifiableMap(this.failures);
+    }
+
+    private void deliver(@NotNull Subscriber<T> subscriber, @NotNull PsiElement element) {
+        if (!subscriber.failed) {
+            try {
+                element.accept(subscriber.visitor);
+            } catch (final ProcessCanceledException cancellation) {
+                throw cancellation;
+            } catch (final RuntimeException failure) {
+                subscriber.failed = true;
+                this.failures.put(subscriber.owner, failure);
+            }
+        }
+    }
+
+    private static final class Subscriber<T> {
+        @NotNull
+        private final T owner;
+        @NotNull
+        private final PsiElementVisitor visitor;
+        private boolean failed = false;
+
+        private Subscriber(@NotNull T owner, @NotNull PsiElementVisitor visitor) {
+            this.owner   = owner;
+            this.visitor = visitor;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* reads problems back from JSON lines written by JsonReportWriter: flat records, the summary record is skipped */
+final public class JsonReportReader {
+    @NotNull
+    public static List<BatchProblem> read(@NotNull Reader source) throws IOException {
+        final List<BatchProblem> result = new ArrayList<>();
+        try (final BufferedReader reader = new BufferedReader(source)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                ++number;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                final Map<String, String> record = parse(line);
+                if (record == null) {
+                    throw new IOException("Malformed report record at line " + number);
+                }
+                if ("problem".equals(record.get("type"))) {
+                    result.add(new BatchProblem(
+                            record.getOrDefault("inspection", ""),
+                            record.getOrDefault("file", ""),
+                            toInt(record.get("line")),
+                            toInt(record.get("column")),
+                            toInt(record.get("offset")),
+                            toInt(record.get("length")),
+                            record.getOrDefault("message", ""),
+                            toSeverity(record.get("severity")),
+                            record.getOrDefault("fingerprint", "")
+                    ));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int toInt(@Nullable String value) {
+        try {
+            return value == null ? 0 : Integer.parseInt(value);
+        } catch (final NumberFormatException notNumber) {
+            return 0;
+        }
+    }
+
+    @NotNull
+    private static BatchProblem.Severity toSeverity(@Nullable String value) {
+        for (final BatchProblem.Severity severity : BatchProblem.Severity.values()) {
+            if (severity.name().equalsIgnoreCase(value)) {
+                return severity;
+            }
+        }
+        return BatchProblem.Severity.WARNING;
+    }
+
+    /* top-level string and number members only, nested values are skipped; null when malformed */
+    @Nullable
+    private static Map<String, String> parse(@NotNull String line) {
+        final Map<String, String> result = new HashMap<>();
+        final int[] position             = {skipSpaces(line, 0)};
+        if (position[0] >= line.length() || line.charAt(position[0]++) != '{') {
+            return null;
+        }
+        while (true) {
+            position[0] = skipSpaces(line, position[0]);
+            if (position[0] < line.length() && line.charAt(position[0]) == '}') {
+                return result;
+            }
+            final String key = readString(line, position);
+            position[0]      = skipSpaces(line, position[0]);
+            if (key == null || position[0] >= line.length() || line.charAt(position[0]++) != ':') {
+                return null;
+            }
+            position[0] = skipSpaces(line, position[0]);
+            if (position[0] >= line.length()) {
+                return null;
+            }
+            final char first = line.charAt(position[0]);
+            if (first == '"') {
+                final String value = readString(line, position);
+                if (value == null) {
+                    return null;
+                }
+                result.put(key, value);
+            } else {
+                final int start = position[0];
+                position[0]     = skipValue(line, position[0]);
+                if (position[0] < 0) {
+                    return null;
+                }
+                if (first != '{' && first != '[') {
+                    result.put(key, line.substring(start, position[0]).trim());
+                }
+            }
+            position[0] = skipSpaces(line, position[0]);
+            if (position[0] >= line.length()) {
+                return null;
+            }
+            final char separator = line.charAt(position[0]++);
+            if (separator == '}') {
+                return result;
+            } else if (separator != ',') {
+                return null;
+            }
+        }
+    }
+
+    private static int skipSpaces(@NotNull String line, int position) {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            ++position;
+        }
+        return position;
+    }
+
+    /* numbers, literals and nested structures: -1 when not terminated */
+    private static int skipValue(@NotNull String line, int position) {
+        int depth        = 0;
+        boolean isString = false;
+        for (; position < line.length(); ++position) {
+            final char character = line.charAt(position);
+            if (isString) {
+                if (character == '\\') {
+                    ++position;
+                } else if (character == '"') {
+                    isString = false;
+                }
+            } else if (character == '"') {
+                isString = true;
+            } else if (character == '{' || character == '[') {
+                ++depth;
+            } else if (character == '}' || character == ']') {
+                if (depth == 0) {
+                    return position;
+                }
+                if (--depth == 0) {
+                    return position + 1;
+                }
+            } else if (character == ',' && depth == 0) {
+                return position;
+            }
+        }
+        return depth == 0 && !isString ? position : -1;
+    }
+
+    @Nullable
+    private static String readString(@NotNull String line, @NotNull int[] position) {
+        if (position[0] >= line.length() || line.charAt(position[0]) != '"') {
+            return null;
+        }
+        final StringBuilder result = new StringBuilder();
+        for (int index = position[0] + 1; index < line.length(); ++index) {
+            final char character = line.charAt(index);
+            if (character == '"') {
+                position[0] = index + 1;
+                return result.toString();
+            } else if (character == '\\') {
+                if (++index >= line.length()) {
+                    return null;
+                }
+                final char escaped = line.charAt(index);
+                switch (escaped) {
+                    case 'n': result.append('\n'); break;
+                    case 'r': result.append('\r'); break;
+                    case 't': result.append('\t'); break;
+                    case 'b': result.append('\b'); break;
+                    case 'f': result.append('\f'); break;
+                    case 'u':
+                        if (index + 4 >= line.length()) {
+                            return null;
+                        }
+                        try {
+                            result.append((char) Integer.parseInt(line.substring(index + 1, index + 5), 16));
+                        } catch (final NumberFormatException malformed) {
+                            return null;
+                        }
+                        index += 4;
+                        break;
+                    default:  result.append(escaped); break;
+                }
+            } else {
+                result.append(character);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* JSON lines: a record per problem, followed by the summary record; consumers can process the report while it grows */
+final public class JsonReportWriter extends BatchReportWriter {
+    JsonReportWriter(@NotNull Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void begin(@NotNull Map<String, String> rules) {
+    }
+
+    @Override
+    protected void write(@NotNull BatchProblem problem) throws IOException {
+        this.out
+                .append("{\"type\":\"problem\"")
+                .append(",\"inspection\":").append(quote(problem.getInspection()))
+                .append(",\"file\":").append(quote(problem.getFile()))
+                .append(",\"line\":").append(String.valueOf(problem.getLine()))
+                .append(",\"column\":").append(String.valueOf(problem.getColumn()))
+                .append(",\"offset\":").append(String.valueOf(problem.getOffset()))
+                .append(",\"length\":").append(String.valueOf(problem.getLength()))
+                .append(",\"severity\":").append(quote(problem.getSeverity().name().toLowerCase(Locale.ROOT)))
+                .append(",\"message\":").append(quote(problem.getMessage()))
+                .append(",\"fingerprint\":").append(quote(problem.getFingerprint()))
+                .append("}\n");
+    }
+
+    @Override
+    public synchronized void end(@NotNull BatchStatistics statistics) throws IOException {
+        this.out
+                .append("{\"type\":\"summary\"")
+                .append(",\"files\":").append(String.valueOf(statistics.getFiles()))
+                .append(",\"problems\":").append(String.valueOf(statistics.getProblems()))
+                .append(",\"suppressed\":").append(String.valueOf(statistics.getSuppressed()))
+                .append(",\"carried\":").append(String.valueOf(statistics.getCarried()))
+                .append(",\"fixed\":").append(String.valueOf(statistics.getFixed()))
+                .append(",\"seconds\":").append(String.format(Locale.ROOT, "%.3f", statistics.getElapsedNanos() / 1e9))
+                .append(",\"workers\":").append(toJson(statistics.getWorkers()))
+                .append("}\n");
+        this.out.flush();
+    }
+}
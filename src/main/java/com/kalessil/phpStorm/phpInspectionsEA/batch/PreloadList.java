@@ -0,0 +1,362 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.baseline.Baseline;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.PreloadingUsageCorrectnessInspector;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.NamedElementUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiResolveUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Opcache preload list: files of the entry points classes and of their parents, interfaces and traits, ordered so
+    the dependencies are compiled first (`opcache_compile_file()` can link a class only when its parents are known).
+    Classes with unresolved dependencies and conditionally declared ones can not be preloaded and are reported. Files
+    are compiled as a whole, hence files declaring such classes are not preloaded at all (with their dependents).
+ */
+final public class PreloadList {
+    private static final String messageUnresolved   = "'%s' can not be preloaded: '%s' is not resolved.";
+    private static final String messageConditional  = "'%s' can not be preloaded: the class is declared conditionally.";
+    private static final String messageDependency   = "'%s' can not be preloaded: it depends on '%s', which can not be preloaded.";
+    private static final String messageSibling      = "'%s' can not be preloaded: '%s' is declared in the same file and can not be preloaded.";
+    private static final String messageAmbiguous    = "'%s' is declared in several files, the first one is preloaded.";
+    private static final String messageUnknownEntry = "The entry point '%s' does not match any class or file.";
+
+    @NotNull
+    private final List<VirtualFile> files;
+    @NotNull
+    private final List<BatchProblem> problems;
+
+    private PreloadList(@NotNull List<VirtualFile> files, @NotNull List<BatchProblem> problems) {
+        this.files    = files;
+        this.problems = problems;
+    }
+
+    /* one entry point per line: a class FQN, or a file/directory relative to the base directory; `#` starts a comment */
+    @NotNull
+    public static List<String> readEntries(@NotNull Reader source) throws IOException {
+        final List<String> result = new ArrayList<>();
+        try (final BufferedReader reader = new BufferedReader(source)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int comment = line.indexOf('#');
+                line              = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    /* read action is required; entries path is used for reporting unknown entry points */
+    @NotNull
+    public static PreloadList build(
+            @NotNull Project project,
+            @NotNull VirtualFile baseDir,
+            @NotNull List<String> entries,
+            @NotNull String entriesPath
+    ) {
+        final Builder builder = new Builder(project);
+        for (int index = 0; index < entries.size(); ++index) {
+            final String entry = entries.get(index);
+            if (entry.isEmpty()) {
+                continue;
+            }
+            final List<PhpClass> classes = builder.resolveEntry(baseDir, entry);
+            if (classes.isEmpty()) {
+                final String message = String.format(messageUnknownEntry, entry);
+                builder.problems.add(new BatchProblem(builder.inspection, entriesPath, index + 1, 1, 0, entry.length(), MessagesPresentationUtil.prefixWithEa(message), BatchProblem.Severity.WARNING, ""));
+            }
+            classes.forEach(clazz -> builder.visit(clazz, new HashSet<>()));
+        }
+        builder.excludeMixedFiles();
+        return new PreloadList(builder.collectFiles(), builder.problems);
+    }
+
+    /* dependencies first */
+    @NotNull
+    public List<VirtualFile> getFiles() {
+        return Collections.unmodifiableList(this.files);
+    }
+
+    @NotNull
+    public List<BatchProblem> getProblems() {
+        return Collections.unmodifiableList(this.problems);
+    }
+
+    /* the preload.php script, see `opcache.preload`; baseDir is the base directory as seen from the script */
+    public void write(@NotNull Writer writer, @NotNull VirtualFile root, @NotNull String baseDir) throws IOException {
+        writer.write("<?php\n\n");
+        writer.write("// preload.php @generated by Php Inspections (EA Extended): parents, interfaces and traits are compiled first\n\n");
+        writer.write("$baseDir = " + baseDir + ";\n\n");
+        for (final VirtualFile file : this.files) {
+            final String relative = VfsUtilCore.getRelativePath(file, root, '/');
+            final String path     = relative == null
+                    ? '\'' + AutoloadMap.escape(file.getPath()) + '\''
+                    : "$baseDir . '/" + AutoloadMap.escape(relative) + '\'';
+            writer.write("opcache_compile_file(" + path + ");\n");
+        }
+        writer.flush();
+    }
+
+    private static final class Builder {
+        @NotNull
+        private final Project project;
+        @NotNull
+        private final PhpIndex index;
+        @NotNull
+        private final GlobalSearchScope scope;
+        @NotNull
+        private final String inspection             = new PreloadingUsageCorrectnessInspector().getShortName();
+        /* class FQN to its preload-ability and dependencies */
+        private final Map<String, Boolean> visited             = new HashMap<>();
+        private final Map<String, List<PhpClass>> dependencies = new HashMap<>();
+        /* preloadable classes, dependencies first */
+        private final List<PhpClass> completed                 = new ArrayList<>();
+        private final List<BatchProblem> problems              = new ArrayList<>();
+        private final Set<String> reported                     = new HashSet<>();
+
+        private Builder(@NotNull Project project) {
+            this.project = project;
+            this.index   = PhpIndex.getInstance(project);
+            this.scope   = GlobalSearchScope.projectScope(project);
+        }
+
+        @NotNull
+        private List<PhpClass> resolveEntry(@NotNull VirtualFile baseDir, @NotNull String entry) {
+            final List<PhpClass> result = new ArrayList<>();
+            final VirtualFile location  = entry.contains("/") || entry.endsWith(".php") ? baseDir.findFileByRelativePath(entry) : null;
+            if (location != null) {
+                VfsUtilCore.iterateChildrenRecursively(location, null, file -> {
+                    final PsiFile psiFile = file.isDirectory() ? null : PsiManager.getInstance(this.project).findFile(file);
+                    if (psiFile instanceof PhpFile) {
+                        result.addAll(getDeclaredClasses(psiFile));
+                    }
+                    return true;
+                });
+            } else {
+                final String fqn              = entry.startsWith("\\") ? entry : '\\' + entry;
+                final List<PhpClass> resolved = new ArrayList<>(OpenapiResolveUtil.resolveClassesAndInterfacesByFQN(fqn, this.index));
+                resolved.addAll(this.index.getTraitsByFQN(fqn));
+                if (!resolved.isEmpty()) {
+                    result.add(resolved.get(0));
+                }
+            }
+            return result;
+        }
+
+        private boolean visit(@NotNull PhpClass clazz, @NotNull Set<String> path) {
+            final String fqn = clazz.getFQN().toLowerCase();
+            if (this.visited.containsKey(fqn)) {
+                return this.visited.get(fqn);
+            }
+            /* inheritance cycles are broken code, not preloadable either */
+            if (!path.add(fqn)) {
+                return false;
+            }
+
+            boolean preloadable = true;
+            if (this.isConditional(clazz)) {
+                this.report(clazz, String.format(messageConditional, clazz.getFQN()));
+                preloadable = false;
+            }
+            final List<PhpClass> dependencies = new ArrayList<>();
+            for (final ClassReference reference : this.getDeclaredDependencies(clazz)) {
+                final PhpClass dependency = this.resolveDependency(clazz, reference);
+                if (dependency == null) {
+                    this.report(clazz, String.format(messageUnresolved, clazz.getFQN(), reference.getFQN()));
+                    preloadable = false;
+                } else if (!dependencies.contains(dependency)) {
+                    dependencies.add(dependency);
+                }
+            }
+            Arrays.stream(clazz.getTraits()).filter(trait -> !dependencies.contains(trait)).forEach(dependencies::add);
+            for (final PhpClass dependency : dependencies) {
+                if (!this.visit(dependency, path)) {
+                    if (preloadable) {
+                        this.report(clazz, String.format(messageDependency, clazz.getFQN(), dependency.getFQN()));
+                    }
+                    preloadable = false;
+                }
+            }
+
+            if (preloadable) {
+                this.completed.add(clazz);
+            }
+            path.remove(fqn);
+            this.visited.put(fqn, preloadable);
+            this.dependencies.put(fqn, dependencies);
+            return preloadable;
+        }
+
+        /* a class declared next to a non-preloadable one is excluded, so are its dependents: repeated until stable */
+        private void excludeMixedFiles() {
+            boolean changed = true;
+            while (changed) {
+                changed        = false;
+                final int size = this.completed.size();
+                for (final PhpClass clazz : new ArrayList<>(this.completed)) {
+                    final String fqn = clazz.getFQN().toLowerCase();
+                    if (!this.visited.get(fqn)) {
+                        continue;
+                    }
+                    String reason      = null;
+                    final PsiFile file = this.getProjectFile(clazz);
+                    if (file != null) {
+                        for (final PhpClass sibling : getDeclaredClasses(file)) {
+                            if (sibling != clazz && !this.visit(sibling, new HashSet<>())) {
+                                reason = String.format(messageSibling, clazz.getFQN(), sibling.getFQN());
+                                break;
+                            }
+                        }
+                    }
+                    if (reason == null) {
+                        for (final PhpClass dependency : this.dependencies.get(fqn)) {
+                            if (!this.visited.getOrDefault(dependency.getFQN().toLowerCase(), true)) {
+                                reason = String.format(messageDependency, clazz.getFQN(), dependency.getFQN());
+                                break;
+                            }
+                        }
+                    }
+                    if (reason != null) {
+                        this.report(clazz, reason);
+                        this.visited.put(fqn, false);
+                        changed = true;
+                    }
+                }
+                /* siblings visited in this pass are to be checked as well */
+                changed = changed || this.completed.size() != size;
+            }
+        }
+
+        /* files of the preloadable classes, the files declaring dependencies first */
+        @NotNull
+        private List<VirtualFile> collectFiles() {
+            final Set<VirtualFile> result = new LinkedHashSet<>();
+            for (final PhpClass clazz : this.completed) {
+                this.collectFile(clazz, new HashSet<>(), result);
+            }
+            return new ArrayList<>(result);
+        }
+
+        private void collectFile(@NotNull PhpClass clazz, @NotNull Set<PsiFile> path, @NotNull Set<VirtualFile> result) {
+            /* internal classes are not in the project scope: they are available anyway */
+            final PsiFile file = this.getProjectFile(clazz);
+            if (file == null || !this.visited.getOrDefault(clazz.getFQN().toLowerCase(), false) || result.contains(file.getVirtualFile()) || !path.add(file)) {
+                return;
+            }
+            for (final PhpClass declared : getDeclaredClasses(file)) {
+                for (final PhpClass dependency : this.dependencies.getOrDefault(declared.getFQN().toLowerCase(), Collections.emptyList())) {
+                    this.collectFile(dependency, path, result);
+                }
+            }
+            result.add(file.getVirtualFile());
+        }
+
+        @Nullable
+        private PsiFile getProjectFile(@NotNull PhpClass clazz) {
+            final PsiFile file = clazz.getContainingFile();
+            return file != null && file.getVirtualFile() != null && this.scope.contains(file.getVirtualFile()) ? file : null;
+        }
+
+        /* anonymous classes are not declarations */
+        @NotNull
+        private static List<PhpClass> getDeclaredClasses(@NotNull PsiFile file) {
+            final List<PhpClass> result = new ArrayList<>();
+            PsiTreeUtil.findChildrenOfType(file, PhpClass.class).stream()
+                    .filter(clazz -> !(clazz.getParent() instanceof NewExpression))
+                    .forEach(result::add);
+            return result;
+        }
+
+        /* extends, implements and used traits references */
+        @NotNull
+        private List<ClassReference> getDeclaredDependencies(@NotNull PhpClass clazz) {
+            final List<ClassReference> result = new ArrayList<>();
+            final ExtendsList extendsList     = clazz.getExtendsList();
+            final ImplementsList implemented  = clazz.getImplementsList();
+            result.addAll(extendsList.getReferenceElements());
+            result.addAll(implemented.getReferenceElements());
+            for (final PhpUseList traits : PsiTreeUtil.getChildrenOfTypeAsList(clazz, PhpUseList.class)) {
+                result.addAll(PsiTreeUtil.findChildrenOfType(traits, ClassReference.class));
+            }
+            return result;
+        }
+
+        /* resolved the way the inheritance is resolved elsewhere, the index lookup covers interfaces parents and traits */
+        @Nullable
+        private PhpClass resolveDependency(@NotNull PhpClass clazz, @NotNull ClassReference reference) {
+            final String fqn      = reference.getFQN();
+            final PhpClass parent = OpenapiResolveUtil.resolveSuperClass(clazz);
+            if (fqn == null) {
+                return null;
+            } else if (parent != null && parent.getFQN().equalsIgnoreCase(fqn)) {
+                return parent;
+            }
+            for (final PhpClass contract : OpenapiResolveUtil.resolveImplementedInterfaces(clazz)) {
+                if (contract.getFQN().equalsIgnoreCase(fqn)) {
+                    return contract;
+                }
+            }
+            for (final PhpClass trait : clazz.getTraits()) {
+                if (trait.getFQN().equalsIgnoreCase(fqn)) {
+                    return trait;
+                }
+            }
+            final List<PhpClass> resolved = new ArrayList<>(OpenapiResolveUtil.resolveClassesAndInterfacesByFQN(fqn, this.index));
+            resolved.addAll(this.index.getTraitsByFQN(fqn));
+            if (resolved.size() > 1) {
+                this.report(resolved.get(0), String.format(messageAmbiguous, resolved.get(0).getFQN()));
+            }
+            return resolved.isEmpty() ? null : resolved.get(0);
+        }
+
+        /* declared in a function or a control structure body: only a namespace or the file itself are unconditional */
+        private boolean isConditional(@NotNull PhpClass clazz) {
+            final PsiElement parent = clazz.getParent();
+            final PsiElement scope  = parent instanceof GroupStatement ? parent.getParent() : parent;
+            return !(scope instanceof PhpFile || scope instanceof PhpNamespace);
+        }
+
+        private void report(@NotNull PhpClass clazz, @NotNull String message) {
+            final PsiElement nameNode = NamedElementUtil.getNameIdentifier(clazz);
+            final PsiFile file        = clazz.getContainingFile();
+            if (nameNode != null && file != null && file.getVirtualFile() != null) {
+                final CharSequence content = file.getViewProvider().getContents();
+                final int offset           = nameNode.getTextOffset();
+                final int line             = StringUtil.offsetToLineNumber(content, offset) + 1;
+                final int column           = offset - (StringUtil.lastIndexOf(content, '\n', 0, offset) + 1) + 1;
+                final String path          = Baseline.getPath(this.project, file.getVirtualFile());
+                if (this.reported.add(path + ':' + offset + ':' + message)) {
+                    this.problems.add(new BatchProblem(this.inspection, path, line, column, offset, nameNode.getTextLength(), MessagesPresentationUtil.prefixWithEa(message), BatchProblem.Severity.WARNING, ""));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* SARIF 2.1.0, single run: the header with rules goes first, results are appended as they come */
+final public class SarifReportWriter extends BatchReportWriter {
+    private boolean first = true;
+
+    SarifReportWriter(@NotNull Writer out) {
+        super(out);
+    }
+
+    @Override
+    public synchronized void begin(@NotNull Map<String, String> rules) throws IOException {
+        final String descriptors = rules.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(rule -> "{\"id\":" + quote(rule.getKey()) + ",\"shortDescription\":{\"text\":" + quote(rule.getValue()) + "}}")
+                .collect(Collectors.joining(","));
+        this.out
+                .append("{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\"version\":\"2.1.0\",\"runs\":[{")
+                .append("\"tool\":{\"driver\":{\"name\":\"Php Inspections (EA Extended)\",")
+                .append("\"informationUri\":\"https://github.com/kalessil/phpinspectionsea\",")
+                .append("\"rules\":[").append(descriptors).append("]}},")
+                .append("\"results\":[\n");
+        this.out.flush();
+    }
+
+    @Override
+    protected void write(@NotNull BatchProblem problem) throws IOException {
+        final String level;
+        switch (problem.getSeverity()) {
+            case ERROR:   level = "error";   break;
+            case WARNING: level = "warning"; break;
+            default:      level = "note";    break;
+        }
+        this.out
+                .append(this.first ? "" : ",\n")
+                .append("{\"ruleId\":").append(quote(problem.getInspection()))
+                .append(",\"level\":\"").append(level).append('"')
+                .append(",\"message\":{\"text\":").append(quote(problem.getMessage())).append('}')
+                .append(",\"locations\":[{\"physicalLocation\":{")
+                .append("\"artifactLocation\":{\"uri\":").append(quote(problem.getFile())).append('}')
+                .append(",\"region\":{")
+                .append("\"startLine\":").append(String.valueOf(problem.getLine()))
+                .append(",\"startColumn\":").append(String.valueOf(problem.getColumn()))
+                .append(",\"charOffset\":").append(String.valueOf(problem.getOffset()))
+                .append(",\"charLength\":").append(String.valueOf(problem.getLength()))
+                .append("}}}]")
+                .append(",\"partialFingerprints\":{\"eaFingerprint/v1\":").append(quote(problem.getFingerprint())).append('}')
+                .append('}');
+        this.first = false;
+    }
+
+    @Override
+    public synchronized void end(@NotNull BatchStatistics statistics) throws IOException {
+        this.out
+                .append("\n],\"properties\":{")
+                .append("\"files\":").append(String.valueOf(statistics.getFiles()))
+                .append(",\"seconds\":").append(String.format(Locale.ROOT, "%.3f", statistics.getElapsedNanos() / 1e9))
+                .append(",\"workers\":").append(toJson(statistics.getWorkers()))
+                .append("}}]}\n");
+        this.out.flush();
+    }
+}
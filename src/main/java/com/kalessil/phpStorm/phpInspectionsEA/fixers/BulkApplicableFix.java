@@ -0,0 +1,26 @@
+package com.kalessil.phpStorm.phpInspectionsEA.fixers;
+
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* fixes replacing the problem element with an expression: the batch mode applies them project-wide, see BulkFixesApplier */
+public interface BulkApplicableFix {
+    /* the replacement expression, null when the fix is not applicable to the element anymore */
+    @Nullable
+    String getReplacementText(@NotNull PsiElement target);
+
+    /* the replacement is computed from the current element, so it stays correct when nested problems were fixed before */
+    default boolean isRecomputed() {
+        return false;
+    }
+}
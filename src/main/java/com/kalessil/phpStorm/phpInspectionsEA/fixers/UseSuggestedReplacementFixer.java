@@ -18,7 +18,7 @@ import org.jetbrains.annotations.NotNull;
  * file that was distributed with this source code.
  */
 
-public class UseSuggestedReplacementFixer implements LocalQuickFix {
+public class UseSuggestedReplacementFixer implements LocalQuickFix, BulkApplicableFix {
     private static final String title = "Use suggested replacement";
 
     final private String expression;
@@ -40,6 +40,12 @@ public class UseSuggestedReplacementFixer implements LocalQuickFix {
         this.expression = expression;
     }
 
+    @NotNull
+    @Override
+    public String getReplacementText(@NotNull PsiElement target) {
+        return this.expression;
+    }
+
     @Override
     public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
         final PsiElement expression = descriptor.getPsiElement();
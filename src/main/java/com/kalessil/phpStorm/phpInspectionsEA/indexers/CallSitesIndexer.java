@@ -0,0 +1,211 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexers;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocRef;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocTag;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
+import gnu.trove.THashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Reverse references: callee key to the call sites count in a file. Methods and functions are keyed by the
+    (case-insensitive) name only, as receivers can not be resolved at indexing time; classes are keyed by FQN.
+    String callables (`[$this, 'name']`, `'Class::method'`, `'function'`, class names in strings) and PHPUnit
+    annotation targets are counted as call sites as well, so the index errs on the side of "used".
+    Call sites where the returned value is used otherwise than being iterated by `foreach` (by value) are
+    additionally counted under escaping keys, these are the only ones for string callables and annotations.
+ */
+public class CallSitesIndexer extends FileBasedIndexExtension<String, Integer> {
+    public static final ID<String, Integer> identity = ID.create("kalessil.phpStorm.phpInspectionsEA.call_sites");
+    private final KeyDescriptor<String> descriptor   = new EnumeratorStringDescriptor();
+
+    private static final Set<String> annotations = new HashSet<>(Arrays.asList("@dataProvider", "@depends", "@covers", "@uses", "@see"));
+    private static final Set<String> relative    = new HashSet<>(Arrays.asList("self", "static", "parent"));
+    private static final Pattern callable        = Pattern.compile("^(\\\\?[A-Za-z_][A-Za-z0-9_]*(?:\\\\{1,2}[A-Za-z_][A-Za-z0-9_]*)*)(?:::([A-Za-z_][A-Za-z0-9_]*))?$");
+
+    @NotNull
+    static public String methodKey(@NotNull String name) {
+        return "m:" + name.toLowerCase();
+    }
+
+    @NotNull
+    static public String functionKey(@NotNull String name) {
+        return "f:" + name.toLowerCase();
+    }
+
+    @NotNull
+    static public String classKey(@NotNull String fqn) {
+        return "c:" + (fqn.startsWith("\\") ? fqn : '\\' + fqn).toLowerCase();
+    }
+
+    /* call sites where the returned value escapes (is not only iterated by foreach) */
+    @NotNull
+    static public String escapingKey(@NotNull String key) {
+        return "e" + key;
+    }
+
+    /* stops at the first file with call sites */
+    static public boolean hasCallSites(@NotNull String key, @NotNull GlobalSearchScope scope) {
+        final boolean[] result = {false};
+        FileBasedIndex.getInstance().processValues(identity, key, null, (file, count) -> {
+            result[0] = count > 0;
+            return !result[0];
+        }, scope);
+        return result[0];
+    }
+
+    @NotNull
+    @Override
+    public ID<String, Integer> getName() {
+        return identity;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Integer, FileContent> getIndexer() {
+        return file -> {
+            final Map<String, Integer> result = new THashMap<>();
+            final PsiFile psiFile             = file.getPsiFile();
+            if (psiFile instanceof PhpFile) {
+                PsiTreeUtil.processElements(psiFile, element -> {
+                    collect(element, result);
+                    return true;
+                });
+            }
+            return result;
+        };
+    }
+
+    static private void collect(@NotNull PsiElement element, @NotNull Map<String, Integer> storage) {
+        if (element instanceof MethodReference) {
+            final String name = ((MethodReference) element).getName();
+            if (name != null && !name.isEmpty()) {
+                register(methodKey(name), isIterated(element), storage);
+            }
+        } else if (element instanceof FunctionReference) {
+            final String name = ((FunctionReference) element).getName();
+            if (name != null && !name.isEmpty()) {
+                register(functionKey(name), isIterated(element), storage);
+            }
+        } else if (element instanceof ClassReference) {
+            final ClassReference reference = (ClassReference) element;
+            final String name              = reference.getName();
+            final String fqn               = reference.getFQN();
+            if (name != null && fqn != null && !relative.contains(name.toLowerCase())) {
+                storage.merge(classKey(fqn), 1, Integer::sum);
+            }
+        } else if (element instanceof StringLiteralExpression) {
+            final StringLiteralExpression literal = (StringLiteralExpression) element;
+            if (literal.getFirstPsiChild() == null) {
+                collectCallable(literal.getContents(), storage);
+            }
+        } else if (element instanceof PhpDocTag && annotations.contains(((PhpDocTag) element).getName())) {
+            final PsiElement target = ((PhpDocTag) element).getFirstPsiChild();
+            if (target instanceof PhpDocRef) {
+                final String text   = target.getText().replace("()", "");
+                final int separator = text.indexOf("::");
+                final String member = separator >= 0 ? text.substring(separator + 2) : text;
+                if (!member.isEmpty()) {
+                    register(methodKey(member), false, storage);
+                    register(functionKey(member), false, storage);
+                }
+            }
+        }
+    }
+
+    static private void collectCallable(@NotNull String contents, @NotNull Map<String, Integer> storage) {
+        final Matcher matcher = callable.matcher(contents);
+        if (matcher.matches()) {
+            final String clazz  = matcher.group(1).replace("\\\\", "\\");
+            final String member = matcher.group(2);
+            if (member != null) {
+                storage.merge(classKey(clazz), 1, Integer::sum);
+                register(methodKey(member), false, storage);
+            } else {
+                /* `'name'` is a function, a method (in `[$object, 'name']`) or a class name */
+                final String name = clazz.substring(clazz.lastIndexOf('\\') + 1);
+                storage.merge(classKey(clazz), 1, Integer::sum);
+                register(functionKey(name), false, storage);
+                register(methodKey(name), false, storage);
+            }
+        }
+    }
+
+    static private void register(@NotNull String key, boolean isIterated, @NotNull Map<String, Integer> storage) {
+        storage.merge(key, 1, Integer::sum);
+        if (!isIterated) {
+            storage.merge(escapingKey(key), 1, Integer::sum);
+        }
+    }
+
+    /* `foreach (call() as $value)`, iterating by reference requires an array (or a by-reference generator) */
+    static private boolean isIterated(@NotNull PsiElement reference) {
+        final PsiElement parent = reference.getParent();
+        if (parent instanceof ForeachStatement && ((ForeachStatement) parent).getArray() == reference) {
+            final Variable value = ((ForeachStatement) parent).getValue();
+            PsiElement previous  = value == null ? null : value.getPrevSibling();
+            if (previous instanceof PsiWhiteSpace) {
+                previous = previous.getPrevSibling();
+            }
+            return value != null && !OpenapiTypesUtil.is(previous, PhpTokenTypes.opBIT_AND);
+        }
+        return false;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return descriptor;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<Integer> getValueExternalizer() {
+        return EnumeratorIntegerDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return file -> file.getFileType() == PhpFileType.INSTANCE;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+}
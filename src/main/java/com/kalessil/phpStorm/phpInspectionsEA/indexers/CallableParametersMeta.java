@@ -0,0 +1,190 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexers;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
+import com.jetbrains.php.lang.psi.elements.ArrayCreationExpression;
+import com.jetbrains.php.lang.psi.elements.ClassConstantReference;
+import com.jetbrains.php.lang.psi.elements.ConstantReference;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+final public class CallableParametersMeta {
+    public static final DataExternalizer<CallableParametersMeta> externalizer = new Externalizer();
+
+    private final List<Parameter> parameters;
+
+    CallableParametersMeta(@NotNull List<Parameter> parameters) {
+        this.parameters = parameters;
+    }
+
+    @NotNull
+    public List<Parameter> getParameters() {
+        return Collections.unmodifiableList(this.parameters);
+    }
+
+    @Nullable
+    public Parameter getParameter(@NotNull String name) {
+        return this.parameters.stream().filter(parameter -> parameter.name.equals(name)).findFirst().orElse(null);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CallableParametersMeta && this.parameters.equals(((CallableParametersMeta) other).parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.parameters.hashCode();
+    }
+
+    public enum DefaultValueKind {
+        NONE,
+        NUMBER,
+        STRING,
+        CONSTANT,
+        CLASS_CONSTANT,
+        ARRAY,
+        OTHER;
+
+        @NotNull
+        static DefaultValueKind of(@Nullable PsiElement value) {
+            if (value == null) {
+                return NONE;
+            } else if (OpenapiTypesUtil.isNumber(value)) {
+                return NUMBER;
+            } else if (value instanceof StringLiteralExpression) {
+                return STRING;
+            } else if (value instanceof ConstantReference) {
+                return CONSTANT;
+            } else if (value instanceof ClassConstantReference) {
+                return CLASS_CONSTANT;
+            } else if (value instanceof ArrayCreationExpression) {
+                return ARRAY;
+            }
+            return OTHER;
+        }
+    }
+
+    final public static class Parameter {
+        private static final byte BY_REFERENCE = 1;
+        private static final byte VARIADIC     = 2;
+
+        @NotNull
+        private final String name;
+        private final byte flags;
+        @NotNull
+        private final DefaultValueKind kind;
+        @NotNull
+        private final String defaultValue;
+
+        private Parameter(@NotNull String name, byte flags, @NotNull DefaultValueKind kind, @NotNull String defaultValue) {
+            this.name         = name;
+            this.flags        = flags;
+            this.kind         = kind;
+            this.defaultValue = defaultValue;
+        }
+
+        @NotNull
+        static Parameter of(@NotNull com.jetbrains.php.lang.psi.elements.Parameter parameter) {
+            final PsiElement value = parameter.getDefaultValue();
+            return new Parameter(
+                    parameter.getName(),
+                    (byte) ((parameter.isPassByRef() ? BY_REFERENCE : 0) | (parameter.isVariadic() ? VARIADIC : 0)),
+                    DefaultValueKind.of(value),
+                    value == null ? "" : value.getText()
+            );
+        }
+
+        @NotNull
+        public String getName() {
+            return this.name;
+        }
+
+        public boolean isPassByRef() {
+            return (this.flags & BY_REFERENCE) != 0;
+        }
+
+        public boolean isVariadic() {
+            return (this.flags & VARIADIC) != 0;
+        }
+
+        @NotNull
+        public DefaultValueKind getDefaultValueKind() {
+            return this.kind;
+        }
+
+        @Nullable
+        public String getDefaultValue() {
+            return this.kind == DefaultValueKind.NONE || this.defaultValue.isEmpty() ? null : this.defaultValue;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof Parameter) {
+                final Parameter parameter = (Parameter) other;
+                return this.flags == parameter.flags && this.kind == parameter.kind &&
+                       this.name.equals(parameter.name) && this.defaultValue.equals(parameter.defaultValue);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.name, this.flags, this.kind, this.defaultValue);
+        }
+    }
+
+    /* the format: parameters count, then per parameter: name, flags, default value kind, [default value] */
+    private static final class Externalizer implements DataExternalizer<CallableParametersMeta> {
+        private static final DefaultValueKind[] kinds = DefaultValueKind.values();
+
+        @Override
+        public void save(@NotNull DataOutput out, CallableParametersMeta value) throws IOException {
+            DataInputOutputUtil.writeINT(out, value.parameters.size());
+            for (final Parameter parameter : value.parameters) {
+                IOUtil.writeUTF(out, parameter.name);
+                out.writeByte(parameter.flags);
+                out.writeByte(parameter.kind.ordinal());
+                if (parameter.kind != DefaultValueKind.NONE) {
+                    IOUtil.writeUTF(out, parameter.defaultValue);
+                }
+            }
+        }
+
+        @Override
+        public CallableParametersMeta read(@NotNull DataInput in) throws IOException {
+            final int count                  = DataInputOutputUtil.readINT(in);
+            final List<Parameter> parameters = new ArrayList<>(count);
+            for (int index = 0; index < count; ++index) {
+                final String name           = IOUtil.readUTF(in);
+                final byte flags            = in.readByte();
+                final DefaultValueKind kind = kinds[in.readByte()];
+                /* default values are mostly the same few literals (null, false, [] and co), hence interning */
+                final String defaultValue   = kind == DefaultValueKind.NONE ? "" : IOUtil.readUTF(in).intern();
+                parameters.add(new Parameter(name, flags, kind, defaultValue));
+            }
+            return new CallableParametersMeta(parameters);
+        }
+    }
+}
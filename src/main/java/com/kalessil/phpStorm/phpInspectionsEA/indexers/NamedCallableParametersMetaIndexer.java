@@ -1,6 +1,5 @@
 package com.kalessil.phpStorm.phpInspectionsEA.indexers;
 
-import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.util.indexing.*;
 import com.intellij.util.io.DataExternalizer;
@@ -15,6 +14,8 @@ import com.jetbrains.php.lang.psi.elements.PhpNamedElement;
 import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /*
@@ -26,23 +27,23 @@ import java.util.Map;
  * file that was distributed with this source code.
  */
 
-public class NamedCallableParametersMetaIndexer extends FileBasedIndexExtension<String, String> {
-    public static final ID<String, String> identity = ID.create("kalessil.phpStorm.phpInspectionsEA.callable_parameters");
-    private final KeyDescriptor<String> descriptor  = new EnumeratorStringDescriptor();
+public class NamedCallableParametersMetaIndexer extends FileBasedIndexExtension<String, CallableParametersMeta> {
+    public static final ID<String, CallableParametersMeta> identity = ID.create("kalessil.phpStorm.phpInspectionsEA.callable_parameters");
+    private final KeyDescriptor<String> descriptor                  = new EnumeratorStringDescriptor();
 
     @NotNull
     @Override
-    public ID<String, String> getName() {
+    public ID<String, CallableParametersMeta> getName() {
         return identity;
     }
 
     @NotNull
     @Override
-    public DataIndexer<String, String, FileContent> getIndexer() {
+    public DataIndexer<String, CallableParametersMeta, FileContent> getIndexer() {
         return file -> {
             final PsiFile psiFile = file.getPsiFile();
             if (psiFile instanceof PhpFile) {
-                final Map<String, String> result = new THashMap<>();
+                final Map<String, CallableParametersMeta> result = new THashMap<>();
                 for (final PhpNamedElement element : ((PhpFile) psiFile).getTopLevelDefs().values()) {
                     if (element instanceof Function) {
                         extractMeta(result, (Function) element);
@@ -57,25 +58,16 @@ public class NamedCallableParametersMetaIndexer extends FileBasedIndexExtension<
         };
     }
 
-    static private void extractMeta(@NotNull Map<String, String> storage, @NotNull Function ...functions) {
+    static private void extractMeta(@NotNull Map<String, CallableParametersMeta> storage, @NotNull Function ...functions) {
         for (final Function function : functions) {
-            final String fqn = function.getFQN();
-            for (final Parameter parameter : function.getParameters()) {
-                final String parameterName = parameter.getName();
-                if (!parameterName.isEmpty()) {
-                    final PsiElement value = parameter.getDefaultValue();
-                    storage.put(
-                            String.format("%s.%s", fqn, parameterName),
-                            String.format(
-                                    "ref:%s;var:%s;def:%s",
-                                    parameter.isPassByRef() ? 1 : 0,
-                                    parameter.isVariadic() ? 1 : 0,
-                                    value == null ? "" : value.getText()
-
-                            )
-                    );
+            final Parameter[] parameters                        = function.getParameters();
+            final List<CallableParametersMeta.Parameter> result = new ArrayList<>(parameters.length);
+            for (final Parameter parameter : parameters) {
+                if (!parameter.getName().isEmpty()) {
+                    result.add(CallableParametersMeta.Parameter.of(parameter));
                 }
             }
+            storage.put(function.getFQN(), new CallableParametersMeta(result));
         }
     }
 
@@ -87,13 +79,13 @@ public class NamedCallableParametersMetaIndexer extends FileBasedIndexExtension<
 
     @NotNull
     @Override
-    public DataExternalizer<String> getValueExternalizer() {
-        return EnumeratorStringDescriptor.INSTANCE;
+    public DataExternalizer<CallableParametersMeta> getValueExternalizer() {
+        return CallableParametersMeta.externalizer;
     }
 
     @Override
     public int getVersion() {
-        return 1;
+        return 2;
     }
 
     @NotNull
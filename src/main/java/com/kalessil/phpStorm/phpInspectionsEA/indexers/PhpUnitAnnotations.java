@@ -0,0 +1,214 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexers;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocTag;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* @dataProvider, @depends, @covers and @test annotations of a test class methods, see PhpUnitAnnotationsIndexer */
+final public class PhpUnitAnnotations {
+    public static final DataExternalizer<PhpUnitAnnotations> externalizer = new Externalizer();
+
+    private final List<Annotation> annotations;
+
+    PhpUnitAnnotations(@NotNull List<Annotation> annotations) {
+        this.annotations = annotations;
+    }
+
+    @NotNull
+    public List<Annotation> getAnnotations() {
+        return Collections.unmodifiableList(this.annotations);
+    }
+
+    @NotNull
+    public Set<String> getMethods() {
+        final Set<String> result = new HashSet<>();
+        this.annotations.forEach(annotation -> result.add(annotation.method));
+        return result;
+    }
+
+    public boolean isMarkedAsTest(@NotNull String method) {
+        return this.annotations.stream().anyMatch(annotation -> annotation.kind == Kind.TEST && annotation.method.equals(method));
+    }
+
+    /* tags mentioned in a description are not annotations: the tag must open a doc-block line */
+    public static boolean isAnnotation(@NotNull PhpDocTag tag) {
+        PsiElement previous      = tag.getPrevSibling();
+        previous                 = previous instanceof PsiWhiteSpace ? previous.getPrevSibling() : previous;
+        final IElementType start = previous == null ? null : previous.getNode().getElementType();
+        return start == PhpTokenTypes.DOC_COMMENT_START || start == PhpTokenTypes.DOC_LEADING_ASTERISK;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PhpUnitAnnotations && this.annotations.equals(((PhpUnitAnnotations) other).annotations);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.annotations.hashCode();
+    }
+
+    public enum Kind {
+        DATA_PROVIDER("@dataProvider"),
+        DEPENDS("@depends"),
+        COVERS("@covers"),
+        TEST("@test");
+
+        @NotNull
+        private final String tag;
+
+        Kind(@NotNull String tag) {
+            this.tag = tag;
+        }
+
+        @NotNull
+        public String getTag() {
+            return this.tag;
+        }
+
+        @Nullable
+        static Kind of(@NotNull String tag) {
+            for (final Kind kind : values()) {
+                if (kind.tag.equals(tag)) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    final public static class Annotation {
+        @NotNull
+        private final Kind kind;
+        @NotNull
+        private final String method;
+        @NotNull
+        private final String target;
+        @NotNull
+        private final String text;
+        private final int offset;
+        private final int line;
+        private final int column;
+
+        Annotation(@NotNull Kind kind, @NotNull String method, @NotNull String target, @NotNull String text, int offset, int line, int column) {
+            this.kind   = kind;
+            this.method = method;
+            this.target = target;
+            this.text   = text;
+            this.offset = offset;
+            this.line   = line;
+            this.column = column;
+        }
+
+        @NotNull
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        /* the annotated method name */
+        @NotNull
+        public String getMethod() {
+            return this.method;
+        }
+
+        /* `\Class::name`, `\Class`, `::function` or a same class method name, imports are resolved */
+        @NotNull
+        public String getTarget() {
+            return this.target;
+        }
+
+        /* the target as written */
+        @NotNull
+        public String getText() {
+            return this.text;
+        }
+
+        /* the annotated method name identifier offset */
+        public int getOffset() {
+            return this.offset;
+        }
+
+        /* 1-based */
+        public int getLine() {
+            return this.line;
+        }
+
+        /* 1-based */
+        public int getColumn() {
+            return this.column;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof Annotation) {
+                final Annotation annotation = (Annotation) other;
+                return this.kind == annotation.kind && this.offset == annotation.offset &&
+                       this.line == annotation.line && this.column == annotation.column &&
+                       this.method.equals(annotation.method) && this.target.equals(annotation.target) && this.text.equals(annotation.text);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.kind, this.method, this.target, this.text, this.offset, this.line, this.column);
+        }
+    }
+
+    /* the format: annotations count, then per annotation: kind, method, target, text, offset, line, column */
+    private static final class Externalizer implements DataExternalizer<PhpUnitAnnotations> {
+        private static final Kind[] kinds = Kind.values();
+
+        @Override
+        public void save(@NotNull DataOutput out, PhpUnitAnnotations value) throws IOException {
+            DataInputOutputUtil.writeINT(out, value.annotations.size());
+            for (final Annotation annotation : value.annotations) {
+                out.writeByte(annotation.kind.ordinal());
+                IOUtil.writeUTF(out, annotation.method);
+                IOUtil.writeUTF(out, annotation.target);
+                IOUtil.writeUTF(out, annotation.text);
+                DataInputOutputUtil.writeINT(out, annotation.offset);
+                DataInputOutputUtil.writeINT(out, annotation.line);
+                DataInputOutputUtil.writeINT(out, annotation.column);
+            }
+        }
+
+        @Override
+        public PhpUnitAnnotations read(@NotNull DataInput in) throws IOException {
+            final int count                    = DataInputOutputUtil.readINT(in);
+            final List<Annotation> annotations = new ArrayList<>(count);
+            for (int index = 0; index < count; ++index) {
+                final Kind kind     = kinds[in.readByte()];
+                final String method = IOUtil.readUTF(in);
+                final String target = IOUtil.readUTF(in);
+                final String text   = IOUtil.readUTF(in);
+                final int offset    = DataInputOutputUtil.readINT(in);
+                final int line      = DataInputOutputUtil.readINT(in);
+                final int column    = DataInputOutputUtil.readINT(in);
+                annotations.add(new Annotation(kind, method, target, text, offset, line, column));
+            }
+            return new PhpUnitAnnotations(annotations);
+        }
+    }
+}
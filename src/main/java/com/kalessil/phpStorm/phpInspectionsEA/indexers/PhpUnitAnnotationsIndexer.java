@@ -0,0 +1,145 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexers;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocRef;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocType;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocTag;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.Method;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.NamedElementUtil;
+import gnu.trove.THashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Test class FQN to its methods @dataProvider/@depends/@covers targets (and @test markers): targets are normalized
+    with the file imports at indexing time, so they can be validated against PhpIndex without parsing the test files.
+ */
+public class PhpUnitAnnotationsIndexer extends FileBasedIndexExtension<String, PhpUnitAnnotations> {
+    public static final ID<String, PhpUnitAnnotations> identity = ID.create("kalessil.phpStorm.phpInspectionsEA.phpunit_annotations");
+    private final KeyDescriptor<String> descriptor              = new EnumeratorStringDescriptor();
+
+    @NotNull
+    @Override
+    public ID<String, PhpUnitAnnotations> getName() {
+        return identity;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, PhpUnitAnnotations, FileContent> getIndexer() {
+        return file -> {
+            final Map<String, PhpUnitAnnotations> result = new THashMap<>();
+            final PsiFile psiFile                        = file.getPsiFile();
+            if (psiFile instanceof PhpFile) {
+                final CharSequence content = file.getContentAsText();
+                for (final PhpClass clazz : PsiTreeUtil.findChildrenOfType(psiFile, PhpClass.class)) {
+                    if (!clazz.isInterface()) {
+                        final List<PhpUnitAnnotations.Annotation> annotations = new ArrayList<>();
+                        for (final Method method : clazz.getOwnMethods()) {
+                            extractAnnotations(method, content, annotations);
+                        }
+                        if (!annotations.isEmpty()) {
+                            result.put(clazz.getFQN(), new PhpUnitAnnotations(annotations));
+                        }
+                    }
+                }
+            }
+            return result;
+        };
+    }
+
+    static private void extractAnnotations(@NotNull Method method, @NotNull CharSequence content, @NotNull List<PhpUnitAnnotations.Annotation> storage) {
+        final PhpDocComment phpDoc = method.getDocComment();
+        final PsiElement nameNode  = NamedElementUtil.getNameIdentifier(method);
+        if (phpDoc != null && nameNode != null) {
+            final int offset = nameNode.getTextOffset();
+            final int line   = StringUtil.offsetToLineNumber(content, offset) + 1;
+            final int column = offset - (StringUtil.lastIndexOf(content, '\n', 0, offset) + 1) + 1;
+            for (final PhpDocTag tag : PsiTreeUtil.findChildrenOfType(phpDoc, PhpDocTag.class)) {
+                final PhpUnitAnnotations.Kind kind = PhpUnitAnnotations.Kind.of(tag.getName());
+                if (kind != null && PhpUnitAnnotations.isAnnotation(tag)) {
+                    final PsiElement candidate = tag.getFirstPsiChild();
+                    if (kind == PhpUnitAnnotations.Kind.TEST) {
+                        storage.add(new PhpUnitAnnotations.Annotation(kind, method.getName(), "", "", offset, line, column));
+                    } else if (candidate instanceof PhpDocRef) {
+                        final String text = candidate.getText();
+                        storage.add(new PhpUnitAnnotations.Annotation(kind, method.getName(), normalize(kind, (PhpDocRef) candidate, text), text, offset, line, column));
+                    }
+                }
+            }
+        }
+    }
+
+    @NotNull
+    static private String normalize(@NotNull PhpUnitAnnotations.Kind kind, @NotNull PhpDocRef reference, @NotNull String text) {
+        final String target = text.endsWith("()") ? text.substring(0, text.length() - 2) : text;
+        final int separator = target.indexOf("::");
+        if (separator == 0) {
+            return target;
+        } else if (separator > 0) {
+            return normalizeClass(reference, target.substring(0, separator)) + target.substring(separator);
+        }
+        return kind == PhpUnitAnnotations.Kind.COVERS ? normalizeClass(reference, target) : target;
+    }
+
+    @NotNull
+    static private String normalizeClass(@NotNull PhpDocRef reference, @NotNull String name) {
+        final PhpDocType type = PsiTreeUtil.findChildOfType(reference, PhpDocType.class);
+        final String fqn      = type == null ? null : type.getFQN();
+        if (fqn != null && !fqn.isEmpty()) {
+            return fqn;
+        }
+        return name.startsWith("\\") ? name : '\\' + name;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return descriptor;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<PhpUnitAnnotations> getValueExternalizer() {
+        return PhpUnitAnnotations.externalizer;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return file -> file.getFileType() == PhpFileType.INSTANCE;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+}
@@ -1,21 +1,22 @@
 package com.kalessil.phpStorm.phpInspectionsEA.inspectors;
 
 import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
-import com.jetbrains.php.lang.psi.elements.ArrayCreationExpression;
-import com.jetbrains.php.lang.psi.elements.ArrayHashElement;
-import com.jetbrains.php.lang.psi.elements.PhpPsiElement;
-import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.intellij.psi.PsiWhiteSpace;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.jetbrains.php.lang.psi.resolve.types.PhpType;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.PhpLanguageLevel;
-import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
-import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.BiConsumer;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -29,6 +30,31 @@ import java.util.List;
 final public class PackedHashtableOptimizationInspector extends BasePhpInspection {
     private static final String messageReorder        = "Reordering keys in natural ascending order would enable array optimizations here.";
     private static final String messageUseNumericKeys = "Using integer keys would enable array optimizations here.";
+    private static final String messageStringKey      = "'%s' is a packed array, the string key converts it into a hash (more memory is used).";
+    private static final String messageSparseKey      = "'%s' is a packed array, the key is out of its sequence and converts it into a hash (more memory is used).";
+    private static final String messageHoleKey        = "'%s' is a packed array, writing into a hole left by 'unset(...)' converts it into a hash (more memory is used).";
+
+    /* functions which are not modifying array arguments (the shape tracking stops at other calls) */
+    private static final Set<String> readingFunctions = new HashSet<>();
+    static {
+        readingFunctions.add("count");
+        readingFunctions.add("sizeof");
+        readingFunctions.add("in_array");
+        readingFunctions.add("array_search");
+        readingFunctions.add("array_key_exists");
+        readingFunctions.add("array_keys");
+        readingFunctions.add("array_values");
+        readingFunctions.add("array_slice");
+        readingFunctions.add("array_map");
+        readingFunctions.add("array_filter");
+        readingFunctions.add("array_sum");
+        readingFunctions.add("implode");
+        readingFunctions.add("join");
+        readingFunctions.add("is_array");
+        readingFunctions.add("json_encode");
+        readingFunctions.add("serialize");
+        readingFunctions.add("var_export");
+    }
 
     @NotNull
     @Override
@@ -48,6 +74,38 @@ final public class PackedHashtableOptimizationInspector extends BasePhpInspectio
         return new BasePhpElementVisitor() {
             /* TODO: docs, http://blog.jpauli.tech/2016/04/08/hashtables.html#packed-hashtable-optimization */
 
+            @Override
+            public void visitPhpFunction(@NotNull Function function) {
+                this.inspectShapes(function);
+            }
+
+            @Override
+            public void visitPhpMethod(@NotNull Method method) {
+                this.inspectShapes(method);
+            }
+
+            /* local arrays starting packed, followed through writes in the source order */
+            private void inspectShapes(@NotNull Function function) {
+                if (PhpLanguageLevel.get(holder.getProject()).below(PhpLanguageLevel.PHP700)) {
+                    return;
+                }
+                if (this.isTestContext(function)) {
+                    return;
+                }
+
+                final FunctionVariablesIndex index = FunctionVariablesIndex.of(function);
+                final Set<String> names            = new LinkedHashSet<>();
+                index.getUsages().forEach(usage -> names.add(usage.getVariable().getName()));
+                for (final String name : names) {
+                    if (!name.isEmpty()) {
+                        ArrayShape.track(index.getUsages(name), function, holder.getProject(), (target, message) ->
+                                holder.registerProblem(target, String.format(MessagesPresentationUtil.prefixWithEa(message), '$' + name))
+                        );
+                    }
+                }
+                names.clear();
+            }
+
             @Override
             public void visitPhpArrayCreationExpression(@NotNull ArrayCreationExpression expression) {
                 /* requires PHP7 */
@@ -135,4 +193,292 @@ final public class PackedHashtableOptimizationInspector extends BasePhpInspectio
             }
         };
     }
+
+    /*
+        Models the engine behaviour: a packed array keeps integer keys in place, growing while the keys are reasonably
+        dense. String keys, keys beyond the (doubled) table size, negative keys and writes into holes left by unset()
+        are converting it into a hash. Writes into loops or with unknown integer keys make the layout unknown, but
+        still packed; any usage which might modify the array otherwise stops the tracking.
+     */
+    private static final class ArrayShape {
+        /* the array has no elements yet, hence the first write decides the layout */
+        private boolean empty;
+        /* the array is not packed anymore, or its layout can not be followed */
+        private boolean lost;
+        /* the next append key (never moving back), used slots, elements count and table size; -1 when unknown */
+        private int next;
+        private int used;
+        private int count;
+        private int size;
+        /* unused slots below the used ones, the engine converts the array into a hash when writing there */
+        private final Set<Integer> holes = new HashSet<>();
+
+        private ArrayShape(int count) {
+            this.empty = count == 0;
+            this.next  = count;
+            this.used  = count;
+            this.count = count;
+            this.size  = getTableSize(count);
+        }
+
+        private static void track(
+                @NotNull List<FunctionVariablesIndex.Usage> usages,
+                @NotNull Function function,
+                @NotNull Project project,
+                @NotNull BiConsumer<PsiElement, String> reporter
+        ) {
+            ArrayShape shape = null;
+            for (final FunctionVariablesIndex.Usage usage : usages) {
+                /* nested closures: only capturing by reference might modify the array */
+                if (!usage.isOwn()) {
+                    if (usage.getKind() == FunctionVariablesIndex.Kind.CAPTURE && usage.isByReference()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                final Variable variable = usage.getVariable();
+                final PsiElement parent = variable.getParent();
+                if (usage.isByReference()) {
+                    return;
+                } else if (parent instanceof AssignmentExpression && ((AssignmentExpression) parent).getVariable() == variable) {
+                    /* (re-)initialization: only packed literals are tracked */
+                    final AssignmentExpression assignment = (AssignmentExpression) parent;
+                    final int count                       = OpenapiTypesUtil.isAssignment(assignment) && !OpenapiTypesUtil.isAssignmentByReference(assignment)
+                            ? getPackedCount(assignment.getValue())
+                            : -1;
+                    shape = count < 0 ? null : new ArrayShape(count);
+                    if (shape == null || isInLoop(parent, function)) {
+                        return;
+                    }
+                } else if (shape == null) {
+                    return;
+                } else if (parent instanceof ArrayAccessExpression && ((ArrayAccessExpression) parent).getValue() == variable) {
+                    final ArrayAccessExpression access = (ArrayAccessExpression) parent;
+                    final ArrayIndex index             = access.getIndex();
+                    final PsiElement key               = index == null ? null : index.getValue();
+                    if (access.getParent() instanceof PhpUnset) {
+                        shape.unset(key, isInLoop(access, function));
+                    } else if (isWritten(access)) {
+                        final String message = shape.write(key, project);
+                        if (message != null) {
+                            reporter.accept(access, message);
+                            return;
+                        } else if (shape.lost) {
+                            return;
+                        } else if (isInLoop(access, function)) {
+                            shape.forget();
+                        }
+                    }
+                } else if (!isReading(variable, parent)) {
+                    return;
+                }
+            }
+        }
+
+        /* elements count of `[...]` with sequential keys (starting from 0), otherwise -1 */
+        private static int getPackedCount(@Nullable PsiElement value) {
+            if (!(value instanceof ArrayCreationExpression)) {
+                return -1;
+            }
+            int position = 0;
+            for (final PsiElement child : value.getChildren()) {
+                if (child instanceof ArrayHashElement) {
+                    final Integer key = getIntegerKey(((ArrayHashElement) child).getKey());
+                    if (key == null || key != position) {
+                        return -1;
+                    }
+                } else if (child.getText().startsWith("...")) {
+                    return -1;
+                }
+                ++position;
+            }
+            return position;
+        }
+
+        /* the minimal table size is 8, growing by doubling */
+        private static int getTableSize(int count) {
+            int size = 8;
+            while (size < count) {
+                size <<= 1;
+            }
+            return size;
+        }
+
+        /* `$array[...] = ...`, including nested writes `$array[...][...] = ...` */
+        private static boolean isWritten(@NotNull ArrayAccessExpression access) {
+            PsiElement current = access;
+            while (current.getParent() instanceof ArrayAccessExpression && ((ArrayAccessExpression) current.getParent()).getValue() == current) {
+                current = current.getParent();
+            }
+            final PsiElement parent = current.getParent();
+            return parent instanceof AssignmentExpression && ((AssignmentExpression) parent).getVariable() == current;
+        }
+
+        /* usages which are not modifying the array (it's copied on write otherwise) */
+        private static boolean isReading(@NotNull Variable variable, @NotNull PsiElement parent) {
+            if (parent instanceof ParameterList) {
+                final PsiElement call = parent.getParent();
+                return OpenapiTypesUtil.isFunctionReference(call) && readingFunctions.contains(((FunctionReference) call).getName());
+            } else if (parent instanceof ForeachStatement) {
+                final Variable value = ((ForeachStatement) parent).getValue();
+                PsiElement previous  = value == null ? null : value.getPrevSibling();
+                if (previous instanceof PsiWhiteSpace) {
+                    previous = previous.getPrevSibling();
+                }
+                return ((ForeachStatement) parent).getArray() == variable && !OpenapiTypesUtil.is(previous, PhpTokenTypes.opBIT_AND);
+            } else if (parent instanceof AssignmentExpression) {
+                return !OpenapiTypesUtil.isAssignmentByReference((AssignmentExpression) parent);
+            }
+            return !(parent instanceof PhpUnset) && !(parent instanceof MultiassignmentExpression) && !(parent instanceof PhpStaticStatement);
+        }
+
+        private static boolean isInLoop(@NotNull PsiElement expression, @NotNull Function function) {
+            PsiElement parent = expression.getParent();
+            while (parent != null && parent != function) {
+                if (OpenapiTypesUtil.isLoop(parent)) {
+                    return true;
+                }
+                parent = parent.getParent();
+            }
+            return false;
+        }
+
+        @Nullable
+        private static Integer getIntegerKey(@Nullable PsiElement key) {
+            final String text;
+            if (key instanceof StringLiteralExpression && ((StringLiteralExpression) key).getFirstPsiChild() == null) {
+                text = ((StringLiteralExpression) key).getContents();
+                /* '01', '-0' and etc are string keys */
+                if (!text.matches("^(0|-?[1-9][0-9]*)$")) {
+                    return null;
+                }
+            } else if (OpenapiTypesUtil.isNumber(key)) {
+                text = key.getText().replaceAll("\\s+", "");
+            } else {
+                return null;
+            }
+            try {
+                return Integer.parseInt(text);
+            } catch (final NumberFormatException error) {
+                return null;
+            }
+        }
+
+        private static boolean isIntegerTyped(@NotNull PsiElement key, @NotNull Project project) {
+            if (key instanceof PhpTypedElement) {
+                final PhpType type = OpenapiResolveUtil.resolveType((PhpTypedElement) key, project);
+                return type != null && !type.isEmpty() && !type.hasUnknown() &&
+                       type.getTypes().stream().allMatch(t -> Types.getType(t).equals(Types.strInteger));
+            }
+            return false;
+        }
+
+        @Nullable
+        private String stop(@Nullable String message) {
+            this.lost = true;
+            return message;
+        }
+
+        private void forget() {
+            this.next  = -1;
+            this.used  = -1;
+            this.count = -1;
+            this.size  = -1;
+            this.holes.clear();
+        }
+
+        /* only literal keys outside of loops are followed: other keys might be different at the next write */
+        private void unset(@Nullable PsiElement key, boolean inLoop) {
+            if (key == null || this.empty || this.used < 0) {
+                return;
+            }
+            final Integer integer = getIntegerKey(key);
+            if (integer == null || inLoop) {
+                this.forget();
+                return;
+            }
+            if (integer < 0 || integer >= this.used || this.holes.contains(integer)) {
+                return;
+            }
+            if (integer == this.used - 1) {
+                /* removing the last element releases the trailing unused slots, but the next append key stays */
+                --this.used;
+                while (this.used > 0 && this.holes.remove(this.used - 1)) {
+                    --this.used;
+                }
+            } else {
+                this.holes.add(integer);
+            }
+            --this.count;
+        }
+
+        /* writing beyond the used slots leaves the skipped ones unused */
+        private void add(int key) {
+            for (int slot = this.used; slot < key; ++slot) {
+                this.holes.add(slot);
+            }
+            this.used = key + 1;
+            this.next = Math.max(this.next, key + 1);
+            ++this.count;
+        }
+
+        /* the message if the write converts the array into a hash */
+        @Nullable
+        private String write(@Nullable PsiElement key, @NotNull Project project) {
+            if (key == null) {
+                this.empty = false;
+                if (this.next >= 0) {
+                    this.add(this.next);
+                    if (this.used > this.size) {
+                        this.size <<= 1;
+                    }
+                }
+                return null;
+            }
+
+            final Integer integer = getIntegerKey(key);
+            if (integer == null) {
+                if (key instanceof StringLiteralExpression && ((StringLiteralExpression) key).getFirstPsiChild() == null) {
+                    /* an empty array is initialized as a hash by string keys, it was never packed */
+                    return this.stop(this.empty ? null : messageStringKey);
+                }
+                if (this.empty || !isIntegerTyped(key, project)) {
+                    return this.stop(null);
+                }
+                this.forget();
+                return null;
+            }
+
+            if (integer < 0) {
+                return this.stop(this.empty ? null : messageSparseKey);
+            } else if (this.empty) {
+                /* the first write initializes a packed array if the key fits the minimal table */
+                if (integer >= this.size) {
+                    return this.stop(null);
+                }
+                this.empty = false;
+                this.next  = 0;
+                this.used  = 0;
+                this.count = 0;
+                this.add(integer);
+                return null;
+            } else if (this.used < 0) {
+                return null;
+            } else if (integer < this.used) {
+                return this.holes.contains(integer) ? messageHoleKey : null;
+            }
+
+            if (integer >= this.size) {
+                /* the table grows if the key is within the doubled size and the table is at least half-filled */
+                if ((integer >> 1) < this.size && (this.size >> 1) < this.count) {
+                    this.size <<= 1;
+                } else {
+                    return messageSparseKey;
+                }
+            }
+            this.add(integer);
+            return null;
+        }
+    }
 }
@@ -47,6 +47,12 @@ public class IsIterableCanBeUsedInspector extends BasePhpInspection {
         return "'is_iterable(...)' can be used";
     }
 
+    @Nullable
+    @Override
+    public PhpLanguageLevel getMinimumLanguageLevel() {
+        return PhpLanguageLevel.PHP710;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
@@ -55,53 +61,50 @@ public class IsIterableCanBeUsedInspector extends BasePhpInspection {
             public void visitPhpFunctionCall(@NotNull FunctionReference reference) {
                 final String functionName = reference.getName();
                 if (functionName != null && functionName.equals("is_array")) {
-                    final boolean isTargetVersion = PhpLanguageLevel.get(holder.getProject()).atLeast(PhpLanguageLevel.PHP710);
-                    if (isTargetVersion) {
-                        final PsiElement[] arguments = reference.getParameters();
-                        final PsiElement parent      = reference.getParent();
-                        if (parent instanceof BinaryExpression && arguments.length == 1) {
-                            final BinaryExpression binary = (BinaryExpression) parent;
-                            final IElementType operation  = binary.getOperationType();
-                            if (operation == PhpTokenTypes.opOR) {
-                                /* find the high-level binary expression */
-                                BinaryExpression context = binary;
-                                while (context instanceof BinaryExpression) {
-                                    PsiElement up = context.getParent();
-                                    while (up instanceof ParenthesizedExpression) {
-                                        up = up.getParent();
-                                    }
-                                    if (up instanceof BinaryExpression && ((BinaryExpression) up).getOperationType() == PhpTokenTypes.opOR) {
-                                        context = (BinaryExpression) up;
-                                    } else {
-                                        break;
-                                    }
+                    final PsiElement[] arguments = reference.getParameters();
+                    final PsiElement parent      = reference.getParent();
+                    if (parent instanceof BinaryExpression && arguments.length == 1) {
+                        final BinaryExpression binary = (BinaryExpression) parent;
+                        final IElementType operation  = binary.getOperationType();
+                        if (operation == PhpTokenTypes.opOR) {
+                            /* find the high-level binary expression */
+                            BinaryExpression context = binary;
+                            while (context instanceof BinaryExpression) {
+                                PsiElement up = context.getParent();
+                                while (up instanceof ParenthesizedExpression) {
+                                    up = up.getParent();
+                                }
+                                if (up instanceof BinaryExpression && ((BinaryExpression) up).getOperationType() == PhpTokenTypes.opOR) {
+                                    context = (BinaryExpression) up;
+                                } else {
+                                    break;
                                 }
-                                /* check the pattern */
-                                final List<PsiElement> fragments = this.extract(context, PhpTokenTypes.opOR);
-                                if (! fragments.isEmpty()) {
-                                    if (fragments.size() > 1) {
-                                        for (final PsiElement fragment : fragments) {
-                                            if (fragment != reference && fragment instanceof BinaryExpression) {
-                                                final BinaryExpression candidate = (BinaryExpression) fragment;
-                                                if (candidate.getOperationType() == PhpTokenTypes.kwINSTANCEOF) {
-                                                    final PsiElement clazz = candidate.getRightOperand();
-                                                    if (clazz instanceof ClassReference && "Traversable".equals(((ClassReference) clazz).getName())) {
-                                                        final PsiElement subject = candidate.getLeftOperand();
-                                                        if (subject != null && OpenapiEquivalenceUtil.areEqual(subject, arguments[0])) {
-                                                            final String argument = subject.getText();
-                                                            holder.registerProblem(
-                                                                    reference,
-                                                                    String.format(MessagesPresentationUtil.prefixWithEa(message), argument, argument, argument)
-                                                            );
-                                                            break;
-                                                        }
+                            }
+                            /* check the pattern */
+                            final List<PsiElement> fragments = this.extract(context, PhpTokenTypes.opOR);
+                            if (! fragments.isEmpty()) {
+                                if (fragments.size() > 1) {
+                                    for (final PsiElement fragment : fragments) {
+                                        if (fragment != reference && fragment instanceof BinaryExpression) {
+                                            final BinaryExpression candidate = (BinaryExpression) fragment;
+                                            if (candidate.getOperationType() == PhpTokenTypes.kwINSTANCEOF) {
+                                                final PsiElement clazz = candidate.getRightOperand();
+                                                if (clazz instanceof ClassReference && "Traversable".equals(((ClassReference) clazz).getName())) {
+                                                    final PsiElement subject = candidate.getLeftOperand();
+                                                    if (subject != null && OpenapiEquivalenceUtil.areEqual(subject, arguments[0])) {
+                                                        final String argument = subject.getText();
+                                                        holder.registerProblem(
+                                                                reference,
+                                                                String.format(MessagesPresentationUtil.prefixWithEa(message), argument, argument, argument)
+                                                        );
+                                                        break;
                                                     }
                                                 }
                                             }
                                         }
                                     }
-                                    fragments.clear();
                                 }
+                                fragments.clear();
                             }
                         }
                     }
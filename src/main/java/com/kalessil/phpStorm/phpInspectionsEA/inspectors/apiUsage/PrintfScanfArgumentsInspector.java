@@ -4,12 +4,12 @@ import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.FunctionVariablesIndex;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiEquivalenceUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
@@ -150,10 +150,9 @@ public class PrintfScanfArgumentsInspector extends BasePhpInspection {
                         /* false-positives: variable modification */
                         final PsiElement argumentWithPattern = params[neededPosition];
                         if (argumentWithPattern instanceof Variable) {
-                            final Function function   = ExpressionSemanticUtil.getScope(argumentWithPattern);
-                            final GroupStatement body = function == null ? null : ExpressionSemanticUtil.getGroupStatement(function);
-                            if (body != null) {
-                                for (final Variable candidate : PsiTreeUtil.findChildrenOfType(body, Variable.class)) {
+                            final Function function = ExpressionSemanticUtil.getScope(argumentWithPattern);
+                            if (function != null) {
+                                for (final Variable candidate : FunctionVariablesIndex.of(function).getVariables()) {
                                     final PsiElement parent  = candidate.getParent();
                                     final boolean isModified = parent instanceof AssignmentExpression &&
                                                                !OpenapiTypesUtil.isAssignment(parent) &&
@@ -15,6 +15,7 @@ import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.PhpFile;
 import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.fixers.BulkApplicableFix;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.PhpLanguageLevel;
@@ -130,6 +131,17 @@ public class UnqualifiedReferenceInspector extends BasePhpInspection {
         return "Unqualified function/constant reference";
     }
 
+    @Nullable
+    @Override
+    public Collection<String> getFunctionCallsFilter() {
+        if (REPORT_ALL_FUNCTIONS) {
+            return null;
+        }
+        final Set<String> functions = new HashSet<>(advancedOpcode);
+        functions.addAll(callbacksPositions.keySet());
+        return functions;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -263,7 +275,7 @@ public class UnqualifiedReferenceInspector extends BasePhpInspection {
         };
     }
 
-    private static final class TheLocalFix implements LocalQuickFix {
+    private static final class TheLocalFix implements LocalQuickFix, BulkApplicableFix {
         private static final String title = "Use the qualified reference";
 
         @NotNull
@@ -287,16 +299,39 @@ public class UnqualifiedReferenceInspector extends BasePhpInspection {
                     final PsiElement nameNode = target.getFirstChild();
                     nameNode.getParent().addBefore(rootNs, nameNode);
                 } else if (target instanceof StringLiteralExpression) {
-                    final StringLiteralExpression expression = (StringLiteralExpression) target;
-                    final String quote                       = expression.isSingleQuote() ? "'" : "\"";
-                    final String rootNs                      = expression.isSingleQuote() ? "\\" : "\\\\";
-                    final String pattern                     = quote + rootNs + expression.getContents() + quote;
-                    final StringLiteralExpression replacement
-                            = PhpPsiElementFactory.createPhpPsiFromText(project, StringLiteralExpression.class, pattern);
+                    final StringLiteralExpression replacement = PhpPsiElementFactory.createPhpPsiFromText(
+                            project,
+                            StringLiteralExpression.class,
+                            this.qualify((StringLiteralExpression) target)
+                    );
                     target.replace(replacement);
                 }
             }
         }
+
+        @Nullable
+        @Override
+        public String getReplacementText(@NotNull PsiElement target) {
+            if (target instanceof FunctionReference || target instanceof ConstantReference) {
+                final String text = target.getText();
+                return text.startsWith("\\") ? null : '\\' + text;
+            } else if (target instanceof StringLiteralExpression) {
+                return this.qualify((StringLiteralExpression) target);
+            }
+            return null;
+        }
+
+        @Override
+        public boolean isRecomputed() {
+            return true;
+        }
+
+        @NotNull
+        private String qualify(@NotNull StringLiteralExpression expression) {
+            final String quote  = expression.isSingleQuote() ? "'" : "\"";
+            final String rootNs = expression.isSingleQuote() ? "\\" : "\\\\";
+            return quote + rootNs + expression.getContents() + quote;
+        }
     }
 
     public JComponent createOptionsPanel() {
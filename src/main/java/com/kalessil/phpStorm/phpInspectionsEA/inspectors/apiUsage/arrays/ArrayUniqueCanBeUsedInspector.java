@@ -11,6 +11,7 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.PhpLanguageLevel;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -36,36 +37,40 @@ public class ArrayUniqueCanBeUsedInspector extends BasePhpInspection {
         return "'array_unique(...)' can be used";
     }
 
+    @Nullable
+    @Override
+    public PhpLanguageLevel getMinimumLanguageLevel() {
+        return PhpLanguageLevel.PHP720;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
         return new BasePhpElementVisitor() {
             @Override
             public void visitPhpFunctionCall(@NotNull FunctionReference reference) {
-                if (PhpLanguageLevel.get(holder.getProject()).atLeast(PhpLanguageLevel.PHP720)) {
-                    final String functionName = reference.getName();
-                    if (functionName != null && functionName.equals("array_count_values")) {
-                        final PsiElement[] arguments = reference.getParameters();
-                        if (arguments.length == 1) {
-                            final PsiElement context = reference.getParent().getParent();
-                            if (OpenapiTypesUtil.isFunctionReference(context)) {
-                                final String parentFunctionName = ((FunctionReference) context).getName();
-                                if (parentFunctionName != null) {
-                                    if (parentFunctionName.equals("array_keys")) {
-                                        final String replacement = "array_values(array_unique(%a%))".replace("%a%", arguments[0].getText());
-                                        holder.registerProblem(
-                                                context,
-                                                MessagesPresentationUtil.prefixWithEa(messagePattern.replace("%e%", replacement)),
-                                                new ReplaceFix(replacement)
-                                        );
-                                    } else if (parentFunctionName.equals("count")) {
-                                        final String replacement = "count(array_unique(%a%))".replace("%a%", arguments[0].getText());
-                                        holder.registerProblem(
-                                                context,
-                                                MessagesPresentationUtil.prefixWithEa(messagePattern.replace("%e%", replacement)),
-                                                new ReplaceFix(replacement)
-                                        );
-                                    }
+                final String functionName = reference.getName();
+                if (functionName != null && functionName.equals("array_count_values")) {
+                    final PsiElement[] arguments = reference.getParameters();
+                    if (arguments.length == 1) {
+                        final PsiElement context = reference.getParent().getParent();
+                        if (OpenapiTypesUtil.isFunctionReference(context)) {
+                            final String parentFunctionName = ((FunctionReference) context).getName();
+                            if (parentFunctionName != null) {
+                                if (parentFunctionName.equals("array_keys")) {
+                                    final String replacement = "array_values(array_unique(%a%))".replace("%a%", arguments[0].getText());
+                                    holder.registerProblem(
+                                            context,
+                                            MessagesPresentationUtil.prefixWithEa(messagePattern.replace("%e%", replacement)),
+                                            new ReplaceFix(replacement)
+                                    );
+                                } else if (parentFunctionName.equals("count")) {
+                                    final String replacement = "count(array_unique(%a%))".replace("%a%", arguments[0].getText());
+                                    holder.registerProblem(
+                                            context,
+                                            MessagesPresentationUtil.prefixWithEa(messagePattern.replace("%e%", replacement)),
+                                            new ReplaceFix(replacement)
+                                    );
                                 }
                             }
                         }
@@ -0,0 +1,290 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.arrays;
+
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.config.PhpLanguageLevel;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocType;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocReturnTag;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.CallSitesIndexer;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+public class GeneratorCanBeUsedInspector extends BasePhpInspection {
+    private static final String message = "'%s(...)' builds an array in a loop, but all call sites are only iterating the result with 'foreach'. Consider turning it into a generator to reduce memory usage.";
+
+    private static final Set<String> iterableTypes = new HashSet<>();
+    static {
+        iterableTypes.add("iterable");
+        iterableTypes.add("\\Traversable");
+        iterableTypes.add("\\Iterator");
+        iterableTypes.add("\\Generator");
+    }
+
+    @NotNull
+    @Override
+    public String getShortName() {
+        return "GeneratorCanBeUsedInspection";
+    }
+
+    @NotNull
+    @Override
+    public String getDisplayName() {
+        return "Generator can be used";
+    }
+
+    @Nullable
+    @Override
+    public PhpLanguageLevel getMinimumLanguageLevel() {
+        return PhpLanguageLevel.PHP550;
+    }
+
+    @Override
+    @NotNull
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        return new BasePhpElementVisitor() {
+            @Override
+            public void visitPhpFunction(@NotNull Function function) {
+                if (!OpenapiTypesUtil.isLambda(function)) {
+                    this.inspect(function, CallSitesIndexer.functionKey(function.getName()));
+                }
+            }
+
+            @Override
+            public void visitPhpMethod(@NotNull Method method) {
+                if (!method.isAbstract()) {
+                    this.inspect(method, CallSitesIndexer.methodKey(method.getName()));
+                }
+            }
+
+            private void inspect(@NotNull Function function, @NotNull String key) {
+                final PsiElement nameNode = NamedElementUtil.getNameIdentifier(function);
+                if (nameNode == null || holder.getFile().getVirtualFile() == null || !isIterableReturnType(function)) {
+                    return;
+                }
+                final Buffer buffer = Buffer.find(function);
+                if (buffer != null && buffer.isFilledInLoop(function)) {
+                    /* call sites are indexed by name: any non-iterating usage of the name is preventing reporting */
+                    final GlobalSearchScope scope = GlobalSearchScope.projectScope(holder.getProject());
+                    if (CallSitesIndexer.hasCallSites(key, scope) && !CallSitesIndexer.hasCallSites(CallSitesIndexer.escapingKey(key), scope)) {
+                        holder.registerProblem(
+                                nameNode,
+                                String.format(MessagesPresentationUtil.prefixWithEa(message), function.getName()),
+                                new UseGeneratorFix(holder.getProject(), function)
+                        );
+                    }
+                }
+            }
+        };
+    }
+
+    /* generators are not compatible with array return types, declared natively or in the doc-block */
+    private static boolean isIterableReturnType(@NotNull Function function) {
+        final PsiElement returnType = OpenapiElementsUtil.getReturnType(function);
+        if (returnType != null) {
+            final String type = returnType.getText().replaceAll("\\s+", "");
+            return iterableTypes.contains(type) || iterableTypes.contains('\\' + type);
+        }
+        final PhpDocComment docBlock = function.getDocComment();
+        final PhpDocReturnTag tag    = docBlock == null ? null : docBlock.getReturnTag();
+        if (tag != null) {
+            return !tag.getText().contains("[]") && PsiTreeUtil.findChildrenOfType(tag, PhpDocType.class).stream().noneMatch(type -> {
+                final String text = type.getText().toLowerCase();
+                return text.equals("array") || text.startsWith("array<") || text.startsWith("array{") ||
+                       text.equals("list") || text.startsWith("list<") || text.startsWith("non-empty-");
+            });
+        }
+        return true;
+    }
+
+    /* a local variable initialized with an empty array, filled with `$buffer[] = ...` and only returned */
+    private static final class Buffer {
+        @NotNull
+        private final PsiElement initialization;
+        @NotNull
+        private final List<AssignmentExpression> appends;
+        @NotNull
+        private final List<PhpReturn> returns;
+
+        private Buffer(@NotNull PsiElement initialization, @NotNull List<AssignmentExpression> appends, @NotNull List<PhpReturn> returns) {
+            this.initialization = initialization;
+            this.appends        = appends;
+            this.returns        = returns;
+        }
+
+        @Nullable
+        private static Buffer find(@NotNull Function function) {
+            final GroupStatement body = ExpressionSemanticUtil.getGroupStatement(function);
+            if (body == null) {
+                return null;
+            }
+            final PhpYield yield = PsiTreeUtil.findChildOfType(body, PhpYield.class);
+            if (yield != null && ExpressionSemanticUtil.getScope(yield) == function) {
+                return null;
+            }
+
+            /* all returns are returning the same local variable */
+            final List<PhpReturn> returns = new ArrayList<>();
+            String name                   = null;
+            for (final PhpReturn candidate : PsiTreeUtil.findChildrenOfType(body, PhpReturn.class)) {
+                if (ExpressionSemanticUtil.getScope(candidate) == function) {
+                    final PsiElement argument = ExpressionSemanticUtil.getReturnValue(candidate);
+                    if (!(argument instanceof Variable) || (name != null && !name.equals(((Variable) argument).getName()))) {
+                        return null;
+                    }
+                    name = ((Variable) argument).getName();
+                    returns.add(candidate);
+                }
+            }
+            if (name == null || name.isEmpty()) {
+                return null;
+            }
+            for (final Parameter parameter : function.getParameters()) {
+                if (name.equals(parameter.getName())) {
+                    return null;
+                }
+            }
+
+            /* any other usage (including closures and nested functions) is preventing the conversion */
+            final List<AssignmentExpression> appends = new ArrayList<>();
+            PsiElement initialization                = null;
+            for (final Variable variable : PsiTreeUtil.findChildrenOfType(body, Variable.class)) {
+                if (name.equals(variable.getName())) {
+                    final PsiElement parent = variable.getParent();
+                    if (parent instanceof PhpReturn && returns.contains(parent)) {
+                        continue;
+                    }
+                    if (isInitialization(parent, variable) && initialization == null) {
+                        initialization = parent.getParent();
+                        continue;
+                    }
+                    if (parent instanceof ArrayAccessExpression && isAppend((ArrayAccessExpression) parent)) {
+                        appends.add((AssignmentExpression) parent.getParent());
+                        continue;
+                    }
+                    return null;
+                }
+            }
+            if (initialization == null || appends.isEmpty() || initialization.getParent() != body) {
+                return null;
+            }
+            final int start = initialization.getTextOffset();
+            if (appends.stream().anyMatch(append -> append.getTextOffset() < start)) {
+                return null;
+            }
+            return new Buffer(initialization, appends, returns);
+        }
+
+        /* `$buffer = [];` statement */
+        private static boolean isInitialization(@NotNull PsiElement parent, @NotNull Variable variable) {
+            if (OpenapiTypesUtil.isAssignment(parent) && OpenapiTypesUtil.isStatementImpl(parent.getParent())) {
+                final AssignmentExpression assignment = (AssignmentExpression) parent;
+                final PsiElement value                = assignment.getValue();
+                return assignment.getVariable() == variable &&
+                       value instanceof ArrayCreationExpression && ((ArrayCreationExpression) value).getFirstPsiChild() == null;
+            }
+            return false;
+        }
+
+        /* `$buffer[] = ...;` statement */
+        private static boolean isAppend(@NotNull ArrayAccessExpression access) {
+            final ArrayIndex index = access.getIndex();
+            if (index == null || index.getValue() == null) {
+                final PsiElement parent = access.getParent();
+                if (OpenapiTypesUtil.isAssignment(parent) && OpenapiTypesUtil.isStatementImpl(parent.getParent())) {
+                    final AssignmentExpression assignment = (AssignmentExpression) parent;
+                    return assignment.getVariable() == access && assignment.getValue() != null &&
+                           !OpenapiTypesUtil.isAssignmentByReference(assignment);
+                }
+            }
+            return false;
+        }
+
+        private boolean isFilledInLoop(@NotNull Function function) {
+            for (final AssignmentExpression append : this.appends) {
+                PsiElement parent = append.getParent();
+                while (parent != null && parent != function) {
+                    if (OpenapiTypesUtil.isLoop(parent)) {
+                        return true;
+                    }
+                    parent = parent.getParent();
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class UseGeneratorFix implements LocalQuickFix {
+        private static final String title = "Use generator instead";
+
+        private final SmartPsiElementPointer<Function> function;
+
+        UseGeneratorFix(@NotNull Project project, @NotNull Function function) {
+            super();
+            this.function = SmartPointerManager.getInstance(project).createSmartPsiElementPointer(function);
+        }
+
+        @NotNull
+        @Override
+        public String getName() {
+            return MessagesPresentationUtil.prefixWithEa(title);
+        }
+
+        @NotNull
+        @Override
+        public String getFamilyName() {
+            return getName();
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            final Function function   = this.function.getElement();
+            final Buffer buffer       = function == null || project.isDisposed() ? null : Buffer.find(function);
+            final GroupStatement body = buffer == null ? null : ExpressionSemanticUtil.getGroupStatement(function);
+            if (body == null) {
+                return;
+            }
+
+            for (final AssignmentExpression append : buffer.appends) {
+                final PsiElement value = append.getValue();
+                if (value != null) {
+                    append.getParent().replace(PhpPsiElementFactory.createStatement(project, "yield " + value.getText() + ";"));
+                }
+            }
+            /* the trailing return is not needed anymore, other ones are terminating the generator */
+            final PsiElement last = ExpressionSemanticUtil.getLastStatement(body);
+            for (final PhpReturn statement : buffer.returns) {
+                if (statement == last) {
+                    statement.delete();
+                } else {
+                    statement.replace(PhpPsiElementFactory.createStatement(project, "return;"));
+                }
+            }
+            buffer.initialization.delete();
+        }
+    }
+}
@@ -11,21 +11,24 @@ import com.intellij.psi.SmartPointerManager;
 import com.intellij.psi.SmartPsiElementPointer;
 import com.intellij.psi.impl.source.tree.LeafPsiElement;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.xmlb.XmlSerializer;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.PhpFile;
 import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.arrays.strategy.LinearCallsInLoopStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.options.OptionsComponent;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiEquivalenceUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
+import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import javax.swing.*;
+import java.util.*;
 import java.util.stream.Stream;
 
 /*
@@ -41,6 +44,43 @@ public class SlowArrayOperationsInLoopInspector extends BasePhpInspection {
     private static final String messageGreedyPattern = "'%s(...)' is used in a loop and is a resources greedy construction.";
     private static final String messageSlowPattern   = "'%s(...)' is used in a loop and is a low performing construction.";
 
+    // Inspection options.
+    public boolean REPORT_LOOP_COMPLEXITY   = false;
+    public final List<String> configuration = new ArrayList<>(optionConfigurationDefaults());
+
+    final private Map<String, LinearCallsInLoopStrategy.Cost> costs = new HashMap<>();
+
+    public SlowArrayOperationsInLoopInspector() {
+        recompileConfiguration();
+    }
+
+    public void readSettings(@NotNull Element node) {
+        XmlSerializer.deserializeInto(this, node);
+        recompileConfiguration();
+    }
+
+    private void recompileConfiguration() {
+        this.costs.clear();
+        this.costs.putAll(LinearCallsInLoopStrategy.parse(this.configuration));
+    }
+
+    /* function => position of the argument the function cost is linear in, `:accumulated` limits to growing arguments */
+    @NotNull
+    private static Set<String> optionConfigurationDefaults() {
+        final Set<String> list = new TreeSet<>();
+        /* lookups */
+        list.add("in_array:1");
+        list.add("array_search:1");
+        /* re-indexing */
+        list.add("array_unique:0");
+        list.add("array_shift:0");
+        list.add("array_unshift:0");
+        /* strings processing */
+        list.add("str_replace:2:accumulated");
+
+        return list;
+    }
+
     @NotNull
     @Override
     public String getShortName() {
@@ -67,12 +107,26 @@ public class SlowArrayOperationsInLoopInspector extends BasePhpInspection {
         slowFunctions.add("mb_strlen");
     }
 
+    @NotNull
+    @Override
+    public Collection<String> getFunctionCallsFilter() {
+        final Set<String> functions = new HashSet<>(greedyFunctions);
+        if (REPORT_LOOP_COMPLEXITY) {
+            functions.addAll(this.costs.keySet());
+        }
+        return functions;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
         return new BasePhpElementVisitor() {
             @Override
             public void visitPhpFunctionCall(@NotNull FunctionReference reference) {
+                if (REPORT_LOOP_COMPLEXITY) {
+                    LinearCallsInLoopStrategy.apply(reference, holder, costs);
+                }
+
                 final String functionName = reference.getName();
                 if (functionName != null && greedyFunctions.contains(functionName)) {
                     final PsiElement[] arguments = reference.getParameters();
@@ -140,6 +194,20 @@ public class SlowArrayOperationsInLoopInspector extends BasePhpInspection {
         };
     }
 
+    public JComponent createOptionsPanel() {
+        return OptionsComponent.create((component) -> {
+            component.addCheckbox("Estimate loops complexity", REPORT_LOOP_COMPLEXITY, (isSelected) -> REPORT_LOOP_COMPLEXITY = isSelected);
+            component.addList(
+                "Linear functions (O(n) in the argument):",
+                configuration,
+                SlowArrayOperationsInLoopInspector::optionConfigurationDefaults,
+                this::recompileConfiguration,
+                "Adding linear function...",
+                "Examples: 'in_array:1' or 'str_replace:2:accumulated'"
+            );
+        });
+    }
+
     private static final class ReduceRepetitiveCallsInForFix implements LocalQuickFix {
         private static final String title = "Reduce the repetitive calls";
 
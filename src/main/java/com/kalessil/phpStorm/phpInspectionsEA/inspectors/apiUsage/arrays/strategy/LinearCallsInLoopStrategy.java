@@ -0,0 +1,240 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.arrays.strategy;
+
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiEquivalenceUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Estimates costs of loop nests for calls linear in one of arguments (the cost table). The argument has to be a
+    collection living across iterations (re-assigned per iteration containers are not considered). Only an argument
+    growing in the loop nest makes the total super-linear: every loop executing the call contributes a factor of n
+    then. Otherwise the total is O(n*m), m being the number of iterations.
+ */
+final public class LinearCallsInLoopStrategy {
+    private static final String messageGrowing   = "'%s(...)' is O(n) and is executed in a loop growing its argument, which is %s in total. %s";
+    private static final String messageInvariant = "'%s(...)' is O(n) and is executed in each loop iteration, which is O(n*m) in total. %s";
+
+    private static final Set<String> growingFunctions = new HashSet<>();
+    static {
+        growingFunctions.add("array_merge");
+        growingFunctions.add("array_merge_recursive");
+        growingFunctions.add("array_replace");
+        growingFunctions.add("array_replace_recursive");
+    }
+
+    private static final String defaultSuggestion = "Consider moving the call out of the loop or restructuring the data.";
+    private static final Map<String, String> suggestions = new HashMap<>();
+    static {
+        suggestions.put("in_array",      "Consider a keyed lookup: 'array_flip(...)' before the loop and 'isset(...)' in it.");
+        suggestions.put("array_search",  "Consider a keyed lookup: 'array_flip(...)' before the loop and 'isset(...)' in it.");
+        suggestions.put("array_unique",  "Consider collecting the values as array keys and using 'isset(...)' for lookups.");
+        suggestions.put("array_shift",   "Consider using 'SplQueue' or 'array_pop(...)' on a reversed array.");
+        suggestions.put("array_unshift", "Consider appending the values and reversing the array once after the loop.");
+        suggestions.put("str_replace",   "Consider collecting the parts and processing the result once after the loop.");
+    }
+
+    /* function name => costs definition, built from entries `function:argument position[:accumulated]` */
+    @NotNull
+    public static Map<String, Cost> parse(@NotNull Collection<String> entries) {
+        final Map<String, Cost> result = new HashMap<>();
+        for (final String entry : entries) {
+            final String[] parts = entry.trim().split(":");
+            if (parts.length >= 2 && !parts[0].isEmpty()) {
+                try {
+                    final int position         = Integer.parseInt(parts[1].trim());
+                    final boolean accumulation = parts.length > 2 && parts[2].trim().equals("accumulated");
+                    if (position >= 0) {
+                        result.put(parts[0].trim(), new Cost(position, accumulation));
+                    }
+                } catch (final NumberFormatException invalidEntry) {
+                    /* skip the entry */
+                }
+            }
+        }
+        return result;
+    }
+
+    public static void apply(@NotNull FunctionReference reference, @NotNull ProblemsHolder holder, @NotNull Map<String, Cost> costs) {
+        final String functionName = reference.getName();
+        final Cost cost           = functionName == null ? null : costs.get(functionName);
+        if (cost == null) {
+            return;
+        }
+        final PsiElement[] arguments = reference.getParameters();
+        if (arguments.length <= cost.position) {
+            return;
+        }
+        final PsiElement argument = ExpressionSemanticUtil.getExpressionTroughParenthesis(arguments[cost.position]);
+        if (!(argument instanceof Variable) && !(argument instanceof FieldReference)) {
+            return;
+        }
+
+        /* collect the loops nest, the innermost loop first */
+        final List<PsiElement> loops = new ArrayList<>();
+        PsiElement parent            = reference.getParent();
+        PsiElement child             = reference;
+        while (parent != null && !(parent instanceof Function) && !(parent instanceof PsiFile)) {
+            if (OpenapiTypesUtil.isLoop(parent) && isExecutedPerIteration(parent, child)) {
+                loops.add(parent);
+            }
+            child  = parent;
+            parent = parent.getParent();
+        }
+        if (loops.isEmpty()) {
+            return;
+        }
+
+        /* the closest loop modifying the argument decides: re-assigned per its iteration or growing in the nest */
+        Usage usage = Usage.INVARIANT;
+        for (final PsiElement loop : loops) {
+            usage = getUsage(argument, loop);
+            if (usage != Usage.INVARIANT) {
+                break;
+            }
+        }
+        if (usage == Usage.FRESH || (cost.accumulation && usage != Usage.ACCUMULATED)) {
+            return;
+        }
+        final String suggestion = suggestions.getOrDefault(functionName, defaultSuggestion);
+        final String message    = usage == Usage.ACCUMULATED
+                ? String.format(messageGrowing, functionName, getComplexity(loops.size() + 1), suggestion)
+                : String.format(messageInvariant, functionName, suggestion);
+        holder.registerProblem(reference, MessagesPresentationUtil.prefixWithEa(message), ProblemHighlightType.WEAK_WARNING);
+    }
+
+    /* loops headers are not executed per iteration, except conditions and repetitive expressions */
+    private static boolean isExecutedPerIteration(@NotNull PsiElement loop, @NotNull PsiElement child) {
+        if (loop instanceof ForeachStatement) {
+            return child instanceof GroupStatement || OpenapiTypesUtil.isStatementImpl(child);
+        } else if (loop instanceof For) {
+            return Arrays.stream(((For) loop).getInitialExpressions()).noneMatch(expression -> expression == child);
+        }
+        return true;
+    }
+
+    @NotNull
+    private static String getComplexity(int power) {
+        switch (power) {
+            case 2:  return "O(n\u00b2)";
+            case 3:  return "O(n\u00b3)";
+            default: return "O(n^" + power + ")";
+        }
+    }
+
+    @NotNull
+    private static Usage getUsage(@NotNull PsiElement container, @NotNull PsiElement loop) {
+        final Collection<? extends PsiElement> candidates = container instanceof Variable
+                ? PsiTreeUtil.findChildrenOfType(loop, Variable.class)
+                : PsiTreeUtil.findChildrenOfType(loop, FieldReference.class);
+        Usage result = Usage.INVARIANT;
+        for (final PsiElement candidate : candidates) {
+            if (candidate != container && OpenapiEquivalenceUtil.areEqual(candidate, container)) {
+                final Usage usage = classify(candidate);
+                if (usage == Usage.FRESH) {
+                    return usage;
+                } else if (usage == Usage.ACCUMULATED) {
+                    result = usage;
+                }
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private static Usage classify(@NotNull PsiElement occurrence) {
+        final PsiElement parent = occurrence.getParent();
+        if (parent instanceof ForeachStatement) {
+            return ((ForeachStatement) parent).getArray() == occurrence ? Usage.INVARIANT : Usage.FRESH;
+        } else if (parent instanceof SelfAssignmentExpression) {
+            return ((SelfAssignmentExpression) parent).getVariable() == occurrence ? Usage.ACCUMULATED : Usage.INVARIANT;
+        } else if (parent instanceof AssignmentExpression) {
+            final AssignmentExpression assignment = (AssignmentExpression) parent;
+            if (assignment.getVariable() == occurrence) {
+                final PsiElement value = assignment.getValue();
+                if (value == null || !isContaining(value, occurrence)) {
+                    return Usage.FRESH;
+                }
+                /* `$text = str_replace(..., $text)` is transforming the container, but it doesn't grow */
+                return isGrowing(value, occurrence) ? Usage.ACCUMULATED : Usage.INVARIANT;
+            }
+        } else if (parent instanceof ArrayAccessExpression && parent.getFirstChild() == occurrence) {
+            /* `$container[] = ...` and `$container[...] = ...` */
+            final PsiElement grandParent = parent.getParent();
+            if (grandParent instanceof AssignmentExpression && ((AssignmentExpression) grandParent).getVariable() == parent) {
+                return Usage.ACCUMULATED;
+            }
+        }
+        return Usage.INVARIANT;
+    }
+
+    private static boolean isContaining(@NotNull PsiElement expression, @NotNull PsiElement container) {
+        if (OpenapiEquivalenceUtil.areEqual(expression, container)) {
+            return true;
+        }
+        return PsiTreeUtil.findChildrenOfType(expression, container.getClass()).stream()
+                .anyMatch(candidate -> OpenapiEquivalenceUtil.areEqual(candidate, container));
+    }
+
+    /* `$container . ...`, `$container + ...` and `array_merge($container, ...)` */
+    private static boolean isGrowing(@NotNull PsiElement value, @NotNull PsiElement container) {
+        final PsiElement expression = ExpressionSemanticUtil.getExpressionTroughParenthesis(value);
+        if (expression instanceof BinaryExpression) {
+            final BinaryExpression binary = (BinaryExpression) expression;
+            final IElementType operation  = binary.getOperationType();
+            if (operation == PhpTokenTypes.opCONCAT || operation == PhpTokenTypes.opPLUS) {
+                return Stream.of(binary.getLeftOperand(), binary.getRightOperand())
+                        .filter(Objects::nonNull)
+                        .anyMatch(operand -> OpenapiEquivalenceUtil.areEqual(operand, container) || isGrowing(operand, container));
+            }
+        } else if (OpenapiTypesUtil.isFunctionReference(expression)) {
+            final FunctionReference call = (FunctionReference) expression;
+            final String name            = call.getName();
+            return name != null && growingFunctions.contains(name) &&
+                   Arrays.stream(call.getParameters()).anyMatch(argument -> OpenapiEquivalenceUtil.areEqual(argument, container));
+        }
+        return false;
+    }
+
+    private enum Usage {
+        /* not growing in the loop: not modified or transformed in place */
+        INVARIANT,
+        /* growing in the loop */
+        ACCUMULATED,
+        /* re-assigned in the loop, hence the size doesn't depend on iterations */
+        FRESH
+    }
+
+    final public static class Cost {
+        /* the argument the call cost is linear in */
+        private final int position;
+        /* only arguments accumulated in the loop are making the loop nest super-linear */
+        private final boolean accumulation;
+
+        private Cost(int position, boolean accumulation) {
+            this.position     = position;
+            this.accumulation = accumulation;
+        }
+    }
+}
@@ -190,6 +190,12 @@ public class ForgottenDebugOutputInspector extends BasePhpInspection {
         functionsRequirements.put("var_dump",               -1);
     }
 
+    @NotNull
+    @Override
+    public Collection<String> getFunctionCallsFilter() {
+        return customFunctions;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -13,6 +13,7 @@ import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiEquivalenceUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -38,6 +39,12 @@ public class GetDebugTypeCanBeUsedInspector extends BasePhpInspection {
         return "'get_debug_type(...)' can be used";
     }
 
+    @Nullable
+    @Override
+    public PhpLanguageLevel getMinimumLanguageLevel() {
+        return PhpLanguageLevel.PHP800;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
@@ -50,27 +57,24 @@ public class GetDebugTypeCanBeUsedInspector extends BasePhpInspection {
                         final FunctionReference reference = (FunctionReference) condition;
                         final String functionName         = reference.getName();
                         if (functionName != null && functionName.equals("is_object")) {
-                            final boolean isTargetVersion = PhpLanguageLevel.get(holder.getProject()).atLeast(PhpLanguageLevel.PHP800);
-                            if (isTargetVersion) {
-                                final PsiElement[] arguments = reference.getParameters();
-                                if (arguments.length == 1 && arguments[0] != null) {
-                                    final PsiElement positive = ternary.getTrueVariant();
-                                    final PsiElement negative = ternary.getFalseVariant();
-                                    if (positive != null && negative != null) {
-                                        final boolean isTarget = this.is(positive, "get_class", arguments[0]) &&
-                                                                 this.is(negative, "gettype", arguments[0]);
-                                        if (isTarget && this.isFromRootNamespace(reference)) {
-                                            final String replacement = String.format(
-                                                    "%sget_debug_type(%s)",
-                                                    reference.getImmediateNamespaceName(),
-                                                    arguments[0].getText()
-                                            );
-                                            holder.registerProblem(
-                                                    ternary,
-                                                    String.format(MessagesPresentationUtil.prefixWithEa(message), replacement),
-                                                    new UseGetDebugTypeFix(replacement)
-                                            );
-                                        }
+                            final PsiElement[] arguments = reference.getParameters();
+                            if (arguments.length == 1 && arguments[0] != null) {
+                                final PsiElement positive = ternary.getTrueVariant();
+                                final PsiElement negative = ternary.getFalseVariant();
+                                if (positive != null && negative != null) {
+                                    final boolean isTarget = this.is(positive, "get_class", arguments[0]) &&
+                                                             this.is(negative, "gettype", arguments[0]);
+                                    if (isTarget && this.isFromRootNamespace(reference)) {
+                                        final String replacement = String.format(
+                                                "%sget_debug_type(%s)",
+                                                reference.getImmediateNamespaceName(),
+                                                arguments[0].getText()
+                                        );
+                                        holder.registerProblem(
+                                                ternary,
+                                                String.format(MessagesPresentationUtil.prefixWithEa(message), replacement),
+                                                new UseGetDebugTypeFix(replacement)
+                                        );
                                     }
                                 }
                             }
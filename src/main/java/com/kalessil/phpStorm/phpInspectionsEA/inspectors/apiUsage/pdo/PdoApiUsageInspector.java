@@ -2,13 +2,21 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.pdo;
 
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElementVisitor;
+import com.intellij.util.xmlb.XmlSerializer;
+import com.jetbrains.php.lang.psi.elements.FunctionReference;
 import com.jetbrains.php.lang.psi.elements.MethodReference;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.pdo.strategy.ExecUsageStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.pdo.strategy.QueriesInLoopStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.pdo.strategy.QueryUsageStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.options.OptionsComponent;
+import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
 
+import javax.swing.*;
+import java.util.*;
+
 /*
  * This file is part of the Php Inspections (EA Extended) package.
  *
@@ -19,6 +27,61 @@ import org.jetbrains.annotations.NotNull;
  */
 
 public class PdoApiUsageInspector extends BasePhpInspection {
+    // Inspection options.
+    public boolean REPORT_QUERIES_IN_LOOPS  = true;
+    public final List<String> configuration = new ArrayList<>(optionConfigurationDefaults());
+
+    /* method name => classes FQNs, PDO API is always included */
+    final private Map<String, Set<String>> queryMethods = new HashMap<>();
+
+    public PdoApiUsageInspector() {
+        recompileConfiguration();
+    }
+
+    public void readSettings(@NotNull Element node) {
+        XmlSerializer.deserializeInto(this, node);
+        recompileConfiguration();
+    }
+
+    private void recompileConfiguration() {
+        this.queryMethods.clear();
+
+        final Set<String> descriptors = new HashSet<>(this.configuration);
+        descriptors.add("\\PDO::query");
+        descriptors.add("\\PDO::exec");
+        descriptors.add("\\PDOStatement::execute");
+        for (final String descriptor : descriptors) {
+            final String[] disassembledDescriptor = descriptor.trim().split("::", 2);
+            if (disassembledDescriptor.length == 2 && !disassembledDescriptor[1].isEmpty()) {
+                final String clazz = disassembledDescriptor[0].startsWith("\\") ? disassembledDescriptor[0] : '\\' + disassembledDescriptor[0];
+                this.queryMethods.computeIfAbsent(disassembledDescriptor[1], name -> new HashSet<>()).add(clazz);
+            }
+        }
+    }
+
+    @NotNull
+    private static Set<String> optionConfigurationDefaults() {
+        final Set<String> list = new TreeSet<>();
+        /* Doctrine-related fetch methods */
+        list.add("\\Doctrine\\ORM\\EntityRepository::find");
+        list.add("\\Doctrine\\ORM\\EntityRepository::findAll");
+        list.add("\\Doctrine\\ORM\\EntityRepository::findBy");
+        list.add("\\Doctrine\\ORM\\EntityRepository::findOneBy");
+        list.add("\\Doctrine\\ORM\\EntityManager::find");
+        list.add("\\Doctrine\\DBAL\\Connection::executeQuery");
+        list.add("\\Doctrine\\DBAL\\Connection::fetchAll");
+        list.add("\\Doctrine\\DBAL\\Connection::fetchAssoc");
+        list.add("\\Doctrine\\DBAL\\Connection::fetchColumn");
+        /* Laravel-related fetch methods */
+        list.add("\\Illuminate\\Database\\Eloquent\\Builder::find");
+        list.add("\\Illuminate\\Database\\Eloquent\\Builder::first");
+        list.add("\\Illuminate\\Database\\Eloquent\\Builder::get");
+        list.add("\\Illuminate\\Database\\Query\\Builder::first");
+        list.add("\\Illuminate\\Database\\Query\\Builder::get");
+
+        return list;
+    }
+
     @NotNull
     @Override
     public String getShortName() {
@@ -39,8 +102,32 @@ public class PdoApiUsageInspector extends BasePhpInspection {
             public void visitPhpMethodReference(@NotNull MethodReference reference) {
                 QueryUsageStrategy.apply(reference, holder);
                 ExecUsageStrategy.apply(reference, holder);
+                if (REPORT_QUERIES_IN_LOOPS) {
+                    QueriesInLoopStrategy.apply(reference, holder, queryMethods);
+                }
+            }
+
+            @Override
+            public void visitPhpFunctionCall(@NotNull FunctionReference reference) {
+                if (REPORT_QUERIES_IN_LOOPS) {
+                    QueriesInLoopStrategy.apply(reference, holder, queryMethods);
+                }
             }
         };
     }
+
+    public JComponent createOptionsPanel() {
+        return OptionsComponent.create((component) -> {
+            component.addCheckbox("Report queries in loops (N+1)", REPORT_QUERIES_IN_LOOPS, (isSelected) -> REPORT_QUERIES_IN_LOOPS = isSelected);
+            component.addList(
+                "Custom fetch methods:",
+                configuration,
+                PdoApiUsageInspector::optionConfigurationDefaults,
+                this::recompileConfiguration,
+                "Adding custom fetch method...",
+                "Examples: '\\Namespace\\Repository::method'"
+            );
+        });
+    }
 }
 
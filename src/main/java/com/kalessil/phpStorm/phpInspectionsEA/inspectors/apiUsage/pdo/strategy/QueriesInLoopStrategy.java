@@ -0,0 +1,249 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.pdo.strategy;
+
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.pdo.utils.MethodIdentityUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiResolveUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+final public class QueriesInLoopStrategy {
+    private static final String messageQuery    = "N+1 queries: '%s' is executed on each iteration of the '%s' loop, consider fetching the data before the loop.";
+    private static final String messageIndirect = "N+1 queries: '%s' is executed on each iteration of the '%s' loop (via '%s'), consider fetching the data before the loop.";
+    private static final String messageHoist    = "'PDO::prepare(...)' doesn't depend on the '%s' loop, consider preparing the statement before the loop.";
+
+    private static final Key<CachedValue<Map<Map<String, Set<String>>, String>>> queriesKey = Key.create("kalessil.phpStorm.phpInspectionsEA.executed_queries");
+    private static final Key<CachedValue<Set<String>>> modifiedKey                          = Key.create("kalessil.phpStorm.phpInspectionsEA.loop_modified_variables");
+
+    /* targets: method name => FQNs of classes declaring the query method */
+    public static void apply(
+            @NotNull FunctionReference reference,
+            @NotNull ProblemsHolder holder,
+            @NotNull Map<String, Set<String>> targets
+    ) {
+        final String name = reference.getName();
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        final PsiElement loop = getEnclosingLoop(reference);
+        if (loop == null) {
+            return;
+        }
+
+        if (reference instanceof MethodReference) {
+            final MethodReference method = (MethodReference) reference;
+            if (name.equals("prepare")) {
+                if (MethodIdentityUtil.isReferencingMethod(method, "\\PDO", "prepare") && isLoopInvariant(method, loop)) {
+                    holder.registerProblem(
+                            reference,
+                            MessagesPresentationUtil.prefixWithEa(String.format(messageHoist, getLoopName(loop))),
+                            ProblemHighlightType.GENERIC_ERROR_OR_WARNING
+                    );
+                }
+                /* un-hoistable prepare is followed by execute, which is reported instead */
+                return;
+            }
+            final String query = getQuery(method, targets);
+            if (query != null) {
+                holder.registerProblem(
+                        reference,
+                        MessagesPresentationUtil.prefixWithEa(String.format(messageQuery, query, getLoopName(loop))),
+                        ProblemHighlightType.GENERIC_ERROR_OR_WARNING
+                );
+                return;
+            }
+        }
+
+        /* one level of indirection: the called function/method is executing a query */
+        final PsiElement resolved = reference instanceof MethodReference
+                ? OpenapiResolveUtil.resolveReference((MethodReference) reference)
+                : OpenapiResolveUtil.resolveReference((PsiReference) reference);
+        if (resolved instanceof Function && !(resolved instanceof Method && ((Method) resolved).isAbstract())) {
+            final String query = getExecutedQuery((Function) resolved, targets);
+            if (query != null) {
+                final PhpClass clazz = resolved instanceof Method ? ((Method) resolved).getContainingClass() : null;
+                final String fqn     = clazz == null ? "" : clazz.getFQN();
+                final String callee  = (fqn.isEmpty() ? "" : (fqn.startsWith("\\") ? fqn.substring(1) : fqn) + "::") + name + "(...)";
+                holder.registerProblem(
+                        reference,
+                        MessagesPresentationUtil.prefixWithEa(String.format(messageIndirect, query, getLoopName(loop), callee)),
+                        ProblemHighlightType.GENERIC_ERROR_OR_WARNING
+                );
+            }
+        }
+    }
+
+    /* the first query executed in the callee body, memoized per callee and targets until any PSI modification */
+    @Nullable
+    private static String getExecutedQuery(@NotNull Function callee, @NotNull Map<String, Set<String>> targets) {
+        final GroupStatement body = ExpressionSemanticUtil.getGroupStatement(callee);
+        if (body == null) {
+            return null;
+        }
+        final PsiFile file = callee.getContainingFile();
+        if (file == null || !file.isPhysical()) {
+            return findQuery(body, targets);
+        }
+
+        final Map<Map<String, Set<String>>, String> cache = CachedValuesManager.getCachedValue(
+                callee,
+                queriesKey,
+                () -> CachedValueProvider.Result.create(new ConcurrentHashMap<Map<String, Set<String>>, String>(), PsiModificationTracker.MODIFICATION_COUNT)
+        );
+        String query = cache.get(targets);
+        if (query == null) {
+            query = findQuery(body, targets);
+            query = query == null ? "" : query;
+            cache.put(new HashMap<>(targets), query);
+        }
+        return query.isEmpty() ? null : query;
+    }
+
+    @Nullable
+    private static String findQuery(@NotNull GroupStatement body, @NotNull Map<String, Set<String>> targets) {
+        for (final MethodReference candidate : PsiTreeUtil.findChildrenOfType(body, MethodReference.class)) {
+            final String query = getQuery(candidate, targets);
+            if (query != null) {
+                return query;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static String getQuery(@NotNull MethodReference reference, @NotNull Map<String, Set<String>> targets) {
+        final String name = reference.getName();
+        if (name != null) {
+            final Set<String> classes = targets.get(name);
+            if (classes != null) {
+                for (final String clazz : classes) {
+                    if (MethodIdentityUtil.isReferencingMethod(reference, clazz, name)) {
+                        return (clazz.startsWith("\\") ? clazz.substring(1) : clazz) + "::" + name + "(...)";
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /* the innermost loop having the reference in its body; closures and functions are boundaries */
+    @Nullable
+    private static PsiElement getEnclosingLoop(@NotNull PsiElement reference) {
+        PsiElement parent = reference.getParent();
+        while (parent != null && !(parent instanceof Function) && !(parent instanceof PsiFile)) {
+            if (OpenapiTypesUtil.isLoop(parent)) {
+                final GroupStatement body = ExpressionSemanticUtil.getGroupStatement(parent);
+                if (body != null && PsiTreeUtil.isAncestor(body, reference, true)) {
+                    return parent;
+                }
+            }
+            parent = parent.getParent();
+        }
+        return null;
+    }
+
+    @NotNull
+    private static String getLoopName(@NotNull PsiElement loop) {
+        if (loop instanceof ForeachStatement) {
+            return "foreach";
+        } else if (loop instanceof For) {
+            return "for";
+        } else if (loop instanceof While) {
+            return "while";
+        }
+        return "do-while";
+    }
+
+    /* arguments are calls-free and none of used variables is modified in the loop */
+    private static boolean isLoopInvariant(@NotNull MethodReference prepare, @NotNull PsiElement loop) {
+        final Set<String> modified = getModifiedVariables(loop);
+        for (final PsiElement argument : prepare.getParameters()) {
+            if (argument instanceof FunctionReference || argument instanceof NewExpression) {
+                return false;
+            }
+            if (PsiTreeUtil.findChildOfAnyType(argument, FunctionReference.class, NewExpression.class) != null) {
+                return false;
+            }
+            if (argument instanceof Variable && modified.contains(((Variable) argument).getName())) {
+                return false;
+            }
+            if (PsiTreeUtil.findChildrenOfType(argument, Variable.class).stream().anyMatch(variable -> modified.contains(variable.getName()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* names of variables modified in the loop, collected once per loop until any PSI modification */
+    @NotNull
+    private static Set<String> getModifiedVariables(@NotNull PsiElement loop) {
+        return CachedValuesManager.getCachedValue(loop, modifiedKey, () -> {
+            final Set<String> names = new HashSet<>();
+            for (final Variable variable : PsiTreeUtil.findChildrenOfType(loop, Variable.class)) {
+                if (isModified(variable)) {
+                    names.add(variable.getName());
+                }
+            }
+            return CachedValueProvider.Result.create(names, PsiModificationTracker.MODIFICATION_COUNT);
+        });
+    }
+
+    private static boolean isModified(@NotNull Variable variable) {
+        PsiElement previous = variable.getPrevSibling();
+        if (previous instanceof PsiWhiteSpace) {
+            previous = previous.getPrevSibling();
+        }
+        if (OpenapiTypesUtil.is(previous, PhpTokenTypes.opBIT_AND)) {
+            return true;
+        }
+
+        /* `$variable[...] = ...` and `$variable->field = ...` are modifying the variable as well */
+        PsiElement target = variable;
+        PsiElement parent = variable.getParent();
+        while ((parent instanceof ArrayAccessExpression || parent instanceof FieldReference) && parent.getFirstChild() == target) {
+            target = parent;
+            parent = parent.getParent();
+        }
+        if (parent instanceof AssignmentExpression) {
+            return ((AssignmentExpression) parent).getVariable() == target;
+        } else if (parent instanceof SelfAssignmentExpression) {
+            return ((SelfAssignmentExpression) parent).getVariable() == target;
+        } else if (parent instanceof ForeachStatement) {
+            return ((ForeachStatement) parent).getArray() != target;
+        } else if (parent instanceof UnaryExpression) {
+            final PsiElement operation = ((UnaryExpression) parent).getOperation();
+            return OpenapiTypesUtil.is(operation, PhpTokenTypes.opINCREMENT) || OpenapiTypesUtil.is(operation, PhpTokenTypes.opDECREMENT);
+        }
+        return parent instanceof MultiassignmentExpression;
+    }
+}
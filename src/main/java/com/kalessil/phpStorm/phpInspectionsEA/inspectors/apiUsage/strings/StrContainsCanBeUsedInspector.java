@@ -15,6 +15,7 @@ import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiElementsUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.PhpLanguageUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -40,6 +41,12 @@ public class StrContainsCanBeUsedInspector extends BasePhpInspection {
         return "'str_contains(...)' can be used";
     }
 
+    @Nullable
+    @Override
+    public PhpLanguageLevel getMinimumLanguageLevel() {
+        return PhpLanguageLevel.PHP800;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
@@ -48,30 +55,27 @@ public class StrContainsCanBeUsedInspector extends BasePhpInspection {
             public void visitPhpFunctionCall(@NotNull FunctionReference reference) {
                 final String functionName = reference.getName();
                 if (functionName != null && (functionName.equals("strpos") || functionName.equals("mb_strpos"))) {
-                    final boolean isTargetVersion = PhpLanguageLevel.get(holder.getProject()).atLeast(PhpLanguageLevel.PHP800);
-                    if (isTargetVersion) {
-                        final PsiElement[] arguments = reference.getParameters();
-                        if (arguments.length == 2) {
-                            final PsiElement context = reference.getParent();
-                            if (context instanceof BinaryExpression) {
-                                final BinaryExpression binary = (BinaryExpression) context;
-                                final IElementType operation  = binary.getOperationType();
-                                final boolean isTarget        = (operation == PhpTokenTypes.opNOT_IDENTICAL || operation == PhpTokenTypes.opIDENTICAL) &&
-                                                                PhpLanguageUtil.isFalse(OpenapiElementsUtil.getSecondOperand(binary, reference));
-                                if (isTarget) {
-                                    final String replacement = String.format(
-                                            "%s%sstr_contains(%s, %s)",
-                                            operation == PhpTokenTypes.opIDENTICAL ? "! " : "",
-                                            reference.getImmediateNamespaceName(),
-                                            arguments[0].getText(),
-                                            arguments[1].getText()
-                                    );
-                                    holder.registerProblem(
-                                            binary,
-                                            String.format(MessagesPresentationUtil.prefixWithEa(message), replacement),
-                                            new UseStrContainsFix(replacement)
-                                    );
-                                }
+                    final PsiElement[] arguments = reference.getParameters();
+                    if (arguments.length == 2) {
+                        final PsiElement context = reference.getParent();
+                        if (context instanceof BinaryExpression) {
+                            final BinaryExpression binary = (BinaryExpression) context;
+                            final IElementType operation  = binary.getOperationType();
+                            final boolean isTarget        = (operation == PhpTokenTypes.opNOT_IDENTICAL || operation == PhpTokenTypes.opIDENTICAL) &&
+                                                            PhpLanguageUtil.isFalse(OpenapiElementsUtil.getSecondOperand(binary, reference));
+                            if (isTarget) {
+                                final String replacement = String.format(
+                                        "%s%sstr_contains(%s, %s)",
+                                        operation == PhpTokenTypes.opIDENTICAL ? "! " : "",
+                                        reference.getImmediateNamespaceName(),
+                                        arguments[0].getText(),
+                                        arguments[1].getText()
+                                );
+                                holder.registerProblem(
+                                        binary,
+                                        String.format(MessagesPresentationUtil.prefixWithEa(message), replacement),
+                                        new UseStrContainsFix(replacement)
+                                );
                             }
                         }
                     }
@@ -43,6 +43,12 @@ public class StrEndsWithCanBeUsedInspector extends BasePhpInspection {
         return "'str_ends_with(...)' can be used";
     }
 
+    @Nullable
+    @Override
+    public PhpLanguageLevel getMinimumLanguageLevel() {
+        return PhpLanguageLevel.PHP800;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
@@ -51,31 +57,28 @@ public class StrEndsWithCanBeUsedInspector extends BasePhpInspection {
             public void visitPhpFunctionCall(@NotNull FunctionReference reference) {
                 final String functionName = reference.getName();
                 if (functionName != null && (functionName.equals("substr") || functionName.equals("mb_substr"))) {
-                    final boolean isTargetVersion = PhpLanguageLevel.get(holder.getProject()).atLeast(PhpLanguageLevel.PHP800);
-                    if (isTargetVersion) {
-                        final PsiElement[] arguments = reference.getParameters();
-                        if (arguments.length == 2) {
-                            final PsiElement context = reference.getParent();
-                            if (context instanceof BinaryExpression) {
-                                final BinaryExpression binary = (BinaryExpression) context;
-                                final IElementType operation  = binary.getOperationType();
-                                if (operation == PhpTokenTypes.opNOT_IDENTICAL || operation == PhpTokenTypes.opIDENTICAL) {
-                                    final PsiElement limitArgument = this.extractLimitArgument(arguments[1]);
-                                    final PsiElement second        = OpenapiElementsUtil.getSecondOperand(binary, reference);
-                                    if (second != null && limitArgument != null && OpenapiEquivalenceUtil.areEqual(second, limitArgument)) {
-                                        final String replacement = String.format(
-                                                "%s%sstr_ends_with(%s, %s)",
-                                                operation == PhpTokenTypes.opNOT_IDENTICAL ? "! " : "",
-                                                reference.getImmediateNamespaceName(),
-                                                arguments[0].getText(),
-                                                second.getText()
-                                        );
-                                        holder.registerProblem(
-                                                binary,
-                                                String.format(MessagesPresentationUtil.prefixWithEa(message), replacement),
-                                                new UseStrEndsWithFix(replacement)
-                                        );
-                                    }
+                    final PsiElement[] arguments = reference.getParameters();
+                    if (arguments.length == 2) {
+                        final PsiElement context = reference.getParent();
+                        if (context instanceof BinaryExpression) {
+                            final BinaryExpression binary = (BinaryExpression) context;
+                            final IElementType operation  = binary.getOperationType();
+                            if (operation == PhpTokenTypes.opNOT_IDENTICAL || operation == PhpTokenTypes.opIDENTICAL) {
+                                final PsiElement limitArgument = this.extractLimitArgument(arguments[1]);
+                                final PsiElement second        = OpenapiElementsUtil.getSecondOperand(binary, reference);
+                                if (second != null && limitArgument != null && OpenapiEquivalenceUtil.areEqual(second, limitArgument)) {
+                                    final String replacement = String.format(
+                                            "%s%sstr_ends_with(%s, %s)",
+                                            operation == PhpTokenTypes.opNOT_IDENTICAL ? "! " : "",
+                                            reference.getImmediateNamespaceName(),
+                                            arguments[0].getText(),
+                                            second.getText()
+                                    );
+                                    holder.registerProblem(
+                                            binary,
+                                            String.format(MessagesPresentationUtil.prefixWithEa(message), replacement),
+                                            new UseStrEndsWithFix(replacement)
+                                    );
                                 }
                             }
                         }
@@ -15,6 +15,7 @@ import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiElementsUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -40,6 +41,12 @@ public class StrStartsWithCanBeUsedInspector extends BasePhpInspection {
         return "'str_starts_with(...)' can be used";
     }
 
+    @Nullable
+    @Override
+    public PhpLanguageLevel getMinimumLanguageLevel() {
+        return PhpLanguageLevel.PHP800;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
@@ -48,30 +55,27 @@ public class StrStartsWithCanBeUsedInspector extends BasePhpInspection {
             public void visitPhpFunctionCall(@NotNull FunctionReference reference) {
                 final String functionName = reference.getName();
                 if (functionName != null && (functionName.equals("strpos") || functionName.equals("mb_strpos"))) {
-                    final boolean isTargetVersion = PhpLanguageLevel.get(holder.getProject()).atLeast(PhpLanguageLevel.PHP800);
-                    if (isTargetVersion) {
-                        final PsiElement[] arguments = reference.getParameters();
-                        if (arguments.length == 2) {
-                            final PsiElement context = reference.getParent();
-                            if (context instanceof BinaryExpression) {
-                                final BinaryExpression binary = (BinaryExpression) context;
-                                final IElementType operation  = binary.getOperationType();
-                                if (operation == PhpTokenTypes.opNOT_IDENTICAL || operation == PhpTokenTypes.opIDENTICAL) {
-                                    final PsiElement second = OpenapiElementsUtil.getSecondOperand(binary, reference);
-                                    if (second != null && OpenapiTypesUtil.isNumber(second) && second.getText().equals("0")) {
-                                        final String replacement = String.format(
-                                                "%s%sstr_starts_with(%s, %s)",
-                                                operation == PhpTokenTypes.opNOT_IDENTICAL ? "! " : "",
-                                                reference.getImmediateNamespaceName(),
-                                                arguments[0].getText(),
-                                                arguments[1].getText()
-                                        );
-                                        holder.registerProblem(
-                                                binary,
-                                                String.format(MessagesPresentationUtil.prefixWithEa(message), replacement),
-                                                new UseStrStartsWithFix(replacement)
-                                        );
-                                    }
+                    final PsiElement[] arguments = reference.getParameters();
+                    if (arguments.length == 2) {
+                        final PsiElement context = reference.getParent();
+                        if (context instanceof BinaryExpression) {
+                            final BinaryExpression binary = (BinaryExpression) context;
+                            final IElementType operation  = binary.getOperationType();
+                            if (operation == PhpTokenTypes.opNOT_IDENTICAL || operation == PhpTokenTypes.opIDENTICAL) {
+                                final PsiElement second = OpenapiElementsUtil.getSecondOperand(binary, reference);
+                                if (second != null && OpenapiTypesUtil.isNumber(second) && second.getText().equals("0")) {
+                                    final String replacement = String.format(
+                                            "%s%sstr_starts_with(%s, %s)",
+                                            operation == PhpTokenTypes.opNOT_IDENTICAL ? "! " : "",
+                                            reference.getImmediateNamespaceName(),
+                                            arguments[0].getText(),
+                                            arguments[1].getText()
+                                    );
+                                    holder.registerProblem(
+                                            binary,
+                                            String.format(MessagesPresentationUtil.prefixWithEa(message), replacement),
+                                            new UseStrStartsWithFix(replacement)
+                                    );
                                 }
                             }
                         }
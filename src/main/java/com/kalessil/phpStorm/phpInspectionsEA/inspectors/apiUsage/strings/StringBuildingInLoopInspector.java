@@ -0,0 +1,245 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.strings;
+
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.options.OptionsComponent;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+public class StringBuildingInLoopInspector extends BasePhpInspection {
+    private static final String messageGrowth = "'%s' is built by concatenation in a loop (%s in size). Consider collecting the parts into an array and using 'implode(...)' once after the loop.";
+    private static final String messageSplit  = "'%s' is built by concatenation in a loop and split by '%s(...)' afterwards. Consider collecting the parts into an array instead.";
+
+    // Inspection options.
+    public boolean REPORT_SINGLE_LOOPS = true;
+
+    /* function => position of the argument being split */
+    private static final Map<String, Integer> splitting = new HashMap<>();
+    static {
+        splitting.put("explode",    1);
+        splitting.put("preg_split", 1);
+        splitting.put("str_split",  0);
+    }
+
+    @NotNull
+    @Override
+    public String getShortName() {
+        return "StringBuildingInLoopInspection";
+    }
+
+    @NotNull
+    @Override
+    public String getDisplayName() {
+        return "String building in loops";
+    }
+
+    @Override
+    @NotNull
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        return new BasePhpElementVisitor() {
+            @Override
+            public void visitPhpSelfAssignmentExpression(@NotNull SelfAssignmentExpression expression) {
+                if (expression.getOperationType() != PhpTokenTypes.opCONCAT_ASGN || !OpenapiTypesUtil.isStatementImpl(expression.getParent())) {
+                    return;
+                }
+                final PsiElement container = expression.getVariable();
+                if (!(container instanceof Variable)) {
+                    return;
+                }
+                final String name = ((Variable) container).getName();
+                if (name.isEmpty() || name.equals("this")) {
+                    return;
+                }
+
+                /* the outermost loop of the nest, where the string is only appended (not reset or read) */
+                PsiElement loop   = null;
+                PsiElement parent = expression.getParent();
+                int depth         = 0;
+                while (parent != null && !(parent instanceof Function) && !(parent instanceof PsiFile)) {
+                    if (OpenapiTypesUtil.isLoop(parent)) {
+                        if (collectAppends(parent, name) == null) {
+                            break;
+                        }
+                        loop = parent;
+                        ++depth;
+                    }
+                    parent = parent.getParent();
+                }
+                if (loop == null) {
+                    return;
+                }
+                /* report once per loop: at the first append */
+                final List<SelfAssignmentExpression> appends = collectAppends(loop, name);
+                if (appends == null || appends.isEmpty() || appends.get(0) != expression) {
+                    return;
+                }
+
+                final String splitBy = this.getSplittingFunction(loop, name);
+                if (splitBy == null && depth == 1 && !REPORT_SINGLE_LOOPS) {
+                    return;
+                }
+                final String message = splitBy == null
+                        ? String.format(MessagesPresentationUtil.prefixWithEa(messageGrowth), '$' + name, getSizeClass(depth))
+                        : String.format(MessagesPresentationUtil.prefixWithEa(messageSplit), '$' + name, splitBy);
+                final boolean canFix = loop.getParent() instanceof GroupStatement && !isDeclared(loop, getBufferName(name));
+                if (canFix) {
+                    holder.registerProblem(expression, message, new UseImplodeFix(holder.getProject(), loop, name));
+                } else {
+                    holder.registerProblem(expression, message);
+                }
+            }
+
+            /* the string being split after the loop (in the same scope) */
+            @Nullable
+            private String getSplittingFunction(@NotNull PsiElement loop, @NotNull String name) {
+                final int loopEnd = loop.getTextRange().getEndOffset();
+                for (final FunctionReference reference : PsiTreeUtil.findChildrenOfType(getScope(loop), FunctionReference.class)) {
+                    final String functionName = reference.getName();
+                    if (functionName != null && splitting.containsKey(functionName) && OpenapiTypesUtil.isFunctionReference(reference)) {
+                        final PsiElement[] arguments = reference.getParameters();
+                        final int position           = splitting.get(functionName);
+                        if (
+                            arguments.length > position && reference.getTextOffset() > loopEnd &&
+                            arguments[position] instanceof Variable && name.equals(((Variable) arguments[position]).getName())
+                        ) {
+                            return functionName;
+                        }
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /* `.=` statements appending to the variable, or null if it's otherwise used in the loop (the buffer is not applicable then) */
+    @Nullable
+    private static List<SelfAssignmentExpression> collectAppends(@NotNull PsiElement loop, @NotNull String name) {
+        final List<SelfAssignmentExpression> result = new ArrayList<>();
+        for (final Variable variable : PsiTreeUtil.findChildrenOfType(loop, Variable.class)) {
+            if (name.equals(variable.getName())) {
+                final PsiElement parent = variable.getParent();
+                final boolean isAppend  = parent instanceof SelfAssignmentExpression &&
+                                          ((SelfAssignmentExpression) parent).getVariable() == variable &&
+                                          ((SelfAssignmentExpression) parent).getOperationType() == PhpTokenTypes.opCONCAT_ASGN &&
+                                          OpenapiTypesUtil.isStatementImpl(parent.getParent());
+                if (!isAppend) {
+                    return null;
+                }
+                result.add((SelfAssignmentExpression) parent);
+            }
+        }
+        result.sort(Comparator.comparingInt(PsiElement::getTextOffset));
+        return result;
+    }
+
+    private static boolean isDeclared(@NotNull PsiElement loop, @NotNull String name) {
+        return PsiTreeUtil.findChildrenOfType(getScope(loop), Variable.class).stream()
+                .anyMatch(variable -> name.equals(variable.getName()));
+    }
+
+    /* the function or the file for global code */
+    @NotNull
+    private static PsiElement getScope(@NotNull PsiElement loop) {
+        final Function function = ExpressionSemanticUtil.getScope(loop);
+        return function == null ? loop.getContainingFile() : function;
+    }
+
+    @NotNull
+    private static String getBufferName(@NotNull String name) {
+        return name + "Parts";
+    }
+
+    /* every loop of the nest appending to the string multiplies its size by n */
+    @NotNull
+    private static String getSizeClass(int depth) {
+        switch (depth) {
+            case 1:  return "O(n)";
+            case 2:  return "O(n²)";
+            case 3:  return "O(n³)";
+            default: return "O(n^" + depth + ")";
+        }
+    }
+
+    public JComponent createOptionsPanel() {
+        return OptionsComponent.create((component) ->
+            component.addCheckbox("Report strings built in single loops", REPORT_SINGLE_LOOPS, (isSelected) -> REPORT_SINGLE_LOOPS = isSelected)
+        );
+    }
+
+    private static final class UseImplodeFix implements LocalQuickFix {
+        private static final String title = "Collect the parts and use 'implode(...)'";
+
+        private final SmartPsiElementPointer<PsiElement> loop;
+        private final String name;
+
+        UseImplodeFix(@NotNull Project project, @NotNull PsiElement loop, @NotNull String name) {
+            super();
+            this.loop = SmartPointerManager.getInstance(project).createSmartPsiElementPointer(loop);
+            this.name = name;
+        }
+
+        @NotNull
+        @Override
+        public String getName() {
+            return MessagesPresentationUtil.prefixWithEa(title);
+        }
+
+        @NotNull
+        @Override
+        public String getFamilyName() {
+            return getName();
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            final PsiElement loop = this.loop.getElement();
+            if (loop == null || project.isDisposed() || !(loop.getParent() instanceof GroupStatement)) {
+                return;
+            }
+            final List<SelfAssignmentExpression> appends = collectAppends(loop, this.name);
+            final String buffer                          = '$' + getBufferName(this.name);
+            if (appends == null || appends.isEmpty() || isDeclared(loop, getBufferName(this.name))) {
+                return;
+            }
+
+            for (final SelfAssignmentExpression append : appends) {
+                final PsiElement value = append.getValue();
+                if (value != null) {
+                    final String code = String.format("%s[] = %s", buffer, value.getText());
+                    append.replace(PhpPsiElementFactory.createPhpPsiFromText(project, AssignmentExpression.class, code));
+                }
+            }
+            final PsiElement group = loop.getParent();
+            group.addAfter(PhpPsiElementFactory.createStatement(project, String.format("$%s .= implode('', %s);", this.name, buffer)), loop);
+            group.addBefore(PhpPsiElementFactory.createStatement(project, String.format("%s = [];", buffer)), loop);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import com.jetbrains.php.lang.psi.elements.Function;
 import com.jetbrains.php.lang.psi.elements.FunctionReference;
 import com.jetbrains.php.lang.psi.elements.MethodReference;
 import com.jetbrains.php.lang.psi.elements.Parameter;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.CallableParametersMeta;
 import com.kalessil.phpStorm.phpInspectionsEA.indexers.NamedCallableParametersMetaIndexer;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
@@ -139,16 +140,12 @@ public class ArgumentEqualsDefaultValueInspector extends BasePhpInspection {
                     @NotNull FileBasedIndex index,
                     @NotNull GlobalSearchScope scope
             ) {
-                String result              = null;
-                final String key           = String.format("%s.%s", functionFqn, parameterName);
-                final List<String> details = index.getValues(NamedCallableParametersMetaIndexer.identity, key, scope);
+                String result                              = null;
+                final List<CallableParametersMeta> details = index.getValues(NamedCallableParametersMetaIndexer.identity, functionFqn, scope);
                 if (details.size() == 1) {
-                    final String[] meta = details.get(0).split(";", 3); // the data format "ref:%s;var:%s;def:%s"
-                    if (meta.length == 3) {
-                        final String[] defaultMeta = meta[2].split(":", 2);
-                        if (defaultMeta.length == 2 && !defaultMeta[1].isEmpty()) {
-                            result = defaultMeta[1];
-                        }
+                    final CallableParametersMeta.Parameter meta = details.get(0).getParameter(parameterName);
+                    if (meta != null) {
+                        result = meta.getDefaultValue();
                     }
                 }
                 details.clear();
@@ -6,7 +6,6 @@ import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.source.tree.LeafPsiElement;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.jetbrains.php.lang.psi.resolve.types.PhpType;
@@ -79,19 +78,15 @@ public class ReferencingObjectsInspector extends BasePhpInspection {
                             return false;
                         })
                         .filter(parameter -> {
-                            final String parameterName = parameter.getName();
-                            final GroupStatement body  = ExpressionSemanticUtil.getGroupStatement(callable);
-                            for (final Variable variable : PsiTreeUtil.findChildrenOfType(body, Variable.class)) {
-                                if (parameterName.equals(variable.getName())) {
-                                    final PsiElement parent = variable.getParent();
-                                    if (parent instanceof AssignmentExpression) {
-                                        final AssignmentExpression assignment = (AssignmentExpression) parent;
-                                        if (assignment.getValue() != variable) {
-                                            return false;
-                                        }
-                                    } else if (ExpressionSemanticUtil.isUsedAsLogicalOperand(variable)) {
+                            for (final Variable variable : FunctionVariablesIndex.of(callable).getVariables(parameter.getName())) {
+                                final PsiElement parent = variable.getParent();
+                                if (parent instanceof AssignmentExpression) {
+                                    final AssignmentExpression assignment = (AssignmentExpression) parent;
+                                    if (assignment.getValue() != variable) {
                                         return false;
                                     }
+                                } else if (ExpressionSemanticUtil.isUsedAsLogicalOperand(variable)) {
+                                    return false;
                                 }
                             }
                             return true;
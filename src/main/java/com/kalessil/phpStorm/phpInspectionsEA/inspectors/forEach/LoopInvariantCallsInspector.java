@@ -0,0 +1,468 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.forEach;
+
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.jetbrains.php.lang.psi.resolve.types.PhpType;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils.ExpressionsCouplingCheckUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+public class LoopInvariantCallsInspector extends BasePhpInspection {
+    private static final String message = "'%s' is evaluated in each loop iteration, but its arguments are not changing in the loop. Consider extracting it into a local variable before the loop.";
+
+    /* for-conditions with these functions are reported by SlowArrayOperationsInLoopInspection */
+    private static final Set<String> forConditionFunctions = new HashSet<>();
+    static {
+        forConditionFunctions.add("count");
+        forConditionFunctions.add("sizeof");
+        forConditionFunctions.add("strlen");
+        forConditionFunctions.add("mb_strlen");
+    }
+
+    /* function => the suffix of the extracted variable name */
+    private static final Map<String, String> names = new HashMap<>();
+    static {
+        names.put("count",      "Count");
+        names.put("sizeof",     "Count");
+        names.put("strlen",     "Length");
+        names.put("mb_strlen",  "Length");
+        names.put("array_keys", "Keys");
+        names.put("preg_quote", "Quoted");
+        names.put("get_class",  "Class");
+    }
+
+    @NotNull
+    @Override
+    public String getShortName() {
+        return "LoopInvariantCallsInspection";
+    }
+
+    @NotNull
+    @Override
+    public String getDisplayName() {
+        return "Loop-invariant calls";
+    }
+
+    @Override
+    @NotNull
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        return new BasePhpElementVisitor() {
+            @Override
+            public void visitPhpFunctionCall(@NotNull FunctionReference reference) {
+                this.inspect(reference);
+            }
+
+            @Override
+            public void visitPhpMethodReference(@NotNull MethodReference reference) {
+                this.inspect(reference);
+            }
+
+            private void inspect(@NotNull FunctionReference reference) {
+                final PsiElement loop = getTargetLoop(reference);
+                if (loop != null) {
+                    /* nested invariant calls are extracted together with the outer one */
+                    final PsiElement parent = reference.getParent();
+                    final PsiElement call   = parent == null ? null : parent.getParent();
+                    if (parent instanceof ParameterList && call instanceof FunctionReference && isInvariantCall((FunctionReference) call, getLoop(reference))) {
+                        return;
+                    }
+
+                    /* report once per loop: at the first unconditionally evaluated occurrence */
+                    final List<FunctionReference> occurrences = findOccurrences(loop, reference);
+                    final FunctionReference first             = occurrences.stream().filter(occurrence -> isUnconditional(occurrence, loop)).findFirst().orElse(null);
+                    if (first != reference || occurrences.stream().anyMatch(LoopInvariantCallsInspector::isForCondition)) {
+                        return;
+                    }
+                    final String text = reference.getName() + "(...)";
+                    final String name = getVariableName(loop, reference);
+                    if (loop.getParent() instanceof GroupStatement && isSafeToExtract(reference, loop)) {
+                        holder.registerProblem(
+                                reference,
+                                String.format(MessagesPresentationUtil.prefixWithEa(message), text),
+                                new ExtractBeforeLoopFix(holder.getProject(), loop, reference, name)
+                        );
+                    } else {
+                        holder.registerProblem(reference, String.format(MessagesPresentationUtil.prefixWithEa(message), text));
+                    }
+                }
+            }
+        };
+    }
+
+    /* the innermost loop evaluating the expression in each iteration */
+    @Nullable
+    private static PsiElement getLoop(@NotNull PsiElement expression) {
+        PsiElement child  = expression;
+        PsiElement parent = expression.getParent();
+        while (parent != null && !(parent instanceof Function) && !(parent instanceof PsiFile)) {
+            if (OpenapiTypesUtil.isLoop(parent) && isEvaluatedPerIteration(parent, child)) {
+                return parent;
+            }
+            child  = parent;
+            parent = parent.getParent();
+        }
+        return null;
+    }
+
+    /* the outermost loop of the nest, which is not changing the call arguments and evaluates it in each iteration */
+    @Nullable
+    private static PsiElement getTargetLoop(@NotNull FunctionReference reference) {
+        PsiElement target = null;
+        PsiElement loop   = getLoop(reference);
+        while (loop != null && isUnconditional(reference, loop) && isInvariantCall(reference, loop)) {
+            target = loop;
+            loop   = getLoop(loop);
+        }
+        return target;
+    }
+
+    /* foreach sources and for initializers are evaluated once */
+    private static boolean isEvaluatedPerIteration(@NotNull PsiElement loop, @NotNull PsiElement child) {
+        if (loop instanceof ForeachStatement) {
+            return ((ForeachStatement) loop).getArray() != child;
+        }
+        if (loop instanceof For) {
+            return Arrays.stream(((For) loop).getInitialExpressions()).noneMatch(expression -> expression == child);
+        }
+        return true;
+    }
+
+    /* not guarded by conditions, short-circuit operators, nested loop bodies or preceding break/continue/return/throw */
+    private static boolean isUnconditional(@NotNull PsiElement expression, @NotNull PsiElement loop) {
+        final Function scope = ExpressionSemanticUtil.getScope(loop);
+        final int offset     = expression.getTextOffset();
+        final boolean exits  = PsiTreeUtil.findChildrenOfAnyType(loop, PhpBreak.class, PhpContinue.class, PhpReturn.class, PhpThrow.class).stream()
+                .anyMatch(exit -> exit.getTextOffset() < offset && ExpressionSemanticUtil.getScope(exit) == scope);
+        if (exits) {
+            return false;
+        }
+
+        PsiElement child  = expression;
+        PsiElement parent = expression.getParent();
+        while (parent != null && parent != loop) {
+            if (parent instanceof If || parent instanceof While) {
+                if (((ControlStatement) parent).getCondition() != child) {
+                    return false;
+                }
+            } else if (parent instanceof ElseIf || parent instanceof Else || parent instanceof PhpCase || parent instanceof Catch) {
+                return false;
+            } else if (parent instanceof TernaryExpression) {
+                if (((TernaryExpression) parent).getCondition() != child) {
+                    return false;
+                }
+            } else if (parent instanceof BinaryExpression) {
+                final BinaryExpression binary = (BinaryExpression) parent;
+                final IElementType operation  = binary.getOperationType();
+                final boolean isShortCircuit  = PhpTokenTypes.tsSHORT_CIRCUIT_AND_OPS.contains(operation) ||
+                                                PhpTokenTypes.tsSHORT_CIRCUIT_OR_OPS.contains(operation) ||
+                                                operation == PhpTokenTypes.opCOALESCE;
+                if (isShortCircuit && binary.getRightOperand() == child) {
+                    return false;
+                }
+            } else if (parent instanceof ForeachStatement) {
+                if (((ForeachStatement) parent).getArray() != child) {
+                    return false;
+                }
+            } else if (parent instanceof For) {
+                final For nested = (For) parent;
+                if (
+                    Arrays.stream(nested.getInitialExpressions()).noneMatch(initial -> initial == child) &&
+                    Arrays.stream(nested.getConditionalExpressions()).noneMatch(condition -> condition == child)
+                ) {
+                    return false;
+                }
+            }
+            child  = parent;
+            parent = parent.getParent();
+        }
+        return parent == loop;
+    }
+
+    /*
+        The extracted call is evaluated even if the loop has no iterations: only calls evaluated before the first
+        iteration (loop conditions, do-while bodies) or calls which can not fail are extracted.
+     */
+    private static boolean isSafeToExtract(@NotNull FunctionReference reference, @NotNull PsiElement loop) {
+        if (loop instanceof DoWhile) {
+            return true;
+        } else if (loop instanceof While) {
+            final PsiElement condition = ((While) loop).getCondition();
+            if (condition != null && PsiTreeUtil.isAncestor(condition, reference, false)) {
+                return true;
+            }
+        } else if (loop instanceof For) {
+            if (Arrays.stream(((For) loop).getConditionalExpressions()).anyMatch(condition -> PsiTreeUtil.isAncestor(condition, reference, false))) {
+                return true;
+            }
+        }
+        final Function function = ExpressionSemanticUtil.getScope(loop);
+        return function != null && !canFail(reference, function, loop);
+    }
+
+    /* built-in pure functions with literals, constants, `$this` or not reassigned non-nullable typed parameters */
+    private static boolean canFail(@NotNull FunctionReference reference, @NotNull Function function, @NotNull PsiElement loop) {
+        if (!PureFunctionsUtil.isBuiltIn(reference)) {
+            return true;
+        }
+        for (final PsiElement argument : reference.getParameters()) {
+            if (argument instanceof StringLiteralExpression) {
+                if (PsiTreeUtil.getChildOfType(argument, PhpPsiElement.class) != null) {
+                    return true;
+                }
+            } else if (argument instanceof FunctionReference) {
+                if (canFail((FunctionReference) argument, function, loop)) {
+                    return true;
+                }
+            } else if (argument instanceof Variable) {
+                final String name = ((Variable) argument).getName();
+                if (!name.equals("this") && !isTypedParameter(function, name, loop)) {
+                    return true;
+                }
+            } else if (!(argument instanceof ConstantReference) && !(argument instanceof ClassConstantReference) && !OpenapiTypesUtil.isNumber(argument)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* writes after the loop are not affecting the extracted call, unless the loop is nested into another one */
+    private static boolean isTypedParameter(@NotNull Function function, @NotNull String name, @NotNull PsiElement loop) {
+        final GroupStatement body = ExpressionSemanticUtil.getGroupStatement(function);
+        final int limit           = getLoop(loop) == null ? loop.getTextRange().getEndOffset() : Integer.MAX_VALUE;
+        for (final Parameter parameter : function.getParameters()) {
+            if (name.equals(parameter.getName())) {
+                final PhpType type     = parameter.getDeclaredType();
+                final PsiElement value = parameter.getDefaultValue();
+                return !type.isEmpty() && type.getTypes().stream().noneMatch(t -> Types.getType(t).equals(Types.strNull)) && !PhpLanguageUtil.isNull(value) &&
+                       body != null && !isModified(body, name, limit);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isForCondition(@NotNull FunctionReference reference) {
+        final PsiElement parent = reference.getParent();
+        if (parent instanceof BinaryExpression && OpenapiTypesUtil.isFunctionReference(reference)) {
+            final PsiElement loopHead = parent.getParent();
+            return loopHead instanceof For && forConditionFunctions.contains(reference.getName()) &&
+                   Arrays.stream(((For) loopHead).getConditionalExpressions()).anyMatch(condition -> condition == parent);
+        }
+        return false;
+    }
+
+    private static boolean isInvariantCall(@NotNull FunctionReference reference, @Nullable PsiElement loop) {
+        if (loop == null || !PureFunctionsUtil.isPure(reference)) {
+            return false;
+        }
+        if (reference instanceof MethodReference) {
+            final PsiElement base = ((MethodReference) reference).getClassReference();
+            if (!(base instanceof ClassReference) && (base == null || !isInvariant(base, loop))) {
+                return false;
+            }
+        }
+        return Arrays.stream(reference.getParameters()).allMatch(argument -> isInvariant(argument, loop)) &&
+               !ExpressionsCouplingCheckUtil.isSecondCoupledWithFirst(loop, reference);
+    }
+
+    /* literals, constants and local variables not modified in the loop, combined with operators and pure calls */
+    private static boolean isInvariant(@NotNull PsiElement expression, @NotNull PsiElement loop) {
+        if (expression instanceof StringLiteralExpression) {
+            return PsiTreeUtil.getChildOfType(expression, PhpPsiElement.class) == null;
+        } else if (expression instanceof ConstantReference || expression instanceof ClassConstantReference || OpenapiTypesUtil.isNumber(expression)) {
+            return true;
+        } else if (expression instanceof Variable) {
+            final String name = ((Variable) expression).getName();
+            return name.equals("this") || (!name.isEmpty() && !isModified(loop, name));
+        } else if (expression instanceof FunctionReference) {
+            return isInvariantCall((FunctionReference) expression, loop);
+        } else if (expression instanceof ParenthesizedExpression) {
+            final PsiElement argument = ((ParenthesizedExpression) expression).getArgument();
+            return argument != null && isInvariant(argument, loop);
+        } else if (expression instanceof UnaryExpression) {
+            final UnaryExpression unary = (UnaryExpression) expression;
+            final PsiElement operation  = unary.getOperation();
+            final PsiElement value      = unary.getValue();
+            return value != null && isInvariant(value, loop) &&
+                   !OpenapiTypesUtil.is(operation, PhpTokenTypes.opINCREMENT) && !OpenapiTypesUtil.is(operation, PhpTokenTypes.opDECREMENT);
+        } else if (expression instanceof BinaryExpression) {
+            final PsiElement left  = ((BinaryExpression) expression).getLeftOperand();
+            final PsiElement right = ((BinaryExpression) expression).getRightOperand();
+            return left != null && right != null && isInvariant(left, loop) && isInvariant(right, loop);
+        }
+        return false;
+    }
+
+    /* complements the coupling check: element and property writes, increments, foreach, catch, global and static variables, unset, references and method calls */
+    private static boolean isModified(@NotNull PsiElement loop, @NotNull String name) {
+        return isModified(loop, name, Integer.MAX_VALUE);
+    }
+
+    /* usages starting at or after the limit offset are not checked */
+    private static boolean isModified(@NotNull PsiElement scope, @NotNull String name, int limit) {
+        for (final Variable variable : PsiTreeUtil.findChildrenOfType(scope, Variable.class)) {
+            if (!name.equals(variable.getName()) || variable.getTextOffset() >= limit) {
+                continue;
+            }
+            if (variable.getParent() instanceof Catch || PsiTreeUtil.getParentOfType(variable, Global.class, PhpStaticStatement.class) != null) {
+                return true;
+            }
+            final PsiElement previous = PsiTreeUtil.skipSiblingsBackward(variable, PsiWhiteSpace.class);
+            if (OpenapiTypesUtil.is(previous, PhpTokenTypes.opBIT_AND)) {
+                return true;
+            }
+
+            PsiElement expression = variable;
+            PsiElement parent     = variable.getParent();
+            while (
+                (parent instanceof ArrayAccessExpression && ((ArrayAccessExpression) parent).getValue() == expression) ||
+                (parent instanceof FieldReference && ((FieldReference) parent).getClassReference() == expression)
+            ) {
+                expression = parent;
+                parent     = parent.getParent();
+            }
+            if (parent instanceof AssignmentExpression && ((AssignmentExpression) parent).getVariable() == expression) {
+                return true;
+            } else if (parent instanceof SelfAssignmentExpression && ((SelfAssignmentExpression) parent).getVariable() == expression) {
+                return true;
+            } else if (parent instanceof UnaryExpression) {
+                final PsiElement operation = ((UnaryExpression) parent).getOperation();
+                if (OpenapiTypesUtil.is(operation, PhpTokenTypes.opINCREMENT) || OpenapiTypesUtil.is(operation, PhpTokenTypes.opDECREMENT)) {
+                    return true;
+                }
+            } else if (parent instanceof ForeachStatement && ((ForeachStatement) parent).getArray() != expression) {
+                return true;
+            } else if (parent instanceof PhpUnset) {
+                return true;
+            } else if (parent instanceof MethodReference && ((MethodReference) parent).getClassReference() == expression) {
+                /* pure methods are not changing the object state */
+                if (!PureFunctionsUtil.isPure((MethodReference) parent)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /* equivalent calls in the loop, sorted by position; closures and functions declared in the loop are not evaluating them */
+    @NotNull
+    private static List<FunctionReference> findOccurrences(@NotNull PsiElement loop, @NotNull FunctionReference reference) {
+        final Function scope = ExpressionSemanticUtil.getScope(loop);
+        return PsiTreeUtil.findChildrenOfType(loop, FunctionReference.class).stream()
+                .filter(candidate -> ExpressionSemanticUtil.getScope(candidate) == scope)
+                .filter(candidate -> OpenapiEquivalenceUtil.areEqual(candidate, reference))
+                .sorted(Comparator.comparingInt(PsiElement::getTextOffset))
+                .collect(Collectors.toList());
+    }
+
+    /* e.g. `$itemsCount` for `count($items)`, numbered when the name is taken */
+    @NotNull
+    private static String getVariableName(@NotNull PsiElement loop, @NotNull FunctionReference reference) {
+        final String functionName    = reference.getName() == null ? "" : reference.getName();
+        final String suffix          = names.containsKey(functionName) ? names.get(functionName) : toCamelCase(functionName);
+        final PsiElement[] arguments = reference.getParameters();
+        final String base;
+        if (arguments.length > 0 && arguments[0] instanceof Variable && !((Variable) arguments[0]).getName().equals("this")) {
+            base = ((Variable) arguments[0]).getName() + suffix;
+        } else {
+            base = suffix.isEmpty() ? "value" : Character.toLowerCase(suffix.charAt(0)) + suffix.substring(1);
+        }
+
+        final Function function = ExpressionSemanticUtil.getScope(loop);
+        final PsiElement scope  = function == null ? loop.getContainingFile() : function;
+        final Set<String> taken = PsiTreeUtil.findChildrenOfType(scope, Variable.class).stream()
+                .map(Variable::getName)
+                .collect(Collectors.toSet());
+        String name = base;
+        for (int index = 2; taken.contains(name); ++index) {
+            name = base + index;
+        }
+        return name;
+    }
+
+    @NotNull
+    private static String toCamelCase(@NotNull String name) {
+        final StringBuilder result = new StringBuilder();
+        boolean upper              = true;
+        for (final char character : name.toCharArray()) {
+            if (character == '_') {
+                upper = true;
+            } else {
+                result.append(upper ? Character.toUpperCase(character) : character);
+                upper = false;
+            }
+        }
+        return result.toString();
+    }
+
+    private static final class ExtractBeforeLoopFix implements LocalQuickFix {
+        private static final String title = "Extract the call before the loop";
+
+        private final SmartPsiElementPointer<PsiElement> loop;
+        private final SmartPsiElementPointer<FunctionReference> reference;
+        private final String name;
+
+        ExtractBeforeLoopFix(@NotNull Project project, @NotNull PsiElement loop, @NotNull FunctionReference reference, @NotNull String name) {
+            super();
+            final SmartPointerManager factory = SmartPointerManager.getInstance(project);
+
+            this.loop      = factory.createSmartPsiElementPointer(loop);
+            this.reference = factory.createSmartPsiElementPointer(reference);
+            this.name      = name;
+        }
+
+        @NotNull
+        @Override
+        public String getName() {
+            return MessagesPresentationUtil.prefixWithEa(title);
+        }
+
+        @NotNull
+        @Override
+        public String getFamilyName() {
+            return getName();
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            final PsiElement loop             = this.loop.getElement();
+            final FunctionReference reference = this.reference.getElement();
+            if (loop == null || reference == null || project.isDisposed() || !(loop.getParent() instanceof GroupStatement)) {
+                return;
+            }
+
+            final String call = reference.getText();
+            for (final FunctionReference occurrence : findOccurrences(loop, reference)) {
+                occurrence.replace(PhpPsiElementFactory.createPhpPsiFromText(project, Variable.class, '$' + this.name));
+            }
+            loop.getParent().addBefore(PhpPsiElementFactory.createStatement(project, String.format("$%s = %s;", this.name, call)), loop);
+        }
+    }
+}
@@ -201,7 +201,6 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                 final boolean isDateTimeInterfaceAvailable = PhpLanguageLevel.get(holder.getProject()).atLeast(PhpLanguageLevel.PHP550);
 
                 // process entries, perform subject container clean up on each iteration
-                final Map<PhpClass, Set<PhpClass>> resolvedInheritanceChains = new HashMap<>();
                 for (final Map<PsiElement, PhpClass> subjectContainer : mappedChecks.values()) {
                     // investigate one subject when it has multiple instanceof-expressions
                     if (subjectContainer.size() > 1) {
@@ -211,10 +210,6 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                             final PhpClass clazz                  = instanceOf2class.getValue();
                             final PsiElement instanceOfExpression = instanceOf2class.getKey();
 
-                            // extract current condition details
-                            final Set<PhpClass> clazzParents = resolvedInheritanceChains
-                                .computeIfAbsent(clazz, c -> InterfacesExtractUtil.getCrawlInheritanceTree(c, true));
-
                             // inner loop for verification
                             for (Map.Entry<PsiElement, PhpClass> instanceOf2classInner : subjectContainer.entrySet()) {
                                 // skip itself
@@ -224,7 +219,7 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
 
                                 // if alternative references to base class current check is ambiguous
                                 final PhpClass secondClass = instanceOf2classInner.getValue();
-                                if (clazzParents.contains(secondClass)) {
+                                if (InterfacesExtractUtil.isSubtypeOf(clazz, secondClass)) {
                                     /* false-positive: the interface in stubs but accessible in php 5.5+ only */
                                     if (secondClass.getFQN().equals("\\DateTimeInterface") && !isDateTimeInterfaceAvailable) {
                                         continue;
@@ -242,9 +237,6 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                     }
                     subjectContainer.clear();
                 }
-                // release inheritance cache as well
-                resolvedInheritanceChains.values().forEach(Set::clear);
-                resolvedInheritanceChains.clear();
                 // release mapping as well
                 mappedChecks.clear();
             }
@@ -310,23 +302,36 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                     }
                 }
 
+                /* bucket by fingerprints: only calls inside the same bucket can be duplicates */
+                final Map<Integer, List<PsiElement>> buckets = new LinkedHashMap<>();
+                for (final PsiElement call : callsExtracted) {
+                    buckets.computeIfAbsent(OpenapiEquivalenceUtil.getFingerprint(call), key -> new ArrayList<>()).add(call);
+                }
+                callsExtracted.clear();
+
                 /* scan for duplicates */
-                for (final PsiElement expression : callsExtracted) {
-                    if (expression != null) {
-                        /* put a stub */
-                        callsExtracted.set(callsExtracted.indexOf(expression), null);
-                        /* search duplicates in current scope */
-                        for (final PsiElement innerLoopExpression : callsExtracted) {
-                            if (innerLoopExpression != null && OpenapiEquivalenceUtil.areEqual(innerLoopExpression, expression)) {
-                                holder.registerProblem(
-                                        innerLoopExpression,
-                                        MessagesPresentationUtil.prefixWithEa(messageDuplicateConditionPart)
-                                );
-                                callsExtracted.set(callsExtracted.indexOf(innerLoopExpression), null);
+                for (final List<PsiElement> bucket : buckets.values()) {
+                    if (bucket.size() > 1) {
+                        for (final PsiElement expression : bucket) {
+                            if (expression != null) {
+                                /* put a stub */
+                                bucket.set(bucket.indexOf(expression), null);
+                                /* search duplicates in current scope */
+                                for (final PsiElement innerLoopExpression : bucket) {
+                                    if (innerLoopExpression != null && OpenapiEquivalenceUtil.areEqual(innerLoopExpression, expression)) {
+                                        holder.registerProblem(
+                                                innerLoopExpression,
+                                                MessagesPresentationUtil.prefixWithEa(messageDuplicateConditionPart)
+                                        );
+                                        bucket.set(bucket.indexOf(innerLoopExpression), null);
+                                    }
+                                }
                             }
                         }
                     }
+                    bucket.clear();
                 }
+                buckets.clear();
             }
 
             private List<String> getPreviouslyModifiedVariables(@NotNull If ifStatement) {
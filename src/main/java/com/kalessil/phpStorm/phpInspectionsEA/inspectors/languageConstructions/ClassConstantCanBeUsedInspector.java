@@ -24,6 +24,7 @@ import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiResolveUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.util.Collection;
@@ -73,35 +74,33 @@ public class ClassConstantCanBeUsedInspector extends BasePhpInspection {
         return "::class can be used";
     }
 
+    @Nullable
+    @Override
+    public PhpLanguageLevel getMinimumLanguageLevel() {
+        return PhpLanguageLevel.PHP550;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
         return new BasePhpElementVisitor() {
             @Override
             public void visitPhpFunctionCall(@NotNull FunctionReference reference) {
-                if (PhpLanguageLevel.get(holder.getProject()).atLeast(PhpLanguageLevel.PHP550)) {
-                    final String functionName = reference.getName();
-                    if (functionName != null && functionName.equals("get_called_class")) {
-                        final PsiElement[] arguments = reference.getParameters();
-                        if (arguments.length == 0) {
-                            holder.registerProblem(
-                                    reference,
-                                    MessagesPresentationUtil.prefixWithEa(messageUseStatic),
-                                    new UseStaticFix()
-                            );
-                        }
+                final String functionName = reference.getName();
+                if (functionName != null && functionName.equals("get_called_class")) {
+                    final PsiElement[] arguments = reference.getParameters();
+                    if (arguments.length == 0) {
+                        holder.registerProblem(
+                                reference,
+                                MessagesPresentationUtil.prefixWithEa(messageUseStatic),
+                                new UseStaticFix()
+                        );
                     }
                 }
             }
 
             @Override
             public void visitPhpStringLiteralExpression(@NotNull StringLiteralExpression expression) {
-                /* ensure selected language level supports the ::class feature*/
-                final Project project = holder.getProject();
-                if (PhpLanguageLevel.get(project).below(PhpLanguageLevel.PHP550)) {
-                    return;
-                }
-
                 /* Skip certain contexts processing and strings with inline injections */
                 if (!OpenapiTypesUtil.isString(expression) || expression.getFirstPsiChild() != null) {
                     return;
@@ -147,7 +146,7 @@ public class ClassConstantCanBeUsedInspector extends BasePhpInspection {
                     /* if we could find an appropriate candidate and resolved the class => report (case must match) */
                     if (1 == namesToLookup.size()) {
                         final String fqn             = namesToLookup.iterator().next();
-                        final PhpIndex index         = PhpIndex.getInstance(project);
+                        final PhpIndex index         = PhpIndex.getInstance(holder.getProject());
                         final List<PhpClass> classes = OpenapiResolveUtil.resolveClassesAndInterfacesByFQN(fqn, index);
                         /* check resolved items */
                         if (!classes.isEmpty()) {
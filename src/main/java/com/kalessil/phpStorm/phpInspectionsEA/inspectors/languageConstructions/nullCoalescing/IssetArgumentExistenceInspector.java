@@ -12,6 +12,7 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.options.OptionsComponent;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.FunctionVariablesIndex;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
 import org.jetbrains.annotations.NotNull;
@@ -94,44 +95,41 @@ public class IssetArgumentExistenceInspector extends BasePhpInspection {
             private void analyzeExistence (@NotNull Variable variable) {
                 final String variableName = variable.getName();
                 if (!variableName.isEmpty() && !specialVariables.contains(variableName)) {
-                    final Function scope      = ExpressionSemanticUtil.getScope(variable);
-                    final GroupStatement body = scope == null ? null : ExpressionSemanticUtil.getGroupStatement(scope);
-                    if (body != null) {
-                        for (final Variable reference : PsiTreeUtil.findChildrenOfType(body, Variable.class)) {
-                            if (reference.getName().equals(variableName)) {
-                                boolean report = reference == variable;
-                                if (!report) {
-                                    final PsiElement parent = reference.getParent();
-                                    if (parent instanceof AssignmentExpression) {
-                                        report = PsiTreeUtil.findCommonParent(reference, variable) == parent;
-                                    }
+                    final Function scope = ExpressionSemanticUtil.getScope(variable);
+                    if (scope != null) {
+                        for (final Variable reference : FunctionVariablesIndex.of(scope).getVariables(variableName)) {
+                            boolean report = reference == variable;
+                            if (!report) {
+                                final PsiElement parent = reference.getParent();
+                                if (parent instanceof AssignmentExpression) {
+                                    report = PsiTreeUtil.findCommonParent(reference, variable) == parent;
                                 }
-                                if (report) {
-                                    /* variable created dynamically in a loop: hacky stuff, but nevertheless */
-                                    PsiElement loopCandidate = reference.getParent();
-                                    while (loopCandidate != null && loopCandidate != scope) {
-                                        if (OpenapiTypesUtil.isLoop(loopCandidate)) {
-                                            report = PsiTreeUtil.findChildrenOfType(loopCandidate, AssignmentExpression.class).stream()
-                                                    .noneMatch(assignment -> {
-                                                        final PsiElement container = assignment.getVariable();
-                                                        return
-                                                                container instanceof Variable &&
-                                                               ((Variable) container).getName().equals(variableName);
-                                                    });
-                                            break;
-                                        }
-                                        loopCandidate = loopCandidate.getParent();
-                                    }
-                                    if (report && (IGNORE_INCLUDES || !this.hasIncludes(scope))) {
-                                        holder.registerProblem(
-                                                variable,
-                                                String.format(MessagesPresentationUtil.prefixWithEa(messagePattern), variableName),
-                                                ProblemHighlightType.GENERIC_ERROR
-                                        );
+                            }
+                            if (report) {
+                                /* variable created dynamically in a loop: hacky stuff, but nevertheless */
+                                PsiElement loopCandidate = reference.getParent();
+                                while (loopCandidate != null && loopCandidate != scope) {
+                                    if (OpenapiTypesUtil.isLoop(loopCandidate)) {
+                                        report = PsiTreeUtil.findChildrenOfType(loopCandidate, AssignmentExpression.class).stream()
+                                                .noneMatch(assignment -> {
+                                                    final PsiElement container = assignment.getVariable();
+                                                    return
+                                                            container instanceof Variable &&
+                                                           ((Variable) container).getName().equals(variableName);
+                                                });
+                                        break;
                                     }
+                                    loopCandidate = loopCandidate.getParent();
+                                }
+                                if (report && (IGNORE_INCLUDES || !this.hasIncludes(scope))) {
+                                    holder.registerProblem(
+                                            variable,
+                                            String.format(MessagesPresentationUtil.prefixWithEa(messagePattern), variableName),
+                                            ProblemHighlightType.GENERIC_ERROR
+                                    );
                                 }
-                                break;
                             }
+                            break;
                         }
                     }
                 }
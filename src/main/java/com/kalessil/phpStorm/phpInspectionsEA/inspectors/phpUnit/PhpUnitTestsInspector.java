@@ -7,17 +7,21 @@ import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiReference;
 import com.intellij.psi.PsiWhiteSpace;
 import com.intellij.psi.impl.source.tree.LeafPsiElement;
-import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.FileBasedIndex;
 import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
 import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocRef;
 import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocTag;
-import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.PhpUnitAnnotations;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.PhpUnitAnnotationsIndexer;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.phpUnit.strategy.*;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.phpUnit.utils.PhpUnitTargetsValidator;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.options.OptionsComponent;
@@ -26,12 +30,17 @@ import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.NamedElementUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiResolveUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.BooleanSupplier;
 
 /*
@@ -53,9 +62,9 @@ public class PhpUnitTestsInspector extends BasePhpInspection {
     public boolean PROMOTE_MOCKING_WILL_RETURN   = true;
 
     private final static String messageNamedProvider = "It would be better for maintainability to to use named datasets in @dataProvider.";
-    private final static String messageDataProvider  = "@dataProvider referencing to a non-existing entity.";
-    private final static String messageDepends       = "@depends referencing to a non-existing or inappropriate entity.";
-    private final static String messageCovers        = "@covers referencing to a non-existing entity '%s'";
+    private final static String messageDataProvider  = PhpUnitTargetsValidator.messageDataProvider;
+    private final static String messageDepends       = PhpUnitTargetsValidator.messageDepends;
+    private final static String messageCovers        = PhpUnitTargetsValidator.messageCovers;
     private final static String messageTest          = "@test is ambiguous because method name starts with 'test'.";
 
     @NotNull
@@ -74,6 +83,8 @@ public class PhpUnitTestsInspector extends BasePhpInspection {
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
         return new BasePhpElementVisitor() {
+            private final Map<PhpClass, Set<String>> annotatedMethods = new HashMap<>();
+
             @Override
             public void visitPhpMethod(@NotNull Method method) {
                 final PhpClass clazz       = method.getContainingClass();
@@ -82,6 +93,11 @@ public class PhpUnitTestsInspector extends BasePhpInspection {
                 if (null == clazz || null == nameNode || phpDoc == null) {
                     return;
                 }
+                /* the doc-block tags are parsed only for methods the index knows annotations of */
+                final Set<String> annotated = this.annotatedMethods.computeIfAbsent(clazz, this::getAnnotatedMethods);
+                if (annotated != null && !annotated.contains(method.getName())) {
+                    return;
+                }
 
                 final boolean isMethodNamedAsTest = method.getName().startsWith("test");
                 for (final PhpDocTag tag : PsiTreeUtil.findChildrenOfType(phpDoc, PhpDocTag.class)) {
@@ -89,7 +105,7 @@ public class PhpUnitTestsInspector extends BasePhpInspection {
 
                     if (tagName.equals("@dataProvider")) {
                         final PsiElement candidate = tag.getFirstPsiChild();
-                        if (candidate instanceof PhpDocRef && this.isAnnotation(tag)) {
+                        if (candidate instanceof PhpDocRef && PhpUnitAnnotations.isAnnotation(tag)) {
                             final List<PsiReference> references = Arrays.asList(candidate.getReferences());
                             if (!references.isEmpty()) {
                                 Collections.reverse(references);
@@ -133,7 +149,7 @@ public class PhpUnitTestsInspector extends BasePhpInspection {
                         }
                     } else if (tagName.equals("@depends")) {
                         final PsiElement candidate = tag.getFirstPsiChild();
-                        if (candidate instanceof PhpDocRef && this.isAnnotation(tag)) {
+                        if (candidate instanceof PhpDocRef && PhpUnitAnnotations.isAnnotation(tag)) {
                             final List<PsiReference> references = Arrays.asList(candidate.getReferences());
                             if (!references.isEmpty()) {
                                 Collections.reverse(references);
@@ -167,7 +183,7 @@ public class PhpUnitTestsInspector extends BasePhpInspection {
                         }
                     } else if (tagName.equals("@covers")) {
                         final PsiElement candidate = tag.getFirstPsiChild();
-                        if (candidate instanceof PhpDocRef && this.isAnnotation(tag)) {
+                        if (candidate instanceof PhpDocRef && PhpUnitAnnotations.isAnnotation(tag)) {
                             final PhpDocRef referenceNeeded     = (PhpDocRef) candidate;
                             final List<PsiReference> references = Arrays.asList(referenceNeeded.getReferences());
                             Collections.reverse(references);
@@ -199,7 +215,7 @@ public class PhpUnitTestsInspector extends BasePhpInspection {
                             }
                         }
                     } else if (tagName.equals("@test")) {
-                        if (isMethodNamedAsTest && this.isAnnotation(tag)) {
+                        if (isMethodNamedAsTest && PhpUnitAnnotations.isAnnotation(tag)) {
                             holder.registerProblem(
                                     tag.getFirstChild(),
                                     MessagesPresentationUtil.prefixWithEa(messageTest),
@@ -211,11 +227,18 @@ public class PhpUnitTestsInspector extends BasePhpInspection {
                 }
             }
 
-            private boolean isAnnotation(@NotNull PhpDocTag tag) {
-                PsiElement previous      = tag.getPrevSibling();
-                previous                 = previous instanceof PsiWhiteSpace ? previous.getPrevSibling() : previous;
-                final IElementType start = previous == null ? null : previous.getNode().getElementType();
-                return start == PhpTokenTypes.DOC_COMMENT_START || start == PhpTokenTypes.DOC_LEADING_ASTERISK;
+            /* null when the file is not indexed (e.g. in-memory copies), then all methods are checked */
+            @Nullable
+            private Set<String> getAnnotatedMethods(@NotNull PhpClass clazz) {
+                final PsiFile file = holder.getFile();
+                if (file.getVirtualFile() == null || file != clazz.getContainingFile()) {
+                    return null;
+                }
+                final Set<String> result = new HashSet<>();
+                FileBasedIndex.getInstance()
+                        .getValues(PhpUnitAnnotationsIndexer.identity, clazz.getFQN(), GlobalSearchScope.fileScope(file))
+                        .forEach(annotations -> result.addAll(annotations.getMethods()));
+                return result;
             }
 
             @Override
@@ -0,0 +1,139 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.phpUnit.utils;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.psi.elements.Method;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.PhpUnitAnnotations;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.PhpUnitAnnotationsIndexer;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiResolveUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* validates @dataProvider/@depends/@covers targets of the whole test suite from PhpUnitAnnotationsIndexer and PhpIndex */
+final public class PhpUnitTargetsValidator {
+    public final static String messageDataProvider = "@dataProvider referencing to a non-existing entity.";
+    public final static String messageDepends      = "@depends referencing to a non-existing or inappropriate entity.";
+    public final static String messageCovers       = "@covers referencing to a non-existing entity '%s'";
+
+    /* sorted by file path and offset */
+    @NotNull
+    static public List<Unresolved> validate(@NotNull Project project, @NotNull GlobalSearchScope scope) {
+        final FileBasedIndex index    = FileBasedIndex.getInstance();
+        final PhpIndex phpIndex       = PhpIndex.getInstance(project);
+        final List<Unresolved> result = new ArrayList<>();
+        for (final String testClass : index.getAllKeys(PhpUnitAnnotationsIndexer.identity, project)) {
+            index.processValues(PhpUnitAnnotationsIndexer.identity, testClass, null, (file, annotations) -> {
+                for (final PhpUnitAnnotations.Annotation annotation : annotations.getAnnotations()) {
+                    if (!isResolved(testClass, annotation, project, phpIndex)) {
+                        result.add(new Unresolved(file, testClass, annotation));
+                    }
+                }
+                return true;
+            }, scope);
+        }
+        result.sort(Comparator.comparing((Unresolved unresolved) -> unresolved.file.getPath()).thenComparingInt(unresolved -> unresolved.annotation.getOffset()));
+        return result;
+    }
+
+    static private boolean isResolved(
+            @NotNull String testClass,
+            @NotNull PhpUnitAnnotations.Annotation annotation,
+            @NotNull Project project,
+            @NotNull PhpIndex index
+    ) {
+        final String target = annotation.getTarget();
+        final int separator = target.indexOf("::");
+        final String clazz  = separator > 0 ? target.substring(0, separator) : null;
+        final String member = separator >= 0 ? target.substring(separator + 2) : target;
+        switch (annotation.getKind()) {
+            case DATA_PROVIDER:
+                return resolveMethod(clazz == null ? testClass : clazz, member, index) != null;
+            case DEPENDS:
+                final Method dependency = resolveMethod(clazz == null ? testClass : clazz, member, index);
+                return dependency != null && (dependency.getName().startsWith("test") || isMarkedAsTest(dependency, project));
+            case COVERS:
+                if (separator == 0) {
+                    return !index.getFunctionsByFQN('\\' + member).isEmpty();
+                } else if (clazz != null && !member.isEmpty() && !member.startsWith("<")) {
+                    return resolveMethod(clazz, member, index) != null;
+                }
+                final String name = clazz == null ? target : clazz;
+                return !OpenapiResolveUtil.resolveClassesAndInterfacesByFQN(name, index).isEmpty() || !index.getTraitsByFQN(name).isEmpty();
+            default:
+                return true;
+        }
+    }
+
+    @Nullable
+    static private Method resolveMethod(@NotNull String clazz, @NotNull String name, @NotNull PhpIndex index) {
+        for (final PhpClass candidate : OpenapiResolveUtil.resolveClassesAndInterfacesByFQN(clazz, index)) {
+            final Method method = OpenapiResolveUtil.resolveMethod(candidate, name);
+            if (method != null) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    static private boolean isMarkedAsTest(@NotNull Method method, @NotNull Project project) {
+        final PhpClass clazz = method.getContainingClass();
+        return clazz != null && FileBasedIndex.getInstance()
+                .getValues(PhpUnitAnnotationsIndexer.identity, clazz.getFQN(), GlobalSearchScope.allScope(project))
+                .stream()
+                .anyMatch(annotations -> annotations.isMarkedAsTest(method.getName()));
+    }
+
+    final public static class Unresolved {
+        @NotNull
+        private final VirtualFile file;
+        @NotNull
+        private final String testClass;
+        @NotNull
+        private final PhpUnitAnnotations.Annotation annotation;
+
+        private Unresolved(@NotNull VirtualFile file, @NotNull String testClass, @NotNull PhpUnitAnnotations.Annotation annotation) {
+            this.file       = file;
+            this.testClass  = testClass;
+            this.annotation = annotation;
+        }
+
+        @NotNull
+        public VirtualFile getFile() {
+            return this.file;
+        }
+
+        @NotNull
+        public String getTestClass() {
+            return this.testClass;
+        }
+
+        @NotNull
+        public PhpUnitAnnotations.Annotation getAnnotation() {
+            return this.annotation;
+        }
+
+        @NotNull
+        public String getMessage() {
+            switch (this.annotation.getKind()) {
+                case DATA_PROVIDER: return messageDataProvider;
+                case DEPENDS:       return messageDepends;
+                default:            return String.format(messageCovers, this.annotation.getText());
+            }
+        }
+    }
+}
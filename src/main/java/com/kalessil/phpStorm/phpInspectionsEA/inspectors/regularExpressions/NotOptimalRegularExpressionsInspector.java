@@ -7,24 +7,23 @@ import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.apiUsage.FunctionCallCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.apiUsage.PlainApiUseCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.classesStrategy.ShortClassDefinitionStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.CatastrophicBacktrackingCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.GreedyCharactersSetCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.QuantifierCompoundsQuantifierCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.modifiersStrategy.*;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.optimizeStrategy.AmbiguousAnythingTrimCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.optimizeStrategy.SequentialClassesCollapseCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.optimizeStrategy.UnnecessaryCaseManipulationCheckStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -62,13 +61,10 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
         functions.add("preg_quote");
     }
 
-    final static private List<Pattern> matchers = new ArrayList<>();
-    static {
-        matchers.add(Pattern.compile("^([^{<(\\[])(.*)(\\1)([a-zA-Z]+)?$", Pattern.DOTALL));
-        matchers.add(Pattern.compile("^(\\{)(.*)(\\})([a-zA-Z]+)?$", Pattern.DOTALL));
-        matchers.add(Pattern.compile("^(<)(.*)(>)([a-zA-Z]+)?$", Pattern.DOTALL));
-        matchers.add(Pattern.compile("^(\\()(.*)(\\))([a-zA-Z]+)?$", Pattern.DOTALL));
-        matchers.add(Pattern.compile("^(\\[)(.*)(\\])([a-zA-Z]+)?$", Pattern.DOTALL));
+    @NotNull
+    @Override
+    public Collection<String> getFunctionCallsFilter() {
+        return functions;
     }
 
     @Override
@@ -87,20 +83,13 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                             if (pattern.getContainingFile() == params[0].getContainingFile()) {
                                 final String regex = pattern.getContents();
                                 if (!regex.isEmpty() && pattern.getFirstPsiChild() == null) {
-                                    boolean hasDelimiters = false;
-                                    for (final Pattern matchPattern : matchers) {
-                                        final Matcher matcher = matchPattern.matcher(regex);
-                                        if (hasDelimiters = matcher.find()) {
-                                            final String phpRegexPattern   = matcher.group(2);
-                                            final String phpRegexModifiers = matcher.group(4);
-                                            this.checkRegex(functionName, reference, pattern, phpRegexPattern, phpRegexModifiers);
-                                            if (checkCall) {
-                                                this.checkCall(functionName, reference, phpRegexPattern, phpRegexModifiers);
-                                            }
-                                            break;
+                                    final PhpRegularExpression parsed = PhpRegularExpression.parse(regex);
+                                    if (parsed != null) {
+                                        this.checkRegex(functionName, reference, pattern, parsed);
+                                        if (checkCall) {
+                                            this.checkCall(functionName, reference, parsed);
                                         }
-                                    }
-                                    if (!hasDelimiters && !functionName.equals("preg_quote")) {
+                                    } else if (!functionName.equals("preg_quote")) {
                                         holder.registerProblem(
                                                 pattern,
                                                 MessagesPresentationUtil.prefixWithEa(messageNoDelimiters)
@@ -141,7 +130,7 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                 return result;
             }
 
-            private void checkRegex(String functionName, FunctionReference reference, StringLiteralExpression target, String regex, String modifiers) {
+            private void checkRegex(String functionName, FunctionReference reference, StringLiteralExpression target, PhpRegularExpression regex) {
                 /* Modifiers validity (done):
                  * + /no-az-chars/i => /no-az-chars/
                  * + /no-dot-char/s => /no-dot-char/
@@ -150,11 +139,11 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                  * + /regexp/e => mark as deprecated, use preg_replace_callback instead
                  * + Check allowed PHP modifiers: eimsuxADJSUX
                  */
-                DeprecatedModifiersCheckStrategy.apply(modifiers, target, holder);
-                AllowedModifierCheckStrategy.apply(functionName, modifiers, target, holder);
-                UselessDollarEndOnlyModifierStrategy.apply(modifiers, regex, target, holder);
-                UselessDotAllModifierCheckStrategy.apply(modifiers, regex, target, holder);
-                UselessIgnoreCaseModifierCheckStrategy.apply(modifiers, regex, target, holder);
+                DeprecatedModifiersCheckStrategy.apply(regex, target, holder);
+                AllowedModifierCheckStrategy.apply(functionName, regex, target, holder);
+                UselessDollarEndOnlyModifierStrategy.apply(regex, target, holder);
+                UselessDotAllModifierCheckStrategy.apply(regex, target, holder);
+                UselessIgnoreCaseModifierCheckStrategy.apply(regex, target, holder);
 
                 /* Classes shortening (done):
                  * + [0-9] => \d
@@ -164,7 +153,7 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                  * + [^\w] => \W
                  * + [^\s] => \S
                  */
-                ShortClassDefinitionStrategy.apply(modifiers, regex, target, holder);
+                ShortClassDefinitionStrategy.apply(regex, target, holder);
 
                 /* Optimizations:
                  * (...) => (?:...) (if there is no back-reference)
@@ -179,22 +168,25 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                  *
                  * + greedy character classes [\d\w][\D\W]
                  * + dangerous (a+)+ pattern
+                 * + ambiguous loops: exponential (\w+\s?)* and polynomial \d+\d+ backtracking
                  */
                 SequentialClassesCollapseCheckStrategy.apply(regex, target, holder);
                 AmbiguousAnythingTrimCheckStrategy.apply(functionName, reference, regex, target, holder);
                 GreedyCharactersSetCheckStrategy.apply(regex, target, holder);
-                QuantifierCompoundsQuantifierCheckStrategy.apply(regex, target, holder);
+                if (!QuantifierCompoundsQuantifierCheckStrategy.apply(regex, target, holder)) {
+                    CatastrophicBacktrackingCheckStrategy.apply(regex, target, holder);
+                }
 
                 /*
                  * Probably bugs:
                  *  - nested tags check without /s
                  *  - unicode characters without /u
                  */
-                MissingDotAllCheckStrategy.apply(modifiers, regex, target, holder);
-                MissingUnicodeModifierStrategy.apply(functionName, modifiers, regex, target, holder);
+                MissingDotAllCheckStrategy.apply(regex, target, holder);
+                MissingUnicodeModifierStrategy.apply(functionName, regex, target, holder);
             }
 
-            private void checkCall(String functionName, FunctionReference reference, String regex, String modifiers) {
+            private void checkCall(String functionName, FunctionReference reference, PhpRegularExpression regex) {
                 /* Plain API simplification (done):
                  * + /^text/ => 0 === strpos(...) (match)
                  * + /text/ => false !== strpos(...) (match) / str_replace (replace)
@@ -204,10 +196,10 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                  * + preg_match_all without match argument preg_match
                  */
                 FunctionCallCheckStrategy.apply(functionName, reference, holder);
-                PlainApiUseCheckStrategy.apply(functionName, reference, modifiers, regex, holder);
+                PlainApiUseCheckStrategy.apply(functionName, reference, regex, holder);
 
                 /* source checks */
-                UnnecessaryCaseManipulationCheckStrategy.apply(functionName, reference, modifiers, holder);
+                UnnecessaryCaseManipulationCheckStrategy.apply(functionName, reference, regex, holder);
             }
         };
     }
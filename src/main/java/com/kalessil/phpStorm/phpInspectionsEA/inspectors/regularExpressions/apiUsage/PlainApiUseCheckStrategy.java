@@ -10,13 +10,13 @@ import com.jetbrains.php.lang.psi.elements.FunctionReference;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
 import com.jetbrains.php.lang.psi.elements.UnaryExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.fixers.UseSuggestedReplacementFixer;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiElementsUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -60,10 +60,11 @@ final public class PlainApiUseCheckStrategy {
     static public void apply(
         final String functionName,
         @NotNull final FunctionReference reference,
-        @Nullable final String modifiers,
-        final String pattern,
+        @NotNull final PhpRegularExpression regex,
         @NotNull final ProblemsHolder holder
     ) {
+        final String pattern      = regex.getPattern();
+        final String modifiers    = regex.getModifiers();
         final PsiElement[] params = reference.getParameters();
         final int parametersCount = params.length;
         if (parametersCount >= 2 && !StringUtils.isEmpty(pattern)) {
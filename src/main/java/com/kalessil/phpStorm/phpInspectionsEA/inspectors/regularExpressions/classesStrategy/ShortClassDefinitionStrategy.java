@@ -3,8 +3,8 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.cla
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
-import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.HashMap;
@@ -30,9 +30,11 @@ public class ShortClassDefinitionStrategy {
         mapping.put("[^\\s]",        "\\S");
     }
 
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtils.isEmpty(pattern)) {
-            final boolean isUnicodeMode = !StringUtils.isEmpty(modifiers) && modifiers.indexOf('u') != -1;
+    static public void apply(@NotNull final PhpRegularExpression regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        /* all the mapped definitions are character classes */
+        if (regex.has(PhpRegularExpression.TokenType.CLASS)) {
+            final String pattern        = regex.getPattern();
+            final boolean isUnicodeMode = regex.hasModifier('u');
             final String safetyHint     = isUnicodeMode ? "risky, will match extended sets due to /u" : "safe in non-unicode mode";
 
             /* normalize only first found cases - sufficient for reporting */
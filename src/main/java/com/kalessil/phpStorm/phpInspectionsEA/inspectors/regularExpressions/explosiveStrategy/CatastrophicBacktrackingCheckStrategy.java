@@ -0,0 +1,43 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy;
+
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.BacktrackingComplexity;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
+import org.jetbrains.annotations.NotNull;
+
+/*
+ * Recognize ambiguous loops, e.g. (\w+\s?)*$ or \d+\d+x.
+ * See details here: https://www.regular-expressions.info/catastrophic.html
+ *
+ * The lesson is the same as for compounding quantifiers: make loops unambiguous, possessive (e.g. \d++)
+ * or wrap them into atomic groups (e.g. (?>\w+)).
+ */
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+final public class CatastrophicBacktrackingCheckStrategy {
+    private static final String messagePattern = "Backtracking is %s in the worst case, e.g. for %s (ReDoS, Regular Expression Denial of Service).";
+
+    static public void apply(@NotNull PhpRegularExpression regex, @NotNull StringLiteralExpression target, @NotNull ProblemsHolder holder) {
+        if (regex.has(PhpRegularExpression.TokenType.QUANTIFIER)) {
+            final BacktrackingComplexity complexity = BacktrackingComplexity.analyze(regex);
+            if (complexity != null) {
+                holder.registerProblem(
+                        target,
+                        String.format(MessagesPresentationUtil.prefixWithEa(messagePattern), complexity.getComplexity(), complexity.getAttack()),
+                        complexity.isExponential() ? ProblemHighlightType.GENERIC_ERROR : ProblemHighlightType.GENERIC_ERROR_OR_WARNING
+                );
+            }
+        }
+    }
+}
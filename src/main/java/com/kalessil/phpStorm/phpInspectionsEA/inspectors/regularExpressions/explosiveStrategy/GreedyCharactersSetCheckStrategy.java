@@ -3,12 +3,10 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.exp
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /*
  * This file is part of the Php Inspections (EA Extended) package.
  *
@@ -21,17 +19,14 @@ import java.util.regex.Pattern;
 final public class GreedyCharactersSetCheckStrategy {
     private static final String messagePattern = "[%s] is 'greedy'. Please remove %s as it's a subset of %s.";
 
-    final static private Pattern regexGreedyCharacterSet;
-    static {
-        // Original regex: \[([^\[\]]+)\]
-        regexGreedyCharacterSet = Pattern.compile("\\[([^\\[\\]]+)\\]");
-    }
-
-    static public void apply(@NotNull String pattern, @NotNull StringLiteralExpression target, @NotNull ProblemsHolder holder) {
-        if (!pattern.isEmpty() && pattern.indexOf('[') >= 0) {
-            final Matcher regexMatcher = regexGreedyCharacterSet.matcher(pattern);
-            while (regexMatcher.find()) {
-                final String set = regexMatcher.group(1);
+    static public void apply(@NotNull PhpRegularExpression regex, @NotNull StringLiteralExpression target, @NotNull ProblemsHolder holder) {
+        for (final PhpRegularExpression.Token token : regex.getTokens()) {
+            if (token.getType() == PhpRegularExpression.TokenType.CLASS) {
+                final String set = token.getClassContent();
+                /* false-positives: sets with brackets (escaped, posix classes) */
+                if (set.isEmpty() || set.indexOf('[') != -1 || set.indexOf(']') != -1) {
+                    continue;
+                }
                 if (set.contains("\\w") && set.contains("\\d")) {
                     holder.registerProblem(
                             target,
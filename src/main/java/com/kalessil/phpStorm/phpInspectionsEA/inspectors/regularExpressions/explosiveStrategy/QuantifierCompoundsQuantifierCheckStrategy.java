@@ -3,6 +3,7 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.exp
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import org.jetbrains.annotations.NotNull;
 
@@ -45,8 +46,10 @@ final public class QuantifierCompoundsQuantifierCheckStrategy {
         regexOuterGroup   = Pattern.compile("(^|[^>])\\(([^()]+)\\)([+*])([^+]|$)");
     }
 
-    static public void apply(@NotNull String pattern, @NotNull StringLiteralExpression target, @NotNull ProblemsHolder holder) {
-        if (!pattern.isEmpty()) {
+    static public boolean apply(@NotNull PhpRegularExpression regex, @NotNull StringLiteralExpression target, @NotNull ProblemsHolder holder) {
+        boolean result       = false;
+        final String pattern = regex.getPattern();
+        if (regex.has(PhpRegularExpression.TokenType.GROUP_OPEN) && regex.has(PhpRegularExpression.TokenType.QUANTIFIER)) {
             /* get rid of un-captured groups markers */
             String normalizedPattern = pattern.replaceAll("\\(\\?:", "(");
             /* get rid of nested groups */
@@ -70,11 +73,13 @@ final public class QuantifierCompoundsQuantifierCheckStrategy {
                                     String.format(MessagesPresentationUtil.prefixWithEa(messagePattern), candidate, matcher.group(3)),
                                     ProblemHighlightType.GENERIC_ERROR
                             );
+                            result = true;
                             break;
                         }
                     }
                 }
             }
         }
+        return result;
     }
 }
@@ -3,9 +3,9 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -19,7 +19,8 @@ import org.jetbrains.annotations.Nullable;
 public class AllowedModifierCheckStrategy {
     private static final String message = "Unknown modifier '%s'.";
 
-    static public void apply(@NotNull String functionName, @Nullable String modifiers, @NotNull StringLiteralExpression target, @NotNull ProblemsHolder holder) {
+    static public void apply(@NotNull String functionName, @NotNull PhpRegularExpression regex, @NotNull StringLiteralExpression target, @NotNull ProblemsHolder holder) {
+        final String modifiers = regex.getModifiers();
         if (modifiers != null && !modifiers.isEmpty() && !functionName.equals("preg_quote")) {
             for (char modifier : modifiers.toCharArray()) {
                 if ("eimsuxADJSUX".indexOf(modifier) == -1) {
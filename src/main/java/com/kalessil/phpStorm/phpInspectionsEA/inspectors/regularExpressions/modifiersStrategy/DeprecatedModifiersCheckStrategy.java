@@ -3,15 +3,15 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
-import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 public class DeprecatedModifiersCheckStrategy {
     private static final String message = "'e' modifier is deprecated, please use 'preg_replace_callback()' instead.";
 
-    static public void apply(final String modifiers, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtils.isEmpty(modifiers) && modifiers.indexOf('e') >= 0) {
+    static public void apply(@NotNull final PhpRegularExpression regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (regex.hasModifier('e')) {
             holder.registerProblem(
                     target,
                     MessagesPresentationUtil.prefixWithEa(message),
@@ -3,9 +3,9 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -28,12 +28,12 @@ final public class MissingDotAllCheckStrategy {
     }
 
     static public void apply(
-            @Nullable String modifiers,
-            @Nullable String pattern,
+            @NotNull PhpRegularExpression regex,
             @NotNull StringLiteralExpression target,
             @NotNull final ProblemsHolder holder
     ) {
-        if ((modifiers == null || modifiers.indexOf('s') == -1) && pattern != null && pattern.indexOf('>') != -1) {
+        final String pattern = regex.getPattern();
+        if (!regex.hasModifier('s') && pattern.indexOf('>') != -1 && regex.has(PhpRegularExpression.TokenType.DOT)) {
             final Matcher matcher = regexTagContentPattern.matcher(pattern);
             if (matcher.matches()) {
                 holder.registerProblem(
@@ -3,10 +3,10 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.regex.Pattern;
 
@@ -34,12 +34,12 @@ final public class MissingUnicodeModifierStrategy {
 
     static public void apply(
             @NotNull String functionName,
-            @Nullable String modifiers,
-            @Nullable String pattern,
+            @NotNull  PhpRegularExpression regex,
             @NotNull  StringLiteralExpression target,
             @NotNull  ProblemsHolder holder
     ) {
-        if ((modifiers == null || modifiers.indexOf('u') == -1) && pattern != null && ! pattern.isEmpty() && ! functionName.equals("preg_quote")) {
+        final String pattern = regex.getPattern();
+        if (!regex.hasModifier('u') && ! pattern.isEmpty() && ! functionName.equals("preg_quote")) {
             if (unicodeCharactersPattern.matcher(pattern).matches()) {
                 holder.registerProblem(
                         target,
@@ -3,10 +3,9 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
-import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -22,11 +21,11 @@ public class UselessDollarEndOnlyModifierStrategy {
     private static final String messageIgnored   = "'D' modifier will be ignored because of 'm'.";
 
     static public void apply(
-            @Nullable String modifiers,
-            @Nullable String pattern,
+            @NotNull PhpRegularExpression regex,
             @NotNull StringLiteralExpression target,
             @NotNull ProblemsHolder holder
     ) {
+        final String modifiers = regex.getModifiers();
         if (modifiers != null && !modifiers.isEmpty() && modifiers.indexOf('D') != -1) {
             if (modifiers.indexOf('m') != -1) {
                 holder.registerProblem(
@@ -36,9 +35,10 @@ public class UselessDollarEndOnlyModifierStrategy {
                 );
             }
 
-            if (pattern != null && !pattern.isEmpty()) {
-                int countEnds = StringUtils.countMatches(pattern, "$") - StringUtils.countMatches(pattern, "\\$");
-                if (countEnds == 0) {
+            if (!regex.getPattern().isEmpty()) {
+                final boolean hasEnds = regex.getTokens().stream()
+                        .anyMatch(token -> token.getType() == PhpRegularExpression.TokenType.ANCHOR && token.getText().equals("$"));
+                if (!hasEnds) {
                     holder.registerProblem(
                             target,
                             MessagesPresentationUtil.prefixWithEa(messageAmbiguous),
@@ -3,10 +3,9 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
-import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -21,15 +20,13 @@ final public class UselessDotAllModifierCheckStrategy {
     private static final String message = "'s' modifier is ambiguous here ('.' is missing in the given pattern).";
 
     static public void apply(
-            @Nullable String modifiers,
-            @Nullable String pattern,
+            @NotNull  PhpRegularExpression regex,
             @NotNull  StringLiteralExpression target,
             @NotNull  ProblemsHolder holder
     ) {
-        if (modifiers != null && pattern != null && !pattern.isEmpty() && modifiers.indexOf('s') != -1) {
-            final String normalized = pattern.replaceAll("\\\\[\\.\\[\\]]", "")
-                                             .replaceAll("\\[[^]]+\\]", "");
-            if (StringUtils.countMatches(normalized, ".") - StringUtils.countMatches(normalized, "\\.") == 0) {
+        if (regex.hasModifier('s') && !regex.getPattern().isEmpty()) {
+            /* escaped dots and dots inside character classes are not tokenized as DOT */
+            if (!regex.has(PhpRegularExpression.TokenType.DOT)) {
                 holder.registerProblem(
                         target,
                         MessagesPresentationUtil.prefixWithEa(message),
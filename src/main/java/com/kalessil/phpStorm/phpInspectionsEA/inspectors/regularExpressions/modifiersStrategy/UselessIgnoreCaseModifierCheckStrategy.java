@@ -3,6 +3,7 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import org.jetbrains.annotations.NotNull;
 
@@ -25,9 +26,10 @@ public class UselessIgnoreCaseModifierCheckStrategy {
         matcher = Pattern.compile(".*\\p{L}.*", Pattern.DOTALL);
     }
 
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (modifiers != null && !modifiers.isEmpty() && modifiers.indexOf('i') != -1) {
-            final boolean check = pattern != null && !pattern.isEmpty();
+    static public void apply(@NotNull final PhpRegularExpression regex, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        if (regex.hasModifier('i')) {
+            final String pattern = regex.getPattern();
+            final boolean check  = !pattern.isEmpty();
             if (check && !matcher.matcher(pattern.replaceAll("\\\\[\\\\dDwWsS]", "")).matches()) {
                 holder.registerProblem(
                         target,
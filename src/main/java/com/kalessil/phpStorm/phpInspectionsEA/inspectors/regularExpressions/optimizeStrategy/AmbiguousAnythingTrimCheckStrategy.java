@@ -4,10 +4,10 @@ import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.FunctionReference;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -25,11 +25,12 @@ final public class AmbiguousAnythingTrimCheckStrategy {
     static public void apply(
             @NotNull String functionName,
             @NotNull FunctionReference reference,
-            @Nullable String pattern,
+            @NotNull PhpRegularExpression regex,
             @NotNull StringLiteralExpression target,
             @NotNull ProblemsHolder holder
     ) {
-        if (pattern != null && !pattern.isEmpty() && functionName.startsWith("preg_match") && reference.getParameters().length == 2) {
+        final String pattern = regex.getPattern();
+        if (!pattern.isEmpty() && functionName.startsWith("preg_match") && reference.getParameters().length == 2) {
             int countBackRefs = StringUtils.countMatches(pattern, "\\0") - StringUtils.countMatches(pattern, "\\\\0");
             if (countBackRefs <= 0) {
                 if (pattern.startsWith(".*")) {
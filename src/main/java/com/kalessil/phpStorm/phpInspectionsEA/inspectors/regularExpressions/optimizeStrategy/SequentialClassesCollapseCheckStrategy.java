@@ -3,9 +3,9 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.opt
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -27,9 +27,9 @@ final public class SequentialClassesCollapseCheckStrategy {
         regexRepeatedClasses = Pattern.compile("((\\[([^\\]]+)\\])(\\*|\\+|\\?|\\{[^\\}]+\\})?\\2(\\*|\\+|\\?|\\{[^\\}]+\\})?)+");
     }
 
-    static public void apply(@Nullable String pattern, @NotNull StringLiteralExpression target, @NotNull ProblemsHolder holder) {
-        if (pattern != null && !pattern.isEmpty() && pattern.indexOf('[') >= 0) {
-            final Matcher matcher = regexRepeatedClasses.matcher(pattern);
+    static public void apply(@NotNull PhpRegularExpression regex, @NotNull StringLiteralExpression target, @NotNull ProblemsHolder holder) {
+        if (regex.has(PhpRegularExpression.TokenType.CLASS)) {
+            final Matcher matcher = regexRepeatedClasses.matcher(regex.getPattern());
             if (matcher.find()) {
                 holder.registerProblem(
                         target,
@@ -3,10 +3,10 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.opt
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
 import com.jetbrains.php.lang.psi.elements.FunctionReference;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -26,7 +26,7 @@ final public class UnnecessaryCaseManipulationCheckStrategy {
     static public void apply(
             @NotNull final String functionName,
             @NotNull final FunctionReference reference,
-            @Nullable final String modifiers,
+            @NotNull final PhpRegularExpression regex,
             @NotNull final ProblemsHolder holder
     ) {
         if (functionName.equals("preg_match")) {
@@ -34,7 +34,7 @@ final public class UnnecessaryCaseManipulationCheckStrategy {
             if (arguments.length == 2 && OpenapiTypesUtil.isFunctionReference(arguments[1])) {
                 final String argumentName = ((FunctionReference) arguments[1]).getName();
                 if (argumentName != null && targetFunctions.contains(argumentName)) {
-                    final boolean isCaseInsensitive = modifiers != null && modifiers.indexOf('i') != -1;
+                    final boolean isCaseInsensitive = regex.hasModifier('i');
                     holder.registerProblem(
                             arguments[1],
                             MessagesPresentationUtil.prefixWithEa(isCaseInsensitive ? messageUnnecessary : messageNotOptimal)
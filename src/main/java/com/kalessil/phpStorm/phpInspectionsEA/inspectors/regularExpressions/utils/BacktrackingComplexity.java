@@ -0,0 +1,1024 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils;
+
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression.Token;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression.TokenType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+ * Worst-case backtracking estimation: the pattern is parsed into a tree (the structure the backtracking NFA is built
+ * from), then analyzed for ambiguity of loops (the same input can be consumed in several ways):
+ *  - a loop which body can match a string of repeated character in different ways is exponential, e.g. (\w+\s?)*
+ *  - a chain of N adjacent overlapping loops is O(n^N), e.g. \d+\d+; un-anchored patterns add one degree
+ *    (single loops are not reported: un-anchored search makes any of them quadratic, which would be noise)
+ * Ambiguities only matter if the match can fail after the loops, so these are reported if something follows.
+ *
+ * Back-references, recursion, conditionals, unicode properties and inline options are not supported:
+ * such patterns are not analyzed at all.
+ */
+final public class BacktrackingComplexity {
+    private static final int OTHER            = 128; /* any non-ASCII character */
+    private static final int ALPHABET         = 129;
+    private static final int UNBOUNDED        = -1;
+    private static final int LOOP_THRESHOLD   = 64;  /* bounded repetitions above it are treated as loops */
+    private static final int TOKENS_LIMIT     = 512;
+    private static final int EXPONENTIAL_PUMP = 32;
+    private static final int POLYNOMIAL_PUMP  = 4096;
+
+    private static final int[] preferences = new int[ALPHABET];
+    static {
+        final StringBuilder order = new StringBuilder("abcdefghijklmnopqrstuvwxyz0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+        for (char character = ' '; character < 127; ++character) {
+            if (order.indexOf(String.valueOf(character)) == -1) {
+                order.append(character);
+            }
+        }
+        int index = 0;
+        for (; index < order.length(); ++index) {
+            preferences[index] = order.charAt(index);
+        }
+        for (int character = 0; character < ALPHABET; ++character) {
+            if (character < ' ' || character >= 127) {
+                preferences[index++] = character;
+            }
+        }
+    }
+
+    private final boolean exponential;
+    private final int degree;
+    @NotNull
+    private final String attack;
+
+    private BacktrackingComplexity(boolean exponential, int degree, @NotNull String attack) {
+        this.exponential = exponential;
+        this.degree      = degree;
+        this.attack      = attack;
+    }
+
+    /* returns null if the pattern is not vulnerable or can not be analyzed */
+    @Nullable
+    public static BacktrackingComplexity analyze(@NotNull PhpRegularExpression regex) {
+        final List<Token> tokens = regex.getTokens();
+        if (tokens.isEmpty() || tokens.size() > TOKENS_LIMIT) {
+            return null;
+        }
+
+        final Node root;
+        try {
+            root = new Parser(regex).parse();
+        } catch (final UnsupportedConstructException unsupported) {
+            return null;
+        }
+
+        final BitSet start = new BitSet(ALPHABET);
+        if (!regex.hasModifier('A') && !isAnchored(root)) {
+            start.set(0, ALPHABET);
+        }
+        final Analyzer analyzer = new Analyzer();
+        analyzer.visit(root, new Context(new BitSet(ALPHABET), false, "", "", start));
+        return analyzer.result;
+    }
+
+    public boolean isExponential() {
+        return this.exponential;
+    }
+
+    public int getDegree() {
+        return this.degree;
+    }
+
+    @NotNull
+    public String getComplexity() {
+        return this.exponential ? "exponential" : "O(n^" + this.degree + ")";
+    }
+
+    /* the attack string as PHP expression, e.g. str_repeat('a', 32) . '!' */
+    @NotNull
+    public String getAttack() {
+        return this.attack;
+    }
+
+    private static boolean isAnchored(@NotNull Node node) {
+        switch (node.kind) {
+            case ASSERTION:
+                return node.anchor;
+            case SEQUENCE:
+                return !node.children.isEmpty() && isAnchored(node.children.get(0));
+            case ALTERNATION:
+                return node.children.stream().allMatch(BacktrackingComplexity::isAnchored);
+            case ATOMIC:
+                return isAnchored(node.children.get(0));
+            default:
+                return false;
+        }
+    }
+
+    private enum Kind {
+        CHARACTER,
+        ASSERTION,
+        SEQUENCE,
+        ALTERNATION,
+        REPETITION,
+        ATOMIC
+    }
+
+    private static final class Node {
+        @NotNull
+        final Kind kind;
+        @Nullable
+        final BitSet characters;
+        @NotNull
+        final List<Node> children;
+        final int min;
+        final int max;
+        final boolean possessive;
+        final boolean anchor;
+
+        /* lazily computed properties */
+        private int minLength = -1;
+        @Nullable
+        private BitSet uniform;
+        @Nullable
+        private BitSet first;
+
+        private Node(@NotNull Kind kind, @Nullable BitSet characters, @NotNull List<Node> children, int min, int max, boolean possessive, boolean anchor) {
+            this.kind       = kind;
+            this.characters = characters;
+            this.children   = children;
+            this.min        = min;
+            this.max        = max;
+            this.possessive = possessive;
+            this.anchor     = anchor;
+        }
+
+        @NotNull
+        static Node character(@NotNull BitSet characters) {
+            return new Node(Kind.CHARACTER, characters, new ArrayList<>(), 1, 1, false, false);
+        }
+
+        @NotNull
+        static Node assertion(boolean anchor) {
+            return new Node(Kind.ASSERTION, null, new ArrayList<>(), 0, 0, false, anchor);
+        }
+
+        @NotNull
+        static Node composite(@NotNull Kind kind, @NotNull List<Node> children) {
+            return new Node(kind, null, children, 1, 1, false, false);
+        }
+
+        @NotNull
+        static Node repetition(@NotNull Node body, int min, int max, boolean possessive) {
+            final List<Node> children = new ArrayList<>();
+            children.add(body);
+            return new Node(Kind.REPETITION, null, children, min, max, possessive, false);
+        }
+
+        boolean isLoop() {
+            return this.kind == Kind.REPETITION && !this.possessive && (this.max == UNBOUNDED || this.max > LOOP_THRESHOLD);
+        }
+
+        int getMinLength() {
+            if (this.minLength == -1) {
+                long result = 0;
+                switch (this.kind) {
+                    case CHARACTER:
+                        result = 1;
+                        break;
+                    case SEQUENCE:
+                        for (final Node child : this.children) {
+                            result += child.getMinLength();
+                        }
+                        break;
+                    case ALTERNATION:
+                        result = this.children.stream().mapToInt(Node::getMinLength).min().orElse(0);
+                        break;
+                    case REPETITION:
+                        result = (long) this.min * this.children.get(0).getMinLength();
+                        break;
+                    case ATOMIC:
+                        result = this.children.get(0).getMinLength();
+                        break;
+                    default:
+                        break;
+                }
+                this.minLength = (int) Math.min(result, Integer.MAX_VALUE);
+            }
+            return this.minLength;
+        }
+
+        /* characters which repeated can be matched by the node, e.g. 'a' for (a|b)+ and a+b? */
+        @NotNull
+        BitSet getUniform() {
+            if (this.uniform == null) {
+                final BitSet result = new BitSet(ALPHABET);
+                switch (this.kind) {
+                    case CHARACTER:
+                        result.or(this.characters);
+                        break;
+                    case SEQUENCE:
+                        boolean hasMandatory = false;
+                        for (final Node child : this.children) {
+                            if (child.getMinLength() > 0) {
+                                if (hasMandatory) {
+                                    result.and(child.getUniform());
+                                } else {
+                                    result.or(child.getUniform());
+                                    hasMandatory = true;
+                                }
+                            }
+                        }
+                        if (!hasMandatory) {
+                            this.children.forEach(child -> result.or(child.getUniform()));
+                        }
+                        break;
+                    case ALTERNATION:
+                        this.children.forEach(child -> result.or(child.getUniform()));
+                        break;
+                    case REPETITION:
+                        if (this.max != 0) {
+                            result.or(this.children.get(0).getUniform());
+                        }
+                        break;
+                    case ATOMIC:
+                        result.or(this.children.get(0).getUniform());
+                        break;
+                    default:
+                        break;
+                }
+                this.uniform = result;
+            }
+            return this.uniform;
+        }
+
+        /* characters the node can start the match with */
+        @NotNull
+        BitSet getFirst() {
+            if (this.first == null) {
+                final BitSet result = new BitSet(ALPHABET);
+                switch (this.kind) {
+                    case CHARACTER:
+                        result.or(this.characters);
+                        break;
+                    case SEQUENCE:
+                        for (final Node child : this.children) {
+                            result.or(child.getFirst());
+                            if (child.getMinLength() > 0) {
+                                break;
+                            }
+                        }
+                        break;
+                    case ALTERNATION:
+                        this.children.forEach(child -> result.or(child.getFirst()));
+                        break;
+                    case REPETITION:
+                        if (this.max != 0) {
+                            result.or(this.children.get(0).getFirst());
+                        }
+                        break;
+                    case ATOMIC:
+                        result.or(this.children.get(0).getFirst());
+                        break;
+                    default:
+                        break;
+                }
+                this.first = result;
+            }
+            return this.first;
+        }
+
+        /* can the node match repeated character in several ways (or lengths), e.g. a+ or (a|a) */
+        boolean isAmbiguous(int character) {
+            switch (this.kind) {
+                case SEQUENCE:
+                    for (final Node child : this.children) {
+                        if (child.getUniform().get(character) && child.isAmbiguous(character)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case ALTERNATION:
+                    int matching = 0;
+                    for (final Node child : this.children) {
+                        if (child.getUniform().get(character) && (++matching > 1 || child.isAmbiguous(character))) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case REPETITION:
+                    final Node body = this.children.get(0);
+                    if (this.max == 0 || this.possessive || !body.getUniform().get(character)) {
+                        return false;
+                    }
+                    return this.min != this.max || body.isAmbiguous(character);
+                default:
+                    /* characters, assertions and atomic groups are matched in one way only */
+                    return false;
+            }
+        }
+
+        @NotNull
+        String getSample() {
+            switch (this.kind) {
+                case CHARACTER:
+                    return sample(this.characters);
+                case SEQUENCE:
+                    final StringBuilder sequence = new StringBuilder();
+                    this.children.forEach(child -> sequence.append(child.getSample()));
+                    return sequence.toString();
+                case ALTERNATION:
+                    Node shortest = this.children.get(0);
+                    for (final Node child : this.children) {
+                        if (child.getMinLength() < shortest.getMinLength()) {
+                            shortest = child;
+                        }
+                    }
+                    return shortest.getSample();
+                case REPETITION:
+                    final StringBuilder repetition = new StringBuilder();
+                    final String body              = this.children.get(0).getSample();
+                    for (int index = Math.min(this.min, 16); index > 0; --index) {
+                        repetition.append(body);
+                    }
+                    return repetition.toString();
+                case ATOMIC:
+                    return this.children.get(0).getSample();
+                default:
+                    return "";
+            }
+        }
+    }
+
+    /* where a node is located: what follows it, how it was reached and can the match fail after it */
+    private static final class Context {
+        @NotNull
+        final BitSet follow;
+        final boolean failsAfter;
+        @NotNull
+        final String prefix;
+        @NotNull
+        final String rest;
+        @NotNull
+        final BitSet start;
+
+        Context(@NotNull BitSet follow, boolean failsAfter, @NotNull String prefix, @NotNull String rest, @NotNull BitSet start) {
+            this.follow     = follow;
+            this.failsAfter = failsAfter;
+            this.prefix     = prefix;
+            this.rest       = rest;
+            this.start      = start;
+        }
+    }
+
+    private static final class Analyzer {
+        @Nullable
+        private BacktrackingComplexity result;
+
+        private void visit(@NotNull Node node, @NotNull Context context) {
+            switch (node.kind) {
+                case SEQUENCE:
+                    this.visitSequence(node.children, context);
+                    break;
+                case ALTERNATION:
+                    node.children.forEach(child -> this.visit(child, context));
+                    break;
+                case REPETITION:
+                    if (node.max != 0) {
+                        final Node body = node.children.get(0);
+                        if (context.failsAfter && node.isLoop()) {
+                            this.checkExponential(body, context);
+                        }
+                        /* the body is followed by the next iteration or by what follows the loop */
+                        final BitSet follow = (BitSet) context.follow.clone();
+                        follow.or(body.getFirst());
+                        this.visit(body, new Context(follow, context.failsAfter || node.min > 1, context.prefix, context.rest, context.start));
+                    }
+                    break;
+                default:
+                    /* atomic groups and assertions are not backtracked into */
+                    break;
+            }
+        }
+
+        private void visitSequence(@NotNull List<Node> children, @NotNull Context context) {
+            final StringBuilder reached = new StringBuilder(context.prefix);
+            final BitSet start          = (BitSet) context.start.clone();
+            for (int index = 0; index < children.size(); ++index) {
+                final Node child = children.get(index);
+
+                final BitSet follow = new BitSet(ALPHABET);
+                boolean failsAfter  = false;
+                boolean isNullable  = true;
+                for (int next = index + 1; next < children.size(); ++next) {
+                    final Node sibling = children.get(next);
+                    follow.or(sibling.getFirst());
+                    if (sibling.kind == Kind.ASSERTION || sibling.getMinLength() > 0) {
+                        failsAfter = true;
+                        if (sibling.getMinLength() > 0) {
+                            isNullable = false;
+                            break;
+                        }
+                    }
+                }
+                if (isNullable) {
+                    follow.or(context.follow);
+                    failsAfter = failsAfter || context.failsAfter;
+                }
+
+                final String rest = sample(children, index + 1) + context.rest;
+                this.visit(child, new Context(follow, failsAfter, reached.toString(), rest, start));
+                if (child.isLoop()) {
+                    this.checkPolynomial(children, index, new Context(context.follow, context.failsAfter, reached.toString(), context.rest, start));
+                }
+
+                reached.append(child.getSample());
+                if (child.getMinLength() > 0) {
+                    start.and(child.getUniform());
+                }
+            }
+        }
+
+        private void checkExponential(@NotNull Node body, @NotNull Context context) {
+            if (this.result != null && this.result.exponential) {
+                return;
+            }
+            final BitSet uniform = body.getUniform();
+            for (final int character : preferences) {
+                if (uniform.get(character) && body.isAmbiguous(character)) {
+                    final String attack = render(context.prefix, character, EXPONENTIAL_PUMP, breaker(uniform, context.follow), context.rest);
+                    this.result         = new BacktrackingComplexity(true, 0, attack);
+                    return;
+                }
+            }
+        }
+
+        /* the context is the sequence one, the chain starts at the given index */
+        private void checkPolynomial(@NotNull List<Node> children, int from, @NotNull Context context) {
+            if (this.result != null && this.result.exponential) {
+                return;
+            }
+            final BitSet candidates = children.get(from).getUniform();
+            for (final int character : preferences) {
+                if (!candidates.get(character)) {
+                    continue;
+                }
+
+                /* extend the chain of overlapping loops, separated by optional or matching elements only */
+                final BitSet loops = (BitSet) candidates.clone();
+                int count          = 1;
+                int last           = from;
+                for (int index = from + 1; index < children.size(); ++index) {
+                    final Node next = children.get(index);
+                    if (next.isLoop() && next.getUniform().get(character)) {
+                        loops.or(next.getUniform());
+                        ++count;
+                        last = index;
+                    } else if (next.kind == Kind.ASSERTION || (next.getMinLength() > 0 && !next.getUniform().get(character))) {
+                        break;
+                    }
+                }
+                /* a single loop is linear: PCRE makes it possessive when nothing overlaps */
+                if (count < 2) {
+                    continue;
+                }
+
+                final BitSet follow = new BitSet(ALPHABET);
+                boolean canFail     = context.failsAfter;
+                for (int index = last + 1; index < children.size(); ++index) {
+                    final Node next = children.get(index);
+                    follow.or(next.getFirst());
+                    if (next.kind == Kind.ASSERTION || next.getMinLength() > 0) {
+                        canFail = true;
+                        break;
+                    }
+                }
+
+                final boolean unanchored = context.start.get(character);
+                final int degree         = count + (unanchored ? 1 : 0);
+                if (canFail && (this.result == null || this.result.degree < degree)) {
+                    final String rest   = sample(children, last + 1) + context.rest;
+                    final String attack = render(unanchored ? "" : context.prefix, character, POLYNOMIAL_PUMP, breaker(loops, follow), rest);
+                    this.result         = new BacktrackingComplexity(false, degree, attack);
+                }
+            }
+        }
+
+        @NotNull
+        private static String sample(@NotNull List<Node> children, int from) {
+            final StringBuilder result = new StringBuilder();
+            for (int index = from; index < children.size(); ++index) {
+                result.append(children.get(index).getSample());
+            }
+            return result.toString();
+        }
+    }
+
+    /* a character breaking the loops, preferably not accepted by what follows them */
+    @NotNull
+    private static String breaker(@NotNull BitSet loops, @NotNull BitSet follow) {
+        String fallback = "";
+        for (final char candidate : "!_- 0a\n".toCharArray()) {
+            if (!loops.get(candidate)) {
+                /* '$' is matching before a trailing line break, hence an extra character */
+                final String result = candidate == '\n' ? "\n!" : String.valueOf(candidate);
+                if (!follow.get(candidate)) {
+                    return result;
+                } else if (fallback.isEmpty()) {
+                    fallback = result;
+                }
+            }
+        }
+        if (fallback.isEmpty()) {
+            for (final int character : preferences) {
+                if (!loops.get(character)) {
+                    return asString(character);
+                }
+            }
+        }
+        return fallback;
+    }
+
+    @NotNull
+    private static String sample(@NotNull BitSet characters) {
+        for (final int character : preferences) {
+            if (characters.get(character)) {
+                return asString(character);
+            }
+        }
+        return "";
+    }
+
+    @NotNull
+    private static String render(@NotNull String prefix, int character, int times, @NotNull String breaker, @NotNull String rest) {
+        /* the rest of the pattern is added to pass PCRE's required characters pre-check */
+        final String suffix = breaker + rest;
+        final StringBuilder result = new StringBuilder();
+        if (!prefix.isEmpty()) {
+            result.append(quote(prefix)).append(" . ");
+        }
+        result.append("str_repeat(").append(quote(asString(character))).append(", ").append(times).append(')');
+        if (!suffix.isEmpty()) {
+            result.append(" . ").append(quote(suffix));
+        }
+        return result.toString();
+    }
+
+    @NotNull
+    private static String asString(int character) {
+        return character == OTHER ? "\u00e9" : String.valueOf((char) character);
+    }
+
+    /* single quotes unless escape sequences are needed */
+    @NotNull
+    private static String quote(@NotNull String text) {
+        if (text.chars().allMatch(character -> character >= ' ' && character < 127)) {
+            return '\'' + text.replace("\\", "\\\\").replace("'", "\\'") + '\'';
+        }
+
+        final StringBuilder result = new StringBuilder("\"");
+        for (final char character : text.toCharArray()) {
+            switch (character) {
+                case '"':  result.append("\\\""); break;
+                case '\\': result.append("\\\\"); break;
+                case '$':  result.append("\\$");  break;
+                case '\n': result.append("\\n");  break;
+                case '\r': result.append("\\r");  break;
+                case '\t': result.append("\\t");  break;
+                default:
+                    if (character >= 127) {
+                        result.append(String.format("\\u{%x}", (int) character));
+                    } else if (character < ' ') {
+                        result.append(String.format("\\x%02x", (int) character));
+                    } else {
+                        result.append(character);
+                    }
+                    break;
+            }
+        }
+        return result.append('"').toString();
+    }
+
+    private static final class UnsupportedConstructException extends RuntimeException {
+        UnsupportedConstructException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Parser {
+        @NotNull
+        private final String pattern;
+        @NotNull
+        private final List<Token> tokens;
+        private final boolean ignoreCase;
+        private final boolean dotAll;
+        private final boolean extended;
+        private final boolean unicode;
+        private int position = 0;
+
+        Parser(@NotNull PhpRegularExpression regex) {
+            this.pattern    = regex.getPattern();
+            this.tokens     = regex.getTokens();
+            this.ignoreCase = regex.hasModifier('i');
+            this.dotAll     = regex.hasModifier('s');
+            this.extended   = regex.hasModifier('x');
+            this.unicode    = regex.hasModifier('u');
+        }
+
+        @NotNull
+        Node parse() {
+            final Node result = this.alternation();
+            if (this.position < this.tokens.size()) {
+                throw new UnsupportedConstructException();
+            }
+            return result;
+        }
+
+        @NotNull
+        private Node alternation() {
+            final List<Node> branches = new ArrayList<>();
+            branches.add(this.sequence());
+            while (this.position < this.tokens.size() && this.tokens.get(this.position).getType() == TokenType.ALTERNATION) {
+                ++this.position;
+                branches.add(this.sequence());
+            }
+            return branches.size() == 1 ? branches.get(0) : Node.composite(Kind.ALTERNATION, branches);
+        }
+
+        @NotNull
+        private Node sequence() {
+            final List<Node> items = new ArrayList<>();
+            while (this.position < this.tokens.size()) {
+                final Token token = this.tokens.get(this.position);
+                if (token.getType() == TokenType.ALTERNATION || token.getType() == TokenType.GROUP_CLOSE) {
+                    break;
+                }
+                ++this.position;
+
+                Node item = this.atom(token);
+                if (item != null) {
+                    while (this.position < this.tokens.size() && this.tokens.get(this.position).getType() == TokenType.QUANTIFIER) {
+                        item = this.quantified(item, this.tokens.get(this.position++).getText());
+                    }
+                    items.add(item);
+                }
+            }
+            return items.size() == 1 ? items.get(0) : Node.composite(Kind.SEQUENCE, items);
+        }
+
+        @Nullable
+        private Node atom(@NotNull Token token) {
+            final String text = token.getText();
+            switch (token.getType()) {
+                case LITERAL:
+                    final char literal = text.charAt(0);
+                    if (this.extended && Character.isWhitespace(literal)) {
+                        return null;
+                    } else if (this.extended && literal == '#') {
+                        throw new UnsupportedConstructException();
+                    }
+                    return Node.character(this.characters(literal));
+                case DOT:
+                    final BitSet any = new BitSet(ALPHABET);
+                    any.set(0, ALPHABET);
+                    if (!this.dotAll) {
+                        any.clear('\n');
+                    }
+                    return Node.character(any);
+                case ANCHOR:
+                    return Node.assertion(text.charAt(0) == '^');
+                case ESCAPE:
+                    return this.escape(token);
+                case CLASS:
+                    return Node.character(this.characterClass(token));
+                case GROUP_OPEN:
+                    return this.group(text);
+                default:
+                    throw new UnsupportedConstructException();
+            }
+        }
+
+        @NotNull
+        private Node escape(@NotNull Token token) {
+            final String text = token.getText();
+            if (text.length() < 2) {
+                throw new UnsupportedConstructException();
+            }
+            final char escaped = text.charAt(1);
+            final BitSet shorthand = this.shorthand(escaped);
+            if (shorthand != null) {
+                return Node.character(shorthand);
+            }
+            switch (escaped) {
+                case 'A':
+                case 'G':
+                    return Node.assertion(true);
+                case 'b':
+                case 'B':
+                case 'z':
+                case 'Z':
+                case 'K':
+                    return Node.assertion(false);
+                case 'x':
+                    /* the code is tokenized as separate literals (or as a quantifier, e.g. \x{41}): skip the tokens */
+                    final int[] parsed = hexadecimal(this.pattern, token.getEndOffset());
+                    while (this.position < this.tokens.size() && this.tokens.get(this.position).getStartOffset() < parsed[1]) {
+                        if (this.tokens.get(this.position++).getEndOffset() > parsed[1]) {
+                            throw new UnsupportedConstructException();
+                        }
+                    }
+                    return Node.character(this.characters((char) parsed[0]));
+                default:
+                    final int control = control(escaped);
+                    if (control != -1) {
+                        return Node.character(this.characters((char) control));
+                    } else if (Character.isLetterOrDigit(escaped)) {
+                        /* back-references, unicode properties, \Q...\E and co */
+                        throw new UnsupportedConstructException();
+                    }
+                    return Node.character(this.characters(escaped));
+            }
+        }
+
+        @NotNull
+        private Node group(@NotNull String text) {
+            final boolean isGroup      = text.equals("(") || text.equals("(?:") || text.equals("(?|") ||
+                                         (text.length() > 3 && (text.startsWith("(?<") || text.startsWith("(?P<") || text.startsWith("(?'")) && !isLookBehind(text));
+            final boolean isAtomic     = text.equals("(?>");
+            final boolean isLookAround = text.equals("(?=") || text.equals("(?!") || isLookBehind(text);
+            if (!isGroup && !isAtomic && !isLookAround) {
+                throw new UnsupportedConstructException();
+            }
+
+            final Node inner = this.alternation();
+            if (this.position >= this.tokens.size() || this.tokens.get(this.position).getType() != TokenType.GROUP_CLOSE) {
+                throw new UnsupportedConstructException();
+            }
+            ++this.position;
+
+            if (isLookAround) {
+                return Node.assertion(false);
+            } else if (isAtomic) {
+                final List<Node> children = new ArrayList<>();
+                children.add(inner);
+                return Node.composite(Kind.ATOMIC, children);
+            }
+            return inner;
+        }
+
+        private static boolean isLookBehind(@NotNull String text) {
+            return text.equals("(?<=") || text.equals("(?<!");
+        }
+
+        @NotNull
+        private Node quantified(@NotNull Node item, @NotNull String text) {
+            final int min;
+            final int max;
+            final String mode;
+            if (text.charAt(0) == '{') {
+                final int end       = text.indexOf('}');
+                final String range  = text.substring(1, end);
+                final int separator = range.indexOf(',');
+                if (separator == -1) {
+                    min = max = number(range);
+                } else {
+                    min = separator == 0 ? 0 : number(range.substring(0, separator));
+                    max = separator == range.length() - 1 ? UNBOUNDED : number(range.substring(separator + 1));
+                }
+                mode = text.substring(end + 1);
+            } else {
+                final char quantifier = text.charAt(0);
+                min  = quantifier == '+' ? 1 : 0;
+                max  = quantifier == '?' ? 1 : UNBOUNDED;
+                mode = text.substring(1);
+            }
+            /* lazy quantifiers explore the same paths when the match fails */
+            return Node.repetition(item, min, max, mode.equals("+"));
+        }
+
+        private static int number(@NotNull String text) {
+            return text.length() > 6 ? 1000000 : Integer.parseInt(text);
+        }
+
+        @NotNull
+        private BitSet characterClass(@NotNull Token token) {
+            final String text = token.getText();
+            if (text.length() < 3 || text.charAt(text.length() - 1) != ']') {
+                throw new UnsupportedConstructException();
+            }
+
+            final String content = token.getClassContent();
+            final BitSet result  = new BitSet(ALPHABET);
+            final int length     = content.length();
+            int index            = 0;
+            while (index < length) {
+                final char current = content.charAt(index);
+                if (current == '[' && index + 1 < length && content.charAt(index + 1) == ':') {
+                    final int end = content.indexOf(":]", index + 2);
+                    if (end == -1) {
+                        throw new UnsupportedConstructException();
+                    }
+                    result.or(posix(content.substring(index + 2, end)));
+                    index = end + 2;
+                    continue;
+                }
+
+                if (current == '\\' && index + 1 < length) {
+                    final BitSet shorthand = this.shorthand(content.charAt(index + 1));
+                    if (shorthand != null) {
+                        result.or(shorthand);
+                        index += 2;
+                        continue;
+                    }
+                }
+
+                final int[] from = classCharacter(content, index);
+                index            = from[1];
+                /* ranges: a-z, but not trailing '-' */
+                if (index + 1 < length && content.charAt(index) == '-') {
+                    final char next = content.charAt(index + 1);
+                    if (next == '[' || (next == '\\' && index + 2 < length && this.shorthand(content.charAt(index + 2)) != null)) {
+                        throw new UnsupportedConstructException();
+                    }
+                    final int[] to = classCharacter(content, index + 1);
+                    if (to[0] < from[0]) {
+                        throw new UnsupportedConstructException();
+                    }
+                    result.set(Math.min(from[0], OTHER), Math.min(to[0], OTHER) + 1);
+                    index = to[1];
+                } else {
+                    result.set(Math.min(from[0], OTHER));
+                }
+            }
+
+            if (this.ignoreCase) {
+                fold(result);
+            }
+            if (text.charAt(1) == '^') {
+                result.flip(0, ALPHABET);
+            }
+            return result;
+        }
+
+        /* parses \xHH and \x{HHHH} codes (the text starts after \x): returns the code and the end offset */
+        @NotNull
+        private static int[] hexadecimal(@NotNull CharSequence text, int from) {
+            final boolean braced = from < text.length() && text.charAt(from) == '{';
+            int index            = braced ? from + 1 : from;
+            int value            = 0;
+            while (index < text.length() && (braced || index - from < 2) && Character.digit(text.charAt(index), 16) != -1) {
+                value = Math.min(value * 16 + Character.digit(text.charAt(index), 16), OTHER);
+                ++index;
+            }
+            if (braced) {
+                if (index >= text.length() || text.charAt(index) != '}' || index == from + 1) {
+                    throw new UnsupportedConstructException();
+                }
+                ++index;
+            }
+            return new int[] {value, index};
+        }
+
+        /* a single character of a class: returns the code and the end offset */
+        @NotNull
+        private static int[] classCharacter(@NotNull String content, int index) {
+            final char current = content.charAt(index);
+            if (current != '\\' || index + 1 >= content.length()) {
+                return new int[] {current, index + 1};
+            }
+
+            final char escaped = content.charAt(index + 1);
+            if (escaped == 'x') {
+                return hexadecimal(content, index + 2);
+            } else if (escaped == 'b') {
+                return new int[] {'\b', index + 2};
+            }
+            final int control = control(escaped);
+            if (control != -1) {
+                return new int[] {control, index + 2};
+            } else if (Character.isLetterOrDigit(escaped)) {
+                /* octal codes, unicode properties and co */
+                throw new UnsupportedConstructException();
+            }
+            return new int[] {escaped, index + 2};
+        }
+
+        private static int control(char escaped) {
+            switch (escaped) {
+                case 'n': return '\n';
+                case 'r': return '\r';
+                case 't': return '\t';
+                case 'f': return '\f';
+                case 'e': return 27;
+                case 'a': return 7;
+                default:  return -1;
+            }
+        }
+
+        @NotNull
+        private BitSet characters(char character) {
+            final BitSet result = new BitSet(ALPHABET);
+            result.set(Math.min(character, OTHER));
+            if (this.ignoreCase) {
+                fold(result);
+            }
+            return result;
+        }
+
+        @Nullable
+        private BitSet shorthand(char escaped) {
+            final BitSet result = new BitSet(ALPHABET);
+            switch (Character.toLowerCase(escaped)) {
+                case 'd':
+                    result.set('0', '9' + 1);
+                    break;
+                case 'w':
+                    result.set('a', 'z' + 1);
+                    result.set('A', 'Z' + 1);
+                    result.set('0', '9' + 1);
+                    result.set('_');
+                    break;
+                case 's':
+                    result.set('\t', '\r' + 1);
+                    result.set(' ');
+                    break;
+                case 'h':
+                    result.set('\t');
+                    result.set(' ');
+                    break;
+                case 'v':
+                    result.set('\n', '\r' + 1);
+                    break;
+                default:
+                    return null;
+            }
+            /* in unicode mode the shorthands are covering non-ASCII characters as well */
+            if (this.unicode && Character.isLowerCase(escaped)) {
+                result.set(OTHER);
+            }
+            if (Character.isUpperCase(escaped)) {
+                result.flip(0, ALPHABET);
+                if (this.unicode) {
+                    /* be conservative: non-ASCII characters are shared with the positive shorthand */
+                    result.clear(OTHER);
+                }
+            }
+            return result;
+        }
+
+        @NotNull
+        private static BitSet posix(@NotNull String name) {
+            final boolean negated = name.startsWith("^");
+            final BitSet result   = new BitSet(ALPHABET);
+            for (int character = 0; character < 128; ++character) {
+                final boolean matches;
+                switch (negated ? name.substring(1) : name) {
+                    case "alpha":  matches = Character.isLetter(character);                             break;
+                    case "digit":  matches = character >= '0' && character <= '9';                      break;
+                    case "alnum":  matches = Character.isLetterOrDigit(character);                      break;
+                    case "word":   matches = Character.isLetterOrDigit(character) || character == '_';  break;
+                    case "space":  matches = (character >= '\t' && character <= '\r') || character == ' '; break;
+                    case "blank":  matches = character == '\t' || character == ' ';                     break;
+                    case "upper":  matches = character >= 'A' && character <= 'Z';                      break;
+                    case "lower":  matches = character >= 'a' && character <= 'z';                      break;
+                    case "xdigit": matches = Character.digit(character, 16) != -1;                      break;
+                    case "punct":  matches = character > ' ' && character < 127 && !Character.isLetterOrDigit(character); break;
+                    case "cntrl":  matches = character < ' ' || character == 127;                       break;
+                    case "print":  matches = character >= ' ' && character < 127;                      break;
+                    case "graph":  matches = character > ' ' && character < 127;                        break;
+                    case "ascii":  matches = true;                                                      break;
+                    default:
+                        throw new UnsupportedConstructException();
+                }
+                if (matches) {
+                    result.set(character);
+                }
+            }
+            if (negated) {
+                result.flip(0, ALPHABET);
+            }
+            return result;
+        }
+
+        private static void fold(@NotNull BitSet characters) {
+            for (char lower = 'a'; lower <= 'z'; ++lower) {
+                final char upper = Character.toUpperCase(lower);
+                if (characters.get(lower) || characters.get(upper)) {
+                    characters.set(lower);
+                    characters.set(upper);
+                }
+            }
+        }
+    }
+}
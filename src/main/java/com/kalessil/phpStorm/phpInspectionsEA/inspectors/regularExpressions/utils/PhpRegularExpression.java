@@ -0,0 +1,360 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* PCRE pattern split into delimiters, pattern and modifiers; tokenized once, shared by all strategies */
+final public class PhpRegularExpression {
+    private static final int CACHE_LIMIT = 4096;
+    private static final Map<String, Optional<PhpRegularExpression>> cache = new ConcurrentHashMap<>();
+
+    private final char delimiter;
+    @NotNull
+    private final String pattern;
+    @Nullable
+    private final String modifiers;
+    @Nullable
+    private volatile List<Token> tokens;
+
+    private PhpRegularExpression(char delimiter, @NotNull String pattern, @Nullable String modifiers) {
+        this.delimiter = delimiter;
+        this.pattern   = pattern;
+        this.modifiers = modifiers;
+    }
+
+    /* returns null if the delimiters are missing; regular expressions are repeating a lot, hence the cache */
+    @Nullable
+    public static PhpRegularExpression parse(@NotNull String regex) {
+        Optional<PhpRegularExpression> result = cache.get(regex);
+        if (result == null) {
+            if (cache.size() >= CACHE_LIMIT) {
+                cache.clear();
+            }
+            result = Optional.ofNullable(split(regex));
+            cache.put(regex, result);
+        }
+        return result.orElse(null);
+    }
+
+    public char getDelimiter() {
+        return this.delimiter;
+    }
+
+    @NotNull
+    public String getPattern() {
+        return this.pattern;
+    }
+
+    @Nullable
+    public String getModifiers() {
+        return this.modifiers;
+    }
+
+    public boolean hasModifier(char modifier) {
+        return this.modifiers != null && this.modifiers.indexOf(modifier) != -1;
+    }
+
+    @NotNull
+    public List<Token> getTokens() {
+        List<Token> result = this.tokens;
+        if (result == null) {
+            this.tokens = result = Collections.unmodifiableList(tokenize(this.pattern, this.hasModifier('x')));
+        }
+        return result;
+    }
+
+    public boolean has(@NotNull TokenType type) {
+        return this.getTokens().stream().anyMatch(token -> token.type == type);
+    }
+
+    /*
+        Mirrors the former '^(<delimiter>)(.*)(<closing delimiter>)([a-zA-Z]+)?$' matchers (DOTALL): the closing
+        delimiter is the last one followed by modifiers only. Note that '$' matches before a final line break as well.
+     */
+    @Nullable
+    private static PhpRegularExpression split(@NotNull String regex) {
+        final int length = regex.length();
+        if (length < 2) {
+            return null;
+        }
+
+        final char opening = regex.charAt(0);
+        final char closing;
+        switch (opening) {
+            case '{': closing = '}'; break;
+            case '<': closing = '>'; break;
+            case '(': closing = ')'; break;
+            case '[': closing = ']'; break;
+            default:  closing = opening; break;
+        }
+
+        final int end = getEndOfInput(regex);
+        for (int position = length - 1; position >= 1; --position) {
+            final char current = regex.charAt(position);
+            if (current == closing) {
+                final int modifiersEnd = isModifiers(regex, position + 1, length) ? length : (isModifiers(regex, position + 1, end) ? end : -1);
+                if (modifiersEnd != -1) {
+                    return new PhpRegularExpression(
+                            opening,
+                            regex.substring(1, position),
+                            modifiersEnd > position + 1 ? regex.substring(position + 1, modifiersEnd) : null
+                    );
+                }
+            }
+            /* no need to continue: the closing delimiter can only be followed by modifiers */
+            if (position < end && !isLetter(current)) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    private static int getEndOfInput(@NotNull String regex) {
+        final int length = regex.length();
+        final char last  = regex.charAt(length - 1);
+        if (last == '\n') {
+            return length > 1 && regex.charAt(length - 2) == '\r' ? length - 2 : length - 1;
+        } else if (last == '\r' || last == '\u0085' || last == '\u2028' || last == '\u2029') {
+            return length - 1;
+        }
+        return length;
+    }
+
+    private static boolean isModifiers(@NotNull String regex, int from, int to) {
+        if (from > to) {
+            return false;
+        }
+        for (int index = from; index < to; ++index) {
+            if (!isLetter(regex.charAt(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    private static boolean isWhitespace(char character) {
+        return character == ' ' || character == '\t' || character == '\n' || character == '\r' || character == '\f' || character == '\u000B';
+    }
+
+    private static boolean isLetter(char character) {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z');
+    }
+
+    /* in extended mode ('x' modifier) whitespaces and comments outside of character classes are not tokenized */
+    @NotNull
+    private static List<Token> tokenize(@NotNull String pattern, boolean extended) {
+        final List<Token> result = new ArrayList<>();
+        final int length         = pattern.length();
+        int position             = 0;
+        while (position < length) {
+            final int start    = position;
+            final char current = pattern.charAt(position);
+            if (extended && (current == '#' || isWhitespace(current))) {
+                final int commentEnd = current == '#' ? pattern.indexOf('\n', position) : position;
+                position             = commentEnd == -1 ? length : commentEnd + 1;
+                continue;
+            }
+            final TokenType type;
+            switch (current) {
+                case '\\':
+                    type     = TokenType.ESCAPE;
+                    position = Math.min(position + 2, length);
+                    break;
+                case '[':
+                    type     = TokenType.CLASS;
+                    position = skipClass(pattern, position);
+                    break;
+                case '(':
+                    type     = TokenType.GROUP_OPEN;
+                    position = skipGroupOpening(pattern, position);
+                    break;
+                case ')':
+                    type     = TokenType.GROUP_CLOSE;
+                    position = position + 1;
+                    break;
+                case '*':
+                case '+':
+                case '?':
+                    type     = TokenType.QUANTIFIER;
+                    position = skipQuantifierMode(pattern, position + 1);
+                    break;
+                case '{':
+                    final int quantifierEnd = skipRangeQuantifier(pattern, position);
+                    type     = quantifierEnd == -1 ? TokenType.LITERAL : TokenType.QUANTIFIER;
+                    position = quantifierEnd == -1 ? position + 1 : skipQuantifierMode(pattern, quantifierEnd);
+                    break;
+                case '^':
+                case '$':
+                    type     = TokenType.ANCHOR;
+                    position = position + 1;
+                    break;
+                case '.':
+                    type     = TokenType.DOT;
+                    position = position + 1;
+                    break;
+                case '|':
+                    type     = TokenType.ALTERNATION;
+                    position = position + 1;
+                    break;
+                default:
+                    type     = TokenType.LITERAL;
+                    position = position + 1;
+                    break;
+            }
+            result.add(new Token(type, pattern, start, position));
+        }
+        return result;
+    }
+
+    private static int skipClass(@NotNull String pattern, int position) {
+        final int length = pattern.length();
+        int index        = position + 1;
+        if (index < length && pattern.charAt(index) == '^') {
+            ++index;
+        }
+        /* a leading ']' is a literal one */
+        if (index < length && pattern.charAt(index) == ']') {
+            ++index;
+        }
+        while (index < length) {
+            final char current = pattern.charAt(index);
+            if (current == '\\') {
+                index += 2;
+            } else if (current == '[' && index + 1 < length && pattern.charAt(index + 1) == ':') {
+                final int posixEnd = pattern.indexOf(":]", index + 2);
+                index              = posixEnd == -1 ? index + 1 : posixEnd + 2;
+            } else if (current == ']') {
+                return index + 1;
+            } else {
+                ++index;
+            }
+        }
+        return length;
+    }
+
+    private static int skipGroupOpening(@NotNull String pattern, int position) {
+        final int length = pattern.length();
+        if (position + 1 < length && pattern.charAt(position + 1) == '?') {
+            int index = position + 2;
+            if (index < length && pattern.charAt(index) == 'P') {
+                ++index;
+            }
+            if (index < length && (pattern.charAt(index) == '<' || pattern.charAt(index) == '\'')) {
+                ++index;
+                /* look-behind assertions */
+                if (index < length && (pattern.charAt(index) == '=' || pattern.charAt(index) == '!')) {
+                    return index + 1;
+                }
+                /* named groups: consume the name */
+                final int nameEnd = pattern.indexOf(pattern.charAt(index - 1) == '<' ? '>' : '\'', index);
+                return nameEnd == -1 ? index : nameEnd + 1;
+            }
+            return Math.min(index + 1, length);
+        }
+        return position + 1;
+    }
+
+    /* PCRE bundled with PHP requires the minimum: '{,n}' is matched literally */
+    private static int skipRangeQuantifier(@NotNull String pattern, int position) {
+        final int length = pattern.length();
+        int index        = position + 1;
+        while (index < length && isDigit(pattern.charAt(index))) {
+            ++index;
+        }
+        if (index == position + 1) {
+            return -1;
+        }
+        if (index < length && pattern.charAt(index) == ',') {
+            ++index;
+            while (index < length && isDigit(pattern.charAt(index))) {
+                ++index;
+            }
+        }
+        return index < length && pattern.charAt(index) == '}' ? index + 1 : -1;
+    }
+
+    private static int skipQuantifierMode(@NotNull String pattern, int position) {
+        /* lazy and possessive quantifiers */
+        if (position < pattern.length() && (pattern.charAt(position) == '?' || pattern.charAt(position) == '+')) {
+            return position + 1;
+        }
+        return position;
+    }
+
+    public enum TokenType {
+        LITERAL,
+        ESCAPE,
+        CLASS,
+        GROUP_OPEN,
+        GROUP_CLOSE,
+        QUANTIFIER,
+        ANCHOR,
+        DOT,
+        ALTERNATION
+    }
+
+    final public static class Token {
+        @NotNull
+        private final TokenType type;
+        @NotNull
+        private final String pattern;
+        private final int start;
+        private final int end;
+
+        private Token(@NotNull TokenType type, @NotNull String pattern, int start, int end) {
+            this.type    = type;
+            this.pattern = pattern;
+            this.start   = start;
+            this.end     = end;
+        }
+
+        @NotNull
+        public TokenType getType() {
+            return this.type;
+        }
+
+        public int getStartOffset() {
+            return this.start;
+        }
+
+        public int getEndOffset() {
+            return this.end;
+        }
+
+        @NotNull
+        public String getText() {
+            return this.pattern.substring(this.start, this.end);
+        }
+
+        /* character classes only: the content without brackets and negation */
+        @NotNull
+        public String getClassContent() {
+            if (this.type != TokenType.CLASS) {
+                return "";
+            }
+            final int from = this.start + (this.end - this.start > 1 && this.pattern.charAt(this.start + 1) == '^' ? 2 : 1);
+            final int to   = this.pattern.charAt(this.end - 1) == ']' ? this.end - 1 : this.end;
+            return from < to ? this.pattern.substring(from, to) : "";
+        }
+    }
+}
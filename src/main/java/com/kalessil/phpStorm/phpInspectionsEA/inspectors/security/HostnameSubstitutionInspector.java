@@ -9,6 +9,7 @@ import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.FunctionVariablesIndex;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiEquivalenceUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
@@ -129,10 +130,10 @@ public class HostnameSubstitutionInspector extends BasePhpInspection {
                     if (scope != null) {
                         final String variableName = ((Variable) storage).getName();
                         boolean reachedExpression = false;
-                        for (final Variable candidate : PsiTreeUtil.findChildrenOfType(scope, Variable.class)) {
+                        for (final Variable candidate : FunctionVariablesIndex.of(scope).getVariables(variableName)) {
                             if (!reachedExpression) {
                                 reachedExpression = candidate == storage;
-                            } else if (candidate.getName().equals(variableName)) {
+                            } else {
                                 final PsiElement parent = candidate.getParent();
                                 if (parent instanceof ConcatenationExpression) {
                                     this.inspectConcatenationContext(substitutedExpression, (ConcatenationExpression) parent, attribute);
@@ -1,17 +1,18 @@
 package com.kalessil.phpStorm.phpInspectionsEA.inspectors.security;
 
-import com.intellij.codeInspection.LocalInspectionTool;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.*;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.Set;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -22,7 +23,7 @@ import java.util.Set;
  * file that was distributed with this source code.
  */
 
-public class PotentialMalwareInspector extends LocalInspectionTool {
+public class PotentialMalwareInspector extends BasePhpInspection {
     private static final String messageEval     = "This eval looks pretty much as some malware.";
     private static final String messageFileHide = "This looks pretty much as some malware hiding files manipulation.";
     private static final String messageDecode   = "This function looks pretty much as part of some malware.";
@@ -60,6 +61,12 @@ public class PotentialMalwareInspector extends LocalInspectionTool {
         return "Basic malware patterns";
     }
 
+    @NotNull
+    @Override
+    public Collection<String> getFunctionCallsFilter() {
+        return Arrays.asList("touch", "get_defined_functions");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -184,22 +191,17 @@ public class PotentialMalwareInspector extends LocalInspectionTool {
                 if (!(call.getFirstPsiChild() instanceof Variable)) {
                     return;
                 }
-                final Set<PsiElement> values = PossibleValuesDiscoveryUtil.discover(call.getFirstPsiChild());
-                if (! values.isEmpty()) {
-                    for (final PsiElement value : values) {
-                        if (value instanceof StringLiteralExpression) {
-                            final String name = ((StringLiteralExpression) value).getContents().toLowerCase();
-                            if (decodeSuspects.contains(name)) {
-                                holder.registerProblem(
-                                        nameNode,
-                                        MessagesPresentationUtil.prefixWithEa(messageDecode)
-                                );
-                                break;
-                            }
-                        }
-                    }
+                final boolean isDecoding = PossibleValuesDiscoveryUtil.anyMatch(
+                        call.getFirstPsiChild(),
+                        value -> value instanceof StringLiteralExpression &&
+                                 decodeSuspects.contains(((StringLiteralExpression) value).getContents().toLowerCase())
+                );
+                if (isDecoding) {
+                    holder.registerProblem(
+                            nameNode,
+                            MessagesPresentationUtil.prefixWithEa(messageDecode)
+                    );
                 }
-                values.clear();
             }
         };
     }
@@ -22,6 +22,7 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.PhpLanguageLevel;
 import com.kalessil.phpStorm.phpInspectionsEA.options.OptionsComponent;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.FunctionVariablesIndex;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.NamedElementUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiTypesUtil;
@@ -29,7 +30,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
-import java.util.List;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -90,21 +90,9 @@ public class OneTimeUseVariablesInspector extends BasePhpInspection {
                                 }
                             }
 
-                            final List<Variable> useList = ExpressionSemanticUtil.getUseListVariables(function);
-                            if (useList != null && ! useList.isEmpty()) {
-                                for (final Variable param: useList) {
-                                    if (param.getName().equals(variableName)) {
-                                        /* detect parameters by reference in use clause */
-                                        PsiElement ampersandCandidate = param.getPrevSibling();
-                                        if (ampersandCandidate instanceof PsiWhiteSpace) {
-                                            ampersandCandidate = ampersandCandidate.getPrevSibling();
-                                        }
-                                        if (OpenapiTypesUtil.is(ampersandCandidate, PhpTokenTypes.opBIT_AND)) {
-                                            return;
-                                        }
-                                    }
-                                }
-                                useList.clear();
+                            /* detect parameters by reference in use clause */
+                            if (FunctionVariablesIndex.of(function).isCapturedByReference(variableName)) {
+                                return;
                             }
                         }
 
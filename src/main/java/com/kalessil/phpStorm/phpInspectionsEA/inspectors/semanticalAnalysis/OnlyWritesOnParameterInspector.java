@@ -111,9 +111,7 @@ public class OnlyWritesOnParameterInspector extends BasePhpInspection {
                         if (isTargetContext) {
                             final Function scope = ExpressionSemanticUtil.getScope(assignment);
                             if (scope != null && Arrays.stream(scope.getParameters()).noneMatch(p -> p.getName().equals(variableName))) {
-                                final List<Variable> uses   = ExpressionSemanticUtil.getUseListVariables(scope);
-                                final boolean isUseVariable = uses != null && uses.stream().anyMatch(u -> u.getName().equals(variableName));
-                                if (!isUseVariable) {
+                                if (!FunctionVariablesIndex.of(scope).isCaptured(variableName)) {
                                     this.analyzeAndReturnUsagesCount(variableName, scope);
                                 }
                             }
@@ -48,7 +48,7 @@ public class EmptyClassInspector extends BasePhpInspection {
                         final PhpClass parent = OpenapiResolveUtil.resolveSuperClass(clazz);
                         if (parent != null) {
                             /* we can be forced to introduce an empty class: abstract parent, exception classes */
-                            final boolean skip = parent.isAbstract() || InterfacesExtractUtil.getCrawlInheritanceTree(clazz, true).stream().anyMatch(c -> c.getFQN().equals("\\Exception"));
+                            final boolean skip = parent.isAbstract() || InterfacesExtractUtil.isSubtypeOf(clazz, "\\Exception");
                             if (skip) {
                                 return;
                             }
@@ -0,0 +1,127 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.semanticalAnalysis.classes;
+
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.jetbrains.php.lang.psi.elements.Method;
+import com.jetbrains.php.lang.psi.elements.NewExpression;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.CallSitesIndexer;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.options.OptionsComponent;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.MessagesPresentationUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.NamedElementUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiResolveUtil;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+public class UnusedCodeInspector extends BasePhpInspection {
+    // Inspection options.
+    public boolean REPORT_CLASSES        = true;
+    public boolean REPORT_PUBLIC_METHODS = true;
+
+    private static final String messageClass  = "'%s' seems to be unused: the class is not referenced in the project.";
+    private static final String messageMethod = "'%s' seems to be unused: no call sites found in the project.";
+
+    @NotNull
+    @Override
+    public String getShortName() {
+        return "UnusedCodeInspection";
+    }
+
+    @NotNull
+    @Override
+    public String getDisplayName() {
+        return "Unused classes and methods";
+    }
+
+    @Override
+    @NotNull
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        return new BasePhpElementVisitor() {
+            @Override
+            public void visitPhpClass(@NotNull PhpClass clazz) {
+                /* anonymous classes are instantiated in place, files outside of the project are not indexed */
+                if (REPORT_CLASSES && !(clazz.getParent() instanceof NewExpression) && this.isIndexed() && !this.isTestContext(clazz)) {
+                    final PsiElement nameNode = NamedElementUtil.getNameIdentifier(clazz);
+                    if (nameNode != null) {
+                        final GlobalSearchScope scope = GlobalSearchScope.projectScope(holder.getProject());
+                        if (!CallSitesIndexer.hasCallSites(CallSitesIndexer.classKey(clazz.getFQN()), scope)) {
+                            holder.registerProblem(
+                                    nameNode,
+                                    String.format(MessagesPresentationUtil.prefixWithEa(messageClass), clazz.getName())
+                            );
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void visitPhpMethod(@NotNull Method method) {
+                final PhpClass clazz      = method.getContainingClass();
+                final PsiElement nameNode = NamedElementUtil.getNameIdentifier(method);
+                if (clazz == null || nameNode == null || clazz.isInterface() || method.isAbstract() || !this.isIndexed()) {
+                    return;
+                }
+                final String methodName = method.getName();
+                if (methodName.startsWith("__") || (!REPORT_PUBLIC_METHODS && method.getAccess().isPublic())) {
+                    return;
+                }
+                if (this.isTestContext(clazz) || this.isInherited(clazz, methodName)) {
+                    return;
+                }
+
+                /* private methods can only be called from the class itself, unless the class is a trait */
+                final boolean isLocal         = method.getAccess().isPrivate() && !clazz.isTrait();
+                final GlobalSearchScope scope = isLocal
+                        ? GlobalSearchScope.fileScope(holder.getFile())
+                        : GlobalSearchScope.projectScope(holder.getProject());
+                if (!CallSitesIndexer.hasCallSites(CallSitesIndexer.methodKey(methodName), scope)) {
+                    holder.registerProblem(
+                            nameNode,
+                            String.format(MessagesPresentationUtil.prefixWithEa(messageMethod), methodName)
+                    );
+                }
+            }
+
+            private boolean isIndexed() {
+                return holder.getFile().getVirtualFile() != null;
+            }
+
+            /* implementations and overrides are called through the parent contract */
+            private boolean isInherited(@NotNull PhpClass clazz, @NotNull String methodName) {
+                final Set<PhpClass> processed = new HashSet<>();
+                PhpClass parent               = OpenapiResolveUtil.resolveSuperClass(clazz);
+                while (parent != null && processed.add(parent)) {
+                    if (OpenapiResolveUtil.resolveMethod(parent, methodName) != null) {
+                        return true;
+                    }
+                    parent = OpenapiResolveUtil.resolveSuperClass(parent);
+                }
+                return OpenapiResolveUtil.resolveImplementedInterfaces(clazz).stream()
+                        .anyMatch(contract -> OpenapiResolveUtil.resolveMethod(contract, methodName) != null);
+            }
+        };
+    }
+
+    public JComponent createOptionsPanel() {
+        return OptionsComponent.create((component) -> {
+            component.addCheckbox("Report classes", REPORT_CLASSES, (isSelected) -> REPORT_CLASSES = isSelected);
+            component.addCheckbox("Report public methods", REPORT_PUBLIC_METHODS, (isSelected) -> REPORT_PUBLIC_METHODS = isSelected);
+        });
+    }
+}
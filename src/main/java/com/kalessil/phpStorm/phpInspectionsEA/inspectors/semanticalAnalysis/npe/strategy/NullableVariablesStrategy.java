@@ -2,7 +2,6 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.semanticalAnalysis.npe
 
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Condition;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.util.PsiTreeUtil;
@@ -39,18 +38,13 @@ final public class NullableVariablesStrategy {
         objectTypes.add(Types.strObject);
     }
 
-    final private static Condition<PsiElement> PARENT_FUNCTION = new Condition<PsiElement>() {
-        public boolean value(PsiElement element) { return element instanceof Function; }
-        public String toString()                 { return "Condition.PARENT_FUNCTION"; }
-    };
-
     public static void applyToLocalVariables(@NotNull Function function, @NotNull ProblemsHolder holder) {
         final GroupStatement body = ExpressionSemanticUtil.getGroupStatement(function);
         if (body != null) {
             /* group variables assignments, except parameters */
             final Set<String> parameters = Arrays.stream(function.getParameters()).map(Parameter::getName).collect(Collectors.toSet());
             final Map<String, List<AssignmentExpression>> assignments = new HashMap<>();
-            for (final Variable variable : PsiTreeUtil.findChildrenOfType(body, Variable.class)) {
+            for (final Variable variable : FunctionVariablesIndex.of(function).getVariables()) {
                 final String variableName = variable.getName();
                 final PsiElement parent   = variable.getParent();
                 if (parent instanceof AssignmentExpression && !parameters.contains(variableName)) {
@@ -162,27 +156,26 @@ final public class NullableVariablesStrategy {
         @NotNull Set<PsiElement> processed
     ) {
         /* find variable usages, control flow is not our friend here */
-        final Function function        = (Function) body.getParent();
-        final List<Variable> variables = new ArrayList<>();
-        PsiTreeUtil.findChildrenOfType(body, Variable.class).stream()
-                .filter(variable  ->
-                    variableName.equals(variable.getName()) && PsiTreeUtil.findFirstParent(variable, PARENT_FUNCTION) == function
-                )
+        final FunctionVariablesIndex index = FunctionVariablesIndex.of((Function) body.getParent());
+        final List<Variable> variables     = new ArrayList<>();
+        index.getUsages(variableName).stream()
+                .filter(FunctionVariablesIndex.Usage::isOwn)
+                .map(FunctionVariablesIndex.Usage::getVariable)
                 .forEach(variable -> {
                     final PsiElement parent = variable.getParent();
                     if (parent instanceof AssignmentExpression) {
                         final List<Variable> currentUsages    = new ArrayList<>();
                         final AssignmentExpression assignment = (AssignmentExpression) parent;
-                        PsiTreeUtil.findChildrenOfType(assignment.getValue(), Variable.class).stream()
+                        index.getVariables(assignment.getValue()).stream()
                                 .filter(v -> variableName.equals(v.getName()))
                                 .forEach(currentUsages::add);
-                        PsiTreeUtil.findChildrenOfType(assignment, Variable.class).stream()
+                        index.getVariables(assignment).stream()
                                 .filter(v -> variableName.equals(v.getName()) && !currentUsages.contains(v))
                                 .forEach(currentUsages::add);
                         variables.addAll(currentUsages);
                         currentUsages.clear();
                     } else {
-                        PsiTreeUtil.findChildrenOfType(parent, Variable.class).stream()
+                        index.getVariables(parent).stream()
                                 .filter(v -> variableName.equals(v.getName()))
                                 .forEach(variables::add);
                     }
@@ -1,6 +1,43 @@
 package com.kalessil.phpStorm.phpInspectionsEA.openApi;
 
+import com.intellij.codeInspection.LocalInspectionToolSession;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElementVisitor;
 import com.jetbrains.php.lang.inspections.PhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.baseline.Baseline;
+import com.kalessil.phpStorm.phpInspectionsEA.baseline.BaselineProblemsHolder;
+import com.kalessil.phpStorm.phpInspectionsEA.profiling.InspectionsProfiler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
 
 public abstract class BasePhpInspection extends PhpInspection {
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly, @NotNull LocalInspectionToolSession session) {
+        /* the project language level doesn't support the reported constructs: the visitor is not even built */
+        final PhpLanguageLevel minimum = this.getMinimumLanguageLevel();
+        if (minimum != null && PhpLanguageLevel.get(holder.getProject()).below(minimum)) {
+            return PsiElementVisitor.EMPTY_VISITOR;
+        }
+
+        /* the batch runner applies its own baseline (see BatchOptions), hence only the editor is using the project one */
+        final Baseline baseline         = isOnTheFly ? Baseline.forProject(holder.getProject()) : Baseline.EMPTY;
+        final ProblemsHolder target     = baseline.isEmpty() ? holder : new BaselineProblemsHolder(holder, baseline, this.getShortName());
+        final PsiElementVisitor visitor = super.buildVisitor(target, isOnTheFly, session);
+        return InspectionsProfiler.isEnabled() ? InspectionsProfiler.wrap(this.getShortName(), visitor) : visitor;
+    }
+
+    /* the lowest language level the inspection is applicable to, null stands for any level */
+    @Nullable
+    public PhpLanguageLevel getMinimumLanguageLevel() {
+        return null;
+    }
+
+    /* names of functions the visitor's visitPhpFunctionCall is reacting on, null stands for any function */
+    @Nullable
+    public Collection<String> getFunctionCallsFilter() {
+        return null;
+    }
 }
@@ -1,12 +1,9 @@
 package com.kalessil.phpStorm.phpInspectionsEA.openApi;
 
 import com.intellij.openapi.project.Project;
-import com.jetbrains.php.config.PhpProjectConfigurationFacade;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Arrays;
-
 /*
  * This file is part of the Php Inspections (EA Extended) package.
  *
@@ -31,8 +28,9 @@ public enum PhpLanguageLevel {
     @NotNull
     private final String version;
 
+    /* overrides the project level in all projects, for tests only */
     @Nullable
-    static private PhpLanguageLevel current;
+    static private PhpLanguageLevel override;
 
     PhpLanguageLevel(@NotNull String version) {
         this.version = version;
@@ -52,17 +50,12 @@ public enum PhpLanguageLevel {
     }
 
     static public void set(@Nullable PhpLanguageLevel level) {
-        current = level;
+        override = level;
     }
 
+    @NotNull
     static public PhpLanguageLevel get(@NotNull Project project) {
-        if (current == null) {
-            final String version = PhpProjectConfigurationFacade.getInstance(project).getLanguageLevel().getVersionString();
-            return Arrays.stream(values())
-                    .filter(level -> level.getVersion().equals(version))
-                    .findFirst()
-                    .orElse(PHP740);
-        }
-        return current;
+        final PhpLanguageLevel level = override;
+        return level == null ? PhpLanguageLevelService.getInstance(project).getLevel() : level;
     }
 }
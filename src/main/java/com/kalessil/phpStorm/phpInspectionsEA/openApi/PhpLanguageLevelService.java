@@ -0,0 +1,70 @@
+package com.kalessil.phpStorm.phpInspectionsEA.openApi;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.jetbrains.php.config.PhpProjectConfigurationFacade;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Per-project language level: the configured level is mapped once and re-mapped only when the project configuration
+    facade starts returning another level instance (the configuration has been changed), so lookups from visitors are
+    reduced to a reference comparison.
+ */
+final public class PhpLanguageLevelService {
+    @NotNull
+    private final Project project;
+    @Nullable
+    private volatile Snapshot snapshot;
+
+    public PhpLanguageLevelService(@NotNull Project project) {
+        this.project = project;
+    }
+
+    @NotNull
+    public static PhpLanguageLevelService getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, PhpLanguageLevelService.class);
+    }
+
+    @NotNull
+    public PhpLanguageLevel getLevel() {
+        final com.jetbrains.php.config.PhpLanguageLevel configured = PhpProjectConfigurationFacade.getInstance(this.project).getLanguageLevel();
+        Snapshot current                                          = this.snapshot;
+        if (current == null || current.configured != configured) {
+            current       = new Snapshot(configured, map(configured.getVersionString()));
+            this.snapshot = current;
+        }
+        return current.level;
+    }
+
+    @NotNull
+    static PhpLanguageLevel map(@Nullable String version) {
+        return Arrays.stream(PhpLanguageLevel.values())
+                .filter(level -> level.getVersion().equals(version))
+                .findFirst()
+                .orElse(PhpLanguageLevel.PHP740);
+    }
+
+    private static final class Snapshot {
+        @NotNull
+        private final com.jetbrains.php.config.PhpLanguageLevel configured;
+        @NotNull
+        private final PhpLanguageLevel level;
+
+        private Snapshot(@NotNull com.jetbrains.php.config.PhpLanguageLevel configured, @NotNull PhpLanguageLevel level) {
+            this.configured = configured;
+            this.level      = level;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.kalessil.phpStorm.phpInspectionsEA.profiling;
+
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.PathManager;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+public class DumpInspectionsProfileAction extends AnAction {
+    private static final String GROUP = "Php Inspections (EA Extended)";
+
+    @Override
+    public void update(AnActionEvent event) {
+        event.getPresentation().setEnabled(!InspectionsProfiler.getEntries().isEmpty());
+    }
+
+    @Override
+    public void actionPerformed(AnActionEvent event) {
+        final Path target = Paths.get(PathManager.getLogPath(), "ea-inspections-profile.json");
+        try (final Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            InspectionsProfiler.dump(out);
+            Notifications.Bus.notify(
+                    new Notification(GROUP, "Inspections profile", "Saved into " + target, NotificationType.INFORMATION),
+                    event.getProject()
+            );
+        } catch (final IOException failure) {
+            Notifications.Bus.notify(
+                    new Notification(GROUP, "Inspections profile", "Could not save: " + failure.getMessage(), NotificationType.ERROR),
+                    event.getProject()
+            );
+        }
+    }
+}
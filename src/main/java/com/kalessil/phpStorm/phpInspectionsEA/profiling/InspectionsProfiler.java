@@ -0,0 +1,198 @@
+package com.kalessil.phpStorm.phpInspectionsEA.profiling;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Opt-in (-Dea.profiling=true, the Tools menu toggle or the batch runner --profile option): when enabled, visitors built
+    by BasePhpInspection are wrapped and every dispatched element is measured. Elements are grouped by their PSI type,
+    which is what the inspection visit methods are dispatched by.
+ */
+final public class InspectionsProfiler {
+    private static volatile boolean enabled = Boolean.getBoolean("ea.profiling");
+
+    private static final Map<String, Statistics> inspections = new ConcurrentHashMap<>();
+
+    /* per-thread allocations are a HotSpot extension, otherwise not reported */
+    private static final com.sun.management.ThreadMXBean allocations;
+    static {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean candidate = null;
+        try {
+            if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+                candidate = (com.sun.management.ThreadMXBean) bean;
+                candidate.setThreadAllocatedMemoryEnabled(true);
+            }
+        } catch (final UnsupportedOperationException | SecurityException unsupported) {
+            candidate = null;
+        }
+        allocations = candidate;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static void reset() {
+        inspections.clear();
+    }
+
+    @NotNull
+    public static PsiElementVisitor wrap(@NotNull String inspection, @NotNull PsiElementVisitor visitor) {
+        if (visitor == PsiElementVisitor.EMPTY_VISITOR || visitor instanceof ProfilingVisitor) {
+            return visitor;
+        }
+        return new ProfilingVisitor(inspections.computeIfAbsent(inspection, name -> new Statistics()), visitor);
+    }
+
+    @NotNull
+    public static List<Entry> getEntries() {
+        final List<Entry> result = new ArrayList<>();
+        inspections.forEach((name, statistics) -> result.add(new Entry(name, statistics)));
+        result.sort(Comparator.comparingLong(Entry::getNanos).reversed());
+        return result;
+    }
+
+    /* the slowest inspections first, visit targets are sorted the same way */
+    public static void dump(@NotNull Writer out) throws IOException {
+        out.write("[\n");
+        boolean first = true;
+        for (final Entry entry : getEntries()) {
+            out.write(first ? "  " : ",\n  ");
+            out.write(entry.toJson(true));
+            first = false;
+        }
+        out.write("\n]\n");
+        out.flush();
+    }
+
+    private static long getAllocatedBytes() {
+        return allocations == null ? 0 : allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static final class Statistics {
+        private final LongAdder count                 = new LongAdder();
+        private final LongAdder nanos                 = new LongAdder();
+        private final LongAdder bytes                 = new LongAdder();
+        private final Map<String, Statistics> targets = new ConcurrentHashMap<>();
+
+        private void register(long nanos, long bytes) {
+            this.count.increment();
+            this.nanos.add(nanos);
+            this.bytes.add(bytes);
+        }
+    }
+
+    private static final class ProfilingVisitor extends PsiElementVisitor {
+        @NotNull
+        private final Statistics statistics;
+        @NotNull
+        private final PsiElementVisitor delegate;
+
+        private ProfilingVisitor(@NotNull Statistics statistics, @NotNull PsiElementVisitor delegate) {
+            this.statistics = statistics;
+            this.delegate   = delegate;
+        }
+
+        @Override
+        public void visitElement(PsiElement element) {
+            final long bytesBefore = getAllocatedBytes();
+            final long start       = System.nanoTime();
+            try {
+                element.accept(this.delegate);
+            } finally {
+                final long nanos = System.nanoTime() - start;
+                final long bytes = getAllocatedBytes() - bytesBefore;
+                this.statistics.register(nanos, bytes);
+                this.statistics.targets.computeIfAbsent(getTarget(element), target -> new Statistics()).register(nanos, bytes);
+            }
+        }
+
+        @NotNull
+        private static String getTarget(@NotNull PsiElement element) {
+            final String name = element.getClass().getSimpleName();
+            return name.endsWith("Impl") ? name.substring(0, name.length() - 4) : name;
+        }
+    }
+
+    final public static class Entry {
+        @NotNull
+        private final String name;
+        private final long count;
+        private final long nanos;
+        private final long bytes;
+        @NotNull
+        private final List<Entry> targets = new ArrayList<>();
+
+        private Entry(@NotNull String name, @NotNull Statistics statistics) {
+            this.name  = name;
+            this.count = statistics.count.sum();
+            this.nanos = statistics.nanos.sum();
+            this.bytes = statistics.bytes.sum();
+            statistics.targets.forEach((target, targetStatistics) -> this.targets.add(new Entry(target, targetStatistics)));
+            this.targets.sort(Comparator.comparingLong(Entry::getNanos).reversed());
+        }
+
+        @NotNull
+        public String getName() {
+            return this.name;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /* 0 when per-thread allocations are not supported by the JVM */
+        public long getBytes() {
+            return this.bytes;
+        }
+
+        @NotNull
+        public List<Entry> getTargets() {
+            return Collections.unmodifiableList(this.targets);
+        }
+
+        @NotNull
+        private String toJson(boolean withTargets) {
+            final StringBuilder json = new StringBuilder()
+                    .append("{\"name\":\"").append(this.name).append('"')
+                    .append(",\"count\":").append(this.count)
+                    .append(",\"nanos\":").append(this.nanos)
+                    .append(",\"bytes\":").append(this.bytes);
+            if (withTargets) {
+                json.append(",\"targets\":[");
+                for (int index = 0; index < this.targets.size(); ++index) {
+                    json.append(index == 0 ? "" : ",").append(this.targets.get(index).toJson(false));
+                }
+                json.append(']');
+            }
+            return json.append('}').toString();
+        }
+    }
+}
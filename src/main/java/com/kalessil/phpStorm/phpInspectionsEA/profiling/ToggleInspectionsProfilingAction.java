@@ -0,0 +1,36 @@
+package com.kalessil.phpStorm.phpInspectionsEA.profiling;
+
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.ToggleAction;
+import com.intellij.openapi.project.Project;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+public class ToggleInspectionsProfilingAction extends ToggleAction {
+    @Override
+    public boolean isSelected(AnActionEvent event) {
+        return InspectionsProfiler.isEnabled();
+    }
+
+    @Override
+    public void setSelected(AnActionEvent event, boolean state) {
+        if (state) {
+            InspectionsProfiler.reset();
+        }
+        InspectionsProfiler.setEnabled(state);
+
+        /* visitors are wrapped when built, hence re-highlighting to get them measured */
+        final Project project = event.getProject();
+        if (project != null) {
+            DaemonCodeAnalyzer.getInstance(project).restart();
+        }
+    }
+}
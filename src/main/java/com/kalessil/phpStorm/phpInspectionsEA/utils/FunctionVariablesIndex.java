@@ -0,0 +1,237 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.psi.elements.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* variables used in a function body, collected once per function and shared by inspections until PSI modified */
+final public class FunctionVariablesIndex {
+    private static final Key<CachedValue<FunctionVariablesIndex>> indexKey = Key.create("kalessil.phpStorm.phpInspectionsEA.function_variables");
+
+    @NotNull
+    private final Function function;
+    @Nullable
+    private final GroupStatement body;
+    /* body variables in document order, as PsiTreeUtil.findChildrenOfType(body, Variable.class) returns them */
+    @NotNull
+    private final List<Usage> usages;
+    @NotNull
+    private final int[] offsets;
+    @NotNull
+    private final Map<String, List<Usage>> byName;
+    /* the function own `use (...)` list */
+    @NotNull
+    private final List<Usage> captures;
+
+    private FunctionVariablesIndex(@NotNull Function function) {
+        this.function = function;
+        this.body     = ExpressionSemanticUtil.getGroupStatement(function);
+        this.usages   = new ArrayList<>();
+        this.byName   = new HashMap<>();
+
+        if (this.body != null) {
+            for (final Variable variable : PsiTreeUtil.findChildrenOfType(this.body, Variable.class)) {
+                final Usage usage = new Usage(variable, getKind(variable), isByReference(variable), this.isOwn(variable));
+                this.usages.add(usage);
+                this.byName.computeIfAbsent(variable.getName(), name -> new ArrayList<>()).add(usage);
+            }
+        }
+        this.offsets = this.usages.stream().mapToInt(usage -> usage.offset).toArray();
+
+        final List<Variable> uses = ExpressionSemanticUtil.getUseListVariables(function);
+        this.captures = uses == null
+                ? Collections.emptyList()
+                : uses.stream().map(use -> new Usage(use, Kind.CAPTURE, isByReference(use), true)).collect(Collectors.toList());
+    }
+
+    @NotNull
+    static public FunctionVariablesIndex of(@NotNull Function function) {
+        final PsiFile file = function.getContainingFile();
+        /* elements created by PSI factory (QF-ing) are not tracked by the modification counter */
+        if (file == null || !file.isPhysical()) {
+            return new FunctionVariablesIndex(function);
+        }
+        return CachedValuesManager.getCachedValue(
+                function,
+                indexKey,
+                () -> CachedValueProvider.Result.create(new FunctionVariablesIndex(function), PsiModificationTracker.MODIFICATION_COUNT)
+        );
+    }
+
+    @NotNull
+    public Function getFunction() {
+        return this.function;
+    }
+
+    @NotNull
+    public List<Usage> getUsages() {
+        return Collections.unmodifiableList(this.usages);
+    }
+
+    @NotNull
+    public List<Usage> getUsages(@NotNull String name) {
+        final List<Usage> result = this.byName.get(name);
+        return result == null ? Collections.emptyList() : Collections.unmodifiableList(result);
+    }
+
+    @NotNull
+    public List<Usage> getCaptures() {
+        return Collections.unmodifiableList(this.captures);
+    }
+
+    @NotNull
+    public List<Variable> getVariables() {
+        return this.usages.stream().map(usage -> usage.variable).collect(Collectors.toList());
+    }
+
+    @NotNull
+    public List<Variable> getVariables(@NotNull String name) {
+        return this.getUsages(name).stream().map(usage -> usage.variable).collect(Collectors.toList());
+    }
+
+    /* same as PsiTreeUtil.findChildrenOfType(element, Variable.class), but served from the index for body sub-trees */
+    @NotNull
+    public List<Variable> getVariables(@Nullable PsiElement element) {
+        if (element == null) {
+            return new ArrayList<>();
+        }
+        if (this.body == null || !PsiTreeUtil.isAncestor(this.body, element, false)) {
+            return new ArrayList<>(PsiTreeUtil.findChildrenOfType(element, Variable.class));
+        }
+
+        final List<Variable> result = new ArrayList<>();
+        final TextRange range       = element.getTextRange();
+        for (int index = this.lowerBound(range.getStartOffset()); index < this.offsets.length; ++index) {
+            if (this.offsets[index] >= range.getEndOffset()) {
+                break;
+            }
+            final Variable variable = this.usages.get(index).variable;
+            if (variable != element && variable.getTextRange().getEndOffset() <= range.getEndOffset()) {
+                result.add(variable);
+            }
+        }
+        return result;
+    }
+
+    public boolean isCaptured(@NotNull String name) {
+        return this.captures.stream().anyMatch(capture -> capture.variable.getName().equals(name));
+    }
+
+    public boolean isCapturedByReference(@NotNull String name) {
+        return this.captures.stream().anyMatch(capture -> capture.byReference && capture.variable.getName().equals(name));
+    }
+
+    private int lowerBound(int offset) {
+        int from = 0;
+        int to   = this.offsets.length;
+        while (from < to) {
+            final int middle = (from + to) >>> 1;
+            if (this.offsets[middle] < offset) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    private boolean isOwn(@NotNull Variable variable) {
+        return PsiTreeUtil.getParentOfType(variable, Function.class) == this.function;
+    }
+
+    @NotNull
+    private static Kind getKind(@NotNull Variable variable) {
+        final PsiElement parent = variable.getParent();
+        if (parent instanceof PhpUseList) {
+            return Kind.CAPTURE;
+        } else if (isByReference(variable)) {
+            return Kind.REFERENCE;
+        } else if (parent instanceof AssignmentExpression && ((AssignmentExpression) parent).getVariable() == variable) {
+            return Kind.WRITE;
+        } else if (parent instanceof ForeachStatement && ((ForeachStatement) parent).getArray() != variable) {
+            return Kind.WRITE;
+        }
+        return Kind.READ;
+    }
+
+    private static boolean isByReference(@NotNull Variable variable) {
+        PsiElement previous = variable.getPrevSibling();
+        if (previous instanceof PsiWhiteSpace) {
+            previous = previous.getPrevSibling();
+        }
+        return OpenapiTypesUtil.is(previous, PhpTokenTypes.opBIT_AND);
+    }
+
+    public enum Kind {
+        READ,
+        WRITE,
+        /* `&$variable`: in assignments, foreach and use-lists */
+        REFERENCE,
+        /* `use ($variable)` of closures nested into the function */
+        CAPTURE
+    }
+
+    final public static class Usage {
+        @NotNull
+        private final Variable variable;
+        @NotNull
+        private final Kind kind;
+        private final boolean byReference;
+        private final boolean own;
+        private final int offset;
+
+        private Usage(@NotNull Variable variable, @NotNull Kind kind, boolean byReference, boolean own) {
+            this.variable    = variable;
+            this.kind        = kind;
+            this.byReference = byReference;
+            this.own         = own;
+            this.offset      = variable.getTextRange().getStartOffset();
+        }
+
+        @NotNull
+        public Variable getVariable() {
+            return this.variable;
+        }
+
+        @NotNull
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        public boolean isByReference() {
+            return this.byReference;
+        }
+
+        /* false for variables located in nested closures (including their use-lists) */
+        public boolean isOwn() {
+            return this.own;
+        }
+
+        public int getOffset() {
+            return this.offset;
+        }
+    }
+}
@@ -2,10 +2,18 @@ package com.kalessil.phpStorm.phpInspectionsEA.utils;
 
 import com.intellij.codeInsight.PsiEquivalenceUtil;
 import com.intellij.openapi.progress.ProcessCanceledException;
-import com.intellij.psi.PsiElement;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.*;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.jetbrains.php.lang.psi.elements.Variable;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /*
  * This file is part of the Php Inspections (EA Extended) package.
  *
@@ -16,6 +24,8 @@ import org.jetbrains.annotations.NotNull;
  */
 
 final public class OpenapiEquivalenceUtil {
+    private static final Key<CachedValue<Map<PsiElement, Integer>>> fingerprintsKey = Key.create("kalessil.phpStorm.phpInspectionsEA.fingerprints");
+
     public static boolean areEqual(@NotNull PsiElement first, @NotNull PsiElement second) {
         boolean result = false;
         try {
@@ -29,7 +39,8 @@ final public class OpenapiEquivalenceUtil {
                     } else {
                         result = PsiEquivalenceUtil.areElementsEquivalent(first, second);
                     }
-                } else {
+                } else if (getFingerprint(first) == getFingerprint(second)) {
+                    /* fingerprints are matching: can be a hash collision, hence the full check */
                     result = PsiEquivalenceUtil.areElementsEquivalent(first, second) ||
                              first.getText().equals(second.getText());
                 }
@@ -42,4 +53,54 @@ final public class OpenapiEquivalenceUtil {
         }
         return result;
     }
+
+    /*
+        Structural hash ignoring whitespaces, comments and '{$variable}' wrappers: equal elements have
+        equal fingerprints, so different fingerprints are enough to reject the equivalence.
+    */
+    public static int getFingerprint(@NotNull PsiElement element) {
+        final PsiFile file = element.getContainingFile();
+        /* elements created by PSI factory (QF-ing) are not tracked by the modification counter */
+        if (file == null || !file.isPhysical()) {
+            return computeFingerprint(element);
+        }
+
+        final Map<PsiElement, Integer> cache = CachedValuesManager.getCachedValue(
+                file,
+                fingerprintsKey,
+                () -> CachedValueProvider.Result.create(new ConcurrentHashMap<PsiElement, Integer>(), PsiModificationTracker.MODIFICATION_COUNT)
+        );
+        return cache.computeIfAbsent(element, OpenapiEquivalenceUtil::computeFingerprint);
+    }
+
+    private static int computeFingerprint(@NotNull PsiElement element) {
+        if (element instanceof Variable) {
+            final String name = ((Variable) element).getName();
+            if (!name.isEmpty()) {
+                return 31 + hashIgnoringCase(name);
+            }
+        }
+
+        PsiElement child = element.getFirstChild();
+        if (child == null) {
+            /* case-insensitive to stay on the safe side: it only adds collisions */
+            return hashIgnoringCase(element.getText());
+        }
+        int result = 1;
+        while (child != null) {
+            if (!(child instanceof PsiWhiteSpace) && !(child instanceof PsiComment) && !(child instanceof PsiErrorElement) && child.getTextLength() > 0) {
+                result = 31 * result + computeFingerprint(child);
+            }
+            child = child.getNextSibling();
+        }
+        return result;
+    }
+
+    private static int hashIgnoringCase(@NotNull CharSequence text) {
+        int result = 0;
+        for (int index = 0, length = text.length(); index < length; ++index) {
+            result = 31 * result + Character.toLowerCase(text.charAt(index));
+        }
+        return result;
+    }
 }
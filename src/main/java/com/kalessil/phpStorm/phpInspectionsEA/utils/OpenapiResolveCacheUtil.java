@@ -0,0 +1,94 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.jetbrains.php.lang.psi.resolve.types.PhpType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/* memoizes resolve/type results per file, the cache is dropped on any PSI modification */
+final public class OpenapiResolveCacheUtil {
+    private static final Key<CachedValue<Map<PsiElement, Object>>> referencesKey = Key.create("kalessil.phpStorm.phpInspectionsEA.resolved_references");
+    private static final Key<CachedValue<Map<PsiElement, Object>>> typesKey      = Key.create("kalessil.phpStorm.phpInspectionsEA.resolved_types");
+
+    /* ConcurrentHashMap doesn't accept null values, hence the marker */
+    private static final Object nothing = new Object();
+
+    private static final AtomicLong hits   = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    @Nullable
+    static PsiElement getReference(@NotNull PsiElement reference, @NotNull Supplier<PsiElement> resolver) {
+        return (PsiElement) get(referencesKey, reference, resolver);
+    }
+
+    @Nullable
+    static PhpType getType(@NotNull PsiElement expression, @NotNull Supplier<PhpType> resolver) {
+        return (PhpType) get(typesKey, expression, resolver);
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    @Nullable
+    private static Object get(@NotNull Key<CachedValue<Map<PsiElement, Object>>> key, @NotNull PsiElement element, @NotNull Supplier<?> resolver) {
+        final Map<PsiElement, Object> cache = getCache(key, element);
+        if (cache == null) {
+            return resolver.get();
+        }
+
+        /* no computeIfAbsent here: type resolving is recursive and would modify the map from inside the computation */
+        final Object cached = cache.get(element);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached == nothing ? null : cached;
+        }
+        misses.incrementAndGet();
+        final Object result = resolver.get();
+        cache.put(element, result == null ? nothing : result);
+        return result;
+    }
+
+    @Nullable
+    private static Map<PsiElement, Object> getCache(@NotNull Key<CachedValue<Map<PsiElement, Object>>> key, @NotNull PsiElement element) {
+        final PsiFile file = element.getContainingFile();
+        /* elements created by PSI factory (QF-ing) are not tracked by the modification counter */
+        if (file == null || !file.isPhysical()) {
+            return null;
+        }
+        return CachedValuesManager.getCachedValue(
+                file,
+                key,
+                () -> CachedValueProvider.Result.create(new ConcurrentHashMap<PsiElement, Object>(), PsiModificationTracker.MODIFICATION_COUNT)
+        );
+    }
+}
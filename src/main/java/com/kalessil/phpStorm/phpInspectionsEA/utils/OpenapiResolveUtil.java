@@ -52,6 +52,11 @@ final public class OpenapiResolveUtil {
 
     @Nullable
     static public PsiElement resolveReference(@NotNull MethodReference reference) {
+        return OpenapiResolveCacheUtil.getReference(reference, () -> doResolveReference(reference));
+    }
+
+    @Nullable
+    static private PsiElement doResolveReference(@NotNull MethodReference reference) {
         PsiElement result = null;
         try {
             final ResolveResult[] resolved = reference.multiResolve(false);
@@ -118,6 +123,13 @@ final public class OpenapiResolveUtil {
 
     @Nullable
     static public PhpType resolveType(@NotNull PhpTypedElement expression, @NotNull Project project) {
+        return expression instanceof PsiElement
+                ? OpenapiResolveCacheUtil.getType((PsiElement) expression, () -> doResolveType(expression, project))
+                : doResolveType(expression, project);
+    }
+
+    @Nullable
+    static private PhpType doResolveType(@NotNull PhpTypedElement expression, @NotNull Project project) {
         PhpType result = null;
         try {
             if (expression instanceof FunctionReference) {
@@ -132,7 +144,8 @@ final public class OpenapiResolveUtil {
                     final String name = reference.getName();
                     /* override signatures if we specified custom signatures */
                     if (name != null && functionReturnTypes.containsKey(name)) {
-                        result = functionReturnTypes.get(name);
+                        /* copy: the result gets narrowed below and cached afterwards */
+                        result = new PhpType().add(functionReturnTypes.get(name));
                     }
                     /* some of replacement function result can be narrowed from arguments type */
                     if (name != null && functionToNarrow.containsKey(name)) {
@@ -1,15 +1,26 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils;
 
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.elements.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /*
@@ -22,185 +33,243 @@ import java.util.stream.Stream;
  */
 
 public class PossibleValuesDiscoveryUtil {
+    private static final Key<CachedValue<Map<PsiElement, Set<PsiElement>>>> discoveredKey = Key.create("kalessil.phpStorm.phpInspectionsEA.discovered_values");
+
+    /* budget: how deep the values are followed and how many values are collected */
+    public static final int DEFAULT_DEPTH  = 32;
+    public static final int DEFAULT_VALUES = 256;
+
     @NotNull
     static public Set<PsiElement> discover(@NotNull PsiElement expression) {
-        final Set<PsiElement> processed      = new HashSet<>();
-        final Set<PsiElement> result         = discover(expression, processed);
-        final Set<PsiElement> filteredResult = result.stream().filter(Objects::nonNull).collect(Collectors.toSet());
-        processed.clear();
-        result.clear();
-        return filteredResult;
+        final Map<PsiElement, Set<PsiElement>> cache = getCache(expression);
+        if (cache == null) {
+            return discover(expression, DEFAULT_DEPTH, DEFAULT_VALUES);
+        }
+
+        Set<PsiElement> result = cache.get(expression);
+        if (result == null) {
+            result = discover(expression, DEFAULT_DEPTH, DEFAULT_VALUES);
+            cache.put(expression, result);
+        }
+        /* callers are free to modify the result */
+        return new HashSet<>(result);
     }
 
     @NotNull
-    static private Set<PsiElement> discover(@NotNull PsiElement expression, @NotNull Set<PsiElement> processed) {
-        /* un-wrap parentheses to avoid false-positives */
-        expression = ExpressionSemanticUtil.getExpressionTroughParenthesis(expression);
-
-        /* do not process same expressions multiple times */
-        Set<PsiElement> result = new HashSet<>();
-        if (processed.contains(expression)) {
-            return result;
-        }
-        processed.add(expression);
+    static public Set<PsiElement> discover(@NotNull PsiElement expression, int maxDepth, int maxValues) {
+        final Set<PsiElement> result = new HashSet<>();
+        new Discovery(maxDepth, maxValues, result::add).discover(expression, 0);
+        return result;
+    }
 
-        /* Case 1: ternary operator, recursively check variants */
-        if (expression instanceof TernaryExpression) {
-            handleTernary((TernaryExpression) expression, result, processed);
-            return result;
+    /* stops the discovery as soon as a matching value found */
+    static public boolean anyMatch(@NotNull PsiElement expression, @NotNull Predicate<PsiElement> predicate) {
+        final Map<PsiElement, Set<PsiElement>> cache = getCache(expression);
+        final Set<PsiElement> cached                 = cache == null ? null : cache.get(expression);
+        if (cached != null) {
+            return cached.stream().anyMatch(predicate);
         }
 
-        /* Case 2: null coalescing operator, recursively check variants */
-        if (expression instanceof BinaryExpression) {
-            final BinaryExpression binary = (BinaryExpression) expression;
-            if (binary.getOperationType() == PhpTokenTypes.opCOALESCE) {
-                handleNullCoalesce(binary, result, processed);
-                return result;
-            }
-        }
+        final boolean[] matched = {false};
+        new Discovery(DEFAULT_DEPTH, DEFAULT_VALUES, value -> !(matched[0] = predicate.test(value))).discover(expression, 0);
+        return matched[0];
+    }
 
-        /* Case 3: parameter defaults, assignments */
-        if (expression instanceof Variable) {
-            handleVariable((Variable) expression, result, processed);
-            return result;
+    @Nullable
+    static private Map<PsiElement, Set<PsiElement>> getCache(@NotNull PsiElement expression) {
+        final PsiFile file = expression.getContainingFile();
+        /* elements created by PSI factory (QF-ing) are not tracked by the modification counter */
+        if (file == null || !file.isPhysical()) {
+            return null;
         }
+        return CachedValuesManager.getCachedValue(
+                file,
+                discoveredKey,
+                () -> CachedValueProvider.Result.create(new ConcurrentHashMap<PsiElement, Set<PsiElement>>(), PsiModificationTracker.MODIFICATION_COUNT)
+        );
+    }
 
-        /* Case 4: default value discovery */
-        if (expression instanceof FieldReference) {
-            handleClassFieldReference((FieldReference) expression, result, processed);
-            return result;
-        }
+    /* a single discovery session: values are pushed into the consumer, which returns false to stop the discovery */
+    static private final class Discovery {
+        private final int maxDepth;
+        private final int maxValues;
+        @NotNull
+        private final Predicate<PsiElement> consumer;
+        private final Set<PsiElement> processed = new HashSet<>();
+        private final Set<PsiElement> values    = new HashSet<>();
+        private boolean stopped                 = false;
 
-        /* Case 5: class constants value discovery */
-        if (expression instanceof ClassConstantReference) {
-            handleClassConstantReference((ClassConstantReference) expression, result, processed);
-            return result;
+        private Discovery(int maxDepth, int maxValues, @NotNull Predicate<PsiElement> consumer) {
+            this.maxDepth  = maxDepth;
+            this.maxValues = maxValues;
+            this.consumer  = consumer;
         }
 
-        /* Case 6: constants value discovery */
-        if (expression instanceof ConstantReference) {
-            final boolean shouldResolve = !PhpLanguageUtil.isBoolean(expression) && !PhpLanguageUtil.isNull(expression);
-            if (shouldResolve) {
-                handleConstantReference((ConstantReference) expression, result);
-                return result;
+        private void emit(@Nullable PsiElement value) {
+            if (value != null && !this.stopped && this.values.add(value)) {
+                this.stopped = !this.consumer.test(value) || this.values.size() >= this.maxValues;
             }
         }
 
-        /* default case: add expression itself */
-        result.add(expression);
-        return result;
-    }
+        private void discover(@NotNull PsiElement expression, int depth) {
+            if (this.stopped) {
+                return;
+            }
+            ProgressManager.checkCanceled();
+
+            /* un-wrap parentheses to avoid false-positives */
+            expression = ExpressionSemanticUtil.getExpressionTroughParenthesis(expression);
+
+            /* do not process same expressions multiple times */
+            if (!this.processed.add(expression)) {
+                return;
+            }
+
+            /* the budget is exhausted: the expression is the value, so callers can not miss it */
+            if (depth >= this.maxDepth) {
+                this.emit(expression);
+                return;
+            }
+
+            /* Case 1: ternary operator, recursively check variants */
+            if (expression instanceof TernaryExpression) {
+                this.handleTernary((TernaryExpression) expression, depth + 1);
+                return;
+            }
+
+            /* Case 2: null coalescing operator, recursively check variants */
+            if (expression instanceof BinaryExpression) {
+                final BinaryExpression binary = (BinaryExpression) expression;
+                if (binary.getOperationType() == PhpTokenTypes.opCOALESCE) {
+                    this.handleNullCoalesce(binary, depth + 1);
+                    return;
+                }
+            }
+
+            /* Case 3: parameter defaults, assignments */
+            if (expression instanceof Variable) {
+                this.handleVariable((Variable) expression, depth + 1);
+                return;
+            }
+
+            /* Case 4: default value discovery */
+            if (expression instanceof FieldReference) {
+                this.handleClassFieldReference((FieldReference) expression, depth + 1);
+                return;
+            }
+
+            /* Case 5: class constants value discovery */
+            if (expression instanceof ClassConstantReference) {
+                this.handleClassConstantReference((ClassConstantReference) expression, depth + 1);
+                return;
+            }
+
+            /* Case 6: constants value discovery */
+            if (expression instanceof ConstantReference) {
+                final boolean shouldResolve = !PhpLanguageUtil.isBoolean(expression) && !PhpLanguageUtil.isNull(expression);
+                if (shouldResolve) {
+                    this.handleConstantReference((ConstantReference) expression);
+                    return;
+                }
+            }
+
+            /* default case: add expression itself */
+            this.emit(expression);
+        }
 
-    static private void handleVariable(
-            @NotNull Variable variable,
-            @NotNull Set<PsiElement> result,
-            @NotNull Set<PsiElement> processed
-    ) {
-        final String variableName = variable.getName();
-        final Function callable   = variableName.isEmpty() ? null : ExpressionSemanticUtil.getScope(variable);
-        if (callable != null) {
-            for (final Parameter parameter : callable.getParameters()) {
-                if (parameter.getName().equals(variableName)) {
-                    final PsiElement defaultValue = parameter.getDefaultValue();
-                    if (defaultValue != null) {
-                        result.addAll(discover(defaultValue, processed));
+        private void handleVariable(@NotNull Variable variable, int depth) {
+            final String variableName = variable.getName();
+            final Function callable   = variableName.isEmpty() ? null : ExpressionSemanticUtil.getScope(variable);
+            if (callable != null) {
+                for (final Parameter parameter : callable.getParameters()) {
+                    if (parameter.getName().equals(variableName)) {
+                        final PsiElement defaultValue = parameter.getDefaultValue();
+                        if (defaultValue != null) {
+                            this.discover(defaultValue, depth);
+                        }
+                        break;
                     }
-                    break;
                 }
+                this.handleAssignmentsInScope(callable, variable, depth);
             }
-            handleAssignmentsInScope(callable, variable, result, processed);
         }
-    }
 
-    static private void handleConstantReference(
-            @NotNull ConstantReference reference,
-            @NotNull Set<PsiElement> result
-    ) {
-        final String name       = reference.getName();
-        final PsiElement define = (name == null || name.isEmpty()) ? null : OpenapiResolveUtil.resolveReference(reference);
-        if (define instanceof PhpDefine) {
-            result.add(((PhpDefine) define).getValue());
+        private void handleConstantReference(@NotNull ConstantReference reference) {
+            final String name       = reference.getName();
+            final PsiElement define = (name == null || name.isEmpty()) ? null : resolve(reference);
+            if (define instanceof PhpDefine) {
+                this.emit(((PhpDefine) define).getValue());
+            }
         }
-    }
 
-    static private void handleClassConstantReference(
-            @NotNull ClassConstantReference reference,
-            @NotNull Set<PsiElement> result,
-            @NotNull Set<PsiElement> processed
-    ) {
-        final String name      = reference.getName();
-        final PsiElement field = (name == null || name.isEmpty()) ? null : OpenapiResolveUtil.resolveReference(reference);
-        if (field instanceof Field) {
-            final PsiElement defaultValue = OpenapiResolveUtil.resolveDefaultValue((Field) field);
-            if (defaultValue != null) {
-                result.addAll(discover(defaultValue, processed));
+        private void handleClassConstantReference(@NotNull ClassConstantReference reference, int depth) {
+            final String name      = reference.getName();
+            final PsiElement field = (name == null || name.isEmpty()) ? null : resolve(reference);
+            if (field instanceof Field) {
+                final PsiElement defaultValue = OpenapiResolveUtil.resolveDefaultValue((Field) field);
+                if (defaultValue != null) {
+                    this.discover(defaultValue, depth);
+                }
             }
         }
-    }
 
-    static private void handleClassFieldReference(
-            @NotNull FieldReference reference,
-            @NotNull Set<PsiElement> result,
-            @NotNull Set<PsiElement> processed
-    ) {
-        final String name      = reference.getName();
-        final PsiElement field = (name == null || name.isEmpty()) ? null : OpenapiResolveUtil.resolveReference(reference);
-        if (field instanceof Field) {
-            /* TODO: properties without defaults returning variable as default are difficult to identify */
-            final PsiElement defaultValue = OpenapiResolveUtil.resolveDefaultValue((Field) field);
-            if (defaultValue != null && !defaultValue.getText().endsWith(name)) {
-                result.addAll(discover(defaultValue, processed));
+        private void handleClassFieldReference(@NotNull FieldReference reference, int depth) {
+            final String name      = reference.getName();
+            final PsiElement field = (name == null || name.isEmpty()) ? null : resolve(reference);
+            if (field instanceof Field) {
+                /* TODO: properties without defaults returning variable as default are difficult to identify */
+                final PsiElement defaultValue = OpenapiResolveUtil.resolveDefaultValue((Field) field);
+                if (defaultValue != null && !defaultValue.getText().endsWith(name)) {
+                    this.discover(defaultValue, depth);
+                }
             }
+            final PhpClass clazz       = field instanceof Field ? ((Field) field).getContainingClass() : null;
+            final Function constructor = clazz == null ? null : clazz.getConstructor();
+            final Function callable    = ExpressionSemanticUtil.getScope(reference);
+            Stream.of(callable, constructor)
+                    .filter(Objects::nonNull)
+                    .forEach(method -> this.handleAssignmentsInScope(method, reference, depth));
         }
-        final PhpClass clazz       = field instanceof Field ? ((Field) field).getContainingClass() : null;
-        final Function constructor = clazz == null ? null : clazz.getConstructor();
-        final Function callable    = ExpressionSemanticUtil.getScope(reference);
-        Stream.of(callable, constructor)
-                .filter(Objects::nonNull)
-                .forEach(method -> handleAssignmentsInScope(method, reference, result, processed));
-    }
 
-    static private void handleTernary(
-            @NotNull TernaryExpression ternary,
-            @NotNull Set<PsiElement> result,
-            @NotNull Set<PsiElement> processed
-    ) {
-        Stream.of(ternary.getTrueVariant(), ternary.getFalseVariant())
-                .filter(Objects::nonNull)
-                .forEach(variant -> result.addAll(discover(variant, processed)));
-    }
+        private void handleTernary(@NotNull TernaryExpression ternary, int depth) {
+            Stream.of(ternary.getTrueVariant(), ternary.getFalseVariant())
+                    .filter(Objects::nonNull)
+                    .forEach(variant -> this.discover(variant, depth));
+        }
 
-    static private void handleNullCoalesce(
-            @NotNull BinaryExpression binary,
-            @NotNull Set<PsiElement> result,
-            @NotNull Set<PsiElement> processed
-    ) {
-        Stream.of(binary.getLeftOperand(), binary.getRightOperand())
-                .filter(Objects::nonNull)
-                .forEach(variant -> result.addAll(discover(variant, processed)));
-    }
+        private void handleNullCoalesce(@NotNull BinaryExpression binary, int depth) {
+            Stream.of(binary.getLeftOperand(), binary.getRightOperand())
+                    .filter(Objects::nonNull)
+                    .forEach(variant -> this.discover(variant, depth));
+        }
 
-    static private void handleAssignmentsInScope(
-            @NotNull Function callable,
-            @NotNull PsiElement target,
-            @NotNull Set<PsiElement> result,
-            @NotNull Set<PsiElement> processed
-    ) {
-        final GroupStatement body = ExpressionSemanticUtil.getGroupStatement(callable);
-        for (final AssignmentExpression expression : PsiTreeUtil.findChildrenOfType(body, AssignmentExpression.class)) {
-            if (OpenapiTypesUtil.isAssignment(expression)) {
-                final PsiElement container = expression.getVariable();
-                if (container != null && OpenapiEquivalenceUtil.areEqual(container, target)) {
-                    /* handle multiple assignments */
-                    PsiElement storedValue = expression.getValue();
-                    while (storedValue != null && OpenapiTypesUtil.isAssignment(storedValue)) {
-                        storedValue = ((AssignmentExpression) storedValue).getValue();
-                    }
-                    if (storedValue != null) {
-                        result.addAll(discover(storedValue, processed));
+        private void handleAssignmentsInScope(@NotNull Function callable, @NotNull PsiElement target, int depth) {
+            final GroupStatement body = ExpressionSemanticUtil.getGroupStatement(callable);
+            for (final AssignmentExpression expression : PsiTreeUtil.findChildrenOfType(body, AssignmentExpression.class)) {
+                if (this.stopped) {
+                    break;
+                }
+                ProgressManager.checkCanceled();
+                if (OpenapiTypesUtil.isAssignment(expression)) {
+                    final PsiElement container = expression.getVariable();
+                    if (container != null && OpenapiEquivalenceUtil.areEqual(container, target)) {
+                        /* handle multiple assignments */
+                        PsiElement storedValue = expression.getValue();
+                        while (storedValue != null && OpenapiTypesUtil.isAssignment(storedValue)) {
+                            storedValue = ((AssignmentExpression) storedValue).getValue();
+                        }
+                        if (storedValue != null) {
+                            this.discover(storedValue, depth);
+                        }
                     }
                 }
             }
         }
+
+        /* fields and constants are referenced repeatedly, hence resolving through the per-file cache */
+        @Nullable
+        private static PsiElement resolve(@NotNull PsiReference reference) {
+            return OpenapiResolveCacheUtil.getReference(reference.getElement(), () -> OpenapiResolveUtil.resolveReference(reference));
+        }
     }
 }
@@ -0,0 +1,153 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils;
+
+import com.intellij.psi.PsiElement;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.jetbrains.php.lang.psi.elements.FunctionReference;
+import com.jetbrains.php.lang.psi.elements.MethodReference;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+    Built-in functions without side effects, which are returning the same result for the same arguments. Functions
+    accepting callbacks, depending on the internal pointers, locale, random generators or the clock are not listed.
+ */
+final public class PureFunctionsUtil {
+    private static final Set<String> functions = new HashSet<>();
+    static {
+        /* arrays */
+        functions.add("count");
+        functions.add("sizeof");
+        functions.add("array_keys");
+        functions.add("array_values");
+        functions.add("array_flip");
+        functions.add("array_merge");
+        functions.add("array_combine");
+        functions.add("array_fill");
+        functions.add("array_fill_keys");
+        functions.add("array_slice");
+        functions.add("array_unique");
+        functions.add("array_reverse");
+        functions.add("array_column");
+        functions.add("array_count_values");
+        functions.add("array_sum");
+        functions.add("array_product");
+        functions.add("array_search");
+        functions.add("array_key_exists");
+        functions.add("key_exists");
+        functions.add("array_key_first");
+        functions.add("array_key_last");
+        functions.add("in_array");
+        functions.add("range");
+        functions.add("implode");
+        functions.add("join");
+        /* strings */
+        functions.add("strlen");
+        functions.add("mb_strlen");
+        functions.add("strtolower");
+        functions.add("strtoupper");
+        functions.add("ucfirst");
+        functions.add("lcfirst");
+        functions.add("ucwords");
+        functions.add("trim");
+        functions.add("ltrim");
+        functions.add("rtrim");
+        functions.add("str_repeat");
+        functions.add("str_pad");
+        functions.add("substr");
+        functions.add("strpos");
+        functions.add("stripos");
+        functions.add("strrpos");
+        functions.add("str_replace");
+        functions.add("sprintf");
+        functions.add("explode");
+        functions.add("preg_quote");
+        functions.add("addslashes");
+        functions.add("htmlspecialchars");
+        functions.add("urlencode");
+        functions.add("rawurlencode");
+        functions.add("base64_encode");
+        functions.add("md5");
+        functions.add("sha1");
+        functions.add("crc32");
+        /* math and conversions */
+        functions.add("abs");
+        functions.add("min");
+        functions.add("max");
+        functions.add("floor");
+        functions.add("ceil");
+        functions.add("round");
+        functions.add("intval");
+        functions.add("floatval");
+        functions.add("strval");
+        functions.add("boolval");
+        /* classes and types */
+        functions.add("get_class");
+        functions.add("get_parent_class");
+        functions.add("gettype");
+    }
+
+    /* clock-dependent functions, pure when the timestamp is given or the format is not changing within a day */
+    private static final Set<String> dateFunctions = new HashSet<>();
+    static {
+        dateFunctions.add("date");
+        dateFunctions.add("gmdate");
+    }
+
+    private static final Set<String> pureTags = new HashSet<>();
+    static {
+        pureTags.add("@pure");
+        pureTags.add("@psalm-pure");
+        pureTags.add("@phpstan-pure");
+    }
+
+    /* arguments are not checked: the result is the same when they are the same */
+    public static boolean isPure(@NotNull FunctionReference reference) {
+        if (isBuiltIn(reference)) {
+            return true;
+        }
+        final PsiElement resolved = reference instanceof MethodReference
+                ? OpenapiResolveUtil.resolveReference((MethodReference) reference)
+                : OpenapiResolveUtil.resolveReference(reference);
+        return resolved instanceof Function && isAnnotatedAsPure((Function) resolved);
+    }
+
+    /* listed built-in functions only, without resolving */
+    public static boolean isBuiltIn(@NotNull FunctionReference reference) {
+        final String name = reference.getName();
+        if (name != null && OpenapiTypesUtil.isFunctionReference(reference)) {
+            if (functions.contains(name)) {
+                return true;
+            }
+            if (dateFunctions.contains(name)) {
+                final PsiElement[] arguments = reference.getParameters();
+                return arguments.length == 2 ||
+                       (arguments.length == 1 && arguments[0] instanceof StringLiteralExpression && isDayFormat((StringLiteralExpression) arguments[0]));
+            }
+        }
+        return false;
+    }
+
+    public static boolean isAnnotatedAsPure(@NotNull Function function) {
+        final PhpDocComment docBlock = function.getDocComment();
+        return docBlock != null && pureTags.stream().anyMatch(tag -> docBlock.getTagElementsByName(tag).length > 0);
+    }
+
+    /* days, weeks, months and years (no time parts, timestamps or escaping) */
+    private static boolean isDayFormat(@NotNull StringLiteralExpression format) {
+        final String contents = format.getContents();
+        return !contents.isEmpty() && contents.chars().allMatch(c -> "dDjlNSwzWFmMntLoYy".indexOf(c) != -1 || (!Character.isLetter(c) && c != '\\' && c != '$'));
+    }
+}
@@ -1,11 +1,24 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils.hierarhy;
 
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiResolveUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.BitSet;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -17,15 +30,63 @@ import java.util.Set;
  */
 
 final public class InterfacesExtractUtil {
+    private static final Key<CachedValue<Closures>> closuresKey = Key.create("kalessil.phpStorm.phpInspectionsEA.inheritance_closures");
+
     @NotNull
     public static HashSet<PhpClass> getCrawlInheritanceTree(@NotNull PhpClass clazz, boolean withClasses) {
-        final HashSet<PhpClass> processed = new HashSet<>();
-        if (clazz.isInterface()) {
-            processInterface(clazz, processed);
-        } else {
-            processClass(clazz, processed, withClasses);
+        final HashSet<PhpClass> result = new HashSet<>();
+        for (final PhpClass candidate : getClosure(clazz).classes) {
+            if (withClasses || candidate.isInterface()) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /* the class itself, parent classes and all implemented interfaces are considered */
+    public static boolean isSubtypeOf(@NotNull PhpClass clazz, @NotNull String parentFqn) {
+        final Closure closure = getClosure(clazz);
+        final Integer id      = closure.ids.get(parentFqn);
+        return id != null && closure.fqns.get(id);
+    }
+
+    public static boolean isSubtypeOf(@NotNull PhpClass clazz, @NotNull PhpClass parent) {
+        return isSubtypeOf(clazz, parent.getFQN());
+    }
+
+    @NotNull
+    private static Closure getClosure(@NotNull PhpClass clazz) {
+        final Closures closures = getClosures(clazz);
+        if (closures == null) {
+            return Closure.of(clazz, new ConcurrentHashMap<>(), new AtomicInteger());
         }
-        return processed;
+
+        /* classes with the same FQN (e.g. stubs and polyfills) are crawled on their own */
+        final Closure cached = closures.closures.get(clazz.getFQN());
+        if (cached != null && cached.clazz == clazz) {
+            return cached;
+        }
+        final Closure closure = Closure.of(clazz, closures.ids, closures.counter);
+        if (cached == null) {
+            closures.closures.put(clazz.getFQN(), closure);
+        }
+        return closure;
+    }
+
+    @Nullable
+    private static Closures getClosures(@NotNull PhpClass clazz) {
+        final PsiFile file = clazz.getContainingFile();
+        /* classes created by PSI factory (QF-ing) are not tracked by the modification counter */
+        if (file == null || !file.isPhysical()) {
+            return null;
+        }
+        final Project project = clazz.getProject();
+        return CachedValuesManager.getManager(project).getCachedValue(
+                project,
+                closuresKey,
+                () -> CachedValueProvider.Result.create(new Closures(), PsiModificationTracker.MODIFICATION_COUNT),
+                false
+        );
     }
 
     private static void processClass(@NotNull PhpClass clazz, @NotNull Set<PhpClass> processedItems, boolean withClasses) {
@@ -50,4 +111,45 @@ final public class InterfacesExtractUtil {
             OpenapiResolveUtil.resolveImplementedInterfaces(clazz).forEach(i -> processInterface(i, processedItems));
         }
     }
+
+    /* project-wide, dropped on any PSI modification: FQNs are numbered, so closures are stored as bitsets */
+    private static final class Closures {
+        private final Map<String, Integer> ids      = new ConcurrentHashMap<>();
+        private final AtomicInteger counter         = new AtomicInteger();
+        private final Map<String, Closure> closures = new ConcurrentHashMap<>();
+    }
+
+    private static final class Closure {
+        @NotNull
+        private final PhpClass clazz;
+        @NotNull
+        private final Set<PhpClass> classes;
+        @NotNull
+        private final BitSet fqns;
+        @NotNull
+        private final Map<String, Integer> ids;
+
+        private Closure(@NotNull PhpClass clazz, @NotNull Set<PhpClass> classes, @NotNull BitSet fqns, @NotNull Map<String, Integer> ids) {
+            this.clazz   = clazz;
+            this.classes = classes;
+            this.fqns    = fqns;
+            this.ids     = ids;
+        }
+
+        @NotNull
+        private static Closure of(@NotNull PhpClass clazz, @NotNull Map<String, Integer> ids, @NotNull AtomicInteger counter) {
+            final Set<PhpClass> classes = new LinkedHashSet<>();
+            if (clazz.isInterface()) {
+                processInterface(clazz, classes);
+            } else {
+                processClass(clazz, classes, true);
+            }
+
+            final BitSet fqns = new BitSet();
+            for (final PhpClass candidate : classes) {
+                fqns.set(ids.computeIfAbsent(candidate.getFQN(), fqn -> counter.getAndIncrement()));
+            }
+            return new Closure(clazz, classes, fqns, ids);
+        }
+    }
 }
@@ -0,0 +1,19 @@
+package com.kalessil.phpStorm.phpInspectionsEA.api;
+
+import com.jetbrains.php.config.PhpLanguageLevel;
+import com.jetbrains.php.config.PhpProjectConfigurationFacade;
+import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.arrays.GeneratorCanBeUsedInspector;
+
+final public class GeneratorCanBeUsedInspectorTest extends PhpCodeInsightFixtureTestCase {
+    public void testIfFindsAllPatterns() {
+        PhpProjectConfigurationFacade.getInstance(myFixture.getProject()).setLanguageLevel(PhpLanguageLevel.PHP710);
+        myFixture.enableInspections(new GeneratorCanBeUsedInspector());
+        myFixture.configureByFile("testData/fixtures/api/generator-can-be-used.php");
+        myFixture.testHighlighting(true, false, true);
+
+        myFixture.getAllQuickFixes().forEach(fix -> myFixture.launchAction(fix));
+        myFixture.setTestDataPath(".");
+        myFixture.checkResultByFile("testData/fixtures/api/generator-can-be-used.fixed.php");
+    }
+}
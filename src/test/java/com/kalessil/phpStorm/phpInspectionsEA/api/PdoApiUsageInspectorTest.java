@@ -13,4 +13,10 @@ final public class PdoApiUsageInspectorTest extends PhpCodeInsightFixtureTestCas
         myFixture.setTestDataPath(".");
         myFixture.checkResultByFile("testData/fixtures/api/pdo.fixed.php");
     }
+
+    public void testIfFindsQueriesInLoops() {
+        myFixture.enableInspections(new PdoApiUsageInspector());
+        myFixture.configureByFile("testData/fixtures/api/pdo-n-plus-one.php");
+        myFixture.testHighlighting(true, false, true);
+    }
 }
@@ -0,0 +1,16 @@
+package com.kalessil.phpStorm.phpInspectionsEA.api.strings;
+
+import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.strings.StringBuildingInLoopInspector;
+
+final public class StringBuildingInLoopInspectorTest extends PhpCodeInsightFixtureTestCase {
+    public void testIfFindsAllPatterns() {
+        myFixture.enableInspections(new StringBuildingInLoopInspector());
+        myFixture.configureByFile("testData/fixtures/api/strings/string-building-in-loop.php");
+        myFixture.testHighlighting(true, false, true);
+
+        myFixture.getAllQuickFixes().forEach(fix -> myFixture.launchAction(fix));
+        myFixture.setTestDataPath(".");
+        myFixture.checkResultByFile("testData/fixtures/api/strings/string-building-in-loop.fixed.php");
+    }
+}
@@ -0,0 +1,12 @@
+package com.kalessil.phpStorm.phpInspectionsEA.deadCode;
+
+import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.semanticalAnalysis.classes.UnusedCodeInspector;
+
+final public class UnusedCodeInspectorTest extends PhpCodeInsightFixtureTestCase {
+    public void testIfFindsAllPatterns() {
+        myFixture.enableInspections(new UnusedCodeInspector());
+        myFixture.configureByFile("testData/fixtures/deadCode/unused-code.php");
+        myFixture.testHighlighting(true, false, true);
+    }
+}
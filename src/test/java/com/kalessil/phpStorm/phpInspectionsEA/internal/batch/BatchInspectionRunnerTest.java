@@ -0,0 +1,232 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.batch;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.baseline.BaselineWriter;
+import com.kalessil.phpStorm.phpInspectionsEA.batch.*;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+final public class BatchInspectionRunnerTest extends PhpCodeInsightFixtureTestCase {
+    public void testStreamingReports() throws Exception {
+        final PsiFile file                 = myFixture.configureByText("batch.php", "<?php\n\n    if (strstr('where', 'what')) ;\n");
+        final List<VirtualFile> files      = Collections.singletonList(file.getVirtualFile());
+        final BatchOptions options         = BatchOptions.parse(new String[]{"ea-inspect", ".", "--workers=2", "--inspections=StrStrUsedAsStrPosInspection"});
+        final BatchInspectionRunner runner = new BatchInspectionRunner(myFixture.getProject(), options);
+
+        final StringWriter json          = new StringWriter();
+        final BatchStatistics statistics = runner.run(files, BatchReportWriter.create(BatchOptions.FORMAT_JSON, json));
+        assertEquals(1, statistics.getFiles());
+        assertEquals(1, statistics.getProblems());
+        assertEquals(1, statistics.getWorkers().size());
+        assertTrue(json.toString().contains("\"inspection\":\"StrStrUsedAsStrPosInspection\""));
+        assertTrue(json.toString().contains("\"line\":3,\"column\":9"));
+        assertTrue(json.toString().contains("{\"type\":\"summary\",\"files\":1,\"problems\":1"));
+
+        final StringWriter sarif = new StringWriter();
+        runner.run(files, BatchReportWriter.create(BatchOptions.FORMAT_SARIF, sarif));
+        assertTrue(sarif.toString().contains("\"rules\":[{\"id\":\"StrStrUsedAsStrPosInspection\""));
+        assertTrue(sarif.toString().contains("\"ruleId\":\"StrStrUsedAsStrPosInspection\",\"level\":\"warning\""));
+        assertTrue(sarif.toString().endsWith("}}]}\n"));
+    }
+
+    public void testFunctionCallsRouting() throws Exception {
+        final PsiFile file                 = myFixture.configureByText("routing.php", "<?php\n\n    foreach ([] as $v) { $r = array_merge($r, $v); if (strstr('where', 'what')) ; touch('', 1, 2); }\n");
+        final List<VirtualFile> files      = Collections.singletonList(file.getVirtualFile());
+        final BatchOptions options         = BatchOptions.parse(new String[]{"ea-inspect", ".", "--inspections=SlowArrayOperationsInLoopInspection,StrStrUsedAsStrPosInspection,PotentialMalwareInspection"});
+        final BatchInspectionRunner runner = new BatchInspectionRunner(myFixture.getProject(), options);
+
+        final StringWriter json          = new StringWriter();
+        final BatchStatistics statistics = runner.run(files, BatchReportWriter.create(BatchOptions.FORMAT_JSON, json));
+        assertEquals(3, statistics.getProblems());
+        assertTrue(json.toString().contains("\"inspection\":\"SlowArrayOperationsInLoopInspection\""));
+        assertTrue(json.toString().contains("\"inspection\":\"StrStrUsedAsStrPosInspection\""));
+        assertTrue(json.toString().contains("\"inspection\":\"PotentialMalwareInspection\""));
+    }
+
+    public void testBulkFixes() throws Exception {
+        final PsiFile file                 = myFixture.configureByText("fixes.php", "<?php\n\n    if (strstr('where', 'what')) ;\n    if (strstr('where', 'what')) ;\n    if (strstr($where, 'what')) ;\n");
+        final List<VirtualFile> files      = Collections.singletonList(file.getVirtualFile());
+        final BatchOptions options         = BatchOptions.parse(new String[]{"ea-inspect", ".", "--apply-fixes", "--inspections=StrStrUsedAsStrPosInspection"});
+        final BatchInspectionRunner runner = new BatchInspectionRunner(myFixture.getProject(), options);
+
+        final StringWriter json          = new StringWriter();
+        final BatchStatistics statistics = runner.run(files, BatchReportWriter.create(BatchOptions.FORMAT_JSON, json));
+        assertEquals(3, statistics.getProblems());
+        assertEquals(3, statistics.getFixed());
+        assertEquals(0, statistics.getDeferred());
+        assertTrue(json.toString().contains("\"fixed\":3"));
+        myFixture.checkResult("<?php\n\n    if (strpos('where', 'what') !== false) ;\n    if (strpos('where', 'what') !== false) ;\n    if (strpos($where, 'what') !== false) ;\n");
+    }
+
+    public void testBaseline() throws Exception {
+        final PsiFile file            = myFixture.configureByText("baseline.php", "<?php\n\n    if (strstr('where', 'what')) ;\n    if (strstr('where', 'what')) ;\n");
+        final List<VirtualFile> files = Collections.singletonList(file.getVirtualFile());
+
+        final StringWriter baseline = new StringWriter();
+        final BatchOptions generate = BatchOptions.parse(new String[]{"ea-inspect", ".", "--format=baseline", "--inspections=StrStrUsedAsStrPosInspection"});
+        new BatchInspectionRunner(myFixture.getProject(), generate).run(files, BatchReportWriter.create(BatchOptions.FORMAT_BASELINE, baseline));
+        final String[] lines = baseline.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("#"));
+        assertTrue(lines[1].startsWith("StrStrUsedAsStrPosInspection\t"));
+        assertTrue(lines[1].contains("baseline.php\t"));
+        assertEquals(lines[1] + ":1", lines[2]);
+
+        final File stored = File.createTempFile("ea", ".baseline");
+        try {
+            Files.write(stored.toPath(), baseline.toString().getBytes(StandardCharsets.UTF_8));
+            final BatchOptions options       = BatchOptions.parse(new String[]{"ea-inspect", ".", "--baseline=" + stored.getPath(), "--inspections=StrStrUsedAsStrPosInspection"});
+            final BatchStatistics statistics = new BatchInspectionRunner(myFixture.getProject(), options)
+                    .run(files, BatchReportWriter.create(BatchOptions.FORMAT_JSON, new StringWriter()));
+            assertEquals(0, statistics.getProblems());
+            assertEquals(2, statistics.getSuppressed());
+        } finally {
+            assertTrue(stored.delete());
+        }
+    }
+
+    public void testBaselineChunks() throws Exception {
+        final StringWriter out        = new StringWriter();
+        final BaselineWriter baseline = new BaselineWriter(out, 2);
+        baseline.add("B", "b.php", "02");
+        baseline.add("A", "a.php", "01");
+        baseline.add("C", "c.php", "03");
+        baseline.add("A", "a.php", "01");
+        baseline.add("A", "a.php", "00");
+        baseline.close();
+        final String[] lines = out.toString().split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("#"));
+        assertEquals(Arrays.asList("A\ta.php\t00", "A\ta.php\t01", "B\tb.php\t02", "C\tc.php\t03"), Arrays.asList(lines).subList(1, 5));
+    }
+
+    public void testIncrementalScope() throws Exception {
+        myFixture.addFileToProject("incremental/Base.php", "<?php\n\n    class IncrementalBase { public function run() {} }\n");
+        myFixture.addFileToProject("incremental/Child.php", "<?php\n\n    class IncrementalChild extends IncrementalBase {}\n");
+        myFixture.addFileToProject("incremental/Caller.php", "<?php\n\n    function incremental_caller(IncrementalChild $child) { return $child->run(); }\n");
+        myFixture.addFileToProject("incremental/Removed.php", "<?php\n\n    if (strstr('where', 'what')) { incremental_removed(); }\n");
+        myFixture.addFileToProject("incremental/Other.php", "<?php\n\n    if (strstr('where', 'what')) ;\n");
+
+        final String previous = String.join("\n",
+                "{\"type\":\"problem\",\"inspection\":\"StrStrUsedAsStrPosInspection\",\"file\":\"incremental/Other.php\",\"line\":3,\"column\":9,\"offset\":14,\"length\":26,\"severity\":\"warning\",\"message\":\"\\\"strpos\\\" should be used\",\"fingerprint\":\"00\"}",
+                "{\"type\":\"problem\",\"inspection\":\"StrStrUsedAsStrPosInspection\",\"file\":\"incremental/Removed.php\",\"line\":3,\"column\":9,\"offset\":14,\"length\":26,\"severity\":\"warning\",\"message\":\"\",\"fingerprint\":\"\"}",
+                "{\"type\":\"problem\",\"inspection\":\"StrStrUsedAsStrPosInspection\",\"file\":\"incremental/Deleted.php\",\"line\":1,\"column\":1,\"offset\":0,\"length\":1,\"severity\":\"note\",\"message\":\"\",\"fingerprint\":\"\"}",
+                "{\"type\":\"problem\",\"inspection\":\"StrStrUsedAsStrPosInspection\",\"file\":\"incremental/Unlisted.php\",\"line\":1,\"column\":1,\"offset\":0,\"length\":1,\"severity\":\"note\",\"message\":\"\",\"fingerprint\":\"\"}",
+                "{\"type\":\"summary\",\"files\":4,\"problems\":4,\"workers\":[{\"id\":1,\"files\":4}]}"
+        );
+        final List<BatchProblem> reported = JsonReportReader.read(new StringReader(previous));
+
+        final Set<String> changed    = IncrementalScope.readChanged(new StringReader("./incremental/Base.php\nincremental/Deleted.php\n"));
+        final IncrementalScope scope = IncrementalScope.collect(myFixture.getProject(), changed, reported);
+        final List<String> names     = scope.getFiles().stream().map(VirtualFile::getName).collect(Collectors.toList());
+        assertEquals(Arrays.asList("Base.php", "Caller.php", "Child.php", "Removed.php"), names);
+
+        final List<BatchProblem> carried = scope.carryOver(myFixture.getProject(), reported);
+        assertEquals(1, carried.size());
+        assertEquals("incremental/Other.php", carried.get(0).getFile());
+        assertEquals("\"strpos\" should be used", carried.get(0).getMessage());
+        assertEquals(BatchProblem.Severity.WARNING, carried.get(0).getSeverity());
+
+        final BatchOptions options       = BatchOptions.parse(new String[]{"ea-inspect", ".", "--changed=changed.txt", "--inspections=StrStrUsedAsStrPosInspection"});
+        final StringWriter json          = new StringWriter();
+        final BatchStatistics statistics = new BatchInspectionRunner(myFixture.getProject(), options)
+                .run(BatchInspectionRunner.collectFiles(scope, options), BatchReportWriter.create(BatchOptions.FORMAT_JSON, json), carried);
+        assertEquals(4, statistics.getFiles());
+        assertEquals(1, statistics.getCarried());
+        assertTrue(json.toString().contains("\"file\":\"incremental/Other.php\""));
+        assertTrue(json.toString().contains("\"file\":\"incremental/Removed.php\""));
+    }
+
+    public void testAutoloadMap() throws Exception {
+        myFixture.addFileToProject("composer.json", "{\"autoload\": {\"psr-4\": {\"App\\\\\": \"src/\"}, \"classmap\": [\"legacy/\"], \"exclude-from-classmap\": [\"src/Excluded/\"]}}");
+        myFixture.addFileToProject("src/Service.php", "<?php\n\n    namespace App;\n    class Service {}\n");
+        myFixture.addFileToProject("src/Wrong.php", "<?php\n\n    namespace App;\n    class Misplaced {}\n");
+        myFixture.addFileToProject("src/Duplicate.php", "<?php\n\n    namespace App;\n    class Duplicate {}\n");
+        myFixture.addFileToProject("src/Excluded/Skipped.php", "<?php\n\n    namespace App;\n    class Skipped {}\n");
+        myFixture.addFileToProject("legacy/Duplicate.php", "<?php\n\n    namespace App;\n    class Duplicate {}\n");
+        myFixture.addFileToProject("legacy/Legacy.php", "<?php\n\n    class Legacy_Thing {}\n");
+        myFixture.addFileToProject("scripts/Tool.php", "<?php\n\n    class Tool {}\n");
+
+        final ComposerAutoloadRules rules = ComposerAutoloadRules.find(myFixture.getProject());
+        assertNotNull(rules);
+        assertEquals(Collections.singletonList("src/Service.php"), rules.getExpectedPaths("App\\Service"));
+
+        final BatchOptions options       = BatchOptions.parse(new String[]{"ea-inspect", ".", "--autoload-map=classmap.php"});
+        final StringWriter json          = new StringWriter();
+        final StringWriter classmap      = new StringWriter();
+        final BatchStatistics statistics = new BatchInspectionRunner(myFixture.getProject(), options)
+                .runAutoloadMap(rules, BatchReportWriter.create(BatchOptions.FORMAT_JSON, json), classmap, "__DIR__");
+        assertEquals(6, statistics.getProblems());
+        assertTrue(json.toString().contains("'App\\\\Misplaced' is expected in 'src/Misplaced.php'"));
+        assertTrue(json.toString().contains("'App\\\\Duplicate' is declared in several files (src/Duplicate.php)"));
+        assertTrue(json.toString().contains("'Legacy_Thing' is not PSR-4/PSR-0 compliant"));
+        assertTrue(json.toString().contains("'Tool' is not covered by composer.json autoload rules"));
+        assertFalse(json.toString().contains("Skipped"));
+
+        final String expected = String.join("\n",
+                "<?php",
+                "",
+                "// autoload_classmap.php @generated by Php Inspections (EA Extended)",
+                "",
+                "$baseDir = __DIR__;",
+                "",
+                "return array(",
+                "    'App\\\\Duplicate' => $baseDir . '/legacy/Duplicate.php',",
+                "    'App\\\\Service' => $baseDir . '/src/Service.php',",
+                "    'Legacy_Thing' => $baseDir . '/legacy/Legacy.php',",
+                ");",
+                ""
+        );
+        assertEquals(expected, classmap.toString());
+    }
+
+    public void testPreloadList() throws Exception {
+        myFixture.addFileToProject("preload/Contract.php", "<?php\n\n    interface PreloadContract {}\n");
+        myFixture.addFileToProject("preload/Trait.php", "<?php\n\n    trait PreloadTrait {}\n");
+        myFixture.addFileToProject("preload/Base.php", "<?php\n\n    abstract class PreloadBase implements PreloadContract { use PreloadTrait; }\n");
+        myFixture.addFileToProject("preload/Broken.php", "<?php\n\n    class PreloadBroken extends PreloadMissing {}\n");
+        myFixture.addFileToProject("preload/Conditional.php", "<?php\n\n    if (PHP_VERSION_ID > 70400) { class PreloadConditional {} }\n");
+        myFixture.addFileToProject("preload/Mixed.php", "<?php\n\n    class PreloadMixed extends PreloadBase {}\n    class PreloadMixedBroken extends PreloadMissing {}\n");
+        final VirtualFile root = myFixture.addFileToProject("preload/Service.php", "<?php\n\n    class PreloadService extends PreloadBase {}\n")
+                .getVirtualFile().getParent().getParent();
+
+        final List<String> entries       = PreloadList.readEntries(new StringReader("PreloadService # with dependencies\nPreloadBroken\npreload/Conditional.php\nPreloadUnknown\nPreloadMixed\n"));
+        final BatchOptions options       = BatchOptions.parse(new String[]{"ea-inspect", ".", "--preload=preload.php", "--preload-entries=preload.txt"});
+        final StringWriter json          = new StringWriter();
+        final StringWriter script        = new StringWriter();
+        final BatchStatistics statistics = new BatchInspectionRunner(myFixture.getProject(), options)
+                .runPreload(root, entries, "preload.txt", BatchReportWriter.create(BatchOptions.FORMAT_JSON, json), script, "__DIR__");
+        assertEquals(4, statistics.getFiles());
+        assertEquals(5, statistics.getProblems());
+        assertTrue(json.toString().contains("'\\\\PreloadBroken' can not be preloaded: '\\\\PreloadMissing' is not resolved."));
+        assertTrue(json.toString().contains("'\\\\PreloadMixed' can not be preloaded: '\\\\PreloadMixedBroken' is declared in the same file and can not be preloaded."));
+        assertTrue(json.toString().contains("'\\\\PreloadConditional' can not be preloaded: the class is declared conditionally."));
+        assertTrue(json.toString().contains("\"file\":\"preload.txt\",\"line\":4"));
+
+        final String expected = String.join("\n",
+                "<?php",
+                "",
+                "// preload.php @generated by Php Inspections (EA Extended): parents, interfaces and traits are compiled first",
+                "",
+                "$baseDir = __DIR__;",
+                "",
+                "opcache_compile_file($baseDir . '/preload/Contract.php');",
+                "opcache_compile_file($baseDir . '/preload/Trait.php');",
+                "opcache_compile_file($baseDir . '/preload/Base.php');",
+                "opcache_compile_file($baseDir . '/preload/Service.php');",
+                ""
+        );
+        assertEquals(expected, script.toString());
+    }
+}
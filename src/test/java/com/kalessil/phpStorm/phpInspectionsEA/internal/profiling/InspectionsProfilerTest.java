@@ -0,0 +1,33 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.profiling;
+
+import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.strings.StrStrUsedAsStrPosInspector;
+import com.kalessil.phpStorm.phpInspectionsEA.profiling.InspectionsProfiler;
+
+import java.io.StringWriter;
+import java.util.List;
+
+final public class InspectionsProfilerTest extends PhpCodeInsightFixtureTestCase {
+    public void testProfilingVisitors() throws Exception {
+        InspectionsProfiler.reset();
+        InspectionsProfiler.setEnabled(true);
+        try {
+            myFixture.enableInspections(new StrStrUsedAsStrPosInspector());
+            myFixture.configureByFile("testData/fixtures/api/strings/strstr-function.php");
+            myFixture.testHighlighting(true, false, true);
+        } finally {
+            InspectionsProfiler.setEnabled(false);
+        }
+
+        final List<InspectionsProfiler.Entry> entries = InspectionsProfiler.getEntries();
+        assertEquals(1, entries.size());
+        assertEquals("StrStrUsedAsStrPosInspection", entries.get(0).getName());
+        assertTrue(entries.get(0).getCount() > 0);
+        assertTrue(entries.get(0).getTargets().stream().anyMatch(target -> target.getName().equals("FunctionReference")));
+
+        final StringWriter json = new StringWriter();
+        InspectionsProfiler.dump(json);
+        assertTrue(json.toString().startsWith("[\n  {\"name\":\"StrStrUsedAsStrPosInspection\""));
+        InspectionsProfiler.reset();
+    }
+}
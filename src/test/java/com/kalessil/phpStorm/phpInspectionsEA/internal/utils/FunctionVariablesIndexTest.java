@@ -0,0 +1,55 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.FunctionVariablesIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+final public class FunctionVariablesIndexTest extends PhpCodeInsightFixtureTestCase {
+    public void testUsagesIndexing() {
+        String pattern    =
+                "function f($x) { " +
+                    "$y = $x + 1; " +
+                    "$z = &$y; " +
+                    "$c = function() use (&$y, $z) { return $y; }; " +
+                    "return $y; " +
+                "}";
+        Function callable = PhpPsiElementFactory.createFromText(myFixture.getProject(), Function.class, pattern);
+        assertNotNull(callable);
+
+        final FunctionVariablesIndex index = FunctionVariablesIndex.of(callable);
+        assertEquals(
+                new ArrayList<>(PsiTreeUtil.findChildrenOfType(ExpressionSemanticUtil.getGroupStatement(callable), Variable.class)),
+                index.getVariables()
+        );
+
+        final List<FunctionVariablesIndex.Kind> kinds = index.getUsages("y").stream()
+                .map(FunctionVariablesIndex.Usage::getKind)
+                .collect(Collectors.toList());
+        assertEquals(5, kinds.size());
+        assertEquals(FunctionVariablesIndex.Kind.WRITE, kinds.get(0));
+        assertEquals(FunctionVariablesIndex.Kind.REFERENCE, kinds.get(1));
+        assertEquals(FunctionVariablesIndex.Kind.CAPTURE, kinds.get(2));
+        assertEquals(FunctionVariablesIndex.Kind.READ, kinds.get(3));
+        assertFalse(index.getUsages("y").get(3).isOwn());
+        assertTrue(index.getUsages("y").get(4).isOwn());
+
+        final Function closure = PsiTreeUtil.findChildOfType(ExpressionSemanticUtil.getGroupStatement(callable), Function.class);
+        assertNotNull(closure);
+        assertTrue(FunctionVariablesIndex.of(closure).isCapturedByReference("y"));
+        assertFalse(FunctionVariablesIndex.of(closure).isCapturedByReference("z"));
+        assertTrue(FunctionVariablesIndex.of(closure).isCaptured("z"));
+
+        /* sub-tree lookups are served from the index, but must match the tree walk */
+        for (final PsiElement statement : ExpressionSemanticUtil.getGroupStatement(callable).getChildren()) {
+            assertEquals(new ArrayList<>(PsiTreeUtil.findChildrenOfType(statement, Variable.class)), index.getVariables(statement));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.hierarhy.InterfacesExtractUtil;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+final public class InterfacesExtractUtilTest extends PhpCodeInsightFixtureTestCase {
+    public void testInheritanceClosure() {
+        final PsiFile file = myFixture.configureByText(
+                PhpFileType.INSTANCE,
+                "<?php interface IA {} interface IB extends IA {} class A implements IB {} class B extends A {} class C {}"
+        );
+        final Map<String, PhpClass> classes = PsiTreeUtil.findChildrenOfType(file, PhpClass.class).stream()
+                .collect(Collectors.toMap(PhpClass::getName, c -> c));
+
+        final Set<String> withClasses = InterfacesExtractUtil.getCrawlInheritanceTree(classes.get("B"), true).stream()
+                .map(PhpClass::getName)
+                .collect(Collectors.toSet());
+        assertEquals(4, withClasses.size());
+        assertTrue(withClasses.contains("A"));
+        assertTrue(withClasses.contains("IA"));
+
+        final Set<PhpClass> interfacesOnly = InterfacesExtractUtil.getCrawlInheritanceTree(classes.get("B"), false);
+        assertEquals(2, interfacesOnly.size());
+        /* callers are free to modify the result */
+        interfacesOnly.clear();
+        assertEquals(2, InterfacesExtractUtil.getCrawlInheritanceTree(classes.get("B"), false).size());
+
+        assertTrue(InterfacesExtractUtil.isSubtypeOf(classes.get("B"), "\\IA"));
+        assertTrue(InterfacesExtractUtil.isSubtypeOf(classes.get("B"), classes.get("B")));
+        assertFalse(InterfacesExtractUtil.isSubtypeOf(classes.get("A"), "\\B"));
+        assertFalse(InterfacesExtractUtil.isSubtypeOf(classes.get("C"), "\\IA"));
+    }
+}
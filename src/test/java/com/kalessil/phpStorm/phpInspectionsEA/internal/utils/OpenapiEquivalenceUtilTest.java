@@ -0,0 +1,27 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.FunctionReference;
+import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiEquivalenceUtil;
+
+final public class OpenapiEquivalenceUtilTest extends PhpCodeInsightFixtureTestCase {
+    public void testFingerprints() {
+        final Project project = myFixture.getProject();
+
+        final PsiElement first  = PhpPsiElementFactory.createFromText(project, FunctionReference.class, "f($x, 1)");
+        final PsiElement second = PhpPsiElementFactory.createFromText(project, FunctionReference.class, "f( $x /* comment */ ,1 )");
+        final PsiElement third  = PhpPsiElementFactory.createFromText(project, FunctionReference.class, "f($x, 2)");
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotNull(third);
+
+        assertEquals(OpenapiEquivalenceUtil.getFingerprint(first), OpenapiEquivalenceUtil.getFingerprint(second));
+        assertTrue(OpenapiEquivalenceUtil.areEqual(first, second));
+
+        assertFalse(OpenapiEquivalenceUtil.getFingerprint(first) == OpenapiEquivalenceUtil.getFingerprint(third));
+        assertFalse(OpenapiEquivalenceUtil.areEqual(first, third));
+    }
+}
@@ -0,0 +1,30 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.psi.elements.MethodReference;
+import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiResolveCacheUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.OpenapiResolveUtil;
+
+final public class OpenapiResolveCacheUtilTest extends PhpCodeInsightFixtureTestCase {
+    public void testRepeatedResolvingIsCached() {
+        final PsiFile file = myFixture.configureByText(
+                "test.php",
+                "<?php class C { function m() { return ''; } } (new C())->m();"
+        );
+        final MethodReference reference = PsiTreeUtil.findChildOfType(file, MethodReference.class);
+        assertNotNull(reference);
+
+        OpenapiResolveCacheUtil.resetStatistics();
+        assertNotNull(OpenapiResolveUtil.resolveReference(reference));
+        assertNotNull(OpenapiResolveUtil.resolveReference(reference));
+        assertEquals(1, OpenapiResolveCacheUtil.getMisses());
+        assertEquals(1, OpenapiResolveCacheUtil.getHits());
+
+        OpenapiResolveCacheUtil.resetStatistics();
+        assertNotNull(OpenapiResolveUtil.resolveType(reference, myFixture.getProject()));
+        assertNotNull(OpenapiResolveUtil.resolveType(reference, myFixture.getProject()));
+        assertTrue(OpenapiResolveCacheUtil.getHits() > 0);
+    }
+}
@@ -124,4 +124,26 @@ final public class PossibleValuesDiscoveryUtilTest extends PhpCodeInsightFixture
         assertTrue(values.stream().anyMatch(variant -> variant instanceof StringLiteralExpression));
         assertTrue(values.stream().anyMatch(variant -> variant instanceof ConstantReference));
     }
+
+    public void testDiscoveryBudget() {
+        String pattern    = "function test() { $x = 'a'; $x = 'b'; $x = 'c'; return $x; }";
+        Function callable = PhpPsiElementFactory.createFromText(myFixture.getProject(), Function.class, pattern);
+        assertNotNull(callable);
+
+        PsiElement expression = PsiTreeUtil.findChildOfType(callable, PhpReturn.class);
+        assertNotNull(expression);
+        expression = PsiTreeUtil.findChildOfType(expression, Variable.class);
+        assertNotNull(expression);
+
+        assertEquals(3, PossibleValuesDiscoveryUtil.discover(expression).size());
+        assertEquals(2, PossibleValuesDiscoveryUtil.discover(expression, 8, 2).size());
+
+        /* the depth is exhausted: the expression itself is the only value */
+        Set<PsiElement> values = PossibleValuesDiscoveryUtil.discover(expression, 0, 8);
+        assertEquals(1, values.size());
+        assertSame(expression, values.iterator().next());
+
+        assertTrue(PossibleValuesDiscoveryUtil.anyMatch(expression, value -> value.getText().equals("'b'")));
+        assertFalse(PossibleValuesDiscoveryUtil.anyMatch(expression, value -> value instanceof ConstantReference));
+    }
 }
@@ -1,5 +1,7 @@
 package com.kalessil.phpStorm.phpInspectionsEA.lang;
 
+import com.jetbrains.php.config.PhpLanguageLevel;
+import com.jetbrains.php.config.PhpProjectConfigurationFacade;
 import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.languageConstructions.ClassConstantCanBeUsedInspector;
 
@@ -53,4 +55,26 @@ final public class ClassConstantCanBeUsedInspectorTest extends PhpCodeInsightFix
                 false
         );
     }
+    public void testLanguageLevelBelowMinimum() {
+        final PhpProjectConfigurationFacade facade = PhpProjectConfigurationFacade.getInstance(myFixture.getProject());
+        final PhpLanguageLevel previous            = facade.getLanguageLevel();
+        try {
+            facade.setLanguageLevel(PhpLanguageLevel.PHP540);
+            assertEquals(
+                    com.kalessil.phpStorm.phpInspectionsEA.openApi.PhpLanguageLevel.PHP540,
+                    com.kalessil.phpStorm.phpInspectionsEA.openApi.PhpLanguageLevel.get(myFixture.getProject())
+            );
+            myFixture.enableInspections(new ClassConstantCanBeUsedInspector());
+            myFixture.configureByText("level.php", "<?php\n\n    echo get_called_class();\n");
+            myFixture.testHighlighting(true, false, true);
+
+            facade.setLanguageLevel(PhpLanguageLevel.PHP560);
+            assertEquals(
+                    com.kalessil.phpStorm.phpInspectionsEA.openApi.PhpLanguageLevel.PHP560,
+                    com.kalessil.phpStorm.phpInspectionsEA.openApi.PhpLanguageLevel.get(myFixture.getProject())
+            );
+        } finally {
+            facade.setLanguageLevel(previous);
+        }
+    }
 }
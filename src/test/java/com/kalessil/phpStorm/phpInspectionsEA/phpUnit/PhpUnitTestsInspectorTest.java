@@ -1,8 +1,12 @@
 package com.kalessil.phpStorm.phpInspectionsEA.phpUnit;
 
+import com.intellij.psi.search.GlobalSearchScope;
 import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.phpUnit.PhpUnitTestsInspector;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.phpUnit.PhpUnitVersion;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.phpUnit.utils.PhpUnitTargetsValidator;
+
+import java.util.List;
 
 final public class PhpUnitTestsInspectorTest extends PhpCodeInsightFixtureTestCase {
     public void testIfFindsCoversAnnotationPatterns() {
@@ -27,6 +31,42 @@ final public class PhpUnitTestsInspectorTest extends PhpCodeInsightFixtureTestCa
         myFixture.configureByFile("testData/fixtures/phpUnit/annotation-data-provider.php");
         myFixture.testHighlighting(true, false, true);
     }
+    public void testTargetsValidationFromIndex() {
+        myFixture.addFileToProject("targets.php",
+                "<?php\n\n" +
+                "namespace Targets { class Subject { public function run() {} } }\n\n" +
+                "namespace {\n" +
+                "    use Targets\\Subject;\n" +
+                "    class TargetsTest {\n" +
+                "        /** @test */\n" +
+                "        public function marked() {}\n" +
+                "        public function provider() {}\n" +
+                "        /** @dataProvider provider */\n" +
+                "        public function testProvided() {}\n" +
+                "        /** @dataProvider missing */\n" +
+                "        public function testMissingProvider() {}\n" +
+                "        /** @depends marked */\n" +
+                "        public function testDepends() {}\n" +
+                "        /** @depends provider */\n" +
+                "        public function testDependsOnNonTest() {}\n" +
+                "        /** @covers Subject::run */\n" +
+                "        public function testCovers() {}\n" +
+                "        /** @covers Subject::stop */\n" +
+                "        public function testCoversMissing() {}\n" +
+                "    }\n" +
+                "}\n"
+        );
+        final List<PhpUnitTargetsValidator.Unresolved> unresolved = PhpUnitTargetsValidator.validate(
+                myFixture.getProject(),
+                GlobalSearchScope.projectScope(myFixture.getProject())
+        );
+        assertEquals(3, unresolved.size());
+        assertEquals("testMissingProvider", unresolved.get(0).getAnnotation().getMethod());
+        assertEquals("testDependsOnNonTest", unresolved.get(1).getAnnotation().getMethod());
+        assertEquals("testCoversMissing", unresolved.get(2).getAnnotation().getMethod());
+        assertEquals("\\Targets\\Subject::stop", unresolved.get(2).getAnnotation().getTarget());
+        assertEquals("@covers referencing to a non-existing entity 'Subject::stop'", unresolved.get(2).getMessage());
+    }
     public void testIfFindsNormalizationPatterns() {
         myFixture.enableInspections(new PhpUnitTestsInspector());
         myFixture.configureByFile("testData/fixtures/phpUnit/assert-normalization.php");
@@ -18,4 +18,11 @@ final public class SlowArrayOperationsInLoopInspectorTest extends PhpCodeInsight
         myFixture.setTestDataPath(".");
         myFixture.checkResultByFile("testData/fixtures/pitfalls/slow-array-operations.for-termination.fixed.php");
     }
+    public void testIfFindsComplexityPatterns() {
+        final SlowArrayOperationsInLoopInspector inspector = new SlowArrayOperationsInLoopInspector();
+        inspector.REPORT_LOOP_COMPLEXITY                    = true;
+        myFixture.enableInspections(inspector);
+        myFixture.configureByFile("testData/fixtures/pitfalls/slow-array-operations.complexity.php");
+        myFixture.testHighlighting(true, false, true);
+    }
 }
@@ -0,0 +1,51 @@
+package com.kalessil.phpStorm.phpInspectionsEA.regularExpressions;
+
+import com.kalessil.phpStorm.phpInspectionsEA.PhpCodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.utils.PhpRegularExpression.TokenType;
+
+final public class PhpRegularExpressionTest extends PhpCodeInsightFixtureTestCase {
+    public void testSplitting() {
+        final PhpRegularExpression regex = PhpRegularExpression.parse("#^[a-z]+\\.php$#iu");
+        assertNotNull(regex);
+        assertEquals('#', regex.getDelimiter());
+        assertEquals("^[a-z]+\\.php$", regex.getPattern());
+        assertEquals("iu", regex.getModifiers());
+        assertTrue(regex.hasModifier('u'));
+        assertFalse(regex.hasModifier('s'));
+
+        final PhpRegularExpression braces = PhpRegularExpression.parse("{/path}");
+        assertNotNull(braces);
+        assertEquals("/path", braces.getPattern());
+        assertNull(braces.getModifiers());
+
+        assertNull(PhpRegularExpression.parse("}pattern{"));
+        assertNull(PhpRegularExpression.parse("/pattern"));
+    }
+
+    public void testTokenizing() {
+        final PhpRegularExpression regex = PhpRegularExpression.parse("/(?:[$.]\\.)+x{2}$/");
+        assertNotNull(regex);
+        assertTrue(regex.has(TokenType.GROUP_OPEN));
+        assertTrue(regex.has(TokenType.CLASS));
+        assertTrue(regex.has(TokenType.ANCHOR));
+        assertFalse(regex.has(TokenType.DOT));
+        assertEquals("$.", regex.getTokens().get(1).getClassContent());
+        assertEquals("{2}", regex.getTokens().get(6).getText());
+
+        final PhpRegularExpression minimum = PhpRegularExpression.parse("/x{,2}/");
+        assertNotNull(minimum);
+        assertFalse(minimum.has(TokenType.QUANTIFIER));
+        assertEquals(6, minimum.getTokens().size());
+
+        final PhpRegularExpression extended = PhpRegularExpression.parse("/a # any.\n b+ /x");
+        assertNotNull(extended);
+        assertFalse(extended.has(TokenType.DOT));
+        assertEquals(3, extended.getTokens().size());
+        assertEquals("b", extended.getTokens().get(1).getText());
+
+        final PhpRegularExpression plain = PhpRegularExpression.parse("/a # any./");
+        assertNotNull(plain);
+        assertTrue(plain.has(TokenType.DOT));
+    }
+}
@@ -0,0 +1,93 @@
+<?php
+
+function <weak_warning descr="[EA] 'generator_candidate(...)' builds an array in a loop, but all call sites are only iterating the result with 'foreach'. Consider turning it into a generator to reduce memory usage.">generator_candidate</weak_warning>(array $rows) {
+    $result = [];
+    foreach ($rows as $row) {
+        if ($row === null) {
+            return $result;
+        }
+        $result[] = trim($row);
+    }
+    return $result;
+}
+
+class GeneratorCandidates {
+    public function <weak_warning descr="[EA] 'lines(...)' builds an array in a loop, but all call sites are only iterating the result with 'foreach'. Consider turning it into a generator to reduce memory usage.">lines</weak_warning>($file): iterable {
+        $lines = [];
+        while (($line = fgets($file)) !== false) {
+            $lines[] = $line;
+        }
+        return $lines;
+    }
+
+    /* false-positives: array return type (native or documented), escaping result, not built in a loop, keyed writes, by reference iteration, no call sites */
+    public function typed(array $rows): array {
+        $result = [];
+        foreach ($rows as $row) {
+            $result[] = $row;
+        }
+        return $result;
+    }
+    public function escaping(array $rows) {
+        $result = [];
+        foreach ($rows as $row) {
+            $result[] = $row;
+        }
+        return $result;
+    }
+    public function single($row) {
+        $result = [];
+        $result[] = $row;
+        return $result;
+    }
+    public function keyed(array $rows) {
+        $result = [];
+        foreach ($rows as $key => $row) {
+            $result[$key] = $row;
+        }
+        return $result;
+    }
+    public function referenced(array $rows) {
+        $result = [];
+        foreach ($rows as $row) {
+            $result[] = $row;
+        }
+        return $result;
+    }
+    /** @return string[] */
+    public function documented(array $rows) {
+        $result = [];
+        foreach ($rows as $row) {
+            $result[] = $row;
+        }
+        return $result;
+    }
+    /** @return array */
+    public function documentedArray(array $rows) {
+        $result = [];
+        foreach ($rows as $row) {
+            $result[] = $row;
+        }
+        return $result;
+    }
+    public function unused(array $rows) {
+        $result = [];
+        foreach ($rows as $row) {
+            $result[] = $row;
+        }
+        return $result;
+    }
+}
+
+function generator_consumers(GeneratorCandidates $candidates, $file, array $rows) {
+    foreach (generator_candidate($rows) as $value) {}
+    foreach ($candidates->lines($file) as $index => $line) {}
+    foreach ($candidates->typed($rows) as $value) {}
+    foreach ($candidates->escaping($rows) as $value) {}
+    foreach ($candidates->single($rows) as $value) {}
+    foreach ($candidates->keyed($rows) as $value) {}
+    foreach ($candidates->documented($rows) as $value) {}
+    foreach ($candidates->documentedArray($rows) as $value) {}
+    foreach ($candidates->referenced($rows) as &$value) {}
+    $count = count($candidates->escaping($rows));
+}
@@ -0,0 +1,51 @@
+<?php
+
+namespace Doctrine\ORM {
+    class EntityRepository {
+        public function find($id) {}
+        public function findBy(array $criteria) {}
+    }
+}
+
+namespace {
+    class UsersRepository {
+        /** @var \PDO */
+        private $connection;
+
+        public function load($id) {
+            return $this->connection->query("SELECT * FROM users WHERE id = $id");
+        }
+
+        public function name($user) {
+            return $user['name'];
+        }
+    }
+
+    function cases_holder(\PDO $pdo, UsersRepository $users, \Doctrine\ORM\EntityRepository $repository, array $ids)
+    {
+        foreach ($ids as $id) {
+            $rows[]   = <weak_warning descr="[EA] N+1 queries: 'PDO::query(...)' is executed on each iteration of the 'foreach' loop, consider fetching the data before the loop.">$pdo->query("SELECT * FROM users WHERE id = $id")</weak_warning>;
+            $loaded[] = <weak_warning descr="[EA] N+1 queries: 'PDO::query(...)' is executed on each iteration of the 'foreach' loop (via 'UsersRepository::load(...)'), consider fetching the data before the loop.">$users->load($id)</weak_warning>;
+            $found[]  = <weak_warning descr="[EA] N+1 queries: 'Doctrine\ORM\EntityRepository::find(...)' is executed on each iteration of the 'foreach' loop, consider fetching the data before the loop.">$repository->find($id)</weak_warning>;
+        }
+
+        for ($index = 0; $index < 10; ++$index) {
+            $statement = <weak_warning descr="[EA] 'PDO::prepare(...)' doesn't depend on the 'for' loop, consider preparing the statement before the loop.">$pdo->prepare('SELECT * FROM users WHERE id = ?')</weak_warning>;
+            <weak_warning descr="[EA] N+1 queries: 'PDOStatement::execute(...)' is executed on each iteration of the 'for' loop, consider fetching the data before the loop.">$statement->execute([$index])</weak_warning>;
+        }
+
+        $table = 'users';
+        while ($id = array_pop($ids)) {
+            $sql       = "SELECT * FROM $table WHERE id = ?";
+            $statement = $pdo->prepare($sql);
+            <weak_warning descr="[EA] N+1 queries: 'PDOStatement::execute(...)' is executed on each iteration of the 'while' loop, consider fetching the data before the loop.">$statement->execute([$id])</weak_warning>;
+        }
+
+        /* false-positives: queries outside of loops, in loop headers and in closures */
+        $all = $pdo->query('SELECT * FROM users');
+        foreach ($pdo->query('SELECT * FROM users') as $row) {
+            $users->name($row);
+            $callback = function () use ($pdo) { return $pdo->query('SELECT 1'); };
+        }
+    }
+}
@@ -0,0 +1,57 @@
+<?php
+
+function cases_holder(array $rows, array $matrix, $prefix) {
+    $csv = '';
+    $csvParts = [];
+    foreach ($rows as $row) {
+        $csvParts[] = implode(',', $row);
+        $csvParts[] = "\n";
+    }
+    $csv .= implode('', $csvParts);
+
+    $report = $prefix;
+    $reportParts = [];
+    foreach ($matrix as $row) {
+        foreach ($row as $cell) {
+            $reportParts[] = sprintf('%s;', $cell);
+        }
+    }
+    $report .= implode('', $reportParts);
+
+    foreach ($matrix as $row) {
+        $line = '';
+        $lineParts = [];
+        foreach ($row as $cell) {
+            $lineParts[] = $cell;
+        }
+        $line .= implode('', $lineParts);
+        echo $line;
+    }
+
+    $list = '';
+    $listParts = [];
+    foreach ($rows as $row) {
+        $listParts[] = $row['id'] . ',';
+    }
+    $list .= implode('', $listParts);
+    $ids = explode(',', $list);
+
+    /* false-positives: read in the loop, not a statement, outside of loops, buffer variable is taken */
+    $text = '';
+    foreach ($rows as $row) {
+        $text .= $row['text'];
+        if (strlen($text) > 1024) {
+            break;
+        }
+    }
+    $glued = '';
+    foreach ($rows as $row) {
+        $copy = ($glued .= $row['text']);
+    }
+    $ids .= ',';
+    $names = '';
+    foreach ($rows as $row) {
+        $names .= $row['name'];
+    }
+    $namesParts = [];
+}
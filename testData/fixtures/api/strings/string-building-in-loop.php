@@ -0,0 +1,49 @@
+<?php
+
+function cases_holder(array $rows, array $matrix, $prefix) {
+    $csv = '';
+    foreach ($rows as $row) {
+        <weak_warning descr="[EA] '$csv' is built by concatenation in a loop (O(n) in size). Consider collecting the parts into an array and using 'implode(...)' once after the loop.">$csv .= implode(',', $row)</weak_warning>;
+        $csv .= "\n";
+    }
+
+    $report = $prefix;
+    foreach ($matrix as $row) {
+        foreach ($row as $cell) {
+            <weak_warning descr="[EA] '$report' is built by concatenation in a loop (O(n²) in size). Consider collecting the parts into an array and using 'implode(...)' once after the loop.">$report .= sprintf('%s;', $cell)</weak_warning>;
+        }
+    }
+
+    foreach ($matrix as $row) {
+        $line = '';
+        foreach ($row as $cell) {
+            <weak_warning descr="[EA] '$line' is built by concatenation in a loop (O(n) in size). Consider collecting the parts into an array and using 'implode(...)' once after the loop.">$line .= $cell</weak_warning>;
+        }
+        echo $line;
+    }
+
+    $list = '';
+    foreach ($rows as $row) {
+        <weak_warning descr="[EA] '$list' is built by concatenation in a loop and split by 'explode(...)' afterwards. Consider collecting the parts into an array instead.">$list .= $row['id'] . ','</weak_warning>;
+    }
+    $ids = explode(',', $list);
+
+    /* false-positives: read in the loop, not a statement, outside of loops, buffer variable is taken */
+    $text = '';
+    foreach ($rows as $row) {
+        $text .= $row['text'];
+        if (strlen($text) > 1024) {
+            break;
+        }
+    }
+    $glued = '';
+    foreach ($rows as $row) {
+        $copy = ($glued .= $row['text']);
+    }
+    $ids .= ',';
+    $names = '';
+    foreach ($rows as $row) {
+        <weak_warning descr="[EA] '$names' is built by concatenation in a loop (O(n) in size). Consider collecting the parts into an array and using 'implode(...)' once after the loop.">$names .= $row['name']</weak_warning>;
+    }
+    $namesParts = [];
+}
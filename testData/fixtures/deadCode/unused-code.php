@@ -0,0 +1,44 @@
+<?php
+
+interface UnusedCodeContract {
+    public function contract();
+}
+
+abstract class UnusedCodeParent implements UnusedCodeContract {
+    abstract protected function template();
+
+    public function contract() {
+        return $this->template() . $this->viaArray() . static::viaString();
+    }
+
+    private function viaArray() {
+        return call_user_func([$this, 'callback']);
+    }
+
+    public static function viaString() {
+        return array_map('UnusedCodeParent::mapper', []);
+    }
+
+    public function callback() {}
+    public static function mapper() {}
+
+    private function <weak_warning descr="[EA] 'privateUnused' seems to be unused: no call sites found in the project.">privateUnused</weak_warning>() {}
+    protected function <weak_warning descr="[EA] 'protectedUnused' seems to be unused: no call sites found in the project.">protectedUnused</weak_warning>() {}
+    public function <weak_warning descr="[EA] 'publicUnused' seems to be unused: no call sites found in the project.">publicUnused</weak_warning>() {}
+
+    public function __toString() {
+        return '';
+    }
+}
+
+final class UnusedCodeChild extends UnusedCodeParent {
+    protected function template() {
+        return '';
+    }
+}
+
+class <weak_warning descr="[EA] 'UnusedCodeOrphan' seems to be unused: the class is not referenced in the project.">UnusedCodeOrphan</weak_warning> {}
+
+function unused_code_factory() {
+    return new UnusedCodeChild();
+}
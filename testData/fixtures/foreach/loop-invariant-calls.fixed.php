@@ -0,0 +1,106 @@
+<?php
+
+class LoopInvariantCallsHolder
+{
+    private $items = [];
+
+    /** @pure */
+    private function normalize($value) {
+        return trim($value);
+    }
+
+    public function method(array $items, array $map, $text, $prefix, array $queue, array $lookup) {
+        $mapKeys = array_keys($map);
+        foreach ($items as $item) {
+            if (in_array($item, $mapKeys)) {
+                echo $item;
+            }
+        }
+
+        foreach ($items as $item) {
+            foreach ($item as $value) {
+                echo $value . preg_quote($prefix, '/');
+            }
+        }
+
+        $index = 0;
+        $itemsCount = count($items);
+        while ($index < $itemsCount) {
+            ++$index;
+        }
+
+        $date = date('Y');
+        for ($i = 0; $i < 10; ++$i) {
+            echo $date;
+        }
+
+        $class = get_class($this);
+        foreach ($items as $item) {
+            echo $class, $item;
+            echo $class;
+        }
+
+        foreach ($items as $item) {
+            echo $this->normalize($text), $item;
+        }
+
+        /* false-positives: operands modified in the loop, evaluated once, impure calls, properties, closures and guarded calls */
+        foreach ($map as $key => $value) {
+            $map[] = $value;
+            echo count($map);
+        }
+        while (count($queue) > 0) {
+            array_shift($queue);
+        }
+        foreach ($items as $item) {
+            $text .= $item;
+            echo strlen($text);
+        }
+        foreach ($items as $item) {
+            echo strtolower($item), date('H:i'), rand(1, 10), count($this->items);
+        }
+        for ($i = 0; $i < count($items); ++$i) {
+            echo $i;
+        }
+        foreach (array_keys($map) as $key) {
+            echo $key;
+        }
+        foreach ($items as $item) {
+            $callback = function () use ($map) {
+                return array_keys($map);
+            };
+        }
+        foreach ($items as $item) {
+            try {
+                echo $item;
+            } catch (\Exception $exception) {
+                echo get_class($exception);
+            }
+        }
+        foreach ($items as $item) {
+            global $config;
+            static $cache;
+            echo count($config), count($cache), $item;
+        }
+        foreach ($items as $item) {
+            if ($item === null) {
+                continue;
+            }
+            echo strlen($prefix);
+        }
+        foreach ($items as $item) {
+            if ($lookup !== []) {
+                echo count($lookup);
+            }
+            echo $item ? get_class($this) : '', $item && strlen($prefix), $item ?? array_sum($lookup);
+        }
+        /* the closure call is not an occurrence: it is evaluated when the closure is called */
+        $lookupCount = count($lookup);
+        foreach ($items as $item) {
+            echo $lookupCount, $item;
+            $callback = function () use ($lookup) {
+                return count($lookup);
+            };
+        }
+    }
+}
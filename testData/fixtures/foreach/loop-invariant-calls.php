@@ -0,0 +1,101 @@
+<?php
+
+class LoopInvariantCallsHolder
+{
+    private $items = [];
+
+    /** @pure */
+    private function normalize($value) {
+        return trim($value);
+    }
+
+    public function method(array $items, array $map, $text, $prefix, array $queue, array $lookup) {
+        foreach ($items as $item) {
+            if (in_array($item, <weak_warning descr="[EA] 'array_keys(...)' is evaluated in each loop iteration, but its arguments are not changing in the loop. Consider extracting it into a local variable before the loop.">array_keys($map)</weak_warning>)) {
+                echo $item;
+            }
+        }
+
+        foreach ($items as $item) {
+            foreach ($item as $value) {
+                echo $value . <weak_warning descr="[EA] 'preg_quote(...)' is evaluated in each loop iteration, but its arguments are not changing in the loop. Consider extracting it into a local variable before the loop.">preg_quote($prefix, '/')</weak_warning>;
+            }
+        }
+
+        $index = 0;
+        while ($index < <weak_warning descr="[EA] 'count(...)' is evaluated in each loop iteration, but its arguments are not changing in the loop. Consider extracting it into a local variable before the loop.">count($items)</weak_warning>) {
+            ++$index;
+        }
+
+        for ($i = 0; $i < 10; ++$i) {
+            echo <weak_warning descr="[EA] 'date(...)' is evaluated in each loop iteration, but its arguments are not changing in the loop. Consider extracting it into a local variable before the loop.">date('Y')</weak_warning>;
+        }
+
+        foreach ($items as $item) {
+            echo <weak_warning descr="[EA] 'get_class(...)' is evaluated in each loop iteration, but its arguments are not changing in the loop. Consider extracting it into a local variable before the loop.">get_class($this)</weak_warning>, $item;
+            echo get_class($this);
+        }
+
+        foreach ($items as $item) {
+            echo <weak_warning descr="[EA] 'normalize(...)' is evaluated in each loop iteration, but its arguments are not changing in the loop. Consider extracting it into a local variable before the loop.">$this->normalize($text)</weak_warning>, $item;
+        }
+
+        /* false-positives: operands modified in the loop, evaluated once, impure calls, properties, closures and guarded calls */
+        foreach ($map as $key => $value) {
+            $map[] = $value;
+            echo count($map);
+        }
+        while (count($queue) > 0) {
+            array_shift($queue);
+        }
+        foreach ($items as $item) {
+            $text .= $item;
+            echo strlen($text);
+        }
+        foreach ($items as $item) {
+            echo strtolower($item), date('H:i'), rand(1, 10), count($this->items);
+        }
+        for ($i = 0; $i < count($items); ++$i) {
+            echo $i;
+        }
+        foreach (array_keys($map) as $key) {
+            echo $key;
+        }
+        foreach ($items as $item) {
+            $callback = function () use ($map) {
+                return array_keys($map);
+            };
+        }
+        foreach ($items as $item) {
+            try {
+                echo $item;
+            } catch (\Exception $exception) {
+                echo get_class($exception);
+            }
+        }
+        foreach ($items as $item) {
+            global $config;
+            static $cache;
+            echo count($config), count($cache), $item;
+        }
+        foreach ($items as $item) {
+            if ($item === null) {
+                continue;
+            }
+            echo strlen($prefix);
+        }
+        foreach ($items as $item) {
+            if ($lookup !== []) {
+                echo count($lookup);
+            }
+            echo $item ? get_class($this) : '', $item && strlen($prefix), $item ?? array_sum($lookup);
+        }
+        /* the closure call is not an occurrence: it is evaluated when the closure is called */
+        foreach ($items as $item) {
+            echo <weak_warning descr="[EA] 'count(...)' is evaluated in each loop iteration, but its arguments are not changing in the loop. Consider extracting it into a local variable before the loop.">count($lookup)</weak_warning>, $item;
+            $callback = function () use ($lookup) {
+                return count($lookup);
+            };
+        }
+    }
+}
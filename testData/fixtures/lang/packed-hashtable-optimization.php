@@ -14,4 +14,59 @@
     array('00' => $x, 1 => $y, 2 => $z);
     array(0 => $x, 1 => $y, 2 => $z);
     array(0 => $x, $i => $y, 2 => $z);
-    array($i => $x, $i => $y, 2 => $z);
\ No newline at end of file
+    array($i => $x, $i => $y, 2 => $z);
+
+    function packed_shapes_holder(array $rows, $name) {
+        $list = [1, 2, 3];
+        $list[] = 4;
+        $list[4] = 5;
+        <weak_warning descr="[EA] '$list' is a packed array, the string key converts it into a hash (more memory is used).">$list['total']</weak_warning> = 15;
+
+        $sparse = [];
+        $sparse[] = 'a';
+        <weak_warning descr="[EA] '$sparse' is a packed array, the key is out of its sequence and converts it into a hash (more memory is used).">$sparse[100]</weak_warning> = 'b';
+
+        $negative = ['a', 'b'];
+        <weak_warning descr="[EA] '$negative' is a packed array, the key is out of its sequence and converts it into a hash (more memory is used).">$negative[-1]</weak_warning> = 'c';
+
+        $holes = ['a', 'b', 'c'];
+        unset($holes[1]);
+        <weak_warning descr="[EA] '$holes' is a packed array, writing into a hole left by 'unset(...)' converts it into a hash (more memory is used).">$holes[1]</weak_warning> = 'd';
+
+        $appended = ['a', 'b'];
+        unset($appended[1]);
+        $appended[] = 'c';
+        <weak_warning descr="[EA] '$appended' is a packed array, writing into a hole left by 'unset(...)' converts it into a hash (more memory is used).">$appended[1]</weak_warning> = 'd';
+
+        /* false-positives: maps from the start, dense keys, removing the last element, unknown layouts */
+        $map = [];
+        $map['key'] = 'value';
+        $dense = ['a'];
+        $dense[1] = 'b';
+        $dense[5] = 'c';
+        $stack = ['a', 'b'];
+        unset($stack[1]);
+        $stack[1] = 'c';
+        $rows['key'] = 'value';
+        $loop = [];
+        foreach ($rows as $row) {
+            $loop[] = $row;
+        }
+        $loop[100] = 'x';
+        $sorted = [2, 1];
+        sort($sorted);
+        $sorted['key'] = 3;
+        $names = ['a'];
+        $names[$name] = 'b';
+        $names['key'] = 'c';
+        $position = 0;
+        $dynamic  = ['a', 'b', 'c'];
+        unset($dynamic[$position]);
+        $position = 2;
+        $dynamic[$position] = 'd';
+        $looped = ['a', 'b', 'c'];
+        foreach ($rows as $row) {
+            unset($looped[0]);
+        }
+        $looped[0] = 'd';
+    }
@@ -0,0 +1,45 @@
+<?php
+
+function cases_holder(array $items, array $allowed, array $matrix, $text) {
+    $seen = [];
+    $log  = '';
+    foreach ($items as $item) {
+        if (<weak_warning descr="[EA] 'in_array(...)' is O(n) and is executed in a loop growing its argument, which is O(n²) in total. Consider a keyed lookup: 'array_flip(...)' before the loop and 'isset(...)' in it.">in_array($item, $seen)</weak_warning>) {
+            continue;
+        }
+        $seen[] = $item;
+
+        $position = <weak_warning descr="[EA] 'array_search(...)' is O(n) and is executed in each loop iteration, which is O(n*m) in total. Consider a keyed lookup: 'array_flip(...)' before the loop and 'isset(...)' in it.">array_search($item, $allowed)</weak_warning>;
+        $log     .= $item;
+        $clean    = <weak_warning descr="[EA] 'str_replace(...)' is O(n) and is executed in a loop growing its argument, which is O(n²) in total. Consider collecting the parts and processing the result once after the loop.">str_replace("\r", '', $log)</weak_warning>;
+    }
+
+    foreach ($matrix as $row) {
+        foreach ($row as $cell) {
+            $found = <weak_warning descr="[EA] 'in_array(...)' is O(n) and is executed in each loop iteration, which is O(n*m) in total. Consider a keyed lookup: 'array_flip(...)' before the loop and 'isset(...)' in it.">in_array($cell, $allowed)</weak_warning>;
+        }
+    }
+
+    while ($items) {
+        $item = <weak_warning descr="[EA] 'array_shift(...)' is O(n) and is executed in each loop iteration, which is O(n*m) in total. Consider using 'SplQueue' or 'array_pop(...)' on a reversed array.">array_shift($items)</weak_warning>;
+    }
+
+    /* false-positives: outside of loops, loop headers, per-iteration containers, literals, non-growing strings */
+    $found = in_array($text, $allowed);
+    foreach (array_unique($items) as $item) {
+        $parts = explode(',', $item);
+        $found = in_array('a', $parts);
+        $found = in_array($item, ['a', 'b']);
+        $line  = str_replace('{item}', $item, $text);
+        $text  = str_replace('{item}', $item, $text);
+    }
+    foreach ($matrix as $row) {
+        $found = in_array('a', $row);
+    }
+    foreach ($matrix as $row) {
+        $parts = explode(',', $row[0]);
+        foreach ($row as $cell) {
+            $found = in_array($cell, $parts);
+        }
+    }
+}
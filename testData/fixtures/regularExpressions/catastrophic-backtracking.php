@@ -0,0 +1,19 @@
+<?php
+
+    preg_match(<error descr="[EA] Backtracking is exponential in the worst case, e.g. for str_repeat('a', 32) . '!' (ReDoS, Regular Expression Denial of Service).">'/^(\w+\s?)*$/'</error>, '');
+    preg_match(<error descr="[EA] Backtracking is exponential in the worst case, e.g. for str_repeat('a', 32) . '!a@' (ReDoS, Regular Expression Denial of Service).">'/^([a-z0-9]+\.?)*[a-z0-9]+@/'</error>, '');
+    preg_match(<error descr="[EA] Backtracking is exponential in the worst case, e.g. for str_repeat('x', 32) . '!y' (ReDoS, Regular Expression Denial of Service).">'/(x+x+)+y/'</error>, '');
+    preg_match(<error descr="[EA] Backtracking is exponential in the worst case, e.g. for str_repeat('a', 32) . '!' (ReDoS, Regular Expression Denial of Service).">'/^( \w+ \s? )* $/x'</error>, '');
+
+    preg_match(<warning descr="[EA] Backtracking is O(n^2) in the worst case, e.g. for str_repeat('0', 4096) . '!x' (ReDoS, Regular Expression Denial of Service).">'/^\d+\d+x/'</warning>, '');
+    preg_match(<warning descr="[EA] Backtracking is O(n^3) in the worst case, e.g. for str_repeat('0', 4096) . '!x' (ReDoS, Regular Expression Denial of Service).">'/\d+\d+x/'</warning>, '');
+    preg_match(<warning descr="[EA] Backtracking is O(n^2) in the worst case, e.g. for str_repeat('0', 4096) . '!' (ReDoS, Regular Expression Denial of Service).">'/^\d+\w+$/'</warning>, '');
+
+    /* possessive, atomic, unambiguous or nothing can fail after the loops */
+    preg_match('/^(\w+\s?)*+$/', '');
+    preg_match('/^(?>\w+\s?)*$/', '');
+    preg_match('/^(\w+\s)*$/', '');
+    preg_match('/^(\w+\s{,1})*$/', '');
+    preg_match('/^\d+\s+$/', '');
+    preg_match('/(\d+\d+)+/', '');
+    preg_match('/(\d+)\1$/', '');
@@ -4,7 +4,11 @@
     preg_match('/|.+|/s', '');
     preg_match('/|.*|/s', '');
     preg_match('/\[ea:...\]/s', '');
+    preg_match('/prefix # any
+                 . suffix/sx', '');
 
     preg_match(<weak_warning descr="[EA] 's' modifier is ambiguous here ('.' is missing in the given pattern).">'/(prefix)[a-z](suffix)/s'</weak_warning>, '');
     preg_match(<weak_warning descr="[EA] 's' modifier is ambiguous here ('.' is missing in the given pattern).">'/(prefix)[a-z.](suffix)/s'</weak_warning>, '');
-    preg_match(<weak_warning descr="[EA] 's' modifier is ambiguous here ('.' is missing in the given pattern).">'/(prefix)[a-z]\.(suffix)/s'</weak_warning>, '');
\ No newline at end of file
+    preg_match(<weak_warning descr="[EA] 's' modifier is ambiguous here ('.' is missing in the given pattern).">'/(prefix)[a-z]\.(suffix)/s'</weak_warning>, '');
+    preg_match(<weak_warning descr="[EA] 's' modifier is ambiguous here ('.' is missing in the given pattern).">'/prefix # any.
+                 suffix/sx'</weak_warning>, '');
\ No newline at end of file